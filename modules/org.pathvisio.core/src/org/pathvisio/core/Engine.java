@@ -127,7 +127,7 @@ public boolean hasVPathwayModel() {
 	 * @throws ConverterException
 	 */
 	public void importPathwayModel(File file) throws ConverterException {
-		Logger.log.trace("Importing pathway from " + file);
+		Logger.log.trace("Importing pathway from {}", file);
 
 		Set<PathwayModelImporter> set = getPathwayModelImporters(file);
 		if (set != null && set.size() == 1) {
@@ -552,7 +552,7 @@ public void dispose() {
 	 *          there were none.
 	 */
 	public List<String> exportPathwayModel(File file, PathwayModel pathwayModel) throws ConverterException {
-		Logger.log.trace("Exporting pathway to " + file);
+		Logger.log.trace("Exporting pathway to {}", file);
 
 		Set<PathwayModelExporter> set = getPathwayModelExporters(file);
 
@@ -576,7 +576,7 @@ public List<String> exportPathwayModel(File file, PathwayModel pathwayModel) thr
 	 *          there were none.
 	 */
 	public List<String> exportPathwayModel(File file, PathwayModel pathwayModel, int zoom) throws ConverterException {
-		Logger.log.trace("Exporting pathway to " + file);
+		Logger.log.trace("Exporting pathway to {}", file);
 
 		Set<PathwayModelExporter> set = getPathwayModelExporters(file);
 
@@ -601,7 +601,7 @@ public List<String> exportPathwayModel(File file, PathwayModel pathwayModel, int
 	 */
 	public List<String> exportPathwayModel(File file, PathwayModel pathwayModel, String exporterName)
 			throws ConverterException {
-		Logger.log.trace("Exporting pathway to " + file);
+		Logger.log.trace("Exporting pathway to {}", file);
 
 		Set<PathwayModelExporter> set = getPathwayModelExporters(file);
 		try {
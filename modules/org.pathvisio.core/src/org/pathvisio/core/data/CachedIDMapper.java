@@ -0,0 +1,379 @@
+/*******************************************************************************
+ * PathVisio, a tool for data visualization and analysis using biological pathways
+ * Copyright 2006-2022 BiGCaT Bioinformatics, WikiPathways
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.pathvisio.core.data;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.bridgedb.AttributeMapper;
+import org.bridgedb.DataSource;
+import org.bridgedb.IDMapper;
+import org.bridgedb.IDMapperCapabilities;
+import org.bridgedb.IDMapperException;
+import org.bridgedb.IDMapperStack;
+import org.bridgedb.Xref;
+import org.pathvisio.libgpml.debug.Logger;
+
+/**
+ * IDMapper decorator that remembers the results of an {@link IDMapperStack}.
+ * Dialogs, the backpage and the data pane repeat the same queries over and
+ * over, this avoids going to the database each time.
+ * <p>
+ * Each operation has its own size-bounded LRU cache, with hit and miss
+ * counters. Results are only valid for the set of mappers in the stack, so
+ * {@link GdbManager} clears this cache whenever a mapper is added or removed.
+ * <p>
+ * Returned sets and maps are copies, callers may modify them.
+ */
+public class CachedIDMapper implements IDMapper, AttributeMapper {
+
+	/**
+	 * The cached operations, used to report statistics.
+	 */
+	public enum Operation {
+		MAP_ID, XREF_EXISTS, FREE_SEARCH, FREE_ATTRIBUTE_SEARCH, ATTRIBUTES
+	}
+
+	/** Default maximum number of results kept per operation */
+	public static final int DEFAULT_CACHE_SIZE = 2000;
+
+	private final IDMapperStack stack;
+	private final Map<Operation, Cache<Object, Object>> caches = new HashMap<Operation, Cache<Object, Object>>();
+
+	/**
+	 * Incremented each time the cache is cleared. Results of queries that started
+	 * before the cache was cleared are not stored, because they may come from a
+	 * mapper that has been removed since.
+	 */
+	private volatile int generation = 0;
+
+	public CachedIDMapper(IDMapperStack stack) {
+		this(stack, DEFAULT_CACHE_SIZE);
+	}
+
+	public CachedIDMapper(IDMapperStack stack, int cacheSize) {
+		this.stack = stack;
+		for (Operation op : Operation.values()) {
+			caches.put(op, new Cache<Object, Object>(cacheSize));
+		}
+	}
+
+	/**
+	 * Returns the decorated stack.
+	 */
+	public IDMapperStack getStack() {
+		return stack;
+	}
+
+	/**
+	 * Discards all cached results, e.g. because the set of mappers has changed.
+	 */
+	public void clear() {
+		generation++;
+		for (Cache<Object, Object> c : caches.values()) {
+			c.clear();
+		}
+	}
+
+	/**
+	 * Number of queries of the given operation that were answered from the cache.
+	 */
+	public long getHits(Operation op) {
+		return caches.get(op).hits;
+	}
+
+	/**
+	 * Number of queries of the given operation that went to the database.
+	 */
+	public long getMisses(Operation op) {
+		return caches.get(op).misses;
+	}
+
+	/**
+	 * Summary of the hit and miss counts of all operations, for debugging.
+	 */
+	public String getStatistics() {
+		StringBuilder builder = new StringBuilder();
+		for (Operation op : Operation.values()) {
+			builder.append(op + ": " + getHits(op) + " hits, " + getMisses(op) + " misses\n");
+		}
+		return builder.toString();
+	}
+
+	/**
+	 * Looks up cross references and attributes of the given xrefs, so that later
+	 * queries for them are answered from the cache. Don't call this from the UI
+	 * thread, because this method blocks.
+	 */
+	public void prefetch(Collection<Xref> xrefs) throws IDMapperException {
+		Set<Xref> valid = new LinkedHashSet<Xref>();
+		for (Xref ref : xrefs) {
+			if (ref != null && ref.getId() != null && !"".equals(ref.getId()) && ref.getDataSource() != null) {
+				valid.add(ref);
+			}
+		}
+		mapID(valid);
+		for (Xref ref : valid) {
+			if (Thread.currentThread().isInterrupted()) {
+				return;
+			}
+			getAttributes(ref);
+		}
+		Logger.log.trace("Prefetched mappings of {} xrefs", valid.size());
+	}
+
+	// IDMapper
+
+	public Map<Xref, Set<Xref>> mapID(Collection<Xref> srcXrefs, DataSource... tgtDataSources)
+			throws IDMapperException {
+		Set<DataSource> targets = targets(tgtDataSources);
+		Cache<Object, Object> cache = caches.get(Operation.MAP_ID);
+		Map<Xref, Set<Xref>> result = new HashMap<Xref, Set<Xref>>();
+		Set<Xref> missing = new LinkedHashSet<Xref>();
+		for (Xref ref : srcXrefs) {
+			@SuppressWarnings("unchecked")
+			Set<Xref> cached = (Set<Xref>) cache.get(Arrays.asList(ref, targets));
+			if (cached == null) {
+				missing.add(ref);
+			} else {
+				result.put(ref, new HashSet<Xref>(cached));
+			}
+		}
+		if (missing.size() > 0) {
+			int gen = generation;
+			Map<Xref, Set<Xref>> mapped = stack.mapID(missing, tgtDataSources);
+			for (Xref ref : missing) {
+				Set<Xref> refs = mapped.get(ref);
+				if (refs == null) {
+					refs = Collections.emptySet();
+				}
+				put(cache, gen, Arrays.asList(ref, targets), new HashSet<Xref>(refs));
+				if (refs.size() > 0) {
+					result.put(ref, new HashSet<Xref>(refs));
+				}
+			}
+		}
+		return result;
+	}
+
+	public Set<Xref> mapID(Xref ref, DataSource... tgtDataSources) throws IDMapperException {
+		Set<Xref> result = mapID(Collections.singleton(ref), tgtDataSources).get(ref);
+		return result == null ? new HashSet<Xref>() : result;
+	}
+
+	public boolean xrefExists(Xref xref) throws IDMapperException {
+		Cache<Object, Object> cache = caches.get(Operation.XREF_EXISTS);
+		Boolean cached = (Boolean) cache.get(xref);
+		if (cached == null) {
+			int gen = generation;
+			cached = stack.xrefExists(xref);
+			put(cache, gen, xref, cached);
+		}
+		return cached;
+	}
+
+	@SuppressWarnings("unchecked")
+	public Set<Xref> freeSearch(String text, int limit) throws IDMapperException {
+		Cache<Object, Object> cache = caches.get(Operation.FREE_SEARCH);
+		List<Object> key = Arrays.<Object>asList(text, limit);
+		Set<Xref> cached = (Set<Xref>) cache.get(key);
+		if (cached == null) {
+			int gen = generation;
+			cached = new HashSet<Xref>(stack.freeSearch(text, limit));
+			put(cache, gen, key, cached);
+		}
+		return new HashSet<Xref>(cached);
+	}
+
+	public IDMapperCapabilities getCapabilities() {
+		return stack.getCapabilities();
+	}
+
+	/**
+	 * Closes the decorated stack.
+	 */
+	public void close() throws IDMapperException {
+		clear();
+		stack.close();
+	}
+
+	public boolean isConnected() {
+		return stack.isConnected();
+	}
+
+	// AttributeMapper
+
+	@SuppressWarnings("unchecked")
+	public Set<String> getAttributes(Xref ref, String attrType) throws IDMapperException {
+		Cache<Object, Object> cache = caches.get(Operation.ATTRIBUTES);
+		List<Object> key = Arrays.<Object>asList(ref, attrType);
+		// answer from the full attribute map, if we already have it
+		Map<String, Set<String>> all = (Map<String, Set<String>>) cache.peek(ref);
+		if (all != null) {
+			cache.countHit();
+			Set<String> values = all.get(attrType);
+			return values == null ? new HashSet<String>() : new HashSet<String>(values);
+		}
+		Set<String> cached = (Set<String>) cache.get(key);
+		if (cached == null) {
+			int gen = generation;
+			Set<String> values = stack.getAttributes(ref, attrType);
+			cached = values == null ? new HashSet<String>() : new HashSet<String>(values);
+			put(cache, gen, key, cached);
+		}
+		return new HashSet<String>(cached);
+	}
+
+	@SuppressWarnings("unchecked")
+	public Map<String, Set<String>> getAttributes(Xref ref) throws IDMapperException {
+		Cache<Object, Object> cache = caches.get(Operation.ATTRIBUTES);
+		Map<String, Set<String>> cached = (Map<String, Set<String>>) cache.get(ref);
+		if (cached == null) {
+			int gen = generation;
+			Map<String, Set<String>> values = stack.getAttributes(ref);
+			cached = new HashMap<String, Set<String>>();
+			if (values != null) {
+				for (Map.Entry<String, Set<String>> e : values.entrySet()) {
+					cached.put(e.getKey(), new HashSet<String>(e.getValue()));
+				}
+			}
+			put(cache, gen, ref, cached);
+		}
+		Map<String, Set<String>> result = new HashMap<String, Set<String>>();
+		for (Map.Entry<String, Set<String>> e : cached.entrySet()) {
+			result.put(e.getKey(), new HashSet<String>(e.getValue()));
+		}
+		return result;
+	}
+
+	public boolean isFreeAttributeSearchSupported() {
+		return stack.isFreeAttributeSearchSupported();
+	}
+
+	@SuppressWarnings("unchecked")
+	public Map<Xref, String> freeAttributeSearch(String query, String attrType, int limit)
+			throws IDMapperException {
+		Cache<Object, Object> cache = caches.get(Operation.FREE_ATTRIBUTE_SEARCH);
+		List<Object> key = Arrays.<Object>asList(query, attrType, limit);
+		Map<Xref, String> cached = (Map<Xref, String>) cache.get(key);
+		if (cached == null) {
+			int gen = generation;
+			cached = new LinkedHashMap<Xref, String>(stack.freeAttributeSearch(query, attrType, limit));
+			put(cache, gen, key, cached);
+		}
+		return new LinkedHashMap<Xref, String>(cached);
+	}
+
+	@SuppressWarnings("unchecked")
+	public Map<Xref, Set<String>> freeAttributeSearchEx(String query, String attrType, int limit)
+			throws IDMapperException {
+		Cache<Object, Object> cache = caches.get(Operation.FREE_ATTRIBUTE_SEARCH);
+		List<Object> key = Arrays.<Object>asList("ex", query, attrType, limit);
+		Map<Xref, Set<String>> cached = (Map<Xref, Set<String>>) cache.get(key);
+		if (cached == null) {
+			int gen = generation;
+			cached = new LinkedHashMap<Xref, Set<String>>(stack.freeAttributeSearchEx(query, attrType, limit));
+			put(cache, gen, key, cached);
+		}
+		Map<Xref, Set<String>> result = new LinkedHashMap<Xref, Set<String>>();
+		for (Map.Entry<Xref, Set<String>> e : cached.entrySet()) {
+			result.put(e.getKey(), new HashSet<String>(e.getValue()));
+		}
+		return result;
+	}
+
+	public Set<String> getAttributeSet() throws IDMapperException {
+		return stack.getAttributeSet();
+	}
+
+	public String toString() {
+		return "Cached " + stack.toString();
+	}
+
+	// helpers
+
+	private static Set<DataSource> targets(DataSource... tgtDataSources) {
+		Set<DataSource> targets = new HashSet<DataSource>();
+		if (tgtDataSources != null) {
+			targets.addAll(Arrays.asList(tgtDataSources));
+		}
+		return targets;
+	}
+
+	/**
+	 * Stores a result, unless the cache was cleared while it was being queried.
+	 */
+	private void put(Cache<Object, Object> cache, int gen, Object key, Object value) {
+		if (gen == generation) {
+			cache.put(key, value);
+		}
+	}
+
+	/**
+	 * Synchronized LRU map that counts hits and misses.
+	 */
+	private static class Cache<K, V> {
+		private final Map<K, V> map;
+		private volatile long hits = 0;
+		private volatile long misses = 0;
+
+		Cache(final int size) {
+			map = new LinkedHashMap<K, V>(16, 0.75f, true) {
+				protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+					return size() > size;
+				}
+			};
+		}
+
+		synchronized V get(K key) {
+			V value = map.get(key);
+			if (value == null) {
+				misses++;
+			} else {
+				hits++;
+			}
+			return value;
+		}
+
+		/**
+		 * get without counting
+		 */
+		synchronized V peek(K key) {
+			return map.get(key);
+		}
+
+		synchronized void countHit() {
+			hits++;
+		}
+
+		synchronized void put(K key, V value) {
+			map.put(key, value);
+		}
+
+		synchronized void clear() {
+			map.clear();
+		}
+	}
+}
@@ -0,0 +1,438 @@
+/*******************************************************************************
+ * PathVisio, a tool for data visualization and analysis using biological pathways
+ * Copyright 2006-2022 BiGCaT Bioinformatics, WikiPathways
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.pathvisio.core.data;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import org.bridgedb.DataSource;
+import org.pathvisio.core.preferences.GlobalPreference;
+import org.pathvisio.libgpml.debug.Logger;
+import org.pathvisio.libgpml.model.Citation;
+import org.pathvisio.libgpml.model.PathwayModel;
+import org.pathvisio.libgpml.util.XrefUtils;
+import org.xml.sax.SAXException;
+
+/**
+ * Caches the results of PubMed, DOI and ECO lookups, so that looking up the
+ * same citation again does not go online. Results are kept in a properties file
+ * in the application directory, and expire after a configurable time. Records
+ * that were not found expire sooner than records that were found. Lookups that
+ * fail because of network problems are not cached.
+ * <p>
+ * The dialogs share the cache returned by {@link #getCurrent()}. The online
+ * queries go through a {@link Fetcher}, which can be replaced to test offline.
+ */
+public class CitationCache {
+
+	private static final long DAY = 24L * 60 * 60 * 1000;
+
+	/** Default time to live of records that were found: 30 days */
+	public static final long DEFAULT_TTL = 30 * DAY;
+
+	/** Default time to live of records that were not found: 1 day */
+	public static final long DEFAULT_NOT_FOUND_TTL = DAY;
+
+	/** Maximum number of pmids in a single prefetch query */
+	static final int PREFETCH_BATCH = 100;
+
+	static final String PUBMED = "pubmed";
+	static final String ECO = "eco";
+	static final String DOI = "doi";
+
+	private static final String TIME = "time";
+	private static final String FOUND = "found";
+	private static final String TITLE = "title";
+	private static final String SOURCE = "source";
+	private static final String YEAR = "year";
+	private static final String AUTHORS = "authors";
+
+	private static CitationCache current;
+
+	private final Properties properties = new Properties();
+	private final File cacheFile;
+	private final Fetcher fetcher;
+	private final ExecutorService prefetchExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+		public Thread newThread(Runnable r) {
+			Thread t = new Thread(r, "Citation prefetch");
+			t.setDaemon(true);
+			return t;
+		}
+	});
+	private long ttl = DEFAULT_TTL;
+	private long notFoundTtl = DEFAULT_NOT_FOUND_TTL;
+	private boolean dirty;
+
+	/**
+	 * Create a cache.
+	 * 
+	 * @param cacheFile file to keep the cache in, or null to keep it in memory
+	 *                  only.
+	 * @param fetcher   used to open the urls of online queries.
+	 */
+	public CitationCache(File cacheFile, Fetcher fetcher) {
+		this.cacheFile = cacheFile;
+		this.fetcher = fetcher;
+	}
+
+	/**
+	 * Returns the cache shared by the application, loading it from disk the first
+	 * time.
+	 */
+	public static synchronized CitationCache getCurrent() {
+		if (current == null) {
+			current = new CitationCache(new File(GlobalPreference.getApplicationDir(), "citation-cache.properties"),
+					Fetcher.DEFAULT);
+			current.load();
+		}
+		return current;
+	}
+
+	/**
+	 * Set the time to live of records that were found, in milliseconds.
+	 */
+	public void setTimeToLive(long ttl) {
+		this.ttl = ttl;
+	}
+
+	/**
+	 * Set the time to live of records that were not found, in milliseconds.
+	 */
+	public void setNotFoundTimeToLive(long ttl) {
+		this.notFoundTtl = ttl;
+	}
+
+	/**
+	 * Look up a PubMed record, e.g. "17588266". Don't call this from the UI
+	 * thread, because this method may block.
+	 * 
+	 * @return the record, check {@link PubMedResult#getError()} to see if it was
+	 *         found.
+	 */
+	public PubMedResult getPubMed(String pmid) throws IOException, SAXException {
+		PubMedResult result = getPubMedResult(PUBMED, pmid);
+		if (result == null) {
+			PubMedQuery query = new PubMedQuery(pmid, fetcher);
+			query.execute();
+			result = query.getResult();
+			putPubMedResult(PUBMED, pmid, result);
+			store();
+		}
+		return result;
+	}
+
+	/**
+	 * Look up an evidence record. Don't call this from the UI thread, because this
+	 * method may block.
+	 */
+	public PubMedResult getECO(String id) throws IOException, SAXException {
+		PubMedResult result = getPubMedResult(ECO, id);
+		if (result == null) {
+			ECOQuery query = new ECOQuery(id, fetcher);
+			query.execute();
+			result = query.getResult();
+			putPubMedResult(ECO, id, result);
+			store();
+		}
+		return result;
+	}
+
+	/**
+	 * Look up a DOI, e.g. "10.1016/0006-291X(75)90498-2". Don't call this from the
+	 * UI thread, because this method may block.
+	 * 
+	 * @return the record, or null if the DOI was not found.
+	 */
+	public DOIResult2 getDOI(String doi) throws IOException {
+		DOIResult2 result = lookupDOI(doi);
+		store();
+		return result;
+	}
+
+	/**
+	 * Like {@link #getDOI(String)}, but does not write the cache to file.
+	 */
+	private DOIResult2 lookupDOI(String doi) throws IOException {
+		String key = key(DOI, doi);
+		synchronized (this) {
+			if (isValid(key)) {
+				if (!Boolean.parseBoolean(properties.getProperty(key + FOUND))) {
+					return null;
+				}
+				DOIResult2 result = new DOIResult2();
+				result.setId(doi);
+				return result;
+			}
+		}
+		DOIQuery2 query = new DOIQuery2(doi, fetcher);
+		query.execute();
+		DOIResult2 result = query.getResult();
+		synchronized (this) {
+			remove(key);
+			properties.setProperty(key + TIME, "" + System.currentTimeMillis());
+			properties.setProperty(key + FOUND, "" + (result != null));
+			dirty = true;
+		}
+		return result;
+	}
+
+	/**
+	 * Look up all citations of a pathway that are not cached yet, so that the
+	 * dialogs can show them without delay. PubMed records are looked up in
+	 * batches. Don't call this from the UI thread, because this method blocks.
+	 */
+	public void prefetch(PathwayModel pathwayModel) throws IOException, SAXException {
+		Set<String> pmids = new LinkedHashSet<String>();
+		Set<String> dois = new LinkedHashSet<String>();
+		collectUncached(pathwayModel, pmids, dois);
+		prefetch(pmids, dois);
+	}
+
+	/**
+	 * Like {@link #prefetch(PathwayModel)}, but looks up the citations in a
+	 * background thread, e.g. when a pathway has been opened. The citations are
+	 * collected before this method returns, so the pathway may be edited while
+	 * they are looked up. Errors are logged.
+	 * 
+	 * @return the background task.
+	 */
+	public Future<?> prefetchInBackground(PathwayModel pathwayModel) {
+		final Set<String> pmids = new LinkedHashSet<String>();
+		final Set<String> dois = new LinkedHashSet<String>();
+		collectUncached(pathwayModel, pmids, dois);
+		return prefetchExecutor.submit(new Runnable() {
+			public void run() {
+				try {
+					prefetch(pmids, dois);
+				} catch (IOException e) {
+					Logger.log.warn("Could not prefetch citations", e);
+				} catch (SAXException e) {
+					Logger.log.warn("Could not prefetch citations", e);
+				}
+			}
+		});
+	}
+
+	private void collectUncached(PathwayModel pathwayModel, Set<String> pmids, Set<String> dois) {
+		for (Citation c : pathwayModel.getCitations()) {
+			DataSource ds = XrefUtils.getDataSource(c.getXref());
+			String id = XrefUtils.getIdentifier(c.getXref());
+			if (ds == null || id == null || "".equals(id)) {
+				continue;
+			}
+			if ("PubMed".equals(ds.getFullName()) && !isCached(PUBMED, id)) {
+				pmids.add(id);
+			} else if ("DOI".equals(ds.getFullName()) && !isCached(DOI, id)) {
+				dois.add(id);
+			}
+		}
+	}
+
+	private void prefetch(Set<String> pmids, Set<String> dois) throws IOException, SAXException {
+		if (pmids.isEmpty() && dois.isEmpty()) {
+			return;
+		}
+		try {
+			List<String> batch = new ArrayList<String>();
+			for (String pmid : pmids) {
+				batch.add(pmid);
+				if (batch.size() >= PREFETCH_BATCH) {
+					prefetchPubMed(batch);
+					batch.clear();
+				}
+			}
+			if (batch.size() > 0) {
+				prefetchPubMed(batch);
+			}
+			for (String doi : dois) {
+				lookupDOI(doi);
+			}
+			Logger.log.info("Prefetched " + pmids.size() + " PubMed records and " + dois.size() + " DOIs");
+		} finally {
+			// write the file once, also keeping what was found before a failure
+			store();
+		}
+	}
+
+	private void prefetchPubMed(List<String> pmids) throws IOException, SAXException {
+		PubMedQuery query = new PubMedQuery(pmids, fetcher);
+		query.execute();
+		for (Map.Entry<String, PubMedResult> e : query.getResults().entrySet()) {
+			putPubMedResult(PUBMED, e.getKey(), e.getValue());
+		}
+	}
+
+	/**
+	 * Returns true if a valid record for the given id is in the cache.
+	 */
+	synchronized boolean isCached(String kind, String id) {
+		return isValid(key(kind, id));
+	}
+
+	private synchronized PubMedResult getPubMedResult(String kind, String id) {
+		String key = key(kind, id);
+		if (!isValid(key)) {
+			return null;
+		}
+		PubMedResult result = new PubMedResult();
+		result.setId(id);
+		result.setError(!Boolean.parseBoolean(properties.getProperty(key + FOUND)));
+		result.setTitle(properties.getProperty(key + TITLE));
+		result.setSource(properties.getProperty(key + SOURCE));
+		result.setYear(properties.getProperty(key + YEAR));
+		String authors = properties.getProperty(key + AUTHORS);
+		if (authors != null && authors.length() > 0) {
+			for (String author : authors.split("\n")) {
+				result.addAuthor(author);
+			}
+		}
+		return result;
+	}
+
+	private synchronized void putPubMedResult(String kind, String id, PubMedResult result) {
+		String key = key(kind, id);
+		remove(key);
+		properties.setProperty(key + TIME, "" + System.currentTimeMillis());
+		properties.setProperty(key + FOUND, "" + !result.getError());
+		setIfNotNull(key + TITLE, result.getTitle());
+		setIfNotNull(key + SOURCE, result.getSource());
+		setIfNotNull(key + YEAR, result.getYear());
+		properties.setProperty(key + AUTHORS, String.join("\n", result.getAuthors()));
+		dirty = true;
+	}
+
+	private void setIfNotNull(String key, String value) {
+		if (value != null) {
+			properties.setProperty(key, value);
+		}
+	}
+
+	/**
+	 * Prefix of all properties of a record.
+	 */
+	private static String key(String kind, String id) {
+		return kind + ":" + id + "#";
+	}
+
+	/**
+	 * Returns true if the record with the given key exists and has not yet
+	 * expired.
+	 */
+	private boolean isValid(String key) {
+		String time = properties.getProperty(key + TIME);
+		if (time == null) {
+			return false;
+		}
+		long age;
+		try {
+			age = System.currentTimeMillis() - Long.parseLong(time);
+		} catch (NumberFormatException e) {
+			return false;
+		}
+		boolean found = Boolean.parseBoolean(properties.getProperty(key + FOUND));
+		return age >= 0 && age < (found ? ttl : notFoundTtl);
+	}
+
+	/**
+	 * Removes all properties of the record with the given key.
+	 */
+	private void remove(String key) {
+		for (String field : new String[] { TIME, FOUND, TITLE, SOURCE, YEAR, AUTHORS }) {
+			properties.remove(key + field);
+		}
+	}
+
+	/**
+	 * Discards all cached records.
+	 */
+	public synchronized void clear() {
+		properties.clear();
+		dirty = true;
+	}
+
+	/**
+	 * Load the cache from file, dropping expired records.
+	 */
+	public synchronized void load() {
+		properties.clear();
+		if (cacheFile == null || !cacheFile.exists()) {
+			return;
+		}
+		try (InputStream in = new FileInputStream(cacheFile)) {
+			properties.load(in);
+		} catch (IOException e) {
+			Logger.log.error("Could not read citation cache " + cacheFile, e);
+		}
+		Set<String> expired = new HashSet<String>();
+		for (String name : properties.stringPropertyNames()) {
+			if (name.endsWith("#" + TIME)) {
+				String key = name.substring(0, name.length() - TIME.length());
+				if (!isValid(key)) {
+					expired.add(key);
+				}
+			}
+		}
+		for (String key : expired) {
+			remove(key);
+		}
+		dirty = expired.size() > 0;
+	}
+
+	/**
+	 * Writes the cache back to file, if it has changed. The cache is written to a
+	 * temporary file first, and then moved in place, so that a crash while
+	 * writing never leaves a truncated cache file.
+	 */
+	public synchronized void store() {
+		if (!dirty || cacheFile == null) {
+			return;
+		}
+		File tmp = new File(cacheFile.getParentFile(), cacheFile.getName() + ".tmp");
+		try {
+			try (OutputStream out = new FileOutputStream(tmp)) {
+				properties.store(out, "PathVisio citation cache");
+			}
+			try {
+				Files.move(tmp.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+						StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(tmp.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+			dirty = false;
+		} catch (IOException e) {
+			Logger.log.error("Could not write citation cache " + cacheFile, e);
+		}
+	}
+}
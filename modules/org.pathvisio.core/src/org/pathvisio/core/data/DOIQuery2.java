@@ -16,25 +16,20 @@
  ******************************************************************************/
 package org.pathvisio.core.data;
 
-import java.io.BufferedReader;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.net.MalformedURLException;
 import java.net.URL;
-import java.net.URLConnection;
-
-import javax.swing.JOptionPane;
 
 import org.pathvisio.libgpml.debug.Logger;
 import org.xml.sax.helpers.DefaultHandler;
 
 /**
- * This class can handle a query for a pubmed record.
- * Just instantiate this class with a given pubmed id (pmid),
+ * This class can handle a query for a DOI record.
+ * Just instantiate this class with a given DOI,
  * and run execute() (this method may block, so don't call it from the UI thread)
- * The result can then be obtained with getResult()
+ * The result can then be obtained with getResult(), which is null if the DOI was not found.
  * TODO: move DefaultHandler methods to private subclass, they don't need to be exposed.
  */
 public class DOIQuery2 extends DefaultHandler {
@@ -42,52 +37,49 @@ public class DOIQuery2 extends DefaultHandler {
 
 	String id;
 	DOIResult2 result;
+	private final Fetcher fetcher;
 
 	/**
-	 * Prepares a new pubmed query for the given pmid, e.g. "17588266".
+	 * Prepares a new DOI query for the given doi, e.g. "10.1016/0006-291X(75)90498-2".
 	 */
 	public DOIQuery2(String id) {
+		this(id, Fetcher.DEFAULT);
+	}
+
+	/**
+	 * Prepares a new DOI query for the given doi, which uses the given fetcher to
+	 * open the query url.
+	 */
+	public DOIQuery2(String id, Fetcher fetcher) {
 		this.id = id;
+		this.fetcher = fetcher;
 	}
 
 	/**
 	 * Execute a query. Don't call this from the UI thread, because
 	 * this method blocks.
+	 * <p>
+	 * If the DOI is not found, the result is null.
 	 * 
-	 * @return true if valid DOI identifier (url), false otherwise
-	 * @throws FileNotFoundException
 	 * @throws MalformedURLException
-	 * @throws IOException
+	 * @throws IOException if the DOI registry could not be reached.
 	 */
-	public void execute() throws FileNotFoundException, MalformedURLException, IOException {
+	public void execute() throws MalformedURLException, IOException {
 		//TODO: assert not being in UI thread
 		String urlString = URL_BASE;
 		urlString += id + "/agency";
-		System.out.println("Here1 ");
 
 		URL url = new URL(urlString);
-//		InputStream is = url.openStream();
-
-		String inputLine = null;
-		try {       
-            URLConnection conn = url.openConnection();
-            // open the stream and put it into BufferedReader
-            BufferedReader br = new BufferedReader(
-                               new InputStreamReader(conn.getInputStream()));
-            br.close();
-            result = new DOIResult2();
-    		result.setId(id);
-			JOptionPane.showConfirmDialog(null, "DOI found for identifier.", "Message", JOptionPane.PLAIN_MESSAGE);
+		result = null;
+		try {
+			InputStream is = fetcher.open(url);
+			is.close();
+			result = new DOIResult2();
+			result.setId(id);
 		} catch (FileNotFoundException e) {  // Could not find DOI id file
-			JOptionPane.showConfirmDialog(null, "DOI not found for identifier.", "Warning", JOptionPane.PLAIN_MESSAGE);
-			Logger.log.error("Couldn't open doi url " + url);
-        } catch (MalformedURLException e) {
-			Logger.log.error("Couldn't open doi url " + url);
-        } catch (IOException e) {
-			Logger.log.error("Couldn't open doi url " + url);
-        }
+			Logger.log.info("DOI not found " + url);
+		}
 	}
-	
 
 	/**
 	 * get the result, after execute() has finished.
@@ -44,9 +44,20 @@ public class ECOQuery extends DefaultHandler {
 	 * Prepares a new pubmed query for the given pmid, e.g. "17588266".
 	 */
 	public ECOQuery(String id) {
+		this(id, Fetcher.DEFAULT);
+	}
+
+	/**
+	 * Prepares a new query for the given id, which uses the given fetcher to open
+	 * the query url.
+	 */
+	public ECOQuery(String id, Fetcher fetcher) {
 		this.id = id;
+		this.fetcher = fetcher;
 	}
 
+	private final Fetcher fetcher;
+
 	/**
 	 * Execute a query. Don't call this from the UI thread, because this method
 	 * blocks.
@@ -57,7 +68,7 @@ public void execute() throws IOException, SAXException {
 		urlString += "?db=pubmed&id=" + id;
 
 		URL url = new URL(urlString);
-		InputStream is = url.openStream();
+		InputStream is = fetcher.open(url);
 
 		XMLReader xmlReader = XMLReaderFactory.createXMLReader();
 		xmlReader.setContentHandler(this);
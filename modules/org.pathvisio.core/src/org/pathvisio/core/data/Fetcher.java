@@ -0,0 +1,46 @@
+/*******************************************************************************
+ * PathVisio, a tool for data visualization and analysis using biological pathways
+ * Copyright 2006-2022 BiGCaT Bioinformatics, WikiPathways
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.pathvisio.core.data;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+
+/**
+ * Opens the response of an online query, such as a {@link PubMedQuery}. The
+ * default fetcher simply opens the url; tests can supply their own fetcher to
+ * run against a local stub server or canned responses.
+ */
+public interface Fetcher {
+
+	/**
+	 * Open the response for the given url.
+	 * 
+	 * @throws java.io.FileNotFoundException if the server reports that the
+	 *                                        requested record does not exist.
+	 */
+	public InputStream open(URL url) throws IOException;
+
+	/**
+	 * Fetcher that opens a connection to the url.
+	 */
+	public static final Fetcher DEFAULT = new Fetcher() {
+		public InputStream open(URL url) throws IOException {
+			return url.openStream();
+		}
+	};
+}
@@ -17,9 +17,13 @@
 package org.pathvisio.core.data;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 
 import javax.swing.AbstractListModel;
 
@@ -27,6 +31,7 @@
 import org.bridgedb.IDMapper;
 import org.bridgedb.IDMapperException;
 import org.bridgedb.IDMapperStack;
+import org.bridgedb.Xref;
 import org.pathvisio.core.preferences.GlobalPreference;
 import org.pathvisio.core.preferences.PreferenceManager;
 import org.pathvisio.libgpml.debug.Logger;
@@ -42,6 +47,15 @@
  */
 public class GdbManager extends AbstractListModel {
 	private final IDMapperStack currentGdb = new IDMapperStack();
+	private final CachedIDMapper cachedGdb = new CachedIDMapper(currentGdb);
+	private final XrefSearch xrefSearch = new XrefSearch(currentGdb);
+	private final ExecutorService prefetchExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+		public Thread newThread(Runnable r) {
+			Thread t = new Thread(r, "GdbManager prefetch");
+			t.setDaemon(true);
+			return t;
+		}
+	});
 	private IDMapper metabolites;
 	private IDMapper genes;
 	private IDMapper interactions;
@@ -62,6 +76,43 @@ public IDMapperStack getCurrentGdb() {
 		return currentGdb;
 	}
 
+	/**
+	 * Returns a caching view on {@link #getCurrentGdb()}. Use this for interactive
+	 * lookups that are likely to be repeated, such as the backpage and search
+	 * dialogs. The cache is cleared when a mapper is added or removed.
+	 */
+	public CachedIDMapper getCachedGdb() {
+		return cachedGdb;
+	}
+
+	/**
+	 * Returns the search used by the search dialogs, which queries all mappers in
+	 * parallel. Its cache is cleared when a mapper is added or removed.
+	 */
+	public XrefSearch getXrefSearch() {
+		return xrefSearch;
+	}
+
+	/**
+	 * Looks up the mappings and attributes of the given xrefs in a background
+	 * thread, so that later interactive lookups are answered from the cache.
+	 */
+	public void prefetch(Collection<Xref> xrefs) {
+		final List<Xref> refs = new ArrayList<Xref>(xrefs);
+		prefetchExecutor.execute(new Runnable() {
+			public void run() {
+				if (currentGdb.getMappers().size() == 0) {
+					return;
+				}
+				try {
+					cachedGdb.prefetch(refs);
+				} catch (IDMapperException e) {
+					Logger.log.error("Could not prefetch mappings", e);
+				}
+			}
+		});
+	}
+
 	/**
 	 * Returns true if the current Gdb isConnected()
 	 */
@@ -141,7 +192,7 @@ public void addMapper(IDMapper mapper, String connectionString) throws IDMapperE
 		connectionStrings.put(mapper, connectionString);
 		GdbEvent e = new GdbEvent(this, GdbEvent.Type.ADDED, mapper.toString());
 		fireGdbEvent(e);
-		Logger.log.trace("Added database: " + mapper.toString());
+		Logger.log.trace("Added database: {}", mapper);
 	}
 
 	public void removeMapper(IDMapper mapper) throws IDMapperException {
@@ -181,6 +232,9 @@ public void removeGdbEventListener(GdbEventListener l) {
 	}
 
 	private void fireGdbEvent(GdbEvent e) {
+		// cached results may come from a mapper that is no longer there
+		cachedGdb.clear();
+		xrefSearch.clear();
 		for (GdbEventListener l : gdbEventListeners)
 			l.gdbEvent(e);
 		// also notify ListModel listeners
@@ -0,0 +1,579 @@
+/*******************************************************************************
+ * PathVisio, a tool for data visualization and analysis using biological pathways
+ * Copyright 2006-2022 BiGCaT Bioinformatics, WikiPathways
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.pathvisio.core.data;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import org.bridgedb.Xref;
+import org.pathvisio.libgpml.debug.Logger;
+import org.pathvisio.libgpml.io.ConverterException;
+import org.pathvisio.libgpml.model.PathwayModel;
+import org.pathvisio.libgpml.model.ShapedElement;
+import org.pathvisio.libgpml.model.Xrefable;
+import org.pathvisio.libgpml.util.XrefUtils;
+
+/**
+ * Index of the elements of a collection of GPML files, to find which pathways
+ * contain an {@link Xref} or a text without reading the files again. For every
+ * data node, state, group, label and shape the index keeps the xref and the
+ * words of the text label.
+ * <p>
+ * {@link #update(Collection)} reads only the files that are new or have
+ * changed since they were indexed, judged by modification time and size, and
+ * drops files that no longer exist. The index can be saved to disk with
+ * {@link #save()} and loaded with {@link #load()}, so that the next update only
+ * needs to check the modification times.
+ * <p>
+ * Queries are answered from inverted indexes, in time proportional to the
+ * number of results. All methods are thread safe.
+ */
+public class PathwayIndex {
+
+	/** Incremented when the file format of {@link #save()} changes */
+	private static final int FORMAT_VERSION = 1;
+
+	/**
+	 * An indexed element of a pathway.
+	 */
+	public static final class Hit {
+		private final File file;
+		private final String elementId;
+		private final String textLabel;
+		private final Xref xref;
+
+		private Hit(File file, String elementId, String textLabel, Xref xref) {
+			this.file = file;
+			this.elementId = elementId;
+			this.textLabel = textLabel;
+			this.xref = xref;
+		}
+
+		/**
+		 * Returns the GPML file of the pathway.
+		 */
+		public File getFile() {
+			return file;
+		}
+
+		public String getElementId() {
+			return elementId;
+		}
+
+		/**
+		 * Returns the text label of the element, or null.
+		 */
+		public String getTextLabel() {
+			return textLabel;
+		}
+
+		/**
+		 * Returns the xref of the element, or null.
+		 */
+		public Xref getXref() {
+			return xref;
+		}
+
+		public String toString() {
+			return file.getName() + "#" + elementId;
+		}
+	}
+
+	/**
+	 * The indexed elements of one file, and the state of the file when it was
+	 * read.
+	 */
+	private static class Entry {
+		final long lastModified;
+		final long length;
+		final List<Hit> hits;
+
+		Entry(long lastModified, long length, List<Hit> hits) {
+			this.lastModified = lastModified;
+			this.length = length;
+			this.hits = hits;
+		}
+	}
+
+	private final File indexFile;
+	private final Map<File, Entry> entries = new HashMap<File, Entry>();
+	private final Map<Xref, Set<Hit>> xrefIndex = new HashMap<Xref, Set<Hit>>();
+	private final Map<String, Set<Hit>> wordIndex = new HashMap<String, Set<Hit>>();
+	private boolean dirty = false;
+
+	/**
+	 * @param indexFile file to save the index in, or null to keep it in memory
+	 *                  only.
+	 */
+	public PathwayIndex(File indexFile) {
+		this.indexFile = indexFile;
+	}
+
+	// ================================================================================
+	// Indexing Methods
+	// ================================================================================
+	/**
+	 * Brings the index up to date with the given GPML files. Files that are new or
+	 * have changed since they were indexed are read, in parallel, and indexed
+	 * files that are not in the collection are removed from the index. Files that
+	 * can not be read are logged and left out, also if they were indexed before.
+	 * 
+	 * @param files the GPML files of the collection.
+	 * @return the number of files that were read.
+	 */
+	public int update(Collection<File> files) throws InterruptedException {
+		final Set<File> current = new HashSet<File>();
+		List<File> changed = new ArrayList<File>();
+		synchronized (this) {
+			for (File f : files) {
+				File file = f.getAbsoluteFile();
+				current.add(file);
+				Entry entry = entries.get(file);
+				if (entry == null || entry.lastModified != file.lastModified() || entry.length != file.length()) {
+					changed.add(file);
+				}
+			}
+			for (File file : new ArrayList<File>(entries.keySet())) {
+				if (!current.contains(file)) {
+					remove(file);
+				}
+			}
+		}
+		if (changed.isEmpty()) {
+			return 0;
+		}
+		int threads = Math.min(changed.size(), Runtime.getRuntime().availableProcessors());
+		ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "Pathway indexer");
+				t.setDaemon(true);
+				return t;
+			}
+		});
+		try {
+			List<Future<?>> futures = new ArrayList<Future<?>>();
+			for (final File file : changed) {
+				futures.add(executor.submit(new Callable<Void>() {
+					public Void call() throws ConverterException {
+						// file state is taken before reading, so a change while
+						// reading is picked up by the next update
+						long lastModified = file.lastModified();
+						long length = file.length();
+						PathwayModel pathwayModel = new PathwayModel();
+						pathwayModel.readFromXml(file, false);
+						add(file, lastModified, length, pathwayModel);
+						return null;
+					}
+				}));
+			}
+			for (int i = 0; i < futures.size(); i++) {
+				try {
+					futures.get(i).get();
+				} catch (ExecutionException e) {
+					Logger.log.error("Could not index " + changed.get(i), e.getCause());
+					// don't keep the hits of what the file contained before
+					remove(changed.get(i));
+				}
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		return changed.size();
+	}
+
+	/**
+	 * Brings the index up to date with the GPML files in the given directory and
+	 * its subdirectories, see {@link #update(Collection)}.
+	 * 
+	 * @param dir the directory of the collection.
+	 * @return the number of files that were read.
+	 */
+	public int update(File dir) throws InterruptedException {
+		List<File> files = new ArrayList<File>();
+		listGpmlFiles(dir, files);
+		return update(files);
+	}
+
+	private static void listGpmlFiles(File dir, List<File> files) {
+		File[] children = dir.listFiles();
+		if (children == null) {
+			return;
+		}
+		for (File child : children) {
+			if (child.isDirectory()) {
+				listGpmlFiles(child, files);
+			} else if (child.getName().toLowerCase(Locale.ROOT).endsWith(".gpml")) {
+				files.add(child);
+			}
+		}
+	}
+
+	/**
+	 * Indexes a pathway model that was read from, or saved to, the given file,
+	 * replacing what was indexed for the file before.
+	 * 
+	 * @param file         the GPML file.
+	 * @param pathwayModel the contents of the file.
+	 */
+	public void add(File file, PathwayModel pathwayModel) {
+		file = file.getAbsoluteFile();
+		add(file, file.lastModified(), file.length(), pathwayModel);
+	}
+
+	private void add(File file, long lastModified, long length, PathwayModel pathwayModel) {
+		List<Hit> hits = new ArrayList<Hit>();
+		for (ShapedElement e : pathwayModel.getShapedElements()) {
+			String textLabel = e.getTextLabel();
+			if (textLabel != null && textLabel.isEmpty()) {
+				textLabel = null;
+			}
+			Xref xref = e instanceof Xrefable ? ((Xrefable) e).getXref() : null;
+			if (xref != null && (xref.getId() == null || xref.getId().isEmpty())) {
+				xref = null;
+			}
+			if (textLabel != null || xref != null) {
+				hits.add(new Hit(file, e.getElementId(), textLabel, xref));
+			}
+		}
+		synchronized (this) {
+			remove(file);
+			addEntry(file, new Entry(lastModified, length, hits));
+		}
+	}
+
+	private void addEntry(File file, Entry entry) {
+		entries.put(file, entry);
+		for (Hit hit : entry.hits) {
+			if (hit.xref != null) {
+				put(xrefIndex, hit.xref, hit);
+			}
+			for (String word : tokenize(hit.textLabel)) {
+				put(wordIndex, word, hit);
+			}
+		}
+		dirty = true;
+	}
+
+	/**
+	 * Removes a file from the index.
+	 * 
+	 * @param file the GPML file.
+	 */
+	public synchronized void remove(File file) {
+		Entry entry = entries.remove(file.getAbsoluteFile());
+		if (entry == null) {
+			return;
+		}
+		for (Hit hit : entry.hits) {
+			if (hit.xref != null) {
+				unput(xrefIndex, hit.xref, hit);
+			}
+			for (String word : tokenize(hit.textLabel)) {
+				unput(wordIndex, word, hit);
+			}
+		}
+		dirty = true;
+	}
+
+	private static <K> void put(Map<K, Set<Hit>> index, K key, Hit hit) {
+		Set<Hit> hits = index.get(key);
+		if (hits == null) {
+			hits = new LinkedHashSet<Hit>();
+			index.put(key, hits);
+		}
+		hits.add(hit);
+	}
+
+	private static <K> void unput(Map<K, Set<Hit>> index, K key, Hit hit) {
+		Set<Hit> hits = index.get(key);
+		if (hits != null) {
+			hits.remove(hit);
+			if (hits.isEmpty()) {
+				index.remove(key);
+			}
+		}
+	}
+
+	/**
+	 * Splits a text into lower case words of letters and digits.
+	 * 
+	 * @param text the text, may be null.
+	 * @return the distinct words, in order.
+	 */
+	static Set<String> tokenize(String text) {
+		if (text == null) {
+			return Collections.emptySet();
+		}
+		Set<String> words = new LinkedHashSet<String>();
+		int start = -1;
+		for (int i = 0; i <= text.length(); i++) {
+			boolean letter = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+			if (letter && start < 0) {
+				start = i;
+			} else if (!letter && start >= 0) {
+				words.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+				start = -1;
+			}
+		}
+		return words;
+	}
+
+	// ================================================================================
+	// Query Methods
+	// ================================================================================
+	/**
+	 * Returns the elements with the given xref.
+	 * 
+	 * @param xref the xref.
+	 * @return the elements, grouped by file.
+	 */
+	public synchronized List<Hit> findByXref(Xref xref) {
+		Set<Hit> hits = xrefIndex.get(xref);
+		return hits == null ? Collections.<Hit>emptyList() : sortByFile(hits);
+	}
+
+	/**
+	 * Returns the elements with a text label that contains all words of the given
+	 * text, in any order. Words are compared ignoring case.
+	 * 
+	 * @param text the text.
+	 * @return the elements, grouped by file, or an empty list if the text has no
+	 *         words.
+	 */
+	public synchronized List<Hit> findByText(String text) {
+		Set<String> words = tokenize(text);
+		if (words.isEmpty()) {
+			return Collections.emptyList();
+		}
+		// intersect starting from the rarest word
+		Set<Hit> smallest = null;
+		for (String word : words) {
+			Set<Hit> hits = wordIndex.get(word);
+			if (hits == null) {
+				return Collections.emptyList();
+			}
+			if (smallest == null || hits.size() < smallest.size()) {
+				smallest = hits;
+			}
+		}
+		List<Hit> result = new ArrayList<Hit>();
+		for (Hit hit : smallest) {
+			boolean all = true;
+			for (String word : words) {
+				Set<Hit> hits = wordIndex.get(word);
+				if (hits != smallest && !hits.contains(hit)) {
+					all = false;
+					break;
+				}
+			}
+			if (all) {
+				result.add(hit);
+			}
+		}
+		return sortByFile(result);
+	}
+
+	/**
+	 * Returns the files with an element with the given xref.
+	 */
+	public Set<File> findPathwaysByXref(Xref xref) {
+		return getFiles(findByXref(xref));
+	}
+
+	/**
+	 * Returns the files with an element with a text label that contains all words
+	 * of the given text, see {@link #findByText(String)}.
+	 */
+	public Set<File> findPathwaysByText(String text) {
+		return getFiles(findByText(text));
+	}
+
+	private static Set<File> getFiles(List<Hit> hits) {
+		Set<File> files = new LinkedHashSet<File>();
+		for (Hit hit : hits) {
+			files.add(hit.file);
+		}
+		return files;
+	}
+
+	/**
+	 * Orders hits by file, keeping the order of the elements of each file.
+	 */
+	private static List<Hit> sortByFile(Collection<Hit> hits) {
+		Map<File, List<Hit>> byFile = new LinkedHashMap<File, List<Hit>>();
+		for (Hit hit : hits) {
+			List<Hit> list = byFile.get(hit.file);
+			if (list == null) {
+				list = new ArrayList<Hit>();
+				byFile.put(hit.file, list);
+			}
+			list.add(hit);
+		}
+		List<Hit> result = new ArrayList<Hit>(hits.size());
+		for (List<Hit> list : byFile.values()) {
+			result.addAll(list);
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the indexed files.
+	 */
+	public synchronized Set<File> getFiles() {
+		return new HashSet<File>(entries.keySet());
+	}
+
+	// ================================================================================
+	// Persistence Methods
+	// ================================================================================
+	/**
+	 * Replaces the index with the one saved in the index file, if it exists.
+	 */
+	public synchronized void load() {
+		if (indexFile == null || !indexFile.exists()) {
+			return;
+		}
+		entries.clear();
+		xrefIndex.clear();
+		wordIndex.clear();
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)))) {
+			if (in.readInt() != FORMAT_VERSION) {
+				Logger.log.warn("Ignoring pathway index " + indexFile + " of an older version");
+				return;
+			}
+			int files = in.readInt();
+			for (int i = 0; i < files; i++) {
+				File file = new File(readString(in));
+				long lastModified = in.readLong();
+				long length = in.readLong();
+				int count = in.readInt();
+				List<Hit> hits = new ArrayList<Hit>(count);
+				for (int j = 0; j < count; j++) {
+					String elementId = readString(in);
+					String textLabel = readString(in);
+					String id = readString(in);
+					String dataSource = readString(in);
+					Xref xref = id == null ? null
+							: dataSource == null ? new Xref(id, null) : XrefUtils.createXref(id, dataSource);
+					hits.add(new Hit(file, elementId, textLabel, xref));
+				}
+				addEntry(file, new Entry(lastModified, length, hits));
+			}
+		} catch (IOException e) {
+			Logger.log.error("Could not read pathway index " + indexFile, e);
+			entries.clear();
+			xrefIndex.clear();
+			wordIndex.clear();
+		}
+		dirty = false;
+	}
+
+	/**
+	 * Writes the index to the index file, if it has changed since it was loaded
+	 * or saved. The index is written to a temporary file first, and then moved in
+	 * place, so that a crash while saving never leaves a truncated index file.
+	 */
+	public synchronized void save() {
+		if (!dirty || indexFile == null) {
+			return;
+		}
+		File tmp = new File(indexFile.getParentFile(), indexFile.getName() + ".tmp");
+		try {
+			writeIndex(tmp);
+			try {
+				Files.move(tmp.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+						StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(tmp.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+			dirty = false;
+		} catch (IOException e) {
+			Logger.log.error("Could not write pathway index " + indexFile, e);
+		}
+	}
+
+	private void writeIndex(File file) throws IOException {
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+			out.writeInt(FORMAT_VERSION);
+			out.writeInt(entries.size());
+			for (Map.Entry<File, Entry> e : entries.entrySet()) {
+				Entry entry = e.getValue();
+				writeString(out, e.getKey().getPath());
+				out.writeLong(entry.lastModified);
+				out.writeLong(entry.length);
+				out.writeInt(entry.hits.size());
+				for (Hit hit : entry.hits) {
+					writeString(out, hit.elementId);
+					writeString(out, hit.textLabel);
+					writeString(out, hit.xref == null ? null : hit.xref.getId());
+					writeString(out, hit.xref == null ? null : XrefUtils.getXrefDataSourceStr(hit.xref.getDataSource()));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Writes a string that may be null or longer than
+	 * {@link DataOutputStream#writeUTF(String)} allows.
+	 */
+	private static void writeString(DataOutputStream out, String s) throws IOException {
+		if (s == null) {
+			out.writeInt(-1);
+		} else {
+			byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+			out.writeInt(bytes.length);
+			out.write(bytes);
+		}
+	}
+
+	private static String readString(DataInputStream in) throws IOException {
+		int length = in.readInt();
+		if (length < 0) {
+			return null;
+		}
+		byte[] bytes = new byte[length];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+}
@@ -19,8 +19,12 @@
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
-
-import javax.swing.JOptionPane;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 import org.xml.sax.Attributes;
 import org.xml.sax.InputSource;
@@ -33,8 +37,12 @@
  * This class can handle a query for a pubmed record. Just instantiate this
  * class with a given pubmed id (pmid), and run execute() (this method may
  * block, so don't call it from the UI thread) The result can then be obtained
- * with getResult() TODO: move DefaultHandler methods to private subclass, they
- * don't need to be exposed.
+ * with getResult()
+ * <p>
+ * Several records can be queried at once by passing a collection of pmids, the
+ * results can then be obtained with getResults(). Usually the query should go
+ * through {@link CitationCache}, to avoid repeating lookups. TODO: move
+ * DefaultHandler methods to private subclass, they don't need to be exposed.
  */
 public class PubMedQuery extends DefaultHandler {
 	static final String URL_BASE = "https://eutils.ncbi.nlm.nih.gov/entrez/eutils/esummary.fcgi";
@@ -42,11 +50,36 @@ public class PubMedQuery extends DefaultHandler {
 	String id;
 	PubMedResult result;
 
+	private final List<String> ids;
+	private final Fetcher fetcher;
+	private final List<PubMedResult> parsed = new ArrayList<PubMedResult>();
+	private boolean error;
+	private Map<String, PubMedResult> results;
+
 	/**
 	 * Prepares a new pubmed query for the given pmid, e.g. "17588266".
 	 */
 	public PubMedQuery(String id) {
+		this(id, Fetcher.DEFAULT);
+	}
+
+	/**
+	 * Prepares a new pubmed query for the given pmid, which uses the given fetcher
+	 * to open the query url.
+	 */
+	public PubMedQuery(String id, Fetcher fetcher) {
 		this.id = id;
+		this.ids = Collections.singletonList(id);
+		this.fetcher = fetcher;
+	}
+
+	/**
+	 * Prepares a new pubmed query for several pmids at once, which uses the given
+	 * fetcher to open the query url.
+	 */
+	public PubMedQuery(Collection<String> ids, Fetcher fetcher) {
+		this.ids = new ArrayList<String>(ids);
+		this.fetcher = fetcher;
 	}
 
 	/**
@@ -56,34 +89,66 @@ public PubMedQuery(String id) {
 	public void execute() throws IOException, SAXException {
 		// TODO: assert not being in UI thread
 		String urlString = URL_BASE;
-		urlString += "?db=pubmed&id=" + id;
+		urlString += "?db=pubmed&id=" + String.join(",", ids);
 
 		URL url = new URL(urlString);
-		InputStream is = url.openStream();
+		InputStream is = fetcher.open(url);
 
 		XMLReader xmlReader = XMLReaderFactory.createXMLReader();
 		xmlReader.setContentHandler(this);
 		xmlReader.setEntityResolver(this);
 
-		result = new PubMedResult();
-		result.setId(id);
-		xmlReader.parse(new InputSource(is));
+		parsed.clear();
+		error = false;
+		result = null;
+		try {
+			xmlReader.parse(new InputSource(is));
+		} finally {
+			is.close();
+		}
 
-		is.close();
-		if(!result.getError()) {
-			JOptionPane.showConfirmDialog(null, "PubMed identifier found.", "Message", JOptionPane.PLAIN_MESSAGE);
+		results = new LinkedHashMap<String, PubMedResult>();
+		if (ids.size() == 1) {
+			// single record: keep the id as it was asked for, e.g. with leading zeros
+			PubMedResult single = parsed.size() == 1 ? parsed.get(0) : new PubMedResult();
+			single.setId(ids.get(0));
+			if (error || parsed.size() != 1) {
+				single.setError(true);
+			}
+			results.put(ids.get(0), single);
 		} else {
-			JOptionPane.showConfirmDialog(null, "PubMed identifier not found.", "Warning", JOptionPane.PLAIN_MESSAGE);
+			Map<String, PubMedResult> byId = new LinkedHashMap<String, PubMedResult>();
+			for (PubMedResult r : parsed) {
+				byId.put(r.getId(), r);
+			}
+			for (String pmid : ids) {
+				PubMedResult r = byId.get(pmid);
+				if (r == null) { // not returned, so the pmid is not valid
+					r = new PubMedResult();
+					r.setId(pmid);
+					r.setError(true);
+				}
+				results.put(pmid, r);
+			}
 		}
+		result = results.get(ids.get(0));
 	}
 
 	/**
-	 * get the result, after execute() has finished.
+	 * get the result, after execute() has finished. For queries of several
+	 * records, this is the result of the first pmid.
 	 */
 	public PubMedResult getResult() {
 		return result;
 	}
 
+	/**
+	 * get the results by pmid, after execute() has finished.
+	 */
+	public Map<String, PubMedResult> getResults() {
+		return results;
+	}
+
 	String parsingId;
 	String parsingName;
 	String parsingElement;
@@ -94,8 +159,11 @@ public void startElement(String uri, String localName, String qName, Attributes
 		parsingElement = localName;
 		parsingName = attributes.getValue(NAME);
 		parsingValue = "";
-		if (localName == "ERROR") {
-			result.setError(true);
+		if ("ERROR".equals(localName)) {
+			error = true;
+		} else if (DOCSUM.equals(localName)) {
+			result = new PubMedResult();
+			parsed.add(result);
 		}
 	}
 
@@ -106,10 +174,15 @@ public void characters(char[] ch, int start, int length) throws SAXException {
 
 	public void endElement(String uri, String localName, String qName) throws SAXException {
 //		System.out.println("End element: " + localName);
-		if (parsingElement == ID) {
+		if (ID.equals(parsingElement)) {
 			parsingId = parsingValue;
+			if (result != null) {
+				result.setId(parsingId);
+			}
 		}
-		if (TITLE.equalsIgnoreCase(parsingName)) {
+		if (result == null) {
+			// outside of a DocSum
+		} else if (TITLE.equalsIgnoreCase(parsingName)) {
 //			System.out.println("Parsing title: " + parsingValue);
 			result.setTitle(parsingValue);
 		} else if (PUBDATE.equalsIgnoreCase(parsingName)) {
@@ -128,6 +201,7 @@ public void endElement(String uri, String localName, String qName) throws SAXExc
 		parsingName = "";
 	}
 
+	static final String DOCSUM = "DocSum";
 	static final String ITEM = "Item";
 	static final String ID = "Id";
 	static final String NAME = "Name";
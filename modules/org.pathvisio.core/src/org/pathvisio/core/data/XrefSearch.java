@@ -0,0 +1,341 @@
+/*******************************************************************************
+ * PathVisio, a tool for data visualization and analysis using biological pathways
+ * Copyright 2006-2022 BiGCaT Bioinformatics, WikiPathways
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.pathvisio.core.data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import org.bridgedb.AttributeMapper;
+import org.bridgedb.IDMapper;
+import org.bridgedb.IDMapperException;
+import org.bridgedb.IDMapperStack;
+import org.bridgedb.Xref;
+import org.pathvisio.libgpml.debug.Logger;
+
+/**
+ * Searches all mappers of an {@link IDMapperStack} for identifiers and symbols
+ * matching a text. The query for each mapper and attribute runs in its own
+ * thread, results are passed to a {@link SearchListener} as they arrive, are
+ * de-duplicated by {@link Xref} and ranked by how well they match the text.
+ * <p>
+ * Results of earlier queries are cached. While a query runs, the cached
+ * results for a shorter prefix of the text are filtered and shown in its
+ * place, so results appear right away when the user types on. They are
+ * replaced by the real results when the query finishes, because not every
+ * mapper matches on prefixes.
+ */
+public class XrefSearch {
+
+	/** Maximum number of results per mapper and attribute */
+	public static final int QUERY_LIMIT = 200;
+
+	private static final String[] ATTRIBUTES = { AttributeMapper.MATCH_ID, "Symbol" };
+	private static final int CACHE_SIZE = 200;
+
+	/**
+	 * Receives the results of a search.
+	 */
+	public interface SearchListener {
+		/**
+		 * Called from a search thread each time a query has finished.
+		 * {@link Search#getResults()} returns the ranked results so far and
+		 * {@link Search#isDone()} tells whether this was the last query.
+		 */
+		public void resultsChanged(Search search);
+	}
+
+	private final IDMapperStack stack;
+	private final ExecutorService executor = Executors.newCachedThreadPool(new ThreadFactory() {
+		public Thread newThread(Runnable r) {
+			Thread t = new Thread(r, "Xref search");
+			t.setDaemon(true);
+			return t;
+		}
+	});
+
+	private final Map<List<Object>, Map<Xref, String>> cache = new LinkedHashMap<List<Object>, Map<Xref, String>>(
+			16, 0.75f, true) {
+		protected boolean removeEldestEntry(Map.Entry<List<Object>, Map<Xref, String>> eldest) {
+			return size() > CACHE_SIZE;
+		}
+	};
+
+	/** Incremented when the cache is cleared, see {@link CachedIDMapper} */
+	private volatile int generation = 0;
+
+	public XrefSearch(IDMapperStack stack) {
+		this.stack = stack;
+	}
+
+	/**
+	 * Discards cached results, e.g. because the set of mappers has changed.
+	 */
+	public void clear() {
+		synchronized (cache) {
+			generation++;
+			cache.clear();
+		}
+	}
+
+	/**
+	 * Starts searching for the given text in all connected mappers of the stack
+	 * and returns immediately.
+	 * 
+	 * @param text     the text to search for.
+	 * @param listener notified from the search threads, may be null.
+	 */
+	public Search search(String text, SearchListener listener) {
+		List<IDMapper> mappers = new ArrayList<IDMapper>();
+		for (IDMapper m : stack.getMappers()) {
+			if (m instanceof AttributeMapper && m.isConnected()) {
+				mappers.add(m);
+			}
+		}
+		Search search = new Search(text, listener, mappers.size() * ATTRIBUTES.length);
+		for (IDMapper m : mappers) {
+			for (String attr : ATTRIBUTES) {
+				search.start((AttributeMapper) m, attr);
+			}
+		}
+		return search;
+	}
+
+	/**
+	 * Returns the cached results for the given query, or null.
+	 */
+	private Map<Xref, String> getCached(AttributeMapper mapper, String attr, String text) {
+		synchronized (cache) {
+			return cache.get(Arrays.<Object>asList(mapper, attr, text));
+		}
+	}
+
+	/**
+	 * Returns results for the given query from the cached results of the longest
+	 * shorter prefix, or null if there are none. Only prefix results that were
+	 * not cut off by {@link #QUERY_LIMIT} are used.
+	 */
+	private Map<Xref, String> getFromPrefix(AttributeMapper mapper, String attr, String text) {
+		String lower = text.toLowerCase(Locale.ROOT);
+		for (int len = text.length() - 1; len > 0; len--) {
+			Map<Xref, String> prefix = getCached(mapper, attr, text.substring(0, len));
+			if (prefix != null && prefix.size() < QUERY_LIMIT) {
+				Map<Xref, String> result = new LinkedHashMap<Xref, String>();
+				for (Map.Entry<Xref, String> e : prefix.entrySet()) {
+					String value = AttributeMapper.MATCH_ID.equals(attr) ? e.getKey().getId() : e.getValue();
+					if (value != null && value.toLowerCase(Locale.ROOT).contains(lower)) {
+						result.put(e.getKey(), e.getValue());
+					}
+				}
+				return result;
+			}
+		}
+		return null;
+	}
+
+	private Map<Xref, String> query(AttributeMapper mapper, String attr, String text) throws IDMapperException {
+		Map<Xref, String> result = getCached(mapper, attr, text);
+		if (result == null) {
+			int gen = generation;
+			result = new LinkedHashMap<Xref, String>();
+			for (Map.Entry<Xref, String> e : mapper.freeAttributeSearch(text, attr, QUERY_LIMIT).entrySet()) {
+				// GO terms are annotated as symbols in BridgeDb databases
+				// those are filtered from the results
+				String type = e.getKey().getDataSource() == null ? null : e.getKey().getDataSource().getType();
+				if (!"ontology".equals(type) && !"probe".equals(type)) {
+					result.put(e.getKey(), e.getValue());
+				}
+			}
+			synchronized (cache) {
+				if (gen == generation) {
+					cache.put(Arrays.<Object>asList(mapper, attr, text), result);
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Sorts results: exact matches of identifier or symbol first, then those
+	 * starting with the text, then the rest. Ties are in natural order.
+	 */
+	public static void rank(List<XrefWithSymbol> results, String text) {
+		final String lower = text.toLowerCase(Locale.ROOT);
+		Collections.sort(results, new Comparator<XrefWithSymbol>() {
+			public int compare(XrefWithSymbol a, XrefWithSymbol b) {
+				int result = score(a, lower) - score(b, lower);
+				return result != 0 ? result : a.compareTo(b);
+			}
+		});
+	}
+
+	private static int score(XrefWithSymbol x, String lower) {
+		String id = x.getId() == null ? "" : x.getId().toLowerCase(Locale.ROOT);
+		String symbol = x.getSymbol() == null ? "" : x.getSymbol().toLowerCase(Locale.ROOT);
+		if (id.equals(lower) || symbol.equals(lower)) {
+			return 0;
+		} else if (id.startsWith(lower) || symbol.startsWith(lower)) {
+			return 1;
+		} else {
+			return 2;
+		}
+	}
+
+	/**
+	 * A running search, see {@link XrefSearch#search(String, SearchListener)}.
+	 */
+	public class Search {
+		private final String text;
+		private final SearchListener listener;
+		private final CountDownLatch remaining;
+		private final List<Future<?>> futures = new ArrayList<Future<?>>();
+		// results of each query, in the order the queries were started
+		private final Map<List<Object>, Map<Xref, String>> queryResults = new LinkedHashMap<List<Object>, Map<Xref, String>>();
+		private volatile boolean cancelled = false;
+		private IDMapperException error = null;
+		private int failed = 0;
+
+		private Search(String text, SearchListener listener, int queries) {
+			this.text = text;
+			this.listener = listener;
+			remaining = new CountDownLatch(queries);
+		}
+
+		public String getText() {
+			return text;
+		}
+
+		private void start(final AttributeMapper mapper, final String attr) {
+			final List<Object> key = Arrays.<Object>asList(mapper, attr);
+			Map<Xref, String> provisional = getCached(mapper, attr, text);
+			if (provisional == null) {
+				provisional = getFromPrefix(mapper, attr, text);
+			}
+			synchronized (this) {
+				queryResults.put(key, provisional == null ? Collections.<Xref, String>emptyMap() : provisional);
+			}
+			Runnable task = new Runnable() {
+				public void run() {
+					try {
+						if (!cancelled) {
+							Map<Xref, String> result = query(mapper, attr, text);
+							// results that arrive after cancel are dropped
+							synchronized (Search.this) {
+								if (!cancelled) {
+									queryResults.put(key, result);
+								}
+							}
+						}
+					} catch (IDMapperException e) {
+						synchronized (Search.this) {
+							failed++;
+							if (error == null) {
+								error = e;
+							}
+						}
+						Logger.log.error("Error while searching " + mapper + " for " + text, e);
+					} finally {
+						remaining.countDown();
+						if (!cancelled && listener != null) {
+							listener.resultsChanged(Search.this);
+						}
+					}
+				}
+			};
+			synchronized (this) {
+				futures.add(executor.submit(task));
+			}
+		}
+
+		/**
+		 * Returns the ranked, de-duplicated results found so far.
+		 */
+		public List<XrefWithSymbol> getResults() {
+			Map<Xref, XrefWithSymbol> unique = new LinkedHashMap<Xref, XrefWithSymbol>();
+			synchronized (this) {
+				for (Map<Xref, String> result : queryResults.values()) {
+					for (Map.Entry<Xref, String> e : result.entrySet()) {
+						if (!unique.containsKey(e.getKey())) {
+							unique.put(e.getKey(), new XrefWithSymbol(e.getKey(), e.getValue()));
+						}
+					}
+				}
+			}
+			List<XrefWithSymbol> results = new ArrayList<XrefWithSymbol>(unique.values());
+			rank(results, text);
+			return results;
+		}
+
+		/**
+		 * Stops all queries of this search. The listener is not notified anymore.
+		 * Queries that have not started yet are not run. Running queries are not
+		 * interrupted, because they share the database connection of their mapper,
+		 * but their results are dropped.
+		 */
+		public void cancel() {
+			synchronized (this) {
+				cancelled = true;
+				for (Future<?> f : futures) {
+					// a query that never ran does not count down itself
+					if (f.cancel(false)) {
+						remaining.countDown();
+					}
+				}
+			}
+		}
+
+		public boolean isCancelled() {
+			return cancelled;
+		}
+
+		public boolean isDone() {
+			return remaining.getCount() == 0;
+		}
+
+		/**
+		 * Returns the first error if all queries that have finished failed, or null
+		 * if there are results or no errors.
+		 */
+		public synchronized IDMapperException getError() {
+			return failed > 0 && failed == futures.size() - remaining.getCount() ? error : null;
+		}
+
+		/**
+		 * Waits until all queries have finished and returns the results.
+		 * 
+		 * @throws IDMapperException if all queries failed.
+		 */
+		public List<XrefWithSymbol> await() throws InterruptedException, IDMapperException {
+			remaining.await();
+			IDMapperException e = getError();
+			if (e != null) {
+				throw e;
+			}
+			return getResults();
+		}
+	}
+}
@@ -25,11 +25,11 @@
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
-import org.apache.commons.collections4.BidiMap;
-import org.apache.commons.collections4.bidimap.DualHashBidiMap;
 import org.jdom2.Document;
 import org.jdom2.output.Format;
 import org.jdom2.output.XMLOutputter;
@@ -69,29 +69,47 @@ public class PathwayModelTransferable implements Transferable {
 	 */
 	public static final DataFlavor GPML_DATA_FLAVOR = new DataFlavor(String.class, "text/xml");
 
-	List<CopyElement> elements;
-	PathwayModel pathwayModel;
+	/**
+	 * DataFlavor used for transferring a {@link PathwayModel} fragment within this
+	 * JVM, without going through xml. The transferred pathway model is shared
+	 * between pastes and must not be modified.
+	 */
+	public static final DataFlavor PATHWAY_MODEL_FLAVOR = createPathwayModelFlavor();
+
+	private static DataFlavor createPathwayModelFlavor() {
+		try {
+			return new DataFlavor(DataFlavor.javaJVMLocalObjectMimeType + ";class=" + PathwayModel.class.getName(),
+					"PathVisio pathway", PathwayModel.class.getClassLoader());
+		} catch (ClassNotFoundException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private final PathwayModel fragment;
+	private String xml = null;
 
 	public PathwayModelTransferable(List<CopyElement> elements) {
 		this(null, elements);
 	}
 
+	/**
+	 * Creates the transferable. The copied elements are put into a new, detached
+	 * pathway model right away, so later edits to the source pathway don't change
+	 * the clipboard contents.
+	 * 
+	 * @param source   the pathway model the elements were copied from.
+	 * @param elements the copied elements. The new elements are taken over by the
+	 *                 transferable.
+	 */
 	public PathwayModelTransferable(PathwayModel source, List<CopyElement> elements) {
-		this.elements = elements;
-		if (source == null) {
-			source = new PathwayModel();
-		}
-		this.pathwayModel = source;
+		fragment = createFragment(elements);
 	}
 
 	/**
-	 *
+	 * Creates a pathway model from the copied elements, restoring references
+	 * between copied elements: group members, aliases and line element links.
 	 */
-	public Object getTransferData(DataFlavor flavor) throws UnsupportedFlavorException, IOException {
-		Object out = null;
-
-		XMLOutputter xmlout = new XMLOutputter(Format.getPrettyFormat());
-
+	private static PathwayModel createFragment(List<CopyElement> elements) {
 		PathwayModel pnew = new PathwayModel();
 
 		boolean infoFound = false;
@@ -103,53 +121,52 @@ public Object getTransferData(DataFlavor flavor) throws UnsupportedFlavorExcepti
 		}
 
 		// Map stores pathway object copy information.
-		BidiMap<PathwayObject, PathwayObject> newerToSource = new DualHashBidiMap<>();
+		Map<PathwayObject, PathwayObject> sourceToNew = new HashMap<PathwayObject, PathwayObject>();
 
 		for (CopyElement copyElement : elements) {
 			PathwayElement newElement = copyElement.getNewElement();
 			PathwayElement srcElement = copyElement.getSourceElement();
-			CopyElement copyOfCopyElement = newElement.copy();
-			PathwayElement newerElement = copyOfCopyElement.getNewElement();
-			pnew.add(newerElement);
+			pnew.add(newElement);
 			// load references
-			newerElement.copyReferencesFrom(srcElement);
+			newElement.copyReferencesFrom(srcElement);
 			// store information
-			newerToSource.put(newerElement, srcElement);
-			if (newerElement instanceof LineElement) {
-				Iterator<Anchor> it1 = ((LineElement) newerElement).getAnchors().iterator();
+			sourceToNew.put(srcElement, newElement);
+			if (newElement instanceof LineElement) {
+				Iterator<Anchor> it1 = ((LineElement) newElement).getAnchors().iterator();
 				Iterator<Anchor> it2 = ((LineElement) srcElement).getAnchors().iterator();
 				while (it1.hasNext() && it2.hasNext()) {
 					Anchor na = it1.next();
 					Anchor sa = it2.next();
 					if (na != null && sa != null) {
-						newerToSource.put(na, sa);
+						sourceToNew.put(sa, na);
 					}
 				}
 			}
 		}
-		for (PathwayObject newerElement : newerToSource.keySet()) {
-			PathwayObject srcElement = newerToSource.get(newerElement);
+		for (CopyElement copyElement : elements) {
+			PathwayElement newElement = copyElement.getNewElement();
+			PathwayElement srcElement = copyElement.getSourceElement();
 			// add group members in new Group
-			if (newerElement.getObjectType() == ObjectType.GROUP && srcElement.getObjectType() == ObjectType.GROUP) {
+			if (newElement.getObjectType() == ObjectType.GROUP && srcElement.getObjectType() == ObjectType.GROUP) {
 				for (Groupable srcMember : ((Group) srcElement).getPathwayElements()) {
-					Groupable newerMember = (Groupable) newerToSource.getKey(srcMember);
-					if (newerMember != null) {
-						((Group) newerElement).addPathwayElement(newerMember);
+					Groupable newMember = (Groupable) sourceToNew.get(srcMember);
+					if (newMember != null) {
+						((Group) newElement).addPathwayElement(newMember);
 					}
 				}
-				((Group) newerElement).updateDimensions();
+				((Group) newElement).updateDimensions();
 			}
 			// set aliasRef if any, and link to group if group also copied
-			else if (newerElement.getObjectType() == ObjectType.DATANODE
+			else if (newElement.getObjectType() == ObjectType.DATANODE
 					&& srcElement.getObjectType() == ObjectType.DATANODE) {
-				if (((DataNode) newerElement).getType() == DataNodeType.ALIAS
+				if (((DataNode) newElement).getType() == DataNodeType.ALIAS
 						&& ((DataNode) srcElement).getType() == DataNodeType.ALIAS) {
 					Group srcAliasRef = ((DataNode) srcElement).getAliasRef();
 					if (srcAliasRef != null) {
-						Group newerAliasRef = (Group) newerToSource.getKey(srcAliasRef);
+						Group newAliasRef = (Group) sourceToNew.get(srcAliasRef);
 						// if group aliasRef was also copied
-						if (newerAliasRef != null) {
-							((DataNode) newerElement).setAliasRef(newerAliasRef);
+						if (newAliasRef != null) {
+							((DataNode) newElement).setAliasRef(newAliasRef);
 						}
 					}
 					// otherwise aliasRef is not linked to any group
@@ -159,25 +176,25 @@ else if (newerElement.getObjectType() == ObjectType.DATANODE
 				}
 			}
 			// link LineElement linePoint elementRefs
-			else if (newerElement instanceof LineElement && srcElement instanceof LineElement) {
+			else if (newElement instanceof LineElement && srcElement instanceof LineElement) {
 				// set start elementRef
 				LinkableTo srcStartElementRef = ((LineElement) srcElement).getStartElementRef();
 				if (srcStartElementRef != null) {
-					LinkableTo newerStartElementRef = (LinkableTo) newerToSource.getKey(srcStartElementRef);
-					if (newerStartElementRef != null) {
-						LinePoint startPoint = ((LineElement) newerElement).getStartLinePoint();
+					LinkableTo newStartElementRef = (LinkableTo) sourceToNew.get(srcStartElementRef);
+					if (newStartElementRef != null) {
+						LinePoint startPoint = ((LineElement) newElement).getStartLinePoint();
 						LinePoint srcPoint = ((LineElement) srcElement).getStartLinePoint();
-						startPoint.linkTo(newerStartElementRef, srcPoint.getRelX(), srcPoint.getRelY());
+						startPoint.linkTo(newStartElementRef, srcPoint.getRelX(), srcPoint.getRelY());
 					}
 				}
 				// set end elementRef
 				LinkableTo srcEndElementRef = ((LineElement) srcElement).getEndElementRef();
 				if (srcEndElementRef != null) {
-					LinkableTo newerEndElementRef = (LinkableTo) newerToSource.getKey(srcEndElementRef);
-					if (newerEndElementRef != null) {
-						LinePoint endPoint = ((LineElement) newerElement).getEndLinePoint();
+					LinkableTo newEndElementRef = (LinkableTo) sourceToNew.get(srcEndElementRef);
+					if (newEndElementRef != null) {
+						LinePoint endPoint = ((LineElement) newElement).getEndLinePoint();
 						LinePoint srcPoint = ((LineElement) srcElement).getEndLinePoint();
-						endPoint.linkTo(newerEndElementRef, srcPoint.getRelX(), srcPoint.getRelY());
+						endPoint.linkTo(newEndElementRef, srcPoint.getRelX(), srcPoint.getRelY());
 					}
 				}
 			}
@@ -192,23 +209,61 @@ else if (newerElement instanceof LineElement && srcElement instanceof LineElemen
 			info.setSource(INFO_DATASOURCE);
 			pnew.add(info);
 		}
+		return pnew;
+	}
 
-		try {
-			Document doc = new GPMLFormat(GPMLFormat.GPML2021).createJdom(pnew);
-			out = xmlout.outputString(doc);
-		} catch (Exception e) {
-			Logger.log.error("Unable to copy to clipboard", e);
+	/**
+	 * Returns the pathway model for {@link #PATHWAY_MODEL_FLAVOR}, or gpml code
+	 * for text flavors. The gpml code is only generated when it is asked for, which
+	 * is when pasting into another application.
+	 */
+	public Object getTransferData(DataFlavor flavor) throws UnsupportedFlavorException, IOException {
+		if (PATHWAY_MODEL_FLAVOR.equals(flavor)) {
+			return fragment;
 		}
+		if (!isDataFlavorSupported(flavor)) {
+			throw new UnsupportedFlavorException(flavor);
+		}
+		return getXml();
+	}
 
-		return out;
+	private synchronized String getXml() {
+		if (xml == null) {
+			try {
+				// writing updates the groups of the pathway model, so write a clone
+				// to leave the fragment unchanged for pastes on other threads
+				Document doc = new GPMLFormat(GPMLFormat.GPML2021).createJdom(fragment.clone());
+				xml = new XMLOutputter(Format.getPrettyFormat()).outputString(doc);
+			} catch (Exception e) {
+				Logger.log.error("Unable to copy to clipboard", e);
+			}
+		}
+		return xml;
 	}
 
 	public DataFlavor[] getTransferDataFlavors() {
-		return new DataFlavor[] { DataFlavor.stringFlavor };
+		return new DataFlavor[] { PATHWAY_MODEL_FLAVOR, DataFlavor.stringFlavor };
 	}
 
 	public boolean isDataFlavorSupported(DataFlavor flavor) {
-		return GPML_DATA_FLAVOR.equals(flavor);
+		return PATHWAY_MODEL_FLAVOR.equals(flavor) || GPML_DATA_FLAVOR.equals(flavor);
+	}
+
+	/**
+	 * Gets the pathway model fragment from the transferable if it was copied
+	 * within this application.
+	 * 
+	 * @param t
+	 * @return the pathway model, which must not be modified, or null if not
+	 *         available.
+	 * @throws UnsupportedFlavorException
+	 * @throws IOException
+	 */
+	public static PathwayModel getPathwayModel(Transferable t) throws UnsupportedFlavorException, IOException {
+		if (t != null && t.isDataFlavorSupported(PATHWAY_MODEL_FLAVOR)) {
+			return (PathwayModel) t.getTransferData(PATHWAY_MODEL_FLAVOR);
+		}
+		return null;
 	}
 
 	/**
@@ -0,0 +1,320 @@
+/*******************************************************************************
+ * PathVisio, a tool for data visualization and analysis using biological pathways
+ * Copyright 2006-2022 BiGCaT Bioinformatics, WikiPathways
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.pathvisio.core.layout;
+
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import org.pathvisio.core.layout.LayoutGraph.Edge;
+import org.pathvisio.core.layout.LayoutGraph.Node;
+import org.pathvisio.core.util.ProgressKeeper;
+
+/**
+ * Force-directed layout, after Fruchterman and Reingold. Connected nodes attract
+ * each other and all nodes repel each other, while the distance nodes may move
+ * in every iteration decreases. The repulsion between all nodes is approximated
+ * with a {@link QuadTree} (Barnes-Hut), and computed in parallel on a
+ * {@link ForkJoinPool}, so that large pathways can be laid out.
+ * <p>
+ * Nodes start from their current positions, so that laying out a pathway again
+ * changes it less, and fixed nodes repel but do not move. That way the
+ * neighborhood of moved nodes can be laid out again while the rest of the
+ * pathway stays in place. Afterwards, overlapping nodes are pushed apart.
+ */
+public class ForceDirectedLayout implements GraphLayout {
+
+	/**
+	 * Number of nodes below which the repulsion is not split into parallel tasks.
+	 */
+	private static final int PARALLEL_THRESHOLD = 256;
+
+	private final ForkJoinPool pool;
+	private int iterations = 300;
+	private double edgeLength = 80;
+	private double theta = 0.8;
+	private double gravity = 0.05;
+	private double spacing = 15;
+
+	/**
+	 * Creates a force-directed layout that runs on the common fork-join pool.
+	 */
+	public ForceDirectedLayout() {
+		this(ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Creates a force-directed layout that runs on the given pool.
+	 * 
+	 * @param pool the pool to compute the repulsion on.
+	 */
+	public ForceDirectedLayout(ForkJoinPool pool) {
+		this.pool = pool;
+	}
+
+	public String getName() {
+		return "Force-directed layout";
+	}
+
+	public int getIterations() {
+		return iterations;
+	}
+
+	public void setIterations(int iterations) {
+		this.iterations = iterations;
+	}
+
+	/**
+	 * Returns the preferred distance between the borders of connected nodes.
+	 */
+	public double getEdgeLength() {
+		return edgeLength;
+	}
+
+	public void setEdgeLength(double edgeLength) {
+		this.edgeLength = edgeLength;
+	}
+
+	/**
+	 * Returns the Barnes-Hut accuracy parameter: cells smaller than theta times
+	 * their distance are approximated. Zero computes the repulsion exactly.
+	 */
+	public double getTheta() {
+		return theta;
+	}
+
+	public void setTheta(double theta) {
+		this.theta = theta;
+	}
+
+	public void layout(LayoutGraph graph) {
+		layout(graph, null);
+	}
+
+	public void layout(LayoutGraph graph, ProgressKeeper pk) {
+		List<Node> nodes = graph.getNodes();
+		int n = nodes.size();
+		List<Node> free = graph.getFreeNodes();
+		if (free.isEmpty()) {
+			return;
+		}
+		double[] xs = new double[n];
+		double[] ys = new double[n];
+		double[] radius = new double[n];
+		double meanRadius = 0;
+		for (Node node : nodes) {
+			int i = node.getIndex();
+			xs[i] = node.getX();
+			ys[i] = node.getY();
+			radius[i] = Math.max(node.getWidth(), node.getHeight()) / 2;
+			meanRadius += radius[i] / n;
+		}
+		separate(free, xs, ys, meanRadius);
+		Rectangle2D before = LayoutGraph.getBounds(free);
+
+		// the ideal distance between the centers of two nodes
+		final double k = edgeLength + 2 * meanRadius;
+		double temperature = k * Math.max(1, Math.sqrt(free.size()) / 2);
+		double cooling = temperature / (iterations + 1);
+		double cx = 0;
+		double cy = 0;
+		for (int i = 0; i < n; i++) {
+			cx += xs[i] / n;
+			cy += ys[i] / n;
+		}
+
+		final int[] freeIndex = new int[free.size()];
+		for (int i = 0; i < freeIndex.length; i++) {
+			freeIndex[i] = free.get(i).getIndex();
+		}
+		final double[] fx = new double[n];
+		final double[] fy = new double[n];
+		for (int iteration = 0; iteration < iterations; iteration++) {
+			if (pk != null) {
+				if (pk.isCancelled()) {
+					return;
+				}
+				if (!pk.isIndeterminate()) {
+					pk.setProgress(iteration * pk.getTotalWork() / iterations);
+				}
+			}
+			// repulsion between all nodes
+			QuadTree tree = QuadTree.create(xs, ys);
+			pool.invoke(new RepulsionTask(tree, freeIndex, 0, freeIndex.length, k * k, fx, fy));
+
+			// attraction between connected nodes
+			for (Edge edge : graph.getEdges()) {
+				int s = edge.getSource().getIndex();
+				int t = edge.getTarget().getIndex();
+				double dx = xs[t] - xs[s];
+				double dy = ys[t] - ys[s];
+				double d = Math.sqrt(dx * dx + dy * dy);
+				if (d > 0) {
+					// d^2 / k of the distance between the borders
+					double border = Math.max(d - radius[s] - radius[t] + 2 * meanRadius, 0);
+					double f = border * border / k / d;
+					fx[s] += dx * f;
+					fy[s] += dy * f;
+					fx[t] -= dx * f;
+					fy[t] -= dy * f;
+				}
+			}
+
+			// move free nodes by at most the temperature
+			for (int i : freeIndex) {
+				fx[i] += gravity * (cx - xs[i]);
+				fy[i] += gravity * (cy - ys[i]);
+				double f = Math.sqrt(fx[i] * fx[i] + fy[i] * fy[i]);
+				if (f > 0) {
+					double step = Math.min(f, temperature) / f;
+					xs[i] += fx[i] * step;
+					ys[i] += fy[i] * step;
+				}
+			}
+			Arrays.fill(fx, 0);
+			Arrays.fill(fy, 0);
+			temperature -= cooling;
+		}
+
+		for (Node node : free) {
+			node.setLocation(xs[node.getIndex()], ys[node.getIndex()]);
+		}
+		removeOverlaps(graph, free);
+		if (free.size() == n) {
+			// keep the top left corner of the pathway in place
+			Rectangle2D after = LayoutGraph.getBounds(free);
+			for (Node node : free) {
+				node.setLocation(node.getX() + before.getX() - after.getX(), node.getY() + before.getY() - after.getY());
+			}
+		}
+	}
+
+	/**
+	 * Spreads free nodes that are at the same position as another node, as in
+	 * pathways that were generated without positions, because the forces between
+	 * them have no direction.
+	 */
+	private void separate(List<Node> free, double[] xs, double[] ys, double meanRadius) {
+		Random random = new Random(free.size());
+		Set<List<Double>> positions = new HashSet<List<Double>>();
+		double spread = (edgeLength + 2 * meanRadius) * Math.sqrt(free.size());
+		for (Node node : free) {
+			int i = node.getIndex();
+			while (!positions.add(Arrays.asList(xs[i], ys[i]))) {
+				xs[i] = node.getX() + (random.nextDouble() - 0.5) * spread;
+				ys[i] = node.getY() + (random.nextDouble() - 0.5) * spread;
+			}
+		}
+	}
+
+	/**
+	 * Pushes overlapping nodes apart: sweeps over the nodes in order of their left
+	 * border and moves free nodes that overlap a node to their left vertically or
+	 * horizontally, whichever is shorter.
+	 */
+	private void removeOverlaps(LayoutGraph graph, List<Node> free) {
+		List<Node> nodes = new ArrayList<Node>(graph.getNodes());
+		Comparator<Node> byLeft = new Comparator<Node>() {
+			public int compare(Node a, Node b) {
+				return Double.compare(a.getX() - a.getWidth() / 2, b.getX() - b.getWidth() / 2);
+			}
+		};
+		for (int pass = 0; pass < 10; pass++) {
+			Collections.sort(nodes, byLeft);
+			boolean moved = false;
+			for (int i = 0; i < nodes.size(); i++) {
+				Node a = nodes.get(i);
+				double right = a.getX() + a.getWidth() / 2 + spacing;
+				for (int j = i + 1; j < nodes.size(); j++) {
+					Node b = nodes.get(j);
+					if (b.getX() - b.getWidth() / 2 >= right) {
+						break;
+					}
+					if (a.isFixed() && b.isFixed()) {
+						continue;
+					}
+					double ox = (a.getWidth() + b.getWidth()) / 2 + spacing - Math.abs(a.getX() - b.getX());
+					double oy = (a.getHeight() + b.getHeight()) / 2 + spacing - Math.abs(a.getY() - b.getY());
+					if (ox > 0 && oy > 0) {
+						Node m = b.isFixed() ? a : b;
+						Node other = m == b ? a : b;
+						if (oy <= ox) {
+							m.setLocation(m.getX(), m.getY() + (m.getY() >= other.getY() ? oy : -oy));
+						} else {
+							m.setLocation(m.getX() + (m.getX() >= other.getX() ? ox : -ox), m.getY());
+						}
+						moved = true;
+					}
+				}
+			}
+			if (!moved) {
+				break;
+			}
+		}
+	}
+
+	/**
+	 * Computes the repulsion on a range of the free nodes, splitting large ranges
+	 * in parallel tasks.
+	 */
+	private class RepulsionTask extends RecursiveAction {
+		private final QuadTree tree;
+		private final int[] indices;
+		private final int from;
+		private final int to;
+		private final double strength;
+		private final double[] fx;
+		private final double[] fy;
+
+		RepulsionTask(QuadTree tree, int[] indices, int from, int to, double strength, double[] fx, double[] fy) {
+			this.tree = tree;
+			this.indices = indices;
+			this.from = from;
+			this.to = to;
+			this.strength = strength;
+			this.fx = fx;
+			this.fy = fy;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from <= PARALLEL_THRESHOLD) {
+				double[] force = new double[2];
+				for (int j = from; j < to; j++) {
+					int i = indices[j];
+					force[0] = 0;
+					force[1] = 0;
+					tree.addRepulsion(i, theta, strength, force);
+					fx[i] += force[0];
+					fy[i] += force[1];
+				}
+			} else {
+				int middle = (from + to) >>> 1;
+				invokeAll(new RepulsionTask(tree, indices, from, middle, strength, fx, fy),
+						new RepulsionTask(tree, indices, middle, to, strength, fx, fy));
+			}
+		}
+	}
+}
@@ -0,0 +1,51 @@
+/*******************************************************************************
+ * PathVisio, a tool for data visualization and analysis using biological pathways
+ * Copyright 2006-2022 BiGCaT Bioinformatics, WikiPathways
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.pathvisio.core.layout;
+
+import org.pathvisio.core.util.ProgressKeeper;
+
+/**
+ * An algorithm that arranges the nodes of a {@link LayoutGraph}. Plugins can
+ * provide their own layouts by implementing this interface, and apply them with
+ * {@link org.pathvisio.core.view.model.VPathwayModel#layoutPathway(GraphLayout)}.
+ */
+public interface GraphLayout {
+
+	/**
+	 * Returns the name of this layout, used as the description of the undo action.
+	 */
+	public String getName();
+
+	/**
+	 * Sets new positions for the nodes of the given graph that are not fixed.
+	 * Fixed nodes must not be moved.
+	 * 
+	 * @param graph the graph to lay out.
+	 */
+	public void layout(LayoutGraph graph);
+
+	/**
+	 * Like {@link #layout(LayoutGraph)}, but reports the progress to the given
+	 * progress keeper and stops early when it is cancelled, in which case the
+	 * positions of the nodes are undefined. This is called from a background
+	 * thread, so it must only change the graph.
+	 * 
+	 * @param graph the graph to lay out.
+	 * @param pk    the progress keeper, or null.
+	 */
+	public void layout(LayoutGraph graph, ProgressKeeper pk);
+}
@@ -0,0 +1,498 @@
+/*******************************************************************************
+ * PathVisio, a tool for data visualization and analysis using biological pathways
+ * Copyright 2006-2022 BiGCaT Bioinformatics, WikiPathways
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.pathvisio.core.layout;
+
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.pathvisio.core.layout.LayoutGraph.Edge;
+import org.pathvisio.core.layout.LayoutGraph.Node;
+import org.pathvisio.core.util.ProgressKeeper;
+
+/**
+ * Layered layout, after Sugiyama. Interactions point downwards where possible:
+ * cycles are broken by reversing edges, nodes are assigned to layers by the
+ * longest path from a node without incoming edges, the order of the nodes in
+ * each layer is chosen to reduce the number of crossing edges, and nodes are
+ * placed near the nodes they are connected with.
+ * <p>
+ * Only the nodes that are not fixed are laid out, each connected part
+ * separately. The parts are packed in rows, and placed at the top left corner
+ * of the nodes before the layout.
+ */
+public class LayeredLayout implements GraphLayout {
+
+	private double layerSpacing = 60;
+	private double nodeSpacing = 30;
+	private int sweeps = 24;
+
+	public String getName() {
+		return "Layered layout";
+	}
+
+	/**
+	 * Returns the vertical space between layers.
+	 */
+	public double getLayerSpacing() {
+		return layerSpacing;
+	}
+
+	public void setLayerSpacing(double layerSpacing) {
+		this.layerSpacing = layerSpacing;
+	}
+
+	/**
+	 * Returns the horizontal space between nodes in a layer, and between the
+	 * connected parts of the graph.
+	 */
+	public double getNodeSpacing() {
+		return nodeSpacing;
+	}
+
+	public void setNodeSpacing(double nodeSpacing) {
+		this.nodeSpacing = nodeSpacing;
+	}
+
+	public void layout(LayoutGraph graph) {
+		layout(graph, null);
+	}
+
+	public void layout(LayoutGraph graph, ProgressKeeper pk) {
+		List<Node> free = graph.getFreeNodes();
+		if (free.isEmpty()) {
+			return;
+		}
+		Rectangle2D before = LayoutGraph.getBounds(free);
+
+		// the edges between free nodes, without duplicates
+		Map<Node, List<Node>> successors = new IdentityHashMap<Node, List<Node>>();
+		Map<Node, List<Node>> neighbors = new IdentityHashMap<Node, List<Node>>();
+		for (Node node : free) {
+			successors.put(node, new ArrayList<Node>());
+			neighbors.put(node, new ArrayList<Node>());
+		}
+		Set<List<Node>> pairs = new HashSet<List<Node>>();
+		for (Edge edge : graph.getEdges()) {
+			Node s = edge.getSource();
+			Node t = edge.getTarget();
+			if (successors.containsKey(s) && successors.containsKey(t) && pairs.add(Arrays.asList(s, t))) {
+				successors.get(s).add(t);
+				neighbors.get(s).add(t);
+				neighbors.get(t).add(s);
+			}
+		}
+
+		List<Rectangle2D> parts = new ArrayList<Rectangle2D>();
+		List<List<Node>> partNodes = new ArrayList<List<Node>>();
+		Set<Node> visited = Collections.newSetFromMap(new IdentityHashMap<Node, Boolean>());
+		int done = 0;
+		for (Node node : free) {
+			if (visited.add(node)) {
+				if (pk != null) {
+					if (pk.isCancelled()) {
+						return;
+					}
+					if (!pk.isIndeterminate()) {
+						pk.setProgress(done * pk.getTotalWork() / free.size());
+					}
+				}
+				List<Node> part = new ArrayList<Node>();
+				Deque<Node> queue = new ArrayDeque<Node>();
+				queue.add(node);
+				while (!queue.isEmpty()) {
+					Node n = queue.poll();
+					part.add(n);
+					for (Node m : neighbors.get(n)) {
+						if (visited.add(m)) {
+							queue.add(m);
+						}
+					}
+				}
+				parts.add(layoutPart(part, successors));
+				partNodes.add(part);
+				done += part.size();
+			}
+		}
+		pack(parts, partNodes, before.getX(), before.getY());
+	}
+
+	/**
+	 * A node, or a dummy vertex on an edge that crosses layers.
+	 */
+	private static class Vertex {
+		final Node node;
+		final double width;
+		final double height;
+		final List<Vertex> up = new ArrayList<Vertex>();
+		final List<Vertex> down = new ArrayList<Vertex>();
+		int position;
+		double key;
+		double x;
+
+		Vertex(Node node) {
+			this.node = node;
+			width = node == null ? 0 : node.getWidth();
+			height = node == null ? 0 : node.getHeight();
+		}
+	}
+
+	/**
+	 * Lays out a connected part of the graph with its top left corner in 0,0.
+	 * 
+	 * @return the bounds of the part.
+	 */
+	private Rectangle2D layoutPart(List<Node> part, Map<Node, List<Node>> successors) {
+		Map<Node, Integer> index = new IdentityHashMap<Node, Integer>();
+		for (Node node : part) {
+			index.put(node, index.size());
+		}
+		int n = part.size();
+		List<List<Integer>> dag = removeCycles(part, successors, index);
+
+		// longest path layering, in topological order
+		int[] inDegree = new int[n];
+		for (List<Integer> succ : dag) {
+			for (int t : succ) {
+				inDegree[t]++;
+			}
+		}
+		int[] layer = new int[n];
+		List<Integer> order = new ArrayList<Integer>();
+		Deque<Integer> queue = new ArrayDeque<Integer>();
+		for (int i = 0; i < n; i++) {
+			if (inDegree[i] == 0) {
+				queue.add(i);
+			}
+		}
+		int layerCount = 1;
+		while (!queue.isEmpty()) {
+			int v = queue.poll();
+			order.add(v);
+			for (int t : dag.get(v)) {
+				layer[t] = Math.max(layer[t], layer[v] + 1);
+				layerCount = Math.max(layerCount, layer[t] + 1);
+				if (--inDegree[t] == 0) {
+					queue.add(t);
+				}
+			}
+		}
+
+		// vertices, with dummy vertices on edges that cross layers
+		List<List<Vertex>> layers = new ArrayList<List<Vertex>>();
+		for (int l = 0; l < layerCount; l++) {
+			layers.add(new ArrayList<Vertex>());
+		}
+		Vertex[] vertices = new Vertex[n];
+		for (int v : order) {
+			vertices[v] = new Vertex(part.get(v));
+			layers.get(layer[v]).add(vertices[v]);
+		}
+		for (int v : order) {
+			for (int t : dag.get(v)) {
+				Vertex upper = vertices[v];
+				for (int l = layer[v] + 1; l < layer[t]; l++) {
+					Vertex dummy = new Vertex(null);
+					layers.get(l).add(dummy);
+					connect(upper, dummy);
+					upper = dummy;
+				}
+				connect(upper, vertices[t]);
+			}
+		}
+
+		reduceCrossings(layers);
+		assignX(layers);
+
+		// layers from top to bottom
+		double y = 0;
+		double width = 0;
+		double minX = Double.POSITIVE_INFINITY;
+		for (List<Vertex> vs : layers) {
+			double height = 0;
+			for (Vertex v : vs) {
+				height = Math.max(height, v.height);
+				minX = Math.min(minX, v.x - v.width / 2);
+			}
+			for (Vertex v : vs) {
+				if (v.node != null) {
+					v.node.setLocation(v.x, y + height / 2);
+				}
+			}
+			y += height + layerSpacing;
+		}
+		for (Node node : part) {
+			node.setLocation(node.getX() - minX, node.getY());
+			width = Math.max(width, node.getX() + node.getWidth() / 2);
+		}
+		return new Rectangle2D.Double(0, 0, width, y - layerSpacing);
+	}
+
+	private static void connect(Vertex upper, Vertex lower) {
+		upper.down.add(lower);
+		lower.up.add(upper);
+	}
+
+	/**
+	 * Returns the successors of the nodes of a part, as indices, with the edges
+	 * that close a cycle in a depth-first search reversed.
+	 */
+	private static List<List<Integer>> removeCycles(List<Node> part, Map<Node, List<Node>> successors,
+			Map<Node, Integer> index) {
+		int n = part.size();
+		List<List<Integer>> dag = new ArrayList<List<Integer>>();
+		for (int i = 0; i < n; i++) {
+			dag.add(new ArrayList<Integer>());
+		}
+		// 0: not visited, 1: on the stack, 2: done
+		int[] state = new int[n];
+		int[] next = new int[n];
+		for (int root = 0; root < n; root++) {
+			if (state[root] != 0) {
+				continue;
+			}
+			Deque<Integer> stack = new ArrayDeque<Integer>();
+			stack.push(root);
+			state[root] = 1;
+			while (!stack.isEmpty()) {
+				int v = stack.peek();
+				List<Node> succ = successors.get(part.get(v));
+				if (next[v] < succ.size()) {
+					int t = index.get(succ.get(next[v]++));
+					if (state[t] == 1) {
+						dag.get(t).add(v);
+					} else {
+						dag.get(v).add(t);
+						if (state[t] == 0) {
+							state[t] = 1;
+							stack.push(t);
+						}
+					}
+				} else {
+					state[v] = 2;
+					stack.pop();
+				}
+			}
+		}
+		return dag;
+	}
+
+	/**
+	 * Orders the vertices in each layer by the mean position of their neighbors
+	 * in the layer above or below, sweeping down and up, and keeps the order with
+	 * the fewest crossings.
+	 */
+	private void reduceCrossings(List<List<Vertex>> layers) {
+		updatePositions(layers);
+		long best = countCrossings(layers);
+		List<List<Vertex>> bestOrder = copy(layers);
+		Comparator<Vertex> byKey = new Comparator<Vertex>() {
+			public int compare(Vertex a, Vertex b) {
+				return Double.compare(a.key, b.key);
+			}
+		};
+		for (int sweep = 0; sweep < sweeps && best > 0; sweep++) {
+			boolean down = sweep % 2 == 0;
+			for (int i = 1; i < layers.size(); i++) {
+				List<Vertex> vs = layers.get(down ? i : layers.size() - 1 - i);
+				for (Vertex v : vs) {
+					List<Vertex> adjacent = down ? v.up : v.down;
+					if (adjacent.isEmpty()) {
+						v.key = v.position;
+					} else {
+						double sum = 0;
+						for (Vertex a : adjacent) {
+							sum += a.position;
+						}
+						v.key = sum / adjacent.size();
+					}
+				}
+				Collections.sort(vs, byKey);
+				for (int p = 0; p < vs.size(); p++) {
+					vs.get(p).position = p;
+				}
+			}
+			long crossings = countCrossings(layers);
+			if (crossings < best) {
+				best = crossings;
+				bestOrder = copy(layers);
+			}
+		}
+		for (int l = 0; l < layers.size(); l++) {
+			layers.set(l, bestOrder.get(l));
+		}
+		updatePositions(layers);
+	}
+
+	private static void updatePositions(List<List<Vertex>> layers) {
+		for (List<Vertex> vs : layers) {
+			for (int p = 0; p < vs.size(); p++) {
+				vs.get(p).position = p;
+			}
+		}
+	}
+
+	private static List<List<Vertex>> copy(List<List<Vertex>> layers) {
+		List<List<Vertex>> result = new ArrayList<List<Vertex>>();
+		for (List<Vertex> vs : layers) {
+			result.add(new ArrayList<Vertex>(vs));
+		}
+		return result;
+	}
+
+	/**
+	 * Counts the crossings between all adjacent layers: the number of inversions
+	 * in the lower positions of the edges ordered by their upper positions,
+	 * counted with a Fenwick tree.
+	 */
+	private static long countCrossings(List<List<Vertex>> layers) {
+		long result = 0;
+		for (int l = 0; l + 1 < layers.size(); l++) {
+			int size = layers.get(l + 1).size();
+			long[] tree = new long[size + 1];
+			long seen = 0;
+			for (Vertex upper : layers.get(l)) {
+				int[] lower = new int[upper.down.size()];
+				for (int i = 0; i < lower.length; i++) {
+					lower[i] = upper.down.get(i).position;
+				}
+				Arrays.sort(lower);
+				for (int p : lower) {
+					// edges seen so far that end to the right of p
+					long notRight = 0;
+					for (int i = p + 1; i > 0; i -= i & -i) {
+						notRight += tree[i];
+					}
+					result += seen - notRight;
+				}
+				for (int p : lower) {
+					for (int i = p + 1; i <= size; i += i & -i) {
+						tree[i]++;
+					}
+					seen++;
+				}
+			}
+		}
+		return result;
+	}
+
+	private double separation(Vertex a, Vertex b) {
+		double gap = a.node == null || b.node == null ? nodeSpacing / 3 : nodeSpacing;
+		return (a.width + b.width) / 2 + gap;
+	}
+
+	/**
+	 * Places the vertices in each layer as close as possible to the mean x of
+	 * their neighbors, without overlap. Each pass places the vertices once packed
+	 * from the left and once from the right, and takes the mean, which keeps the
+	 * layers balanced.
+	 */
+	private void assignX(List<List<Vertex>> layers) {
+		for (List<Vertex> vs : layers) {
+			double x = 0;
+			for (int i = 0; i < vs.size(); i++) {
+				Vertex v = vs.get(i);
+				if (i > 0) {
+					x += separation(vs.get(i - 1), v);
+				}
+				v.x = x;
+			}
+		}
+		for (int pass = 0; pass < 8; pass++) {
+			boolean down = pass % 2 == 0;
+			for (int i = 1; i < layers.size(); i++) {
+				List<Vertex> vs = layers.get(down ? i : layers.size() - 1 - i);
+				int size = vs.size();
+				double[] desired = new double[size];
+				for (int p = 0; p < size; p++) {
+					Vertex v = vs.get(p);
+					List<Vertex> adjacent = down ? v.up : v.down;
+					if (adjacent.isEmpty()) {
+						desired[p] = v.x;
+					} else {
+						double sum = 0;
+						for (Vertex a : adjacent) {
+							sum += a.x;
+						}
+						desired[p] = sum / adjacent.size();
+					}
+				}
+				double[] fromLeft = new double[size];
+				double[] fromRight = new double[size];
+				for (int p = 0; p < size; p++) {
+					fromLeft[p] = p == 0 ? desired[p]
+							: Math.max(desired[p], fromLeft[p - 1] + separation(vs.get(p - 1), vs.get(p)));
+				}
+				for (int p = size - 1; p >= 0; p--) {
+					fromRight[p] = p == size - 1 ? desired[p]
+							: Math.min(desired[p], fromRight[p + 1] - separation(vs.get(p), vs.get(p + 1)));
+				}
+				for (int p = 0; p < size; p++) {
+					vs.get(p).x = (fromLeft[p] + fromRight[p]) / 2;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Packs the laid out parts in rows, largest first, and moves them to the given
+	 * position.
+	 */
+	private void pack(List<Rectangle2D> parts, List<List<Node>> partNodes, double left, double top) {
+		Integer[] order = new Integer[parts.size()];
+		double area = 0;
+		double maxWidth = 0;
+		for (int i = 0; i < order.length; i++) {
+			order[i] = i;
+			Rectangle2D r = parts.get(i);
+			area += (r.getWidth() + nodeSpacing) * (r.getHeight() + nodeSpacing);
+			maxWidth = Math.max(maxWidth, r.getWidth());
+		}
+		final List<List<Node>> sizes = partNodes;
+		Arrays.sort(order, new Comparator<Integer>() {
+			public int compare(Integer a, Integer b) {
+				return sizes.get(b).size() - sizes.get(a).size();
+			}
+		});
+		double rowWidth = Math.max(maxWidth, Math.sqrt(area) * 1.5);
+		double x = 0;
+		double y = 0;
+		double rowHeight = 0;
+		for (int i : order) {
+			Rectangle2D r = parts.get(i);
+			if (x > 0 && x + r.getWidth() > rowWidth) {
+				x = 0;
+				y += rowHeight + nodeSpacing;
+				rowHeight = 0;
+			}
+			for (Node node : partNodes.get(i)) {
+				node.setLocation(left + x + node.getX(), top + y + node.getY());
+			}
+			x += r.getWidth() + nodeSpacing;
+			rowHeight = Math.max(rowHeight, r.getHeight());
+		}
+	}
+}
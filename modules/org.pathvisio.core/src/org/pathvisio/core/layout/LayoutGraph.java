@@ -0,0 +1,314 @@
+/*******************************************************************************
+ * PathVisio, a tool for data visualization and analysis using biological pathways
+ * Copyright 2006-2022 BiGCaT Bioinformatics, WikiPathways
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.pathvisio.core.layout;
+
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.pathvisio.libgpml.model.DataNode;
+import org.pathvisio.libgpml.model.DataNode.State;
+import org.pathvisio.libgpml.model.GraphLink.LinkableTo;
+import org.pathvisio.libgpml.model.Group;
+import org.pathvisio.libgpml.model.Interaction;
+import org.pathvisio.libgpml.model.PathwayModel;
+import org.pathvisio.libgpml.model.PathwayObject;
+import org.pathvisio.libgpml.model.ShapedElement;
+
+/**
+ * The graph of data nodes and interactions of a pathway, as arranged by a
+ * {@link GraphLayout}.
+ * <p>
+ * Every node is a data node that is not in a group, or the outermost group of
+ * data nodes that are in a group, because groups are moved as a whole. Every
+ * edge is an interaction between two nodes. An interaction connected to a state
+ * or to a group is an edge of the data node of that state or of the outermost
+ * group. Other elements, such as labels and shapes, are not part of the graph
+ * and are not moved.
+ * <p>
+ * Positions are the centers of the nodes in model coordinates. A layout only
+ * changes the positions of nodes that are not fixed. The pathway itself is not
+ * changed until the new positions are applied, see
+ * {@link org.pathvisio.core.view.model.VPathwayModel#layoutPathway(GraphLayout)}.
+ */
+public class LayoutGraph {
+
+	/**
+	 * A node of the graph.
+	 */
+	public static class Node {
+		private final ShapedElement element;
+		private final int index;
+		private final double originalX;
+		private final double originalY;
+		private final double width;
+		private final double height;
+		private double x;
+		private double y;
+		private boolean fixed = false;
+		private final List<Node> neighbors = new ArrayList<Node>();
+
+		private Node(ShapedElement element, int index, Rectangle2D bounds) {
+			this.element = element;
+			this.index = index;
+			originalX = x = bounds.getCenterX();
+			originalY = y = bounds.getCenterY();
+			width = bounds.getWidth();
+			height = bounds.getHeight();
+		}
+
+		/**
+		 * Returns the data node or group of this node.
+		 */
+		public ShapedElement getElement() {
+			return element;
+		}
+
+		/**
+		 * Returns the index of this node in {@link LayoutGraph#getNodes()}.
+		 */
+		public int getIndex() {
+			return index;
+		}
+
+		public double getX() {
+			return x;
+		}
+
+		public double getY() {
+			return y;
+		}
+
+		/**
+		 * Sets the center of this node.
+		 */
+		public void setLocation(double x, double y) {
+			this.x = x;
+			this.y = y;
+		}
+
+		/**
+		 * Returns the center x of this node before it was laid out.
+		 */
+		public double getOriginalX() {
+			return originalX;
+		}
+
+		/**
+		 * Returns the center y of this node before it was laid out.
+		 */
+		public double getOriginalY() {
+			return originalY;
+		}
+
+		public double getWidth() {
+			return width;
+		}
+
+		public double getHeight() {
+			return height;
+		}
+
+		/**
+		 * Returns true if layouts may not move this node.
+		 */
+		public boolean isFixed() {
+			return fixed;
+		}
+
+		public void setFixed(boolean fixed) {
+			this.fixed = fixed;
+		}
+
+		/**
+		 * Returns the nodes connected to this node, once for every edge between
+		 * them.
+		 */
+		public List<Node> getNeighbors() {
+			return Collections.unmodifiableList(neighbors);
+		}
+
+		@Override
+		public String toString() {
+			return element.getElementId();
+		}
+	}
+
+	/**
+	 * An edge of the graph, directed from the start to the end of an interaction.
+	 */
+	public static class Edge {
+		private final Node source;
+		private final Node target;
+
+		private Edge(Node source, Node target) {
+			this.source = source;
+			this.target = target;
+		}
+
+		public Node getSource() {
+			return source;
+		}
+
+		public Node getTarget() {
+			return target;
+		}
+	}
+
+	private final List<Node> nodes = new ArrayList<Node>();
+	private final List<Edge> edges = new ArrayList<Edge>();
+	private final Map<ShapedElement, Node> nodeMap = new IdentityHashMap<ShapedElement, Node>();
+
+	/**
+	 * Creates the graph of the data nodes and interactions of the given pathway.
+	 * 
+	 * @param pathwayModel the pathway model.
+	 */
+	public LayoutGraph(PathwayModel pathwayModel) {
+		for (DataNode dataNode : pathwayModel.getDataNodes()) {
+			ShapedElement e = getOutermost(dataNode);
+			if (!nodeMap.containsKey(e)) {
+				Rectangle2D bounds = e instanceof Group ? ((Group) e).getMinBounds(true) : e.getRotatedBounds();
+				Node node = new Node(e, nodes.size(), bounds);
+				nodes.add(node);
+				nodeMap.put(e, node);
+			}
+		}
+		for (Interaction interaction : pathwayModel.getInteractions()) {
+			Node source = getNode(interaction.getStartElementRef());
+			Node target = getNode(interaction.getEndElementRef());
+			if (source != null && target != null && source != target) {
+				edges.add(new Edge(source, target));
+				source.neighbors.add(target);
+				target.neighbors.add(source);
+			}
+		}
+	}
+
+	private static ShapedElement getOutermost(ShapedElement e) {
+		while (e.getGroupRef() != null) {
+			e = e.getGroupRef();
+		}
+		return e;
+	}
+
+	/**
+	 * Returns the node of the given pathway element: the node of a data node, of
+	 * the data node of a state, or of the outermost group of an element in a group.
+	 * 
+	 * @param e the pathway element.
+	 * @return the node, or null if the element is not part of the graph.
+	 */
+	public Node getNode(PathwayObject e) {
+		if (e instanceof State) {
+			e = ((State) e).getDataNode();
+		}
+		if (e instanceof ShapedElement) {
+			return nodeMap.get(getOutermost((ShapedElement) e));
+		}
+		return null;
+	}
+
+	private Node getNode(LinkableTo e) {
+		return e instanceof PathwayObject ? getNode((PathwayObject) e) : null;
+	}
+
+	public List<Node> getNodes() {
+		return Collections.unmodifiableList(nodes);
+	}
+
+	public List<Edge> getEdges() {
+		return Collections.unmodifiableList(edges);
+	}
+
+	/**
+	 * Returns the given nodes and the nodes that are at most the given number of
+	 * edges away from them.
+	 * 
+	 * @param start the nodes to start from.
+	 * @param hops  the maximum number of edges.
+	 * @return the nodes in the neighborhood, in order of distance.
+	 */
+	public Set<Node> getNeighborhood(Collection<Node> start, int hops) {
+		Set<Node> result = new LinkedHashSet<Node>(start);
+		Deque<Node> queue = new ArrayDeque<Node>(start);
+		for (int i = 0; i < hops && !queue.isEmpty(); i++) {
+			Deque<Node> next = new ArrayDeque<Node>();
+			for (Node node : queue) {
+				for (Node neighbor : node.neighbors) {
+					if (result.add(neighbor)) {
+						next.add(neighbor);
+					}
+				}
+			}
+			queue = next;
+		}
+		return result;
+	}
+
+	/**
+	 * Fixes all nodes except the given ones, so that a layout only moves those.
+	 * 
+	 * @param free the nodes that may be moved.
+	 */
+	public void fixAllExcept(Collection<Node> free) {
+		for (Node node : nodes) {
+			node.setFixed(true);
+		}
+		for (Node node : free) {
+			node.setFixed(false);
+		}
+	}
+
+	/**
+	 * Returns the nodes that are not fixed.
+	 */
+	public List<Node> getFreeNodes() {
+		List<Node> result = new ArrayList<Node>();
+		for (Node node : nodes) {
+			if (!node.isFixed()) {
+				result.add(node);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the bounds of the given nodes at their current positions.
+	 */
+	public static Rectangle2D getBounds(Collection<Node> nodes) {
+		Rectangle2D result = null;
+		for (Node node : nodes) {
+			Rectangle2D r = new Rectangle2D.Double(node.x - node.width / 2, node.y - node.height / 2, node.width,
+					node.height);
+			if (result == null) {
+				result = r;
+			} else {
+				result.add(r);
+			}
+		}
+		return result;
+	}
+}
@@ -0,0 +1,172 @@
+/*******************************************************************************
+ * PathVisio, a tool for data visualization and analysis using biological pathways
+ * Copyright 2006-2022 BiGCaT Bioinformatics, WikiPathways
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.pathvisio.core.layout;
+
+/**
+ * Quadtree of points, for the Barnes-Hut approximation of the repulsion between
+ * all nodes in {@link ForceDirectedLayout}. Every cell stores the number and
+ * center of mass of the points in it, so that the repulsion of a cell that is
+ * far away from a point can be computed as that of a single heavier point.
+ */
+class QuadTree {
+
+	/**
+	 * Below this size, cells are not split, so that points at the same position
+	 * do not cause unbounded recursion.
+	 */
+	private static final double MIN_SIZE = 1e-3;
+
+	private final double[] xs;
+	private final double[] ys;
+
+	private final double left;
+	private final double top;
+	private final double size;
+
+	private int count = 0;
+	private double sumX = 0;
+	private double sumY = 0;
+	private int[] points = new int[1];
+	private QuadTree[] children = null;
+
+	private QuadTree(double[] xs, double[] ys, double left, double top, double size) {
+		this.xs = xs;
+		this.ys = ys;
+		this.left = left;
+		this.top = top;
+		this.size = size;
+	}
+
+	/**
+	 * Creates a quadtree of the given points.
+	 * 
+	 * @param xs the x coordinates of the points.
+	 * @param ys the y coordinates of the points.
+	 */
+	static QuadTree create(double[] xs, double[] ys) {
+		double minX = Double.POSITIVE_INFINITY;
+		double minY = Double.POSITIVE_INFINITY;
+		double maxX = Double.NEGATIVE_INFINITY;
+		double maxY = Double.NEGATIVE_INFINITY;
+		for (int i = 0; i < xs.length; i++) {
+			minX = Math.min(minX, xs[i]);
+			minY = Math.min(minY, ys[i]);
+			maxX = Math.max(maxX, xs[i]);
+			maxY = Math.max(maxY, ys[i]);
+		}
+		QuadTree tree = new QuadTree(xs, ys, minX, minY, Math.max(Math.max(maxX - minX, maxY - minY), 1) * 1.001);
+		for (int i = 0; i < xs.length; i++) {
+			tree.insert(i);
+		}
+		return tree;
+	}
+
+	private void insert(int i) {
+		count++;
+		sumX += xs[i];
+		sumY += ys[i];
+		if (children != null) {
+			child(i).insert(i);
+		} else if (count <= points.length || size < MIN_SIZE) {
+			if (count > points.length) {
+				int[] grown = new int[points.length * 2];
+				System.arraycopy(points, 0, grown, 0, points.length);
+				points = grown;
+			}
+			points[count - 1] = i;
+		} else {
+			double half = size / 2;
+			children = new QuadTree[] { new QuadTree(xs, ys, left, top, half),
+					new QuadTree(xs, ys, left + half, top, half), new QuadTree(xs, ys, left, top + half, half),
+					new QuadTree(xs, ys, left + half, top + half, half) };
+			for (int j = 0; j < count - 1; j++) {
+				child(points[j]).insert(points[j]);
+			}
+			child(i).insert(i);
+			points = null;
+		}
+	}
+
+	private QuadTree child(int i) {
+		double half = size / 2;
+		int c = 0;
+		if (xs[i] >= left + half) {
+			c += 1;
+		}
+		if (ys[i] >= top + half) {
+			c += 2;
+		}
+		return children[c];
+	}
+
+	private boolean contains(double x, double y) {
+		return x >= left && y >= top && x < left + size && y < top + size;
+	}
+
+	/**
+	 * Adds the repulsion of all other points on point i to the given force. The
+	 * repulsion of a point at distance d is strength / d, as in the
+	 * Fruchterman-Reingold algorithm.
+	 * 
+	 * @param i        the index of the point.
+	 * @param theta    cells that are smaller than theta times their distance to
+	 *                 the point are approximated by their center of mass.
+	 * @param strength the strength of the repulsion.
+	 * @param force    the force to add to, as {x, y}.
+	 */
+	void addRepulsion(int i, double theta, double strength, double[] force) {
+		if (count == 0) {
+			return;
+		}
+		double x = xs[i];
+		double y = ys[i];
+		if (children == null) {
+			for (int j = 0; j < count; j++) {
+				int p = points[j];
+				if (p != i) {
+					addRepulsion(i, x - xs[p], y - ys[p], 1, strength, force);
+				}
+			}
+		} else {
+			double dx = x - sumX / count;
+			double dy = y - sumY / count;
+			if (!contains(x, y) && size * size < theta * theta * (dx * dx + dy * dy)) {
+				addRepulsion(i, dx, dy, count, strength, force);
+			} else {
+				for (QuadTree child : children) {
+					child.addRepulsion(i, theta, strength, force);
+				}
+			}
+		}
+	}
+
+	private static void addRepulsion(int i, double dx, double dy, int mass, double strength, double[] force) {
+		double d2 = dx * dx + dy * dy;
+		if (d2 < 1e-6) {
+			// points at the same position are pushed apart in a direction that
+			// depends on the point, so that they do not all move the same way.
+			double angle = i * 2.399963; // golden angle
+			dx = Math.cos(angle) * 1e-3;
+			dy = Math.sin(angle) * 1e-3;
+			d2 = 1e-6;
+		}
+		// strength / d in the direction of (dx, dy)
+		double f = mass * strength / d2;
+		force[0] += dx * f;
+		force[1] += dy * f;
+	}
+}
@@ -22,14 +22,26 @@
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.PrintStream;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.bridgedb.DataSource;
 import org.bridgedb.IDMapperException;
 import org.bridgedb.Xref;
+import org.pathvisio.core.data.GdbEvent;
 import org.pathvisio.core.data.GdbManager;
+import org.pathvisio.core.data.GdbManager.GdbEventListener;
 import org.pathvisio.libgpml.io.PathwayModelExporter;
 import org.pathvisio.libgpml.io.ConverterException;
 import org.pathvisio.libgpml.model.DataNode;
@@ -39,10 +51,15 @@
 /**
  * Exporter that writes a pathway as a list of DataNodes, using their database
  * references
+ * <p>
+ * Cross references are looked up in batches of {@link #getBatchSize()} Xrefs,
+ * and are cached across exports until the result data source or the gene
+ * database changes. The exporter can be used from several threads at once, see
+ * {@link #doExport(Map, int)}.
  * 
  * @author thomas
  */
-public class DataNodeListExporter implements PathwayModelExporter {
+public class DataNodeListExporter implements PathwayModelExporter, GdbEventListener {
 	/**
 	 * Use this String as argument in {@link #setResultCode(String)}
 	 * to indicate that the exporter has to keep the original database
@@ -52,6 +69,53 @@ public class DataNodeListExporter implements PathwayModelExporter {
 	private DataSource resultDs = DataSource.register(DB_ORIGINAL, DB_ORIGINAL).asDataSource(); // workaround by EgonW
 //	private DataSource resultDs = DataSource.getExistingBySystemCode(DB_ORIGINAL);
 	private String multiRefSep = ", ";
+	private int batchSize = 100;
+
+	/**
+	 * Cross references of source Xrefs to the result data source, shared by all
+	 * exports. Replaced by a new map when it is cleared, so that exports that are
+	 * still running with the old result data source or gene database don't add
+	 * their mappings to the new one.
+	 */
+	private Map<Xref, Set<Xref>> mappingCache = new ConcurrentHashMap<Xref, Set<Xref>>();
+
+	/**
+	 * Set the maximum number of Xrefs that are mapped in a single call to the gene
+	 * database. Default is 100.
+	 * 
+	 * @param size the batch size, at least 1.
+	 */
+	public void setBatchSize(int size) {
+		if (size < 1) {
+			throw new IllegalArgumentException("Batch size must be at least 1");
+		}
+		batchSize = size;
+	}
+
+	/**
+	 * Get the maximum number of Xrefs that are mapped in a single call to the gene
+	 * database.
+	 * 
+	 * @return batchSize the batch size.
+	 */
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	/**
+	 * Discards all cached cross references.
+	 */
+	public synchronized void clearCache() {
+		mappingCache = new ConcurrentHashMap<Xref, Set<Xref>>();
+	}
+
+	/**
+	 * The gene database has changed, so cached cross references are no longer
+	 * valid.
+	 */
+	public void gdbEvent(GdbEvent e) {
+		clearCache();
+	}
 
 	/**
 	 * Set the separator used to separate multiple references for a single DataNode
@@ -82,8 +146,9 @@ public String getMultiRefSep() {
 	 * @see #DB_ORIGINAL
 	 * @param value the data source.
 	 */
-	public void setResultDataSource(DataSource value) {
+	public synchronized void setResultDataSource(DataSource value) {
 		resultDs = value;
+		clearCache();
 	}
 
 	/**
@@ -92,7 +157,7 @@ public void setResultDataSource(DataSource value) {
 	 * 
 	 * NB: replaced the deprecated getResultCode() TODO
 	 */
-	public DataSource getResultDataSource() {
+	public synchronized DataSource getResultDataSource() {
 		return resultDs;
 	}
 
@@ -104,8 +169,9 @@ public DataSource getResultDataSource() {
 	 * @param code
 	 * @deprecated use setResultDataSource();
 	 */
-	public void setResultCode(String code) {
+	public synchronized void setResultCode(String code) {
 		resultDs = DataSource.getExistingBySystemCode(code);
+		clearCache();
 	}
 
 	/**
@@ -115,7 +181,7 @@ public void setResultCode(String code) {
 	 * @deprecated use getResultDataSouce()
 	 */
 	public String getResultCode() {
-		return resultDs.getSystemCode();
+		return getResultDataSource().getSystemCode();
 	}
 
 	/**
@@ -124,7 +190,15 @@ public String getResultCode() {
 	 * @param pathwayModel
 	 */
 	public void doExport(File file, PathwayModel pathwayModel) throws ConverterException {
-		if (!DB_ORIGINAL.equals(getResultCode())) { // TODO
+		// the settings of this export, changing them doesn't affect it
+		DataSource resultDs;
+		Map<Xref, Set<Xref>> cache;
+		synchronized (this) {
+			resultDs = this.resultDs;
+			cache = mappingCache;
+		}
+		boolean original = DB_ORIGINAL.equals(resultDs.getSystemCode()); // TODO
+		if (!original) {
 			// Check gene database connection
 			if (gdbManager == null || !gdbManager.isConnected()) {
 				throw new ConverterException("No gene database loaded");
@@ -136,34 +210,130 @@ public void doExport(File file, PathwayModel pathwayModel) throws ConverterExcep
 		} catch (FileNotFoundException e) {
 			throw new ConverterException(e);
 		}
-		printHeaders(out);
-		for (DataNode elm : pathwayModel.getDataNodes()) { // TODO datanodes instead of elm
-			String line = "";
-			String id = XrefUtils.getIdentifier(elm.getXref()); //TODO 
-			DataSource ds = ((DataNode) elm).getXref().getDataSource();
-			if (!checkString(id) || ds == null) {
-				continue; // Skip empty id/codes
+		try {
+			printHeaders(out);
+			List<DataNode> batch = new ArrayList<DataNode>();
+			for (DataNode elm : pathwayModel.getDataNodes()) { // TODO datanodes instead of elm
+				String id = XrefUtils.getIdentifier(elm.getXref()); //TODO 
+				DataSource ds = elm.getXref() == null ? null : elm.getXref().getDataSource();
+				if (!checkString(id) || ds == null) {
+					continue; // Skip empty id/codes
+				}
+				batch.add(elm);
+				if (batch.size() >= batchSize) {
+					printBatch(out, batch, resultDs, original, cache);
+					batch.clear();
+				}
 			}
+			printBatch(out, batch, resultDs, original, cache);
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * Print the lines for a batch of DataNodes with valid Xrefs. The cross
+	 * references of Xrefs that are not yet cached are looked up with a single
+	 * call to the gene database.
+	 * 
+	 * @param out      The output stream to print to
+	 * @param batch    The DataNodes to print
+	 * @param resultDs The data source to map to
+	 * @param original True to print the original Xrefs
+	 * @param cache    The cached cross references to resultDs
+	 */
+	private void printBatch(PrintStream out, List<DataNode> batch, DataSource resultDs, boolean original,
+			Map<Xref, Set<Xref>> cache) throws ConverterException {
+		// the mappings of this batch, the cache may be cleared at any time
+		Map<Xref, Set<Xref>> mappings = new HashMap<Xref, Set<Xref>>();
+		Set<Xref> toMap = new LinkedHashSet<Xref>();
+		for (DataNode elm : batch) {
+			Xref xref = elm.getXref();
+			if (!original && !xref.getDataSource().equals(resultDs) && !mappings.containsKey(xref)) {
+				Set<Xref> cached = cache.get(xref);
+				if (cached != null) {
+					mappings.put(xref, cached);
+				} else {
+					toMap.add(xref);
+				}
+			}
+		}
+		if (toMap.size() > 0) {
+			try {
+				Map<Xref, Set<Xref>> mapped = gdbManager.getCurrentGdb().mapID(toMap, resultDs);
+				for (Xref xref : toMap) {
+					Set<Xref> refs = mapped.get(xref);
+					refs = refs == null ? Collections.<Xref>emptySet() : refs;
+					mappings.put(xref, refs);
+					cache.put(xref, refs);
+				}
+			} catch (IDMapperException ex) {
+				throw new ConverterException(ex);
+			}
+		}
+		for (DataNode elm : batch) {
+			String line = "";
+			String id = XrefUtils.getIdentifier(elm.getXref());
+			DataSource ds = elm.getXref().getDataSource();
 			// Use the original id, if code is already the one asked for
-			if (DB_ORIGINAL.equals(getResultCode()) || ds.equals(resultDs)) { // TODO
+			if (original || ds.equals(resultDs)) {
 				line = id + "\t" + ds.getFullName();
-			} else { // Lookup the cross-references for the wanted database code
-				try {
-					Set<Xref> refs = gdbManager.getCurrentGdb().mapID(elm.getXref(), resultDs);
-					for (Xref ref : refs) {
-						line += ref.getId() + multiRefSep;
+			} else { // Use the cross-references for the wanted database code
+				StringBuilder refs = new StringBuilder();
+				for (Xref ref : mappings.get(elm.getXref())) {
+					refs.append(ref.getId()).append(multiRefSep);
+				}
+				if (refs.length() > multiRefSep.length()) { // Remove the last ', '
+					refs.setLength(refs.length() - multiRefSep.length());
+					refs.append("\t" + resultDs.getFullName());
+					line = refs.toString();
+				}
+			}
+			out.println(line);
+		}
+	}
+
+	/**
+	 * Export several pathways at once, each to its own file. The exports run
+	 * concurrently and share the cache of cross references.
+	 * 
+	 * @param jobs    the pathways to export, by output file
+	 * @param threads the number of exports that run at the same time
+	 * @throws ConverterException the first error that occurred, after all exports
+	 *                            have finished
+	 */
+	public void doExport(Map<File, PathwayModel> jobs, int threads) throws ConverterException {
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<Void>> futures = new ArrayList<Future<Void>>();
+			for (final Map.Entry<File, PathwayModel> job : jobs.entrySet()) {
+				futures.add(executor.submit(new Callable<Void>() {
+					public Void call() throws ConverterException {
+						doExport(job.getKey(), job.getValue());
+						return null;
 					}
-					if (line.length() > multiRefSep.length()) { // Remove the last ', '
-						line = line.substring(0, line.length() - multiRefSep.length());
-						line += "\t" + resultDs.getFullName();
+				}));
+			}
+			ConverterException error = null;
+			for (Future<Void> f : futures) {
+				try {
+					f.get();
+				} catch (ExecutionException ex) {
+					if (error == null) {
+						error = ex.getCause() instanceof ConverterException ? (ConverterException) ex.getCause()
+								: new ConverterException(ex);
 					}
-				} catch (IDMapperException ex) {
+				} catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
 					throw new ConverterException(ex);
 				}
 			}
-			out.println(line);
+			if (error != null) {
+				throw error;
+			}
+		} finally {
+			executor.shutdownNow();
 		}
-		out.close();
 	}
 
 	/**
@@ -207,6 +377,9 @@ public String getName() {
 	 */
 	public DataNodeListExporter(GdbManager gdbManager) {
 		this.gdbManager = gdbManager;
+		if (gdbManager != null) {
+			gdbManager.addGdbEventListener(this);
+		}
 	}
 
 	public DataNodeListExporter() {
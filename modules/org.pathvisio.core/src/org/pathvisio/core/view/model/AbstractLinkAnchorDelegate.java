@@ -43,12 +43,19 @@ public void hideLinkAnchors() {
 	 * Point2D)
 	 */
 	public LinkAnchor getLinkAnchorAt(Point2D p) {
+		// anchors of small elements overlap, so take the nearest
+		LinkAnchor nearest = null;
+		double distance = Double.MAX_VALUE;
 		for (LinkAnchor la : linkAnchors) {
 			if (la.getMatchArea().contains(p)) {
-				return la;
+				double d = la.vDistance(p);
+				if (d < distance) {
+					nearest = la;
+					distance = d;
+				}
 			}
 		}
-		return null;
+		return nearest;
 	}
 
 }
@@ -57,6 +57,15 @@ public Shape getMatchArea() {
 				MATCH_RADIUS * 2, MATCH_RADIUS * 2));
 	}
 
+	/**
+	 * Returns the distance from the center of this anchor to the given point, in
+	 * view coordinates.
+	 */
+	double vDistance(Point2D p) {
+		Point2D abs = linkableTo.toAbsoluteCoordinate(new Point2D.Double(relX, relY));
+		return p.distance(canvas.vFromM(abs.getX()), canvas.vFromM(abs.getY()));
+	}
+
 	public Point2D getPosition() {
 		return new Point2D.Double(relX, relY);
 	}
@@ -0,0 +1,146 @@
+/*******************************************************************************
+ * PathVisio, a tool for data visualization and analysis using biological pathways
+ * Copyright 2006-2022 BiGCaT Bioinformatics, WikiPathways
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.pathvisio.core.view.model;
+
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Grid of the {@link LinkProvider}s in a {@link VPathwayModel} by their view
+ * bounds, used to find the providers near the end of a line that is being
+ * dragged without checking every drawing object.
+ * <p>
+ * The grid is rebuilt on the next query after a provider has been added,
+ * removed or changed shape. Anchors and groups are not in the grid but checked
+ * one by one, because they move or resize with the line that is being dragged.
+ */
+class LinkProviderIndex {
+	/** Width and height of a grid cell, in view coordinates */
+	static final double CELL_SIZE = 128;
+
+	private final VPathwayModel canvas;
+	private final Map<Long, List<VElement>> cells = new HashMap<Long, List<VElement>>();
+	private final List<VElement> unindexed = new ArrayList<VElement>();
+	private boolean valid = false;
+
+	LinkProviderIndex(VPathwayModel canvas) {
+		this.canvas = canvas;
+	}
+
+	/**
+	 * Returns true if the given element is kept in the grid.
+	 */
+	static boolean isIndexed(VElement e) {
+		return e instanceof LinkProvider && !(e instanceof VAnchor) && !(e instanceof VGroup);
+	}
+
+	/**
+	 * Marks the grid for rebuilding, because a provider has been added, removed
+	 * or changed shape.
+	 */
+	void invalidate() {
+		valid = false;
+	}
+
+	private static long key(int cx, int cy) {
+		return ((long) cx << 32) | (cy & 0xffffffffL);
+	}
+
+	private static int cell(double v) {
+		return (int) Math.floor(v / CELL_SIZE);
+	}
+
+	private void rebuild() {
+		cells.clear();
+		unindexed.clear();
+		for (VElement e : canvas.getDrawingObjects()) {
+			if (!(e instanceof LinkProvider) || e.toBeRemoved()) {
+				continue;
+			}
+			if (!isIndexed(e)) {
+				unindexed.add(e);
+				continue;
+			}
+			// the cull bounds contain the bounds and are much cheaper
+			Rectangle2D b = e.getVCullBounds();
+			for (int cx = cell(b.getMinX()); cx <= cell(b.getMaxX()); cx++) {
+				for (int cy = cell(b.getMinY()); cy <= cell(b.getMaxY()); cy++) {
+					List<VElement> list = cells.get(key(cx, cy));
+					if (list == null) {
+						list = new ArrayList<VElement>();
+						cells.put(key(cx, cy), list);
+					}
+					list.add(e);
+				}
+			}
+		}
+		valid = true;
+	}
+
+	/**
+	 * Returns the providers whose view bounds, grown by the given radius, contain
+	 * the given point. They are in drawing order, like the drawing objects.
+	 *
+	 * @param p       the point in view coordinates.
+	 * @param vRadius the radius in view coordinates.
+	 */
+	List<LinkProvider> getLinkProvidersNear(Point2D p, double vRadius) {
+		if (!valid) {
+			rebuild();
+		}
+		Map<VElement, VElement> found = new IdentityHashMap<VElement, VElement>();
+		for (int cx = cell(p.getX() - vRadius); cx <= cell(p.getX() + vRadius); cx++) {
+			for (int cy = cell(p.getY() - vRadius); cy <= cell(p.getY() + vRadius); cy++) {
+				List<VElement> list = cells.get(key(cx, cy));
+				if (list != null) {
+					for (VElement e : list) {
+						if (isNear(e, p, vRadius)) {
+							found.put(e, e);
+						}
+					}
+				}
+			}
+		}
+		for (VElement e : unindexed) {
+			if (isNear(e, p, vRadius)) {
+				found.put(e, e);
+			}
+		}
+		List<VElement> sorted = new ArrayList<VElement>(found.keySet());
+		Collections.sort(sorted);
+		List<LinkProvider> result = new ArrayList<LinkProvider>(sorted.size());
+		for (VElement e : sorted) {
+			result.add((LinkProvider) e);
+		}
+		return result;
+	}
+
+	private static boolean isNear(VElement e, Point2D p, double vRadius) {
+		if (e.toBeRemoved()) {
+			return false;
+		}
+		Rectangle2D b = e.getVBounds();
+		return p.getX() >= b.getMinX() - vRadius && p.getX() <= b.getMaxX() + vRadius
+				&& p.getY() >= b.getMinY() - vRadius && p.getY() <= b.getMaxY() + vRadius;
+	}
+}
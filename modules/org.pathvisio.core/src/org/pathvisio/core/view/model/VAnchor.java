@@ -32,6 +32,7 @@
 import org.pathvisio.libgpml.model.PathwayObject;
 import org.pathvisio.core.view.Adjustable;
 import org.pathvisio.libgpml.model.shape.AnchorShape;
+import org.pathvisio.libgpml.model.shape.ShapeCache;
 import org.pathvisio.libgpml.model.shape.ShapeRegistry;
 
 /**
@@ -137,7 +138,7 @@ private AnchorShape getAnchorShape() {
 			double scaleFactor = vFromM(1.0);
 			f.translate(getVx(), getVy());
 			f.scale(scaleFactor, scaleFactor);
-			Shape sh = f.createTransformedShape(shape.getShape());
+			Shape sh = ShapeCache.getTransformedShape(shape.getShape(), f);
 			shape = new AnchorShape(sh);
 		}
 		return shape;
@@ -62,6 +62,7 @@ void zoomChanged() {
 
 	private Shape vOutlineCache;
 	private Rectangle2D vBoundsCache;
+	private Rectangle2D vCullBoundsCache;
 
 	/**
 	 * Resets cache for VOutline and VBounds so that they will be recalculated on
@@ -70,6 +71,7 @@ void zoomChanged() {
 	protected void resetShapeCache() {
 		vOutlineCache = null;
 		vBoundsCache = null;
+		vCullBoundsCache = null;
 	}
 
 	public final void draw(Graphics2D g2d) {
@@ -169,6 +171,10 @@ public boolean isHighlighted() {
 	 * @return True if the object intersects the rectangle, false otherwise
 	 */
 	protected boolean vIntersects(Rectangle2D r) {
+		// rule out elements outside the area without calculating their outline
+		if (!getVCullBounds().intersects(r)) {
+			return false;
+		}
 		// first use getVBounds as a rough approximation
 		if (getVBounds().intersects(r)) {
 			// Yes, the vbounds intersects, now try to be more precise
@@ -257,6 +263,31 @@ public Rectangle2D calculateVBounds() {
 		return getVOutline().getBounds2D();
 	}
 
+	/**
+	 * Gets the cached rectangle that is guaranteed to contain this object, but may
+	 * be larger than {@link #getVBounds()}. Used to skip objects outside the
+	 * visible area without calculating their outline.
+	 * 
+	 * @return
+	 */
+	protected final Rectangle2D getVCullBounds() {
+		if (vCullBoundsCache == null) {
+			vCullBoundsCache = calculateVCullBounds();
+		}
+		return vCullBoundsCache;
+	}
+
+	/**
+	 * Calculates the cull bounds of this object, see {@link #getVCullBounds()}.
+	 * Subclasses with an expensive outline should override this with a cheaper
+	 * estimate. The default implementation returns the bounds.
+	 * 
+	 * @return
+	 */
+	protected Rectangle2D calculateVCullBounds() {
+		return getVBounds();
+	}
+
 	/**
 	 * Get the cached outline of this element. The outline is used to check whether
 	 * a point is contained in this element or not and includes the stroke and takes
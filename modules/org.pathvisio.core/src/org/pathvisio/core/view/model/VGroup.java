@@ -30,6 +30,7 @@
 import org.pathvisio.core.view.VElementMouseListener;
 import org.pathvisio.libgpml.model.Group;
 import org.pathvisio.libgpml.model.Groupable;
+import org.pathvisio.libgpml.model.PathwayObject;
 
 /**
  * This represents the view of a {@link Group} PathwayElement. This can be drawn
@@ -127,6 +128,11 @@ public Group getPathwayObject() {
 	 */
 	@Override
 	protected boolean vContains(Point2D point) {
+		// return false if point is not within bounds of grouped objects, checked
+		// first because it is much cheaper
+		if (!this.getVShape(true).contains(point)) {
+			return false;
+		}
 		// return false if point falls on any individual element
 		for (VElement vpe : canvas.getDrawingObjects()) {
 			if (vpe instanceof VPathwayObject && !(vpe instanceof VGroup) && vpe.vContains(point)) {
@@ -134,12 +140,7 @@ protected boolean vContains(Point2D point) {
 
 			}
 		}
-		// return true if point within bounds of grouped objects
-		if (this.getVShape(true).contains(point)) {
-			return true;
-		} else {
-			return false;
-		}
+		return true;
 	}
 
 	/**
@@ -148,16 +149,13 @@ protected boolean vContains(Point2D point) {
 	 * @return ArrayList<Graphics>
 	 */
 	public List<VPathwayObject> getGroupGraphics() {
-		List<VPathwayObject> gg = new ArrayList<VPathwayObject>();
-		// return true if group object is referenced by selection
-		for (VElement vpe : canvas.getDrawingObjects()) {
+		// the group keeps its members, so only those need to be looked up
+		List<Groupable> members = getPathwayObject().getPathwayElements();
+		List<VPathwayObject> gg = new ArrayList<VPathwayObject>(members.size());
+		for (Groupable pe : members) {
+			VPathwayObject vpe = canvas.getPathwayElementView((PathwayObject) pe);
 			if (vpe instanceof VGroupable && vpe != this) {
-				VGroupable vpeg = (VGroupable) vpe;
-				Groupable pe = vpeg.getPathwayObject();
-				Group ref = pe.getGroupRef();
-				if (ref != null && ref.equals(getPathwayObject())) {
-					gg.add((VPathwayObject) vpeg);
-				}
+				gg.add(vpe);
 			}
 		}
 		return gg;
@@ -260,6 +258,14 @@ public void highlight(Color c) {
 		}
 	}
 
+	/**
+	 * The outline of a group is its bounds, which are cheap to calculate.
+	 */
+	@Override
+	protected Rectangle2D calculateVCullBounds() {
+		return getVBounds();
+	}
+
 	/**
 	 * TODO 
 	 */
@@ -45,6 +45,7 @@
 import org.pathvisio.core.preferences.PreferenceManager;
 import org.pathvisio.core.view.Adjustable;
 import org.pathvisio.libgpml.model.shape.ArrowShape;
+import org.pathvisio.libgpml.model.shape.ShapeCache;
 import org.pathvisio.libgpml.model.shape.ShapeRegistry;
 
 /**
@@ -487,7 +488,7 @@ protected ArrowShape getVHead(Point2D mP1, Point2D mP2, ArrowHeadType type) {
 			f.rotate(Math.atan2(ye - ys, xe - xs), xe, ye);
 			f.translate(xe, ye);
 			f.scale(scaleFactor, scaleFactor);
-			Shape sh = f.createTransformedShape(h.getShape());
+			Shape sh = ShapeCache.getTransformedShape(h.getShape(), f);
 			h = new ArrowShape(sh, h.getFillType());
 		}
 		return h;
@@ -33,6 +33,7 @@
 import java.util.ConcurrentModificationException;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -46,7 +47,11 @@
 import org.apache.commons.collections4.BidiMap;
 import org.apache.commons.collections4.bidimap.DualHashBidiMap;
 import org.pathvisio.core.Engine;
+import org.pathvisio.core.layout.GraphLayout;
+import org.pathvisio.core.layout.LayoutGraph;
+import org.pathvisio.core.layout.LayoutGraph.Node;
 import org.pathvisio.libgpml.debug.Logger;
+import org.pathvisio.libgpml.debug.StopWatch;
 import org.pathvisio.libgpml.model.type.DataNodeType;
 import org.pathvisio.libgpml.model.type.GroupType;
 import org.pathvisio.libgpml.model.type.HAlignType;
@@ -109,6 +114,9 @@ public class VPathwayModel implements PathwayModelListener {
 	private VPathwayModelWrapper parent; // may be null, optional gui-specific wrapper for this VPathwayModel.
 	private VInfoBox vInfoBox;
 	private List<VElement> drawingObjects;// All visible objects (incl. handles; excl. selectionBox objects)
+	// The view of each model object in drawingObjects, see getPathwayElementView
+	private Map<PathwayObject, VPathwayObject> views = new IdentityHashMap<PathwayObject, VPathwayObject>();
+	private final LinkProviderIndex linkProviderIndex = new LinkProviderIndex(this);
 	SelectionBox selection;
 	private List<VElement> toAdd = new ArrayList<VElement>();
 	private VElement lastEnteredElement = null;
@@ -319,15 +327,21 @@ public VPoint newPoint(LinePoint linePoint, VLineElement vLineElement) {
 	 *         {@link PathwayElement} or <code>null</code> if no view is available
 	 */
 	public VPathwayObject getPathwayElementView(PathwayObject e) {
-		// TODO: store Graphics in a hashmap to improve speed
-		for (VElement ve : drawingObjects) {
-			if (ve instanceof VPathwayObject) {
-				VPathwayObject ge = (VPathwayObject) ve;
-				if (ge.getPathwayObject() == e)
-					return ge;
+		return views.get(e);
+	}
+
+	/**
+	 * Registers a view that has been added to drawingObjects. If the model object
+	 * already has a view, that one is kept unless it is being removed.
+	 */
+	private void addView(VElement elt) {
+		if (elt instanceof VPathwayObject) {
+			VPathwayObject ve = (VPathwayObject) elt;
+			VPathwayObject current = views.get(ve.getPathwayObject());
+			if (current == null || (current.toBeRemoved() && !ve.toBeRemoved())) {
+				views.put(ve.getPathwayObject(), ve);
 			}
 		}
-		return null;
 	}
 
 	/**
@@ -475,6 +489,9 @@ public void replacePathwayModel(PathwayModel originalState) {
 
 		clearSelection();
 		drawingObjects = new ArrayList<VElement>();
+		views.clear();
+		linkProviderIndex.invalidate();
+		linkAnchorsShown.clear();
 		// transfer selectionBox with corresponding listeners
 		SelectionBox newSelection = new SelectionBox(this);
 		for (Iterator<SelectionListener> i = selection.getListeners().iterator(); i.hasNext();) {
@@ -860,9 +877,17 @@ public void addObject(VElement o) {
 	 * elements array. This method adds the elements that are scheduled to be added.
 	 */
 	void addScheduled() {
+		if (toAdd.isEmpty()) {
+			return;
+		}
+		// Don't add duplicates! A set avoids scanning the list for every element
+		// when a whole pathway is loaded.
+		Set<VElement> present = new HashSet<VElement>(drawingObjects);
 		for (VElement elt : toAdd) {
-			if (!drawingObjects.contains(elt)) { // Don't add duplicates!
+			if (present.add(elt)) {
 				drawingObjects.add(elt);
+				addView(elt);
+				linkProviderChanged(elt);
 			}
 		}
 		toAdd.clear();
@@ -1064,6 +1089,8 @@ public double getFitZoomFactor() {
 	// Link Methods
 	// ================================================================================
 	private LinkAnchor currentLinkAnchor;
+	// providers that show their link anchors, see linkPointToObject
+	private Set<LinkProvider> linkAnchorsShown = new HashSet<LinkProvider>();
 
 	/**
 	 * Links a given point to an {@link VLinkableTo} object.
@@ -1075,12 +1102,12 @@ private void linkPointToObject(Point2D p2d, Handle g) {
 		if (dragUndoState == DRAG_UNDO_CHANGE_START) {
 			dragUndoState = DRAG_UNDO_CHANGED;
 		}
-		hideLinkAnchors();
 		VPoint vPoint = (VPoint) g.getAdjustable();
 		VLineElement vLine = vPoint.getLine();
 		LineElement line = vLine.getPathwayObject();
-		// get linkproviders for given location
-		List<LinkProvider> linkProviders = getLinkProvidersAt(p2d);
+		// get linkproviders near given location
+		List<LinkProvider> linkProviders = linkProviderIndex.getLinkProvidersNear(p2d,
+				vFromM(LinkAnchor.MATCH_RADIUS));
 		/*
 		 * Fix for preventing grouped line to link to its own group: Remove the group
 		 * from the list of linkproviders. Also remove the line anchors to prevent
@@ -1095,27 +1122,46 @@ private void linkPointToObject(Point2D p2d, Handle g) {
 				linkProviders.remove(va);
 			}
 		}
-		LinkableTo linkableTo = null;
-		for (LinkProvider linkProvider : linkProviders) {
-			// do nothing if linkprovider is an anchor with disallowlinks true
+		// do nothing with anchors that disallow links
+		for (Iterator<LinkProvider> i = linkProviders.iterator(); i.hasNext();) {
+			LinkProvider linkProvider = i.next();
 			if (linkProvider instanceof VAnchor
 					&& ((VAnchor) linkProvider).getAnchor().getShapeType().isDisallowLinks()) {
-				break;
+				i.remove();
 			}
-			linkProvider.showLinkAnchors();
-			LinkAnchor linkAnchor = linkProvider.getLinkAnchorAt(p2d);
-			// if link anchor valid
-			if (linkAnchor != null) {
-				// link point to the linkAnchor of linkableTo
-				linkAnchor.link(vPoint.getLinePoint());
-				linkableTo = linkAnchor.getLinkableTo();
-				if (currentLinkAnchor != null) {
-					currentLinkAnchor.unhighlight();
-				}
-				linkAnchor.highlight();
-				currentLinkAnchor = linkAnchor;
-				break;
+		}
+		// only show or hide anchors of providers that come near or go away
+		for (Iterator<LinkProvider> i = linkAnchorsShown.iterator(); i.hasNext();) {
+			LinkProvider linkProvider = i.next();
+			if (!linkProviders.contains(linkProvider)) {
+				linkProvider.hideLinkAnchors();
+				i.remove();
+			}
+		}
+		LinkAnchor linkAnchor = null;
+		double distance = Double.MAX_VALUE;
+		for (LinkProvider linkProvider : linkProviders) {
+			if (linkAnchorsShown.add(linkProvider)) {
+				linkProvider.showLinkAnchors();
 			}
+			// take the nearest anchor, the first one in drawing order if equally near
+			LinkAnchor la = linkProvider.getLinkAnchorAt(p2d);
+			if (la != null && la.vDistance(p2d) < distance) {
+				linkAnchor = la;
+				distance = la.vDistance(p2d);
+			}
+		}
+		LinkableTo linkableTo = null;
+		// if link anchor valid
+		if (linkAnchor != null) {
+			// link point to the linkAnchor of linkableTo
+			linkAnchor.link(vPoint.getLinePoint());
+			linkableTo = linkAnchor.getLinkableTo();
+			if (currentLinkAnchor != null) {
+				currentLinkAnchor.unhighlight();
+			}
+			linkAnchor.highlight();
+			currentLinkAnchor = linkAnchor;
 		}
 		// no link anchor found, nothing to link to, unlink point if applicable
 		if (linkableTo == null && vPoint.getLinePoint().getElementRef() != null) {
@@ -1126,31 +1172,28 @@ private void linkPointToObject(Point2D p2d, Handle g) {
 		}
 	}
 
+	LinkProviderIndex getLinkProviderIndex() {
+		return linkProviderIndex;
+	}
+
 	/**
-	 * Returns link providers at a particular location on the drawing.
-	 * 
-	 * @param p2d the point2d of a particular location.
-	 * @return the list of link providers at the particular location.
+	 * Called when a drawing object has been added, removed or changed shape, so
+	 * that the link providers are indexed again when needed.
 	 */
-	private List<LinkProvider> getLinkProvidersAt(Point2D p2d) {
-		List<LinkProvider> result = new ArrayList<LinkProvider>();
-		for (VElement o : drawingObjects) {
-			if (o instanceof LinkProvider && o.getVBounds().contains(p2d)) {
-				result.add((LinkProvider) o);
-			}
+	void linkProviderChanged(VElement e) {
+		if (LinkProviderIndex.isIndexed(e)) {
+			linkProviderIndex.invalidate();
 		}
-		return result;
 	}
 
 	/**
-	 * 
+	 * Hides the link anchors shown while dragging a line end.
 	 */
 	private void hideLinkAnchors() {
-		for (VElement pe : getDrawingObjects()) {
-			if (pe instanceof LinkProvider) {
-				((LinkProvider) pe).hideLinkAnchors();
-			}
+		for (LinkProvider linkProvider : linkAnchorsShown) {
+			linkProvider.hideLinkAnchors();
 		}
+		linkAnchorsShown.clear();
 	}
 
 	// ================================================================================
@@ -1413,9 +1456,9 @@ else if (newObject != null && Math.abs(vDragStart.x - e.getX()) <= MIN_DRAG_LENG
 	public void mouseDoubleClick(MouseEvent e) {
 		VElement o = getObjectAt(e.getLocation());
 		if (o != null) {
-			Logger.log.trace("Fire double click event to " + listeners.size());
+			Logger.log.trace("Fire double click event to {}", listeners.size());
 			for (VPathwayModelListener l : listeners) {
-				Logger.log.trace("\t " + l.hashCode() + ", " + l);
+				Logger.log.trace("\t {}, {}", l.hashCode(), l);
 			}
 			fireVPathwayEvent(new VPathwayModelEvent(this, o, VPathwayModelEventType.ELEMENT_DOUBLE_CLICKED));
 		}
@@ -2157,6 +2200,105 @@ private void scaleHeight(List<VGroupable> gs) {
 		}
 	}
 
+	// ================================================================================
+	// Graph Layout Methods
+	// ================================================================================
+	/**
+	 * Lays out the data nodes and interactions of the pathway with the given graph
+	 * layout, as a single undoable action.
+	 * 
+	 * @param layout the graph layout.
+	 */
+	public void layoutPathway(GraphLayout layout) {
+		runLayout(layout, createLayoutGraph());
+	}
+
+	/**
+	 * Lays out the neighborhood of the selected elements again with the given
+	 * graph layout, as a single undoable action, for example after the selected
+	 * elements were moved. The selected elements and the rest of the pathway stay
+	 * in place, only the data nodes that are at most the given number of
+	 * interactions away from the selected elements are moved.
+	 * 
+	 * @param layout the graph layout.
+	 * @param hops   the size of the neighborhood, in interactions.
+	 */
+	public void layoutNeighborhood(GraphLayout layout, int hops) {
+		LayoutGraph graph = createNeighborhoodGraph(hops);
+		if (graph != null) {
+			runLayout(layout, graph);
+		}
+	}
+
+	/**
+	 * Returns a graph of the data nodes and interactions of the pathway, to lay out
+	 * with a {@link GraphLayout} and apply with
+	 * {@link #applyLayout(String, LayoutGraph)}. The layout may run in a
+	 * background thread, because it does not change the pathway.
+	 */
+	public LayoutGraph createLayoutGraph() {
+		return new LayoutGraph(data);
+	}
+
+	/**
+	 * Returns a graph like {@link #createLayoutGraph()} in which only the data
+	 * nodes that are at most the given number of interactions away from the
+	 * selected elements are free, or null if there are no such data nodes.
+	 * 
+	 * @param hops the size of the neighborhood, in interactions.
+	 */
+	public LayoutGraph createNeighborhoodGraph(int hops) {
+		LayoutGraph graph = new LayoutGraph(data);
+		Set<Node> moved = new HashSet<Node>();
+		for (VElement e : getSelectedPathwayElements()) {
+			if (e instanceof VPathwayObject) {
+				Node node = graph.getNode(((VPathwayObject) e).getPathwayObject());
+				if (node != null) {
+					moved.add(node);
+				}
+			}
+		}
+		Set<Node> free = graph.getNeighborhood(moved, hops);
+		free.removeAll(moved);
+		if (free.isEmpty()) {
+			return null;
+		}
+		graph.fixAllExcept(free);
+		return graph;
+	}
+
+	/**
+	 * Lays out the given graph and applies the result.
+	 */
+	private void runLayout(GraphLayout layout, LayoutGraph graph) {
+		StopWatch sw = new StopWatch();
+		sw.start();
+		layout.layout(graph);
+		Logger.log.debug("{} took {} msec", layout.getName(), sw.stop());
+		applyLayout(layout.getName(), graph);
+	}
+
+	/**
+	 * Moves the elements of the nodes that a layout moved, as a single undoable
+	 * action. Call this on the event dispatch thread.
+	 * 
+	 * @param name  the description of the undo action.
+	 * @param graph a graph created by this pathway, after it was laid out.
+	 */
+	public void applyLayout(String name, LayoutGraph graph) {
+		undoManager.newAction(name);
+		for (Node node : graph.getFreeNodes()) {
+			double dx = node.getX() - node.getOriginalX();
+			double dy = node.getY() - node.getOriginalY();
+			VPathwayObject view = getPathwayElementView(node.getElement());
+			if (view != null && (dx != 0 || dy != 0)) {
+				view.vMoveBy(vFromM(dx), vFromM(dy));
+			}
+		}
+		selection.fitToSelection();
+		redraw();
+	}
+
 	// ================================================================================
 	// Z-Order Methods
 	// ================================================================================
@@ -2569,7 +2711,7 @@ public void addVPathwayListener(VPathwayModelListener l) {
 	}
 
 	public void removeVPathwayListener(VPathwayModelListener l) {
-		Logger.log.trace(listeners.remove(l) + ": " + l);
+		Logger.log.trace("{}: {}", listeners.remove(l), l);
 	}
 
 	private List<VElementMouseListener> elementListeners = new ArrayList<VElementMouseListener>();
@@ -2776,10 +2918,25 @@ public void dispose() {
 	}
 
 	private void cleanUp() {
+		boolean viewRemoved = false;
 		for (Iterator<VElement> i = drawingObjects.iterator(); i.hasNext();) {
 			VElement elt = i.next();
 			if (elt.toBeRemoved()) {
 				i.remove();
+				linkProviderChanged(elt);
+				if (elt instanceof VPathwayObject) {
+					PathwayObject o = ((VPathwayObject) elt).getPathwayObject();
+					if (views.get(o) == elt) {
+						views.remove(o);
+						viewRemoved = true;
+					}
+				}
+			}
+		}
+		// another view of the same model object may still be in the drawing
+		if (viewRemoved) {
+			for (VElement elt : drawingObjects) {
+				addView(elt);
 			}
 		}
 	}
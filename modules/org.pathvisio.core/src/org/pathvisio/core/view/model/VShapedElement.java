@@ -60,6 +60,8 @@
 public abstract class VShapedElement extends VPathwayElement implements VLinkableTo, VGroupable, Adjustable {
 
 	private static final double M_ROTATION_HANDLE_POSITION = 20.0;
+	// miter limit of the default BasicStroke
+	private static final double MITER_LIMIT = 10.0;
 
 	// Side handles
 	Handle handleN;
@@ -438,6 +440,33 @@ protected Shape calculateVOutline() {
 		return a;
 	}
 
+	/**
+	 * Uses the bounds of the shape without border, grown by the widest the border
+	 * can extend: half the stroke width times the miter limit. This avoids
+	 * stroking the shape and creating the outline area.
+	 */
+	@Override
+	protected Rectangle2D calculateVCullBounds() {
+		ShapedElement gdata = getPathwayObject();
+		float sw = (float) gdata.getBorderWidth();
+		if (gdata.getBorderStyle() == LineStyleType.DOUBLE) {
+			sw = sw * 4;
+		}
+		double margin = sw / 2 * MITER_LIMIT + 1;
+		Rectangle2D r = getShape(true, 0).getBounds2D();
+		r.setRect(r.getX() - margin, r.getY() - margin, r.getWidth() + 2 * margin, r.getHeight() + 2 * margin);
+		return r;
+	}
+
+	/**
+	 * The bounds may have changed, so the link providers need to be indexed again.
+	 */
+	@Override
+	protected void resetShapeCache() {
+		super.resetShapeCache();
+		canvas.linkProviderChanged(this);
+	}
+
 	protected Shape getVShape(boolean rotate) {
 		return getShape(rotate, false); // Get the shape without border
 	}
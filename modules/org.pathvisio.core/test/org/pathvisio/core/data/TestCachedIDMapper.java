@@ -0,0 +1,145 @@
+/*******************************************************************************
+ * PathVisio, a tool for data visualization and analysis using biological pathways
+ * Copyright 2006-2022 BiGCaT Bioinformatics, WikiPathways
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.pathvisio.core.data;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.bridgedb.AbstractIDMapper;
+import org.bridgedb.AbstractIDMapperCapabilities;
+import org.bridgedb.DataSource;
+import org.bridgedb.IDMapperCapabilities;
+import org.bridgedb.Xref;
+import org.pathvisio.core.data.CachedIDMapper.Operation;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for {@link CachedIDMapper}.
+ */
+public class TestCachedIDMapper extends TestCase {
+
+	private static final DataSource SRC = DataSource.register("TcS", "Cache source").asDataSource();
+	private static final DataSource TGT = DataSource.register("TcT", "Cache target").asDataSource();
+
+	/**
+	 * Maps every xref to one xref of TGT, and counts the number of xrefs that
+	 * were mapped.
+	 */
+	private static class CountingMapper extends AbstractIDMapper {
+		int mapped = 0;
+		String suffix;
+
+		CountingMapper(String suffix) {
+			this.suffix = suffix;
+		}
+
+		public Map<Xref, Set<Xref>> mapID(Collection<Xref> srcXrefs, DataSource... tgtDataSources) {
+			Map<Xref, Set<Xref>> result = new HashMap<Xref, Set<Xref>>();
+			for (Xref ref : srcXrefs) {
+				mapped++;
+				Set<Xref> refs = new HashSet<Xref>();
+				refs.add(new Xref(ref.getId() + suffix, TGT));
+				result.put(ref, refs);
+			}
+			return result;
+		}
+
+		public boolean xrefExists(Xref xref) {
+			return true;
+		}
+
+		public Set<Xref> freeSearch(String text, int limit) {
+			return new HashSet<Xref>();
+		}
+
+		public IDMapperCapabilities getCapabilities() {
+			return new AbstractIDMapperCapabilities(new HashSet<DataSource>(Arrays.asList(SRC, TGT)), false, null) {
+			};
+		}
+
+		public void close() {
+		}
+
+		public boolean isConnected() {
+			return true;
+		}
+	}
+
+	public void testCache() throws Exception {
+		GdbManager gdbManager = new GdbManager();
+		gdbManager.getCurrentGdb().setTransitive(false);
+		CountingMapper mapper = new CountingMapper("a");
+		gdbManager.addMapper(mapper, "a");
+		CachedIDMapper cached = gdbManager.getCachedGdb();
+
+		Xref x1 = new Xref("1", SRC);
+		Xref x2 = new Xref("2", SRC);
+		assertEquals(new Xref("1a", TGT), cached.mapID(x1, TGT).iterator().next());
+		assertEquals(1, mapper.mapped);
+		assertEquals(0, cached.getHits(Operation.MAP_ID));
+		assertEquals(1, cached.getMisses(Operation.MAP_ID));
+
+		// results are copies
+		cached.mapID(x1, TGT).add(x2);
+		assertEquals(1, cached.mapID(x1, TGT).size());
+		assertEquals(1, mapper.mapped);
+		assertEquals(2, cached.getHits(Operation.MAP_ID));
+
+		// only uncached xrefs go to the mapper
+		Map<Xref, Set<Xref>> result = cached.mapID(Arrays.asList(x1, x2), TGT);
+		assertEquals(2, result.size());
+		assertEquals(2, mapper.mapped);
+
+		// other targets are cached separately
+		cached.mapID(x1);
+		assertEquals(3, mapper.mapped);
+	}
+
+	public void testInvalidation() throws Exception {
+		GdbManager gdbManager = new GdbManager();
+		gdbManager.getCurrentGdb().setTransitive(false);
+		CountingMapper a = new CountingMapper("a");
+		gdbManager.addMapper(a, "a");
+		CachedIDMapper cached = gdbManager.getCachedGdb();
+
+		Xref x1 = new Xref("1", SRC);
+		cached.mapID(x1, TGT);
+		gdbManager.removeMapper(a);
+		CountingMapper b = new CountingMapper("b");
+		gdbManager.addMapper(b, "b");
+		assertEquals(new Xref("1b", TGT), cached.mapID(x1, TGT).iterator().next());
+		assertEquals(1, b.mapped);
+	}
+
+	public void testPrefetch() throws Exception {
+		GdbManager gdbManager = new GdbManager();
+		gdbManager.getCurrentGdb().setTransitive(false);
+		CountingMapper mapper = new CountingMapper("a");
+		gdbManager.addMapper(mapper, "a");
+		CachedIDMapper cached = gdbManager.getCachedGdb();
+
+		cached.prefetch(Arrays.asList(new Xref("1", SRC), new Xref("2", SRC), new Xref("1", SRC), null));
+		assertEquals(2, mapper.mapped);
+		cached.mapID(new Xref("2", SRC));
+		assertEquals(2, mapper.mapped);
+	}
+}
@@ -0,0 +1,213 @@
+/*******************************************************************************
+ * PathVisio, a tool for data visualization and analysis using biological pathways
+ * Copyright 2006-2022 BiGCaT Bioinformatics, WikiPathways
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.pathvisio.core.data;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.bridgedb.DataSource;
+import org.bridgedb.Xref;
+import org.pathvisio.libgpml.model.DataNode;
+import org.pathvisio.libgpml.model.PathwayModel;
+import org.pathvisio.libgpml.model.type.DataNodeType;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for {@link CitationCache}, against a local stub server instead of
+ * PubMed and CrossRef.
+ */
+public class TestCitationCache extends TestCase {
+
+	private HttpServer server;
+	private final List<String> requests = new ArrayList<String>();
+	private Fetcher fetcher;
+	private File cacheFile;
+
+	private static final DataSource PUBMED = DataSource.register("Pbm", "PubMed").asDataSource();
+	private static final DataSource DOI = DataSource.register("Pbd", "DOI").asDataSource();
+
+	public void setUp() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		server.createContext("/", new HttpHandler() {
+			public void handle(HttpExchange exchange) throws IOException {
+				String query = exchange.getRequestURI().toString();
+				synchronized (requests) {
+					requests.add(query);
+				}
+				StringBuilder body = new StringBuilder();
+				int status = 200;
+				if (query.startsWith("/entrez")) {
+					String ids = query.substring(query.indexOf("id=") + 3);
+					body.append("<eSummaryResult>");
+					for (String id : ids.split(",")) {
+						if (id.startsWith("9")) {
+							continue; // unknown pmid
+						}
+						body.append("<DocSum><Id>" + id + "</Id>");
+						body.append("<Item Name=\"PubDate\" Type=\"Date\">2007 Jun 24</Item>");
+						body.append("<Item Name=\"AuthorList\" Type=\"List\">");
+						body.append("<Item Name=\"Author\" Type=\"String\">Salomonis N</Item>");
+						body.append("<Item Name=\"Author\" Type=\"String\">Pico AR</Item></Item>");
+						body.append("<Item Name=\"Title\" Type=\"String\">Title " + id + "</Item></DocSum>");
+					}
+					body.append("</eSummaryResult>");
+				} else if (!query.contains("/10.1000/")) {
+					status = 404;
+				}
+				byte[] bytes = body.toString().getBytes("UTF-8");
+				exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+				OutputStream out = exchange.getResponseBody();
+				out.write(bytes);
+				out.close();
+			}
+		});
+		server.start();
+		final int port = server.getAddress().getPort();
+		fetcher = new Fetcher() {
+			public InputStream open(URL url) throws IOException {
+				return new URL("http", "localhost", port, url.getFile()).openStream();
+			}
+		};
+		cacheFile = File.createTempFile("citation-cache", ".properties");
+		cacheFile.delete();
+		cacheFile.deleteOnExit();
+	}
+
+	public void tearDown() {
+		server.stop(0);
+	}
+
+	public void testPubMedCached() throws Exception {
+		CitationCache cache = new CitationCache(cacheFile, fetcher);
+		PubMedResult pmr = cache.getPubMed("17588266");
+		assertFalse(pmr.getError());
+		assertEquals("Title 17588266", pmr.getTitle());
+		assertEquals("2007", pmr.getYear());
+		assertEquals(2, pmr.getAuthors().size());
+
+		pmr = cache.getPubMed("17588266");
+		assertEquals("Title 17588266", pmr.getTitle());
+		assertEquals("Pico AR", pmr.getAuthors().get(1));
+		assertEquals(1, requests.size());
+
+		assertTrue(cache.getPubMed("99999999").getError());
+		assertTrue(cache.getPubMed("99999999").getError());
+		assertEquals(2, requests.size());
+
+		// a new cache reads the records from disk
+		CitationCache reloaded = new CitationCache(cacheFile, fetcher);
+		reloaded.load();
+		assertEquals("Title 17588266", reloaded.getPubMed("17588266").getTitle());
+		assertTrue(reloaded.getPubMed("99999999").getError());
+		assertEquals(2, requests.size());
+	}
+
+	public void testExpiry() throws Exception {
+		CitationCache cache = new CitationCache(cacheFile, fetcher);
+		cache.setTimeToLive(0);
+		cache.getPubMed("17588266");
+		cache.getPubMed("17588266");
+		assertEquals(2, requests.size());
+	}
+
+	public void testDOI() throws Exception {
+		CitationCache cache = new CitationCache(null, fetcher);
+		assertEquals("10.1000/182", cache.getDOI("10.1000/182").getId());
+		assertNull(cache.getDOI("10.1016/unknown"));
+		assertNull(cache.getDOI("10.1016/unknown"));
+		assertNotNull(cache.getDOI("10.1000/182"));
+		assertEquals(2, requests.size());
+	}
+
+	public void testPrefetch() throws Exception {
+		PathwayModel p = new PathwayModel();
+		DataNode d = new DataNode("d", DataNodeType.GENEPRODUCT);
+		p.addDataNode(d);
+		d.addCitation(new Xref("17588266", PUBMED), null);
+		d.addCitation(new Xref("123", PUBMED), null);
+		d.addCitation(new Xref("99999999", PUBMED), null);
+		d.addCitation(new Xref("10.1000/182", DOI), null);
+
+		CitationCache cache = new CitationCache(null, fetcher);
+		cache.prefetch(p);
+		// one batch query for pubmed, one for the doi
+		assertEquals(2, requests.size());
+		assertEquals("Title 123", cache.getPubMed("123").getTitle());
+		assertTrue(cache.getPubMed("99999999").getError());
+		assertNotNull(cache.getDOI("10.1000/182"));
+		assertEquals(2, requests.size());
+
+		cache.prefetch(p);
+		assertEquals(2, requests.size());
+	}
+
+	public void testPrefetchStoresOnce() throws Exception {
+		PathwayModel p = new PathwayModel();
+		DataNode d = new DataNode("d", DataNodeType.GENEPRODUCT);
+		p.addDataNode(d);
+		d.addCitation(new Xref("123", PUBMED), null);
+		d.addCitation(new Xref("10.1000/182", DOI), null);
+		d.addCitation(new Xref("10.1016/unknown", DOI), null);
+
+		final int[] stores = new int[1];
+		CitationCache cache = new CitationCache(cacheFile, fetcher) {
+			public synchronized void store() {
+				stores[0]++;
+				super.store();
+			}
+		};
+		cache.prefetch(p);
+		assertEquals(3, requests.size());
+		assertEquals(1, stores[0]);
+		assertFalse(new File(cacheFile.getParentFile(), cacheFile.getName() + ".tmp").exists());
+
+		CitationCache reloaded = new CitationCache(cacheFile, fetcher);
+		reloaded.load();
+		assertEquals("Title 123", reloaded.getPubMed("123").getTitle());
+		assertNotNull(reloaded.getDOI("10.1000/182"));
+		assertNull(reloaded.getDOI("10.1016/unknown"));
+		assertEquals(3, requests.size());
+	}
+
+	public void testPrefetchInBackground() throws Exception {
+		PathwayModel p = new PathwayModel();
+		DataNode d = new DataNode("d", DataNodeType.GENEPRODUCT);
+		p.addDataNode(d);
+		d.addCitation(new Xref("123", PUBMED), null);
+
+		CitationCache cache = new CitationCache(null, fetcher);
+		cache.prefetchInBackground(p).get();
+		assertEquals(1, requests.size());
+		assertEquals("Title 123", cache.getPubMed("123").getTitle());
+		assertEquals(1, requests.size());
+
+		// nothing to look up, so nothing is queried
+		cache.prefetchInBackground(p).get();
+		assertEquals(1, requests.size());
+	}
+}
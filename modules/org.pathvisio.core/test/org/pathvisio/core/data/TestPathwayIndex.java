@@ -0,0 +1,184 @@
+/*******************************************************************************
+ * PathVisio, a tool for data visualization and analysis using biological pathways
+ * Copyright 2006-2022 BiGCaT Bioinformatics, WikiPathways
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.pathvisio.core.data;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.bridgedb.DataSource;
+import org.bridgedb.Xref;
+import org.junit.Test;
+import org.pathvisio.core.data.PathwayIndex.Hit;
+import org.pathvisio.libgpml.model.DataNode;
+import org.pathvisio.libgpml.model.Label;
+import org.pathvisio.libgpml.model.PathwayModel;
+import org.pathvisio.libgpml.model.type.DataNodeType;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for {@link PathwayIndex}.
+ */
+public class TestPathwayIndex extends TestCase {
+
+	private static final DataSource SRC = DataSource.register("TsI", "Test index").asDataSource();
+
+	private File dir;
+
+	public void setUp() throws IOException {
+		dir = Files.createTempDirectory("pathwayindex").toFile();
+	}
+
+	public void tearDown() {
+		delete(dir);
+	}
+
+	private static void delete(File f) {
+		File[] children = f.listFiles();
+		if (children != null) {
+			for (File child : children) {
+				delete(child);
+			}
+		}
+		f.delete();
+	}
+
+	private static PathwayModel createPathway(String... labels) {
+		PathwayModel p = new PathwayModel();
+		for (String label : labels) {
+			p.addDataNode(new DataNode(label, DataNodeType.GENEPRODUCT, new Xref(label, SRC), null));
+		}
+		return p;
+	}
+
+	private File write(String name, PathwayModel p) throws Exception {
+		File file = new File(dir, name);
+		p.writeToXml(file, false);
+		return file;
+	}
+
+	@Test
+	public void testQueries() throws Exception {
+		File f1 = write("a.gpml", createPathway("TP53", "MDM2"));
+		PathwayModel p2 = createPathway("TP53");
+		Label label = new Label("Cell cycle arrest");
+		p2.addLabel(label);
+		File f2 = write("b.gpml", p2);
+
+		PathwayIndex index = new PathwayIndex(null);
+		assertEquals(2, index.update(dir));
+
+		List<Hit> hits = index.findByXref(new Xref("TP53", SRC));
+		assertEquals(2, hits.size());
+		assertEquals("TP53", hits.get(0).getTextLabel());
+		assertEquals(set(f1, f2), index.findPathwaysByXref(new Xref("TP53", SRC)));
+		assertEquals(set(f1), index.findPathwaysByXref(new Xref("MDM2", SRC)));
+		assertTrue(index.findByXref(new Xref("EGFR", SRC)).isEmpty());
+
+		hits = index.findByText("ARREST, cell");
+		assertEquals(1, hits.size());
+		assertEquals(label.getElementId(), hits.get(0).getElementId());
+		assertTrue(index.findByText("cell division").isEmpty());
+		assertTrue(index.findByText(" - ").isEmpty());
+	}
+
+	@Test
+	public void testIncrementalUpdate() throws Exception {
+		File f1 = write("a.gpml", createPathway("TP53"));
+		File sub = new File(dir, "sub");
+		sub.mkdir();
+		File f2 = new File(sub, "b.gpml");
+		createPathway("MDM2").writeToXml(f2, false);
+
+		PathwayIndex index = new PathwayIndex(null);
+		assertEquals(2, index.update(dir));
+		assertEquals(0, index.update(dir));
+
+		createPathway("EGFR").writeToXml(f1, false);
+		f1.setLastModified(f1.lastModified() + 2000);
+		assertEquals(1, index.update(dir));
+		assertTrue(index.findByXref(new Xref("TP53", SRC)).isEmpty());
+		assertEquals(set(f1), index.findPathwaysByText("egfr"));
+
+		f2.delete();
+		assertEquals(0, index.update(dir));
+		assertTrue(index.findByText("MDM2").isEmpty());
+		assertEquals(set(f1), index.getFiles());
+	}
+
+	@Test
+	public void testUnreadableFile() throws Exception {
+		File f1 = write("a.gpml", createPathway("TP53"));
+		PathwayIndex index = new PathwayIndex(null);
+		assertEquals(1, index.update(dir));
+
+		// a changed file that can not be read is removed from the index
+		Files.write(f1.toPath(), "<Pathway".getBytes("UTF-8"));
+		f1.setLastModified(f1.lastModified() + 2000);
+		assertEquals(1, index.update(dir));
+		assertTrue(index.findByXref(new Xref("TP53", SRC)).isEmpty());
+		assertTrue(index.getFiles().isEmpty());
+	}
+
+	@Test
+	public void testSaveAndLoad() throws Exception {
+		File f1 = write("a.gpml", createPathway("TP53", "MDM2"));
+		File indexFile = new File(dir, "index.bin");
+
+		PathwayIndex index = new PathwayIndex(indexFile);
+		index.update(dir);
+		index.save();
+		assertTrue(indexFile.exists());
+		assertFalse(new File(dir, "index.bin.tmp").exists());
+
+		PathwayIndex loaded = new PathwayIndex(indexFile);
+		loaded.load();
+		assertEquals(set(f1), loaded.findPathwaysByXref(new Xref("MDM2", SRC)));
+		assertEquals(set(f1), loaded.findPathwaysByText("tp53"));
+		// nothing changed, so nothing is read
+		assertEquals(0, loaded.update(dir));
+	}
+
+	/**
+	 * Queries an index of 10000 pathways.
+	 */
+	@Test
+	public void testLargeIndex() {
+		PathwayIndex index = new PathwayIndex(null);
+		for (int i = 0; i < 10000; i++) {
+			index.add(new File(dir, "p" + i + ".gpml"), createPathway("gene" + i, "gene" + (i / 10), "common"));
+		}
+		long start = System.currentTimeMillis();
+		for (int i = 0; i < 1000; i++) {
+			// in pathway i, and in pathways 10i to 10i + 9
+			assertEquals(11, index.findByXref(new Xref("gene" + i, SRC)).size());
+			assertEquals(1, index.findPathwaysByText("GENE" + (9000 + i)).size());
+		}
+		assertEquals(10000, index.findPathwaysByText("common").size());
+		long time = System.currentTimeMillis() - start;
+		assertTrue("2000 queries took " + time + " ms", time < 2000);
+	}
+
+	private static <T> Set<T> set(T... elements) {
+		return new HashSet<T>(Arrays.asList(elements));
+	}
+}
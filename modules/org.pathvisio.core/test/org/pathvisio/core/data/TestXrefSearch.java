@@ -0,0 +1,203 @@
+/*******************************************************************************
+ * PathVisio, a tool for data visualization and analysis using biological pathways
+ * Copyright 2006-2022 BiGCaT Bioinformatics, WikiPathways
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.pathvisio.core.data;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+
+import org.bridgedb.AbstractIDMapper;
+import org.bridgedb.AbstractIDMapperCapabilities;
+import org.bridgedb.AttributeMapper;
+import org.bridgedb.DataSource;
+import org.bridgedb.IDMapperCapabilities;
+import org.bridgedb.Xref;
+import org.pathvisio.core.data.XrefSearch.Search;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for {@link XrefSearch}.
+ */
+public class TestXrefSearch extends TestCase {
+
+	private static final DataSource GENES = DataSource.register("TxG", "Search genes").type("gene")
+			.asDataSource();
+	private static final DataSource TERMS = DataSource.register("TxO", "Search terms").type("ontology")
+			.asDataSource();
+
+	/**
+	 * Finds xrefs whose id starts with the query or whose symbol contains it, and
+	 * counts the queries.
+	 */
+	private static class StubMapper extends AbstractIDMapper implements AttributeMapper {
+		final Map<Xref, String> symbols = new LinkedHashMap<Xref, String>();
+		int queries = 0;
+
+		StubMapper(Object... xrefsAndSymbols) {
+			for (int i = 0; i < xrefsAndSymbols.length; i += 2) {
+				symbols.put((Xref) xrefsAndSymbols[i], (String) xrefsAndSymbols[i + 1]);
+			}
+		}
+
+		public synchronized Map<Xref, String> freeAttributeSearch(String query, String attrType, int limit) {
+			queries++;
+			String lower = query.toLowerCase();
+			Map<Xref, String> result = new HashMap<Xref, String>();
+			for (Map.Entry<Xref, String> e : symbols.entrySet()) {
+				boolean match = MATCH_ID.equals(attrType) ? e.getKey().getId().toLowerCase().startsWith(lower)
+						: e.getValue().toLowerCase().contains(lower);
+				if (match && result.size() < limit) {
+					result.put(e.getKey(), e.getValue());
+				}
+			}
+			return result;
+		}
+
+		public Map<Xref, Set<String>> freeAttributeSearchEx(String query, String attrType, int limit) {
+			throw new UnsupportedOperationException();
+		}
+
+		public boolean isFreeAttributeSearchSupported() {
+			return true;
+		}
+
+		public Set<String> getAttributes(Xref ref, String attrType) {
+			return new HashSet<String>();
+		}
+
+		public Map<String, Set<String>> getAttributes(Xref ref) {
+			return new HashMap<String, Set<String>>();
+		}
+
+		public Set<String> getAttributeSet() {
+			return new HashSet<String>(Arrays.asList("Symbol"));
+		}
+
+		public Map<Xref, Set<Xref>> mapID(Collection<Xref> srcXrefs, DataSource... tgtDataSources) {
+			return new HashMap<Xref, Set<Xref>>();
+		}
+
+		public boolean xrefExists(Xref xref) {
+			return symbols.containsKey(xref);
+		}
+
+		public Set<Xref> freeSearch(String text, int limit) {
+			return new HashSet<Xref>();
+		}
+
+		public IDMapperCapabilities getCapabilities() {
+			return new AbstractIDMapperCapabilities(new HashSet<DataSource>(Arrays.asList(GENES, TERMS)), true,
+					null) {
+			};
+		}
+
+		public void close() {
+		}
+
+		public boolean isConnected() {
+			return true;
+		}
+	}
+
+	public void testRankingAndDuplicates() throws Exception {
+		GdbManager gdbManager = new GdbManager();
+		gdbManager.addMapper(new StubMapper(new Xref("1", GENES), "XBRCA1", new Xref("2", GENES), "BRCA",
+				new Xref("GO:1", TERMS), "BRCA binding"), "a");
+		gdbManager.addMapper(new StubMapper(new Xref("2", GENES), "BRCA", new Xref("3", GENES), "BRCA2"), "b");
+
+		List<XrefWithSymbol> results = gdbManager.getXrefSearch().search("brca", null).await();
+		assertEquals(3, results.size());
+		assertEquals("BRCA", results.get(0).getSymbol());
+		assertEquals("BRCA2", results.get(1).getSymbol());
+		assertEquals("XBRCA1", results.get(2).getSymbol());
+	}
+
+	public void testCache() throws Exception {
+		GdbManager gdbManager = new GdbManager();
+		StubMapper mapper = new StubMapper(new Xref("1", GENES), "INSR", new Xref("2", GENES), "INS");
+		gdbManager.addMapper(mapper, "a");
+		XrefSearch xrefSearch = gdbManager.getXrefSearch();
+
+		assertEquals(2, xrefSearch.search("ins", null).await().size());
+		assertEquals(2, mapper.queries);
+
+		// the same text is answered from the cache
+		Search search = xrefSearch.search("ins", null);
+		assertEquals(2, search.getResults().size());
+		search.await();
+		assertEquals(2, mapper.queries);
+
+		// a longer text shows filtered results of the prefix until it is done
+		search = xrefSearch.search("insr", null);
+		assertEquals(1, search.getResults().size());
+		assertEquals("INSR", search.await().get(0).getSymbol());
+
+		// changing the databases clears the cache
+		StubMapper other = new StubMapper(new Xref("3", GENES), "INSL3");
+		gdbManager.addMapper(other, "b");
+		assertEquals(3, xrefSearch.search("ins", null).await().size());
+		assertEquals(6, mapper.queries);
+	}
+
+	/**
+	 * Blocks every query until it is released, and records whether a query was
+	 * interrupted.
+	 */
+	private static class BlockingMapper extends StubMapper {
+		final CountDownLatch release = new CountDownLatch(1);
+		volatile boolean interrupted = false;
+
+		BlockingMapper(Object... xrefsAndSymbols) {
+			super(xrefsAndSymbols);
+		}
+
+		public Map<Xref, String> freeAttributeSearch(String query, String attrType, int limit) {
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				interrupted = true;
+			}
+			return super.freeAttributeSearch(query, attrType, limit);
+		}
+	}
+
+	public void testCancel() throws Exception {
+		GdbManager gdbManager = new GdbManager();
+		BlockingMapper mapper = new BlockingMapper(new Xref("1", GENES), "INSR");
+		gdbManager.addMapper(mapper, "a");
+
+		Search search = gdbManager.getXrefSearch().search("ins", null);
+		search.cancel();
+		assertTrue(search.isCancelled());
+		mapper.release.countDown();
+		// every query counts down, whether it ran or not
+		long deadline = System.currentTimeMillis() + 10000;
+		while (!search.isDone() && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertTrue(search.isDone());
+		assertTrue(search.await().isEmpty());
+		assertFalse(mapper.interrupted);
+	}
+}
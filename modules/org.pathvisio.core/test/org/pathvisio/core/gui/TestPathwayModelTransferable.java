@@ -0,0 +1,122 @@
+/*******************************************************************************
+ * PathVisio, a tool for data visualization and analysis using biological pathways
+ * Copyright 2006-2022 BiGCaT Bioinformatics, WikiPathways
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.pathvisio.core.gui;
+
+import java.awt.datatransfer.DataFlavor;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.pathvisio.libgpml.model.CopyElement;
+import org.pathvisio.libgpml.model.DataNode;
+import org.pathvisio.libgpml.model.GPMLFormat;
+import org.pathvisio.libgpml.model.Group;
+import org.pathvisio.libgpml.model.Interaction;
+import org.pathvisio.libgpml.model.PathwayModel;
+import org.pathvisio.libgpml.model.type.DataNodeType;
+import org.pathvisio.libgpml.model.type.GroupType;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for {@link PathwayModelTransferable}.
+ */
+public class TestPathwayModelTransferable extends TestCase {
+
+	private PathwayModel source;
+	private DataNode d1;
+	private Interaction i;
+
+	@Override
+	public void setUp() {
+		source = new PathwayModel();
+		d1 = new DataNode("d1", DataNodeType.METABOLITE);
+		source.addDataNode(d1);
+		d1.setCenterX(20);
+		d1.setCenterY(20);
+		d1.setWidth(40);
+		d1.setHeight(20);
+		i = new Interaction();
+		source.addInteraction(i);
+		i.getStartLinePoint().setX(100);
+		i.getStartLinePoint().setY(100);
+		i.getEndLinePoint().linkTo(d1);
+	}
+
+	private PathwayModelTransferable copy() {
+		List<CopyElement> elements = new ArrayList<CopyElement>();
+		elements.add(d1.copy());
+		elements.add(i.copy());
+		return new PathwayModelTransferable(source, elements);
+	}
+
+	@Test
+	public void testPathwayModelFlavor() throws Exception {
+		PathwayModelTransferable t = copy();
+		assertTrue(t.isDataFlavorSupported(PathwayModelTransferable.PATHWAY_MODEL_FLAVOR));
+		assertEquals(PathwayModelTransferable.PATHWAY_MODEL_FLAVOR, t.getTransferDataFlavors()[0]);
+
+		PathwayModel fragment = PathwayModelTransferable.getPathwayModel(t);
+		assertNotSame(source, fragment);
+		assertEquals(1, fragment.getDataNodes().size());
+		assertEquals(1, fragment.getInteractions().size());
+		DataNode d = fragment.getDataNodes().get(0);
+		assertNotSame(d1, d);
+		// references between copied elements point into the fragment
+		assertSame(d, fragment.getInteractions().get(0).getEndElementRef());
+
+		// later edits to the source don't change the clipboard
+		d1.setTextLabel("changed");
+		assertEquals("d1", d.getTextLabel());
+		assertSame(fragment, PathwayModelTransferable.getPathwayModel(t));
+	}
+
+	@Test
+	public void testTextFlavor() throws Exception {
+		PathwayModelTransferable t = copy();
+		String xml = PathwayModelTransferable.getText(t);
+		assertNotNull(xml);
+		assertSame(xml, t.getTransferData(DataFlavor.stringFlavor));
+
+		PathwayModel pnew = new PathwayModel();
+		GPMLFormat.readFromXml(pnew, new StringReader(xml), true);
+		assertEquals(1, pnew.getDataNodes().size());
+		assertSame(pnew.getDataNodes().get(0), pnew.getInteractions().get(0).getEndElementRef());
+	}
+
+	@Test
+	public void testTextFlavorLeavesFragment() throws Exception {
+		// a group copied without its members is empty in the fragment
+		Group g = new Group(GroupType.GROUP);
+		source.addGroup(g);
+		g.addPathwayElement(d1);
+		List<CopyElement> elements = new ArrayList<CopyElement>();
+		elements.add(g.copy());
+		PathwayModelTransferable t = new PathwayModelTransferable(source, elements);
+		PathwayModel fragment = PathwayModelTransferable.getPathwayModel(t);
+		assertEquals(1, fragment.getGroups().size());
+
+		String xml = PathwayModelTransferable.getText(t);
+		assertNotNull(xml);
+		// writing removes the empty group from the written copy only
+		assertEquals(1, fragment.getGroups().size());
+		PathwayModel pnew = new PathwayModel();
+		GPMLFormat.readFromXml(pnew, new StringReader(xml), true);
+		assertEquals(0, pnew.getGroups().size());
+	}
+}
@@ -0,0 +1,83 @@
+/*******************************************************************************
+ * PathVisio, a tool for data visualization and analysis using biological pathways
+ * Copyright 2006-2022 BiGCaT Bioinformatics, WikiPathways
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.pathvisio.core.layout;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.pathvisio.libgpml.debug.StopWatch;
+import org.pathvisio.libgpml.model.DataNode;
+import org.pathvisio.libgpml.model.Interaction;
+import org.pathvisio.libgpml.model.PathwayModel;
+import org.pathvisio.libgpml.model.type.DataNodeType;
+
+/**
+ * Benchmark for laying out a generated pathway of data nodes without
+ * positions: {@link ForceDirectedLayout} on one thread and on the common pool,
+ * with and without the Barnes-Hut approximation, and {@link LayeredLayout}.
+ * <p>
+ * Usage: GraphLayoutBenchmark [number of data nodes] [rounds]. Every data node
+ * is connected to the data node with half its index.
+ */
+public class GraphLayoutBenchmark {
+
+	private static PathwayModel createPathway(int size) {
+		PathwayModel p = new PathwayModel();
+		List<DataNode> dataNodes = new ArrayList<DataNode>();
+		for (int i = 0; i < size; i++) {
+			DataNode dn = new DataNode("node" + i, DataNodeType.GENEPRODUCT);
+			dn.setWidth(80);
+			dn.setHeight(20);
+			p.addDataNode(dn);
+			if (i > 0) {
+				Interaction in = new Interaction();
+				p.addInteraction(in);
+				in.getStartLinePoint().linkTo(dataNodes.get(i / 2));
+				in.getEndLinePoint().linkTo(dn);
+			}
+			dataNodes.add(dn);
+		}
+		return p;
+	}
+
+	private static void time(String name, GraphLayout layout, PathwayModel p) {
+		LayoutGraph graph = new LayoutGraph(p);
+		StopWatch sw = new StopWatch();
+		sw.start();
+		layout.layout(graph);
+		System.out.println(graph.getNodes().size() + " data nodes: " + name + " " + sw.stop() + " msec");
+	}
+
+	public static void main(String[] args) {
+		int size = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+		int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+		PathwayModel p = createPathway(size);
+		ForkJoinPool single = new ForkJoinPool(1);
+		for (int i = 0; i < rounds; i++) {
+			time("force-directed, 1 thread", new ForceDirectedLayout(single), p);
+			time("force-directed, " + ForkJoinPool.commonPool().getParallelism() + " threads",
+					new ForceDirectedLayout(), p);
+			if (size <= 2000) {
+				ForceDirectedLayout exact = new ForceDirectedLayout();
+				exact.setTheta(0);
+				time("force-directed without Barnes-Hut", exact, p);
+			}
+			time("layered", new LayeredLayout(), p);
+		}
+	}
+}
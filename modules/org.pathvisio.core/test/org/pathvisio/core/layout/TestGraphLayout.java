@@ -0,0 +1,272 @@
+/*******************************************************************************
+ * PathVisio, a tool for data visualization and analysis using biological pathways
+ * Copyright 2006-2022 BiGCaT Bioinformatics, WikiPathways
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.pathvisio.core.layout;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.pathvisio.core.layout.LayoutGraph.Node;
+import org.pathvisio.core.preferences.PreferenceManager;
+import org.pathvisio.core.util.ProgressKeeper;
+import org.pathvisio.core.view.model.VPathwayModel;
+import org.pathvisio.libgpml.model.DataNode;
+import org.pathvisio.libgpml.model.DataNode.State;
+import org.pathvisio.libgpml.model.Group;
+import org.pathvisio.libgpml.model.Interaction;
+import org.pathvisio.libgpml.model.PathwayModel;
+import org.pathvisio.libgpml.model.type.DataNodeType;
+import org.pathvisio.libgpml.model.type.GroupType;
+import org.pathvisio.libgpml.model.type.StateType;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for {@link LayoutGraph}, {@link ForceDirectedLayout} and
+ * {@link LayeredLayout}.
+ */
+public class TestGraphLayout extends TestCase {
+
+	private PathwayModel pwy;
+
+	public void setUp() {
+		PreferenceManager.init();
+		pwy = new PathwayModel();
+	}
+
+	private DataNode createDataNode(double x, double y) {
+		DataNode dn = new DataNode("", DataNodeType.GENEPRODUCT);
+		dn.setCenterX(x);
+		dn.setCenterY(y);
+		dn.setWidth(80);
+		dn.setHeight(20);
+		pwy.add(dn);
+		return dn;
+	}
+
+	private Interaction connect(DataNode start, DataNode end) {
+		Interaction in = new Interaction();
+		pwy.add(in);
+		in.getStartLinePoint().linkTo(start);
+		in.getEndLinePoint().linkTo(end);
+		return in;
+	}
+
+	/**
+	 * Creates a pathway of the given number of data nodes, all at the same
+	 * position, each connected to a few of the previous ones.
+	 */
+	private List<DataNode> createPile(int size) {
+		List<DataNode> result = new ArrayList<DataNode>();
+		for (int i = 0; i < size; i++) {
+			DataNode dn = createDataNode(0, 0);
+			if (i > 0) {
+				connect(result.get(i / 2), dn);
+			}
+			result.add(dn);
+		}
+		return result;
+	}
+
+	private void assertNoOverlap(LayoutGraph graph) {
+		List<Node> nodes = graph.getNodes();
+		for (int i = 0; i < nodes.size(); i++) {
+			for (int j = i + 1; j < nodes.size(); j++) {
+				Node a = nodes.get(i);
+				Node b = nodes.get(j);
+				boolean overlap = Math.abs(a.getX() - b.getX()) < (a.getWidth() + b.getWidth()) / 2
+						&& Math.abs(a.getY() - b.getY()) < (a.getHeight() + b.getHeight()) / 2;
+				assertFalse(a + " overlaps " + b, overlap);
+			}
+		}
+	}
+
+	public void testGraph() {
+		DataNode dn1 = createDataNode(100, 100);
+		DataNode dn2 = createDataNode(300, 100);
+		DataNode dn3 = createDataNode(500, 100);
+		DataNode dn4 = createDataNode(500, 130);
+		State st = dn1.addState("st", StateType.PROTEIN_MODIFICATION, 0, 0);
+		Group group = new Group(GroupType.COMPLEX);
+		pwy.add(group);
+		group.addPathwayElement(dn3);
+		group.addPathwayElement(dn4);
+		Interaction in1 = new Interaction();
+		pwy.add(in1);
+		in1.getStartLinePoint().linkTo(st);
+		in1.getEndLinePoint().linkTo(dn2);
+		connect(dn2, dn4);
+		connect(dn2, dn2);
+
+		LayoutGraph graph = new LayoutGraph(pwy);
+		// the group is a single node
+		assertEquals(3, graph.getNodes().size());
+		assertSame(graph.getNode(group), graph.getNode(dn3));
+		assertSame(graph.getNode(dn1), graph.getNode(st));
+		// the interaction of the state is an edge of its data node, self loops are
+		// left out
+		assertEquals(2, graph.getEdges().size());
+		assertSame(graph.getNode(dn1), graph.getEdges().get(0).getSource());
+		assertSame(graph.getNode(group), graph.getEdges().get(1).getTarget());
+		assertEquals(2, graph.getNode(dn2).getNeighbors().size());
+		assertEquals(3, graph.getNeighborhood(java.util.Collections.singleton(graph.getNode(dn1)), 2).size());
+	}
+
+	public void testForceDirected() {
+		createPile(500);
+		LayoutGraph graph = new LayoutGraph(pwy);
+		ForceDirectedLayout layout = new ForceDirectedLayout(new ForkJoinPool(4));
+		layout.layout(graph);
+		assertNoOverlap(graph);
+
+		// connected nodes are closer than other nodes
+		double connected = 0;
+		for (LayoutGraph.Edge edge : graph.getEdges()) {
+			connected += distance(edge.getSource(), edge.getTarget()) / graph.getEdges().size();
+		}
+		double all = 0;
+		List<Node> nodes = graph.getNodes();
+		for (int i = 1; i < nodes.size(); i++) {
+			all += distance(nodes.get(i - 1), nodes.get(i)) / (nodes.size() - 1);
+		}
+		assertTrue(connected + " " + all, connected * 2 < all);
+	}
+
+	private static double distance(Node a, Node b) {
+		return Math.hypot(a.getX() - b.getX(), a.getY() - b.getY());
+	}
+
+	public void testFixed() {
+		List<DataNode> dns = createPile(50);
+		LayoutGraph graph = new LayoutGraph(pwy);
+		graph.getNode(dns.get(0)).setFixed(true);
+		new ForceDirectedLayout().layout(graph);
+		assertEquals(0.0, graph.getNode(dns.get(0)).getX());
+		assertEquals(0.0, graph.getNode(dns.get(0)).getY());
+		assertTrue(graph.getNode(dns.get(1)).getX() != 0);
+	}
+
+	public void testLayered() {
+		// a -> b -> c -> a, a -> c, and an unconnected node
+		DataNode a = createDataNode(0, 0);
+		DataNode b = createDataNode(0, 0);
+		DataNode c = createDataNode(0, 0);
+		DataNode d = createDataNode(0, 0);
+		connect(a, b);
+		connect(b, c);
+		connect(c, a);
+		connect(a, c);
+		LayoutGraph graph = new LayoutGraph(pwy);
+		new LayeredLayout().layout(graph);
+		assertNoOverlap(graph);
+		Node na = graph.getNode(a);
+		Node nb = graph.getNode(b);
+		Node nc = graph.getNode(c);
+		assertTrue(na.getY() < nb.getY());
+		assertTrue(nb.getY() < nc.getY());
+		// the unconnected node is placed next to the rest
+		assertTrue(graph.getNode(d).getX() > Math.max(na.getX(), nc.getX()));
+		// the top left corner stays in place
+		assertEquals(-40.0, LayoutGraph.getBounds(graph.getNodes()).getX(), 1e-6);
+		assertEquals(-10.0, LayoutGraph.getBounds(graph.getNodes()).getY(), 1e-6);
+	}
+
+	public void testLayeredCrossings() {
+		// two layers where the initial order has crossing edges
+		List<DataNode> top = new ArrayList<DataNode>();
+		List<DataNode> bottom = new ArrayList<DataNode>();
+		for (int i = 0; i < 5; i++) {
+			top.add(createDataNode(0, 0));
+		}
+		for (int i = 0; i < 5; i++) {
+			bottom.add(createDataNode(0, 0));
+		}
+		for (int i = 0; i < 5; i++) {
+			connect(top.get(i), bottom.get(4 - i));
+		}
+		LayoutGraph graph = new LayoutGraph(pwy);
+		new LayeredLayout().layout(graph);
+		for (int i = 0; i < 5; i++) {
+			Node t = graph.getNode(top.get(i));
+			Node b = graph.getNode(bottom.get(4 - i));
+			assertEquals(t.getX(), b.getX(), 1e-6);
+		}
+	}
+
+	public void testLayoutPathway() {
+		List<DataNode> dns = createPile(20);
+		Interaction in = (Interaction) pwy.getInteractions().get(0);
+		VPathwayModel vPwy = new VPathwayModel(null);
+		vPwy.fromModel(pwy);
+		vPwy.layoutPathway(new LayeredLayout());
+		LayoutGraph graph = new LayoutGraph(pwy);
+		assertNoOverlap(graph);
+		// lines follow their data nodes
+		assertEquals(dns.get(0).getCenterX(), in.getStartLinePoint().getX(), 1e-6);
+
+		// only the neighborhood of the selection is moved
+		double x0 = dns.get(0).getCenterX();
+		double x1 = dns.get(1).getCenterX();
+		double x10 = dns.get(10).getCenterX();
+		double y19 = dns.get(19).getCenterY();
+		dns.get(0).setCenterX(x0 + 1000);
+		vPwy.selectObject(vPwy.getPathwayElementView(dns.get(0)));
+		vPwy.layoutNeighborhood(new ForceDirectedLayout(), 1);
+		assertEquals(x0 + 1000, dns.get(0).getCenterX(), 1e-6);
+		assertTrue(dns.get(1).getCenterX() != x1);
+		assertEquals(x10, dns.get(10).getCenterX(), 1e-6);
+		assertEquals(y19, dns.get(19).getCenterY(), 1e-6);
+	}
+
+	public void testProgress() {
+		createPile(50);
+		LayoutGraph graph = new LayoutGraph(pwy);
+		ProgressKeeper pk = new ProgressKeeper(100);
+		new ForceDirectedLayout().layout(graph, pk);
+		assertTrue(pk.getProgress() > 0);
+		// finishing is up to the caller
+		assertFalse(pk.isFinished());
+		assertNoOverlap(graph);
+	}
+
+	public void testCancelled() {
+		List<DataNode> dns = createPile(50);
+		ProgressKeeper pk = new ProgressKeeper(100);
+		pk.cancel();
+		LayoutGraph graph = new LayoutGraph(pwy);
+		new ForceDirectedLayout().layout(graph, pk);
+		assertEquals(0.0, graph.getNode(dns.get(1)).getX());
+		graph = new LayoutGraph(pwy);
+		new LayeredLayout().layout(graph, pk);
+		assertEquals(0.0, graph.getNode(dns.get(1)).getX());
+	}
+
+	public void testApplyLayout() {
+		List<DataNode> dns = createPile(20);
+		VPathwayModel vPwy = new VPathwayModel(null);
+		vPwy.fromModel(pwy);
+		assertNull(vPwy.createNeighborhoodGraph(1));
+
+		// laid out separately, as in a background thread
+		LayoutGraph graph = vPwy.createLayoutGraph();
+		new LayeredLayout().layout(graph, new ProgressKeeper(100));
+		assertEquals(0.0, dns.get(1).getCenterX());
+		vPwy.applyLayout("Layered", graph);
+		assertEquals(graph.getNode(dns.get(1)).getX(), dns.get(1).getCenterX(), 1e-6);
+		assertNoOverlap(new LayoutGraph(pwy));
+	}
+}
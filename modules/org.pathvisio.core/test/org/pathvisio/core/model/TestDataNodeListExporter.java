@@ -0,0 +1,217 @@
+/*******************************************************************************
+ * PathVisio, a tool for data visualization and analysis using biological pathways
+ * Copyright 2006-2022 BiGCaT Bioinformatics, WikiPathways
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.pathvisio.core.model;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.bridgedb.AbstractIDMapper;
+import org.bridgedb.AbstractIDMapperCapabilities;
+import org.bridgedb.DataSource;
+import org.bridgedb.IDMapperCapabilities;
+import org.bridgedb.Xref;
+import org.junit.Test;
+import org.pathvisio.core.data.GdbManager;
+import org.pathvisio.libgpml.model.DataNode;
+import org.pathvisio.libgpml.model.PathwayModel;
+import org.pathvisio.libgpml.model.type.DataNodeType;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for batched id mapping in {@link DataNodeListExporter}.
+ */
+public class TestDataNodeListExporter extends TestCase {
+
+	private static final DataSource SRC = DataSource.register("TsS", "Test source").asDataSource();
+	private static final DataSource TGT = DataSource.register("TsT", "Test target").asDataSource();
+
+	/**
+	 * Maps every Xref of SRC to one Xref of TGT, and records which Xrefs were
+	 * looked up.
+	 */
+	private static class CountingMapper extends AbstractIDMapper {
+		final List<Xref> queried = new ArrayList<Xref>();
+
+		public synchronized Map<Xref, Set<Xref>> mapID(Collection<Xref> srcXrefs, DataSource... tgtDataSources) {
+			Map<Xref, Set<Xref>> result = new HashMap<Xref, Set<Xref>>();
+			for (Xref ref : srcXrefs) {
+				queried.add(ref);
+				Set<Xref> mapped = new HashSet<Xref>();
+				if (SRC.equals(ref.getDataSource())) {
+					mapped.add(new Xref("t" + ref.getId(), TGT));
+				}
+				result.put(ref, mapped);
+			}
+			return result;
+		}
+
+		public boolean xrefExists(Xref xref) {
+			return true;
+		}
+
+		public Set<Xref> freeSearch(String text, int limit) {
+			return new HashSet<Xref>();
+		}
+
+		public IDMapperCapabilities getCapabilities() {
+			Set<DataSource> supported = new HashSet<DataSource>();
+			supported.add(SRC);
+			supported.add(TGT);
+			return new AbstractIDMapperCapabilities(supported, false, null) {
+			};
+		}
+
+		public void close() {
+		}
+
+		public boolean isConnected() {
+			return true;
+		}
+	}
+
+	private PathwayModel createPathway(String... ids) {
+		PathwayModel p = new PathwayModel();
+		for (String id : ids) {
+			p.addDataNode(new DataNode(id, DataNodeType.GENEPRODUCT, new Xref(id, SRC), null));
+		}
+		return p;
+	}
+
+	private List<String> export(DataNodeListExporter exporter, PathwayModel p) throws Exception {
+		File f = File.createTempFile("datanodes", ".txt");
+		f.deleteOnExit();
+		exporter.doExport(f, p);
+		return readLines(f);
+	}
+
+	@Test
+	public void testSharedXrefsMappedOnce() throws Exception {
+		CountingMapper mapper = new CountingMapper();
+		GdbManager gdbManager = new GdbManager();
+		gdbManager.addMapper(mapper, "test");
+		DataNodeListExporter exporter = new DataNodeListExporter(gdbManager);
+		exporter.setResultDataSource(TGT);
+		exporter.setBatchSize(2);
+
+		List<String> lines = export(exporter, createPathway("a", "b", "a", "c", "b"));
+		assertEquals("Identifier\tDatabase", lines.get(0));
+		assertEquals(6, lines.size());
+		assertEquals("ta\tTest target", lines.get(1));
+		assertEquals("tb\tTest target", lines.get(2));
+		assertEquals("ta\tTest target", lines.get(3));
+		assertEquals("tc\tTest target", lines.get(4));
+		assertEquals(3, mapper.queried.size());
+
+		// second pathway is served from the cache, except for the new xref
+		lines = export(exporter, createPathway("c", "d"));
+		assertEquals("td\tTest target", lines.get(2));
+		assertEquals(4, mapper.queried.size());
+
+		// changing the gene database invalidates the cache
+		gdbManager.removeMapper(mapper);
+		gdbManager.addMapper(mapper, "test");
+		export(exporter, createPathway("a"));
+		assertEquals(5, mapper.queried.size());
+	}
+
+	@Test
+	public void testConcurrentExport() throws Exception {
+		CountingMapper mapper = new CountingMapper();
+		GdbManager gdbManager = new GdbManager();
+		gdbManager.addMapper(mapper, "test");
+		DataNodeListExporter exporter = new DataNodeListExporter(gdbManager);
+		exporter.setResultDataSource(TGT);
+
+		Map<File, PathwayModel> jobs = new HashMap<File, PathwayModel>();
+		for (int i = 0; i < 8; i++) {
+			File f = File.createTempFile("datanodes" + i, ".txt");
+			f.deleteOnExit();
+			jobs.put(f, createPathway("x" + i, "y", "z"));
+		}
+		exporter.doExport(jobs, 4);
+		for (Map.Entry<File, PathwayModel> job : jobs.entrySet()) {
+			List<String> lines = readLines(job.getKey());
+			assertEquals(4, lines.size());
+			assertEquals("ty\tTest target", lines.get(2));
+		}
+	}
+
+	/**
+	 * Changes the settings of the exporter whenever a batch is mapped.
+	 */
+	private static class ChangingMapper extends CountingMapper {
+		DataNodeListExporter exporter;
+		boolean changeResult;
+
+		public synchronized Map<Xref, Set<Xref>> mapID(Collection<Xref> srcXrefs, DataSource... tgtDataSources) {
+			Map<Xref, Set<Xref>> result = super.mapID(srcXrefs, tgtDataSources);
+			if (changeResult) {
+				exporter.setResultCode(DataNodeListExporter.DB_ORIGINAL);
+			} else {
+				exporter.clearCache();
+			}
+			return result;
+		}
+	}
+
+	@Test
+	public void testResultChangedDuringExport() throws Exception {
+		ChangingMapper mapper = new ChangingMapper();
+		mapper.changeResult = true;
+		GdbManager gdbManager = new GdbManager();
+		gdbManager.addMapper(mapper, "test");
+		mapper.exporter = new DataNodeListExporter(gdbManager);
+		mapper.exporter.setResultDataSource(TGT);
+		mapper.exporter.setBatchSize(2);
+
+		// the export keeps the result data source it started with
+		List<String> lines = export(mapper.exporter, createPathway("a", "b", "c"));
+		assertEquals("ta\tTest target", lines.get(1));
+		assertEquals("tc\tTest target", lines.get(3));
+	}
+
+	@Test
+	public void testClearedDuringExport() throws Exception {
+		ChangingMapper mapper = new ChangingMapper();
+		GdbManager gdbManager = new GdbManager();
+		gdbManager.addMapper(mapper, "test");
+		mapper.exporter = new DataNodeListExporter(gdbManager);
+		mapper.exporter.setResultDataSource(TGT);
+		mapper.exporter.setBatchSize(2);
+
+		List<String> lines = export(mapper.exporter, createPathway("a", "b", "c"));
+		assertEquals("tb\tTest target", lines.get(2));
+		assertEquals(3, mapper.queried.size());
+
+		// mappings made before the cache was cleared are not used afterwards
+		export(mapper.exporter, createPathway("c"));
+		assertEquals(4, mapper.queried.size());
+	}
+
+	private List<String> readLines(File f) throws IOException {
+		return Files.readAllLines(f.toPath());
+	}
+}
@@ -0,0 +1,93 @@
+/*******************************************************************************
+ * PathVisio, a tool for data visualization and analysis using biological pathways
+ * Copyright 2006-2022 BiGCaT Bioinformatics, WikiPathways
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.pathvisio.core.view.model;
+
+import java.awt.geom.Point2D;
+import java.util.List;
+
+import org.pathvisio.core.preferences.PreferenceManager;
+import org.pathvisio.libgpml.model.DataNode;
+import org.pathvisio.libgpml.model.PathwayModel;
+import org.pathvisio.libgpml.model.type.DataNodeType;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for {@link LinkProviderIndex}.
+ */
+public class TestLinkProviderIndex extends TestCase {
+
+	private PathwayModel pwy;
+	private VPathwayModel vPwy;
+	private DataNode dn1, dn2;
+
+	private DataNode createDataNode(double x, double y) {
+		DataNode dn = new DataNode("", DataNodeType.GENEPRODUCT);
+		dn.setCenterX(x);
+		dn.setCenterY(y);
+		dn.setWidth(80);
+		dn.setHeight(20);
+		pwy.add(dn);
+		return dn;
+	}
+
+	public void setUp() {
+		PreferenceManager.init();
+		pwy = new PathwayModel();
+		dn1 = createDataNode(100, 100);
+		dn2 = createDataNode(1000, 1000);
+		vPwy = new VPathwayModel(null);
+		vPwy.fromModel(pwy);
+	}
+
+	private List<LinkProvider> near(double x, double y) {
+		return vPwy.getLinkProviderIndex().getLinkProvidersNear(new Point2D.Double(vPwy.vFromM(x), vPwy.vFromM(y)),
+				vPwy.vFromM(LinkAnchor.MATCH_RADIUS));
+	}
+
+	public void testNear() {
+		List<LinkProvider> result = near(100, 100);
+		assertEquals(1, result.size());
+		assertSame(vPwy.getPathwayElementView(dn1), result.get(0));
+
+		// just outside the bounds, but within reach of the link anchors
+		assertEquals(1, near(100, 115).size());
+		assertEquals(0, near(500, 500).size());
+	}
+
+	public void testUpdate() {
+		assertEquals(1, near(1000, 1000).size());
+
+		// moved elements are found at their new location
+		dn2.setCenterX(2000);
+		assertEquals(0, near(1000, 1000).size());
+		assertSame(vPwy.getPathwayElementView(dn2), near(2000, 1000).get(0));
+
+		// new elements are found after they have been added to the drawing
+		DataNode dn3 = createDataNode(3000, 1000);
+		vPwy.addScheduled();
+		assertSame(vPwy.getPathwayElementView(dn3), near(3000, 1000).get(0));
+
+		// removed elements are not found
+		pwy.remove(dn1);
+		assertEquals(0, near(100, 100).size());
+
+		// zooming changes the view coordinates
+		vPwy.setPctZoom(200);
+		assertSame(vPwy.getPathwayElementView(dn2), near(2000, 1000).get(0));
+	}
+}
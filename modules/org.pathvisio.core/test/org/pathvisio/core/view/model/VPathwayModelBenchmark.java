@@ -0,0 +1,257 @@
+/*******************************************************************************
+ * PathVisio, a tool for data visualization and analysis using biological pathways
+ * Copyright 2006-2022 BiGCaT Bioinformatics, WikiPathways
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.pathvisio.core.view.model;
+
+import java.awt.Graphics2D;
+import java.awt.geom.Point2D;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+
+import org.pathvisio.core.preferences.PreferenceManager;
+import org.pathvisio.libgpml.debug.StopWatch;
+import org.pathvisio.libgpml.model.DataNode;
+import org.pathvisio.libgpml.model.Group;
+import org.pathvisio.libgpml.model.Interaction;
+import org.pathvisio.libgpml.model.LineElement;
+import org.pathvisio.libgpml.model.PathwayElement;
+import org.pathvisio.libgpml.model.PathwayModel;
+import org.pathvisio.libgpml.model.shape.ShapeCache;
+import org.pathvisio.libgpml.model.type.ArrowHeadType;
+import org.pathvisio.libgpml.model.type.DataNodeType;
+import org.pathvisio.libgpml.model.type.GroupType;
+import org.pathvisio.libgpml.model.type.ObjectType;
+
+/**
+ * Benchmark for the time to first paint of a large pathway: creating the view
+ * structure with {@link VPathwayModel#fromModel(PathwayModel)}, and painting
+ * the first viewport, for repainting it and the whole zoomed out pathway with
+ * {@link ShapeCache}, and for looking up the views of all interactions as
+ * {@link ViewActions.ShowUnlinkedAction} does. Run with
+ * -Djava.awt.headless=true.
+ * <p>
+ * Usage: VPathwayModelBenchmark [number of data nodes] [rounds]. Every other
+ * data node is connected to the previous one by a conversion. The unlinked
+ * interactions benchmark uses a pathway with as many interactions as data
+ * nodes, half of which have an unlinked end. The groups benchmark uses a
+ * pathway where one in five data nodes is in a complex of four, and times
+ * selecting, moving and deselecting every complex and drawing the pathway.
+ * The link providers benchmark finds the providers near a line end dragged
+ * across the first pathway, with {@link LinkProviderIndex} and by checking all
+ * drawing objects as was done before.
+ */
+public class VPathwayModelBenchmark {
+
+	private static final int REPAINTS = 20;
+
+	private static PathwayModel createPathway(int size) {
+		PathwayModel p = new PathwayModel();
+		DataNode prev = null;
+		for (int i = 0; i < size; i++) {
+			DataNode dn = new DataNode("node" + i, DataNodeType.GENEPRODUCT);
+			dn.setCenterX(60 + (i % 100) * 120);
+			dn.setCenterY(30 + (i / 100) * 60);
+			dn.setWidth(80);
+			dn.setHeight(20);
+			p.addDataNode(dn);
+			if (prev != null && i % 2 == 0) {
+				Interaction in = new Interaction();
+				p.addInteraction(in);
+				in.getStartLinePoint().setX(prev.getCenterX());
+				in.getStartLinePoint().setY(prev.getCenterY());
+				in.getEndLinePoint().setX(dn.getCenterX());
+				in.getEndLinePoint().setY(dn.getCenterY());
+				in.getStartLinePoint().linkTo(prev);
+				in.getEndLinePoint().linkTo(dn);
+				in.setEndArrowHeadType(ArrowHeadType.CONVERSION);
+			}
+			prev = dn;
+		}
+		return p;
+	}
+
+	private static PathwayModel createInteractions(int size) {
+		PathwayModel p = new PathwayModel();
+		DataNode dn = new DataNode("node", DataNodeType.GENEPRODUCT);
+		p.addDataNode(dn);
+		for (int i = 0; i < size; i++) {
+			Interaction in = new Interaction();
+			p.addInteraction(in);
+			in.getStartLinePoint().linkTo(dn);
+			in.getEndLinePoint().setX(60 + (i % 100) * 120);
+			in.getEndLinePoint().setY(30 + (i / 100) * 60);
+			if (i % 2 == 0) {
+				in.getEndLinePoint().linkTo(dn);
+			}
+		}
+		return p;
+	}
+
+	private static PathwayModel createComplexes(int size) {
+		PathwayModel p = new PathwayModel();
+		Group group = null;
+		for (int i = 0; i < size; i++) {
+			DataNode dn = new DataNode("node" + i, DataNodeType.GENEPRODUCT);
+			dn.setCenterX(60 + (i % 100) * 120);
+			dn.setCenterY(30 + (i / 100) * 60);
+			dn.setWidth(80);
+			dn.setHeight(20);
+			p.addDataNode(dn);
+			if (i % 20 == 0) {
+				group = new Group(GroupType.COMPLEX);
+				p.addGroup(group);
+			}
+			if (i % 20 < 4) {
+				group.addPathwayElement(dn);
+			}
+		}
+		return p;
+	}
+
+	/**
+	 * Same as {@link ViewActions.ShowUnlinkedAction}, which needs an Engine.
+	 */
+	private static int highlightUnlinked(VPathwayModel vp) {
+		int highlighted = 0;
+		vp.resetHighlight();
+		for (PathwayElement pe : vp.getPathwayModel().getPathwayElements()) {
+			if (pe.getObjectType() == ObjectType.INTERACTION) {
+				VLineElement vl = (VLineElement) vp.getPathwayElementView(pe);
+				if (((LineElement) pe).getStartElementRef() == null) {
+					vl.getStart().highlight();
+					highlighted++;
+				}
+				if (((LineElement) pe).getEndElementRef() == null) {
+					vl.getEnd().highlight();
+					highlighted++;
+				}
+			}
+		}
+		return highlighted;
+	}
+
+	private static void linkProviders(VPathwayModel vp, int moves) {
+		double radius = vp.vFromM(LinkAnchor.MATCH_RADIUS);
+		StopWatch sw = new StopWatch();
+		sw.start();
+		int found = 0;
+		for (int i = 0; i < moves; i++) {
+			Point2D p = new Point2D.Double(vp.vFromM(60 + i * 12), vp.vFromM(30 + i * 6));
+			found += vp.getLinkProviderIndex().getLinkProvidersNear(p, radius).size();
+		}
+		long index = sw.stop();
+		sw.start();
+		int scanned = 0;
+		for (int i = 0; i < moves; i++) {
+			Point2D p = new Point2D.Double(vp.vFromM(60 + i * 12), vp.vFromM(30 + i * 6));
+			for (VElement o : vp.getDrawingObjects()) {
+				if (o instanceof LinkProvider && o.getVBounds().contains(p)) {
+					scanned++;
+				}
+			}
+		}
+		long scan = sw.stop();
+		System.out.println(moves + " line end moves: " + found + " link providers found with index in " + index
+				+ " msec, " + scanned + " by checking all drawing objects in " + scan + " msec");
+	}
+
+	public static void main(String[] args) throws Exception {
+		PreferenceManager.init();
+		int size = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+		int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+		for (int i = 0; i < rounds; i++) {
+			PathwayModel p = createPathway(size);
+			StopWatch sw = new StopWatch();
+			sw.start();
+			VPathwayModel vp = new VPathwayModel(null);
+			vp.fromModel(p);
+			long fromModel = sw.stop();
+
+			BufferedImage image = new BufferedImage(1024, 768, BufferedImage.TYPE_INT_ARGB);
+			Graphics2D g = image.createGraphics();
+			g.setClip(0, 0, image.getWidth(), image.getHeight());
+			sw.start();
+			vp.draw(g);
+			long firstPaint = sw.stop();
+			System.out.println(size + " data nodes: fromModel " + fromModel + " msec, first paint " + firstPaint
+					+ " msec, time to first paint " + (fromModel + firstPaint) + " msec");
+			ShapeCache.clear();
+			sw.start();
+			for (int j = 0; j < REPAINTS; j++) {
+				vp.draw(g);
+			}
+			long repaint = sw.stop();
+			System.out.println(REPAINTS + " repaints " + repaint + " msec, shape cache " + ShapeCache.getStatistics());
+			// zoom out so that the whole pathway, with all line ends, is drawn
+			vp.setPctZoom(100 * Math.min(image.getWidth() / (double) vp.getVWidth(),
+					image.getHeight() / (double) vp.getVHeight()));
+			ShapeCache.clear();
+			sw.start();
+			for (int j = 0; j < REPAINTS; j++) {
+				vp.draw(g);
+			}
+			long fullRepaint = sw.stop();
+			g.dispose();
+			vp.setPctZoom(100);
+			System.out.println(REPAINTS + " full view repaints " + fullRepaint + " msec, shape cache "
+					+ ShapeCache.getStatistics());
+			linkProviders(vp, 1000);
+			vp.dispose();
+		}
+
+		for (int i = 0; i < rounds; i++) {
+			VPathwayModel vp = new VPathwayModel(null);
+			vp.fromModel(createInteractions(size));
+			StopWatch sw = new StopWatch();
+			sw.start();
+			int highlighted = highlightUnlinked(vp);
+			long highlight = sw.stop();
+			System.out.println(size + " interactions: highlighted " + highlighted + " unlinked points in " + highlight
+					+ " msec");
+			vp.dispose();
+		}
+
+		for (int i = 0; i < rounds; i++) {
+			VPathwayModel vp = new VPathwayModel(null);
+			vp.fromModel(createComplexes(size));
+			StopWatch sw = new StopWatch();
+			sw.start();
+			int groups = 0;
+			for (VElement e : new ArrayList<VElement>(vp.getDrawingObjects())) {
+				if (e instanceof VGroup) {
+					VGroup vg = (VGroup) e;
+					vg.select();
+					vg.vMoveBy(1, 1);
+					vg.deselect();
+					groups++;
+				}
+			}
+			long move = sw.stop();
+
+			BufferedImage image = new BufferedImage(1024, 768, BufferedImage.TYPE_INT_ARGB);
+			Graphics2D g = image.createGraphics();
+			g.setClip(0, 0, image.getWidth(), image.getHeight());
+			sw.start();
+			vp.draw(g);
+			long paint = sw.stop();
+			g.dispose();
+			System.out.println(groups + " complexes: select, move and deselect " + move + " msec, paint " + paint
+					+ " msec");
+			vp.dispose();
+		}
+	}
+}
@@ -16,14 +16,22 @@
  ******************************************************************************/
 package org.pathvisio.desktop;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.lang.reflect.InvocationTargetException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.Timer;
 import java.util.TimerTask;
 
 import javax.swing.JOptionPane;
 import javax.swing.SwingUtilities;
 
+import org.jdom2.Document;
 import org.pathvisio.core.Engine;
 import org.pathvisio.gui.SwingEngine;
 import org.pathvisio.libgpml.debug.Logger;
@@ -51,34 +59,101 @@ private File autoSaveFileLocation() {
 		return autoSaveFile;
 	}
 
-	private void autoSaveFile() throws ConverterException {
+	/** Pathway and modification count at the time of the last autosave */
+	private PathwayModel lastSaved = null;
+	private long lastSavedCount = -1;
+
+	/**
+	 * Takes a snapshot of the active pathway as a copy of the pathway model. Must
+	 * be called on the GUI thread. The copy can safely be serialized on another
+	 * thread, while the user keeps editing the active pathway.
+	 * 
+	 * @return the snapshot, or null if there is no pathway or nothing changed
+	 *         since the last autosave.
+	 */
+	private PathwayModel createSnapshot() {
 		PathwayModel p = engine.getActivePathwayModel();
-		if (p != null) {
-			GPMLFormat g = new GPMLFormat(GPMLFormat.GPML2021);
-			g.writeToXml(p, autoSaveFile, true);
-			Logger.log.info("Autosaved");
+		if (p == null || !p.hasChanged()) {
+			return null;
+		}
+		long count = p.getModificationCount();
+		if (p == lastSaved && count == lastSavedCount) {
+			return null;
+		}
+		PathwayModel snapshot = p.clone();
+		lastSaved = p;
+		lastSavedCount = count;
+		return snapshot;
+	}
+
+	/**
+	 * Serializes the snapshot to a temporary file next to the autosave file, and
+	 * then moves it in place, so that a crash during autosave never leaves a
+	 * truncated autosave file.
+	 */
+	private void writeSnapshot(PathwayModel snapshot) throws ConverterException, IOException {
+		Document doc = new GPMLFormat(GPMLFormat.GPML2021).createJdom(snapshot);
+		File tmp = new File(autoSaveFile.getParentFile(), autoSaveFile.getName() + ".tmp");
+		OutputStream out = new BufferedOutputStream(new FileOutputStream(tmp));
+		try {
+			GPMLFormat.writeToXml(doc, out);
+		} finally {
+			out.close();
+		}
+		try {
+			Files.move(tmp.toPath(), autoSaveFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(tmp.toPath(), autoSaveFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
 		}
 	}
 
+	private void autoSaveFile() {
+		long start = System.currentTimeMillis();
+		final PathwayModel[] snapshot = new PathwayModel[1];
+		try {
+			// For reasons of thread-safety, the snapshot
+			// must be taken on the GUI thread.
+			SwingUtilities.invokeAndWait(new Runnable() {
+				public void run() {
+					snapshot[0] = createSnapshot();
+				}
+			});
+			if (snapshot[0] == null) {
+				return;
+			}
+			long snapshotTime = System.currentTimeMillis() - start;
+			writeSnapshot(snapshot[0]);
+			Logger.log.info("Autosaved in " + (System.currentTimeMillis() - start) + " ms (snapshot " + snapshotTime
+					+ " ms)");
+		} catch (InterruptedException e) {
+			Logger.log.error("Autosave failed", e);
+		} catch (InvocationTargetException e) {
+			Logger.log.error("Autosave failed", e);
+		} catch (ConverterException e) {
+			forgetSnapshot();
+			Logger.log.error("Autosave failed", e);
+		} catch (IOException e) {
+			forgetSnapshot();
+			Logger.log.error("Autosave failed", e);
+		}
+	}
+
+	/**
+	 * Makes sure the next autosave is not skipped after a failed write.
+	 */
+	private void forgetSnapshot() {
+		SwingUtilities.invokeLater(new Runnable() {
+			public void run() {
+				lastSaved = null;
+			}
+		});
+	}
+
 	private class DoSave extends TimerTask {
 		public void run() {
-			try {
-				// For reasons of thread-safety, autoSaveFile()
-				// must be called on the GUI thread.
-				SwingUtilities.invokeAndWait(new Runnable() {
-					public void run() {
-						try {
-							autoSaveFile();
-						} catch (ConverterException e) {
-							Logger.log.error("Autosave failed", e);
-						}
-					}
-				});
-			} catch (InterruptedException e) {
-				Logger.log.error("Autosave failed", e);
-			} catch (InvocationTargetException e) {
-				Logger.log.error("Autosave failed", e);
-			}
+			// serialization happens on the timer thread
+			autoSaveFile();
 		}
 	}
 
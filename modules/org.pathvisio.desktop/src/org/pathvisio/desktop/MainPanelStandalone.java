@@ -106,6 +106,12 @@ protected void addMenuActions(JMenuBar mb) {
 
 		editMenu.add(selectionMenu);
 
+		JMenu autoLayoutMenu = new JMenu("Auto Layout");
+		for (Action a : actions.graphLayoutActions)
+			addToMenu(a, autoLayoutMenu);
+		addToMenu(actions.relaxLayoutAction, autoLayoutMenu);
+		editMenu.add(autoLayoutMenu);
+
 		// ========================================
 		// Data Menu: Removed for now TODO 
 		// ========================================
@@ -175,7 +181,7 @@ public void createAndShowGUI() {
 		dpt = new DataPaneTextProvider();
 
 		// data hook for showing basic annotation and expression data on the data panel
-		dpt.addDataHook(new BackpageAttributes(swingEngine.getGdbManager().getCurrentGdb()));
+		dpt.addDataHook(new BackpageAttributes(swingEngine.getGdbManager().getCachedGdb()));
 		DataPane dataPane = new DataPane(dpt, swingEngine.getEngine());
 		dataPane.addHyperlinkListener(swingEngine);
 		sidebarTabbedPane.addTab("Data", new JScrollPane(dataPane));
@@ -19,6 +19,9 @@
 import java.util.Iterator;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
 
 import javax.swing.JEditorPane;
 import javax.swing.SwingUtilities;
@@ -52,6 +55,9 @@
  * It uses a BackpageTextProvider to generate the html content, which has to be
  * inserted at construction time. Backpage generation may take a noticable
  * amount of time, therefore this task is always done in a background thread.
+ * The hooks of the BackpageTextProvider run in parallel, and sections are shown
+ * as soon as they are available. When the input changes before the backpage is
+ * complete, the query for the old input is cancelled.
  * <p>
  * It is the responsibility of the instantiator to also call the dispose()
  * method, otherwise the background thread is not killed.
@@ -63,6 +69,24 @@ public class BackpagePane extends JEditorPane
 	private final BackpageTextProvider bpt;
 	private Engine engine;
 	private ExecutorService executor;
+	private ExecutorService hookExecutor;
+
+	/**
+	 * Maximum number of backpage hooks that run at the same time
+	 */
+	private static final int HOOK_THREADS = 4;
+
+	/**
+	 * The query that is currently running, if any. Only accessed on the EDT.
+	 */
+	private Future<?> pendingQuery;
+
+	/**
+	 * Incremented for each query, so that results of stale queries can be
+	 * discarded. Only written on the EDT, and read by the query threads to stop
+	 * stale queries.
+	 */
+	private volatile int queryId = 0;
 
 	public BackpagePane(BackpageTextProvider bpt, Engine engine) {
 		super();
@@ -79,6 +103,7 @@ public BackpagePane(BackpageTextProvider bpt, Engine engine) {
 		this.bpt = bpt;
 
 		executor = Executors.newSingleThreadExecutor();
+		hookExecutor = Executors.newFixedThreadPool(HOOK_THREADS);
 
 		// Workaround for #1313
 		// Cause is java bug: http://bugs.sun.com/bugdatabase/view_bug.do?bug_id=6993691
@@ -108,6 +133,7 @@ public void setInput(final PathwayObject e) {
 
 		if (e == null) {
 			input = null;
+			cancelQuery();
 			setText(bpt.getBackpageHTML(null));
 		} else {
 			input = e;
@@ -117,27 +143,62 @@ public void setInput(final PathwayObject e) {
 	}
 
 	private void doQuery() {
+		cancelQuery();
 		setText("Loading");
 		if (input instanceof Xrefable) {
 			currRef = ((Xrefable) input).getXref();
 		}
 		// TODO do the rest if not Xrefable???
-		executor.execute(new Runnable() {
+		final PathwayObject query = input;
+		final int id = queryId;
+		pendingQuery = executor.submit(new Runnable() {
 			public void run() {
-				if (input == null) {
+				if (query == null) {
 					return;
 				}
-				final String txt = bpt.getBackpageHTML(input);
-				SwingUtilities.invokeLater(new Runnable() {
-					public void run() {
-						setText(txt);
-						setCaretPosition(0); // scroll to top.
+				bpt.getBackpageHTML(query, hookExecutor, new Consumer<String>() {
+					public void accept(String txt) {
+						showResult(id, txt);
+					}
+				}, new BooleanSupplier() {
+					public boolean getAsBoolean() {
+						// a newer query is on its way
+						return id != queryId;
 					}
 				});
 			}
 		});
 	}
 
+	/**
+	 * Cancels the running query, and makes sure that results that are already on
+	 * their way to the EDT are discarded. The query thread is not interrupted,
+	 * because the hooks may be using a database connection that is shared with
+	 * other threads. It stops by itself once it sees that queryId changed.
+	 */
+	private void cancelQuery() {
+		queryId++;
+		if (pendingQuery != null) {
+			pendingQuery.cancel(false);
+			pendingQuery = null;
+		}
+	}
+
+	/**
+	 * Shows (part of) a backpage, unless it belongs to a stale query.
+	 */
+	private void showResult(final int id, final String txt) {
+		SwingUtilities.invokeLater(new Runnable() {
+			public void run() {
+				if (id != queryId) {
+					return;
+				}
+				setText(txt);
+				setCaretPosition(0); // scroll to top.
+			}
+		});
+	}
+
 	public void selectionEvent(SelectionEvent e) {
 		switch (e.type) {
 		case SelectionEvent.OBJECT_ADDED:
@@ -172,6 +233,7 @@ public void applicationEvent(ApplicationEvent e) {
 			((VPathwayModel) e.getSource()).removeSelectionListener(this);
 			// remove content of backpage when pathway is closed
 			input = null;
+			cancelQuery();
 			setText(bpt.getBackpageHTML(null));
 			break;
 		}
@@ -201,7 +263,9 @@ public void dispose() {
 		VPathwayModel vpwy = engine.getActiveVPathwayModel();
 		if (vpwy != null)
 			vpwy.removeSelectionListener(this);
+		cancelQuery();
 		executor.shutdown();
+		hookExecutor.shutdown();
 		disposed = true;
 	}
 }
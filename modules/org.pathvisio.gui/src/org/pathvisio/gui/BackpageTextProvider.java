@@ -21,15 +21,24 @@
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
 
 import org.bridgedb.AttributeMapper;
 import org.bridgedb.DataSource;
 import org.bridgedb.IDMapper;
 import org.bridgedb.IDMapperException;
 import org.bridgedb.Xref;
+import org.pathvisio.core.data.GdbEvent;
+import org.pathvisio.core.data.GdbManager.GdbEventListener;
 import org.pathvisio.core.util.Resources;
 import org.pathvisio.gui.DataPaneTextProvider.DataHook;
 import org.pathvisio.libgpml.debug.Logger;
@@ -39,6 +48,7 @@
 import org.pathvisio.libgpml.model.DataNode.State;
 import org.pathvisio.libgpml.model.Group;
 import org.pathvisio.libgpml.model.Xrefable;
+import org.pathvisio.libgpml.model.type.DataNodeType;
 import org.pathvisio.libgpml.model.type.ObjectType;
 import org.pathvisio.libgpml.util.Utils;
 import org.pathvisio.libgpml.util.XrefUtils;
@@ -53,8 +63,16 @@
  * Two basic BackpageHooks are defined here: @link{BackpageAttributes} and
  * {@link BackpageXrefs}. However, these are not automatically registered, that
  * is the responsibility of the instantiator.
+ * <p>
+ * The fragments of {@link CacheableBackpageHook}s are kept in a small LRU
+ * cache, keyed by the Xref and type of the element. Their result depends on the
+ * active IDMapper set, so the cache is cleared whenever a {@link GdbEvent}
+ * arrives. For this to work the instantiator has to register the text provider
+ * as GdbEventListener. Fragments of other hooks, e.g. of plugins that show data
+ * that changes without a GdbEvent, are generated every time, and fragments of
+ * hooks that failed are not cached.
  */
-public class BackpageTextProvider {
+public class BackpageTextProvider implements GdbEventListener {
 	/**
 	 * Hook into the backpage text provider, use this to generate a fragment of text
 	 * for the backpage
@@ -70,11 +88,33 @@ public static interface BackpageHook {
 		public String getHtml(PathwayObject e);
 	}
 
+	/**
+	 * A {@link BackpageHook} whose fragment only depends on the Xref and type of the
+	 * element and on the IDMapper set, so that it can be cached until the next
+	 * {@link GdbEvent}. Hooks that depend on other state should implement
+	 * {@link BackpageHook} only, or call {@link BackpageTextProvider#clearCache()}
+	 * when that state changes.
+	 */
+	public static interface CacheableBackpageHook extends BackpageHook {
+		/**
+		 * Returns the fragment like {@link #getHtml(PathwayObject)}, but throws an
+		 * exception instead of returning an error message, so that the error is not
+		 * cached.
+		 */
+		@WorkerThreadOnly
+		public String getCacheableHtml(PathwayObject e) throws IDMapperException;
+	}
+
+	/**
+	 * Html fragment for hooks that failed
+	 */
+	private static final String ERROR_FRAGMENT = "Exception occurred, see log for details</br>";
+
 	/**
 	 * A @{link BackpageHook} that generates a section with a description and a few
 	 * other attributes to the backpage panel.
 	 */
-	public static class BackpageAttributes implements BackpageHook, DataHook {
+	public static class BackpageAttributes implements CacheableBackpageHook, DataHook {
 		private final AttributeMapper attributeMapper;
 
 		public BackpageAttributes(AttributeMapper attr) {
@@ -97,10 +137,21 @@ public String getType(PathwayObject e) {
 		}
 
 		public String getHtml(PathwayObject e) {
-			String text = "";
-			String type = getType(e);
+			try {
+				return getCacheableHtml(e);
+			} catch (IDMapperException ex) {
+				Logger.log.error("Error fetching backpage info", ex);
+				return getHeader(e) + ERROR_FRAGMENT;
+			}
+		}
+
+		private String getHeader(PathwayObject e) {
+			return "<H1><font color=\"006699\">" + getType(e) + " annotation</font></H1><br>";
+		}
+
+		public String getCacheableHtml(PathwayObject e) throws IDMapperException {
+			String text = getHeader(e);
 
-			text += "<H1><font color=\"006699\">" + type + " annotation</font></H1><br>";
 			Xref xref = ((Xrefable) e).getXref();
 			String identifier = XrefUtils.getIdentifier(xref);
 			if (identifier == null || "".equals(identifier)) {
@@ -108,37 +159,32 @@ public String getHtml(PathwayObject e) {
 				return text;
 			}
 
-			try {
-				StringBuilder bpInfo = new StringBuilder("<TABLE border = 1>");
+			StringBuilder bpInfo = new StringBuilder("<TABLE border = 1>");
 
-				Map<String, Set<String>> attributes = null;
-				if (((Xrefable) e).getXref().getDataSource() != null) {
-					attributes = attributeMapper.getAttributes(((Xrefable) e).getXref());
-				} else {
-					attributes = new HashMap<String, Set<String>>();
-				}
+			Map<String, Set<String>> attributes = null;
+			if (((Xrefable) e).getXref().getDataSource() != null) {
+				attributes = attributeMapper.getAttributes(((Xrefable) e).getXref());
+			} else {
+				attributes = new HashMap<String, Set<String>>();
+			}
 
-				String[][] table = new String[][] { { "Name", Utils.oneOf(attributes.get("Symbol")) },
-						{ "Identifier", identifier }, { "Description", Utils.oneOf(attributes.get("Description")) },
-						{ "Synonyms", Utils.oneOf(attributes.get("Synonyms")) },
-						{ "Chromosome", Utils.oneOf(attributes.get("Chromosome")) },
-						{ "Molecular Formula", Utils.oneOf(attributes.get("BrutoFormula")) },
-						{ "Direction", Utils.oneOf(attributes.get("Direction")) } };
-
-				for (String[] row : table) {
-					if (!(row[1] == null)) {
-						bpInfo.append("<TR><TH align=\"left\" bgcolor=\"#F0F0F0\">");
-						bpInfo.append(row[0]);
-						bpInfo.append(":<TH align=\"left\">");
-						bpInfo.append(row[1]);
-					}
+			String[][] table = new String[][] { { "Name", Utils.oneOf(attributes.get("Symbol")) },
+					{ "Identifier", identifier }, { "Description", Utils.oneOf(attributes.get("Description")) },
+					{ "Synonyms", Utils.oneOf(attributes.get("Synonyms")) },
+					{ "Chromosome", Utils.oneOf(attributes.get("Chromosome")) },
+					{ "Molecular Formula", Utils.oneOf(attributes.get("BrutoFormula")) },
+					{ "Direction", Utils.oneOf(attributes.get("Direction")) } };
+
+			for (String[] row : table) {
+				if (!(row[1] == null)) {
+					bpInfo.append("<TR><TH align=\"left\" bgcolor=\"#F0F0F0\">");
+					bpInfo.append(row[0]);
+					bpInfo.append(":<TH align=\"left\">");
+					bpInfo.append(row[1]);
 				}
-				bpInfo.append("</TABLE>");
-				text += bpInfo.toString();
-			} catch (IDMapperException ex) {
-				text += "Exception occurred, see log for details</br>";
-				Logger.log.error("Error fetching backpage info", ex);
 			}
+			bpInfo.append("</TABLE>");
+			text += bpInfo.toString();
 			return text;
 		}
 
@@ -154,7 +200,7 @@ public String getHtml(PathwayObject e) {
 	 * Graphics A @{link BackpageHook} that adds a list of crossref links to the
 	 * backpage panel.
 	 */
-	public static class BackpageXrefs implements BackpageHook {
+	public static class BackpageXrefs implements CacheableBackpageHook {
 		private final IDMapper gdb;
 
 		public BackpageXrefs(IDMapper mapper) {
@@ -163,47 +209,51 @@ public BackpageXrefs(IDMapper mapper) {
 
 		public String getHtml(PathwayObject e) {
 			try {
-				Xref xref = ((Xrefable) e).getXref();
-				String identifier = XrefUtils.getIdentifier(xref);
-				DataSource dataSource = XrefUtils.getDataSource(xref);
-				if (identifier == null || "".equals(identifier) || dataSource == null) {
-					return "";
+				return getCacheableHtml(e);
+			} catch (IDMapperException ex) {
+				return "Exception occured while getting cross-references</br>\n" + ex.getMessage() + "\n";
+			}
+		}
+
+		public String getCacheableHtml(PathwayObject e) throws IDMapperException {
+			Xref xref = ((Xrefable) e).getXref();
+			String identifier = XrefUtils.getIdentifier(xref);
+			DataSource dataSource = XrefUtils.getDataSource(xref);
+			if (identifier == null || "".equals(identifier) || dataSource == null) {
+				return "";
+			}
+			Set<Xref> crfs = gdb.mapID(xref);
+			crfs.add(xref);
+			if (crfs.size() == 0)
+				return "";
+			List<Xref> sortedRefs = new ArrayList<Xref>(crfs);
+			Collections.sort(sortedRefs);
+			StringBuilder crt = new StringBuilder(
+					"<br><br><hr><br><br><H1><font color=\"006699\">Cross references</font></H1><BR>");
+
+			String db = "";
+			crt.append("<table border=0>");
+			for (Xref cr : sortedRefs) {
+				String dbNew = (cr.getDataSource().getFullName() != null ? cr.getDataSource().getFullName()
+						: cr.getDataSource().getSystemCode());
+				if (!dbNew.equals(db)) {
+					db = dbNew;
+					crt.append("<TR></TR>");
+					crt.append("<TR><TH border=1 align=\"left\" bgcolor=\"#F0F0F0\"><font size=\"4\"><b>" + db
+							+ "</b></font></TH></TR>");
 				}
-				Set<Xref> crfs = gdb.mapID(xref);
-				crfs.add(xref);
-				if (crfs.size() == 0)
-					return "";
-				List<Xref> sortedRefs = new ArrayList<Xref>(crfs);
-				Collections.sort(sortedRefs);
-				StringBuilder crt = new StringBuilder(
-						"<br><br><hr><br><br><H1><font color=\"006699\">Cross references</font></H1><BR>");
-
-				String db = "";
-				crt.append("<table border=0>");
-				for (Xref cr : sortedRefs) {
-					String dbNew = (cr.getDataSource().getFullName() != null ? cr.getDataSource().getFullName()
-							: cr.getDataSource().getSystemCode());
-					if (!dbNew.equals(db)) {
-						db = dbNew;
-						crt.append("<TR></TR>");
-						crt.append("<TR><TH border=1 align=\"left\" bgcolor=\"#F0F0F0\"><font size=\"4\"><b>" + db
-								+ "</b></font></TH></TR>");
-					}
-					String idtxt = cr.getId();
-					String url = cr.getKnownUrl();
-					if (url != null && !url.equals(idtxt)) {
-						url = url.replace("&", "&amp;"); // primitive HTML entity encoding. TODO: do it properly
-						idtxt = "<a href=\"" + url + "\">" + idtxt + "</a>";
-					}
-					crt.append("<TR><TH align=\"left\" style=\"border-left : 1\">" + idtxt + "</TH></TR>");
+				String idtxt = cr.getId();
+				String url = cr.getKnownUrl();
+				if (url != null && !url.equals(idtxt)) {
+					url = url.replace("&", "&amp;"); // primitive HTML entity encoding. TODO: do it properly
+					idtxt = "<a href=\"" + url + "\">" + idtxt + "</a>";
 				}
+				crt.append("<TR><TH align=\"left\" style=\"border-left : 1\">" + idtxt + "</TH></TR>");
+			}
 
-				crt.append("</table>");
+			crt.append("</table>");
 
-				return crt.toString();
-			} catch (IDMapperException ex) {
-				return "Exception occured while getting cross-references</br>\n" + ex.getMessage() + "\n";
-			}
+			return crt.toString();
 		}
 
 	}
@@ -214,6 +264,7 @@ public String getHtml(PathwayObject e) {
 	 */
 	public void addBackpageHook(BackpageHook hook) {
 		hooks.add(hook);
+		clearCache();
 	}
 
 	private final List<BackpageHook> hooks = new ArrayList<BackpageHook>();
@@ -227,6 +278,139 @@ public BackpageTextProvider() {
 	 * fragments from all BackpageHooks into one html String.
 	 */
 	public String getBackpageHTML(PathwayObject e) {
+		String html = getStaticHTML(e);
+		if (html != null) {
+			return html;
+		}
+		CacheKey key = new CacheKey(e);
+		String[] fragments = getCached(key);
+		String[] cacheable = new String[fragments.length];
+		for (int i = 0; i < fragments.length; i++) {
+			if (fragments[i] == null) {
+				fragments[i] = generate(hooks.get(i), e, cacheable, i);
+			}
+		}
+		putCached(key, cacheable);
+		return assemble(fragments);
+	}
+
+	/**
+	 * Generates html for a given PathwayElement, running all BackpageHooks that
+	 * are not cached in parallel on the given executor. Each time a section
+	 * becomes available, the page generated so far is passed to progress, with
+	 * sections in the order in which the hooks were registered. The last call
+	 * contains the complete page, which is also returned.
+	 * <p>
+	 * Once cancelled returns true, hooks that did not start yet are skipped, and
+	 * null is returned as soon as the calling thread stops waiting for a hook.
+	 * Hooks that are running are never interrupted, because they may be using a
+	 * database connection that is shared with other threads.
+	 */
+	@WorkerThreadOnly
+	public String getBackpageHTML(final PathwayObject e, ExecutorService executor, Consumer<String> progress,
+			final BooleanSupplier cancelled) {
+		String html = getStaticHTML(e);
+		if (html != null) {
+			progress.accept(html);
+			return html;
+		}
+		CacheKey key = new CacheKey(e);
+		final String[] fragments = getCached(key);
+		final String[] cacheable = new String[fragments.length];
+		List<Future<String>> futures = new ArrayList<Future<String>>();
+		for (int i = 0; i < fragments.length; i++) {
+			if (fragments[i] == null) {
+				final BackpageHook h = hooks.get(i);
+				final int index = i;
+				futures.add(executor.submit(new Callable<String>() {
+					public String call() {
+						if (cancelled.getAsBoolean()) {
+							return null;
+						}
+						return generate(h, e, cacheable, index);
+					}
+				}));
+			} else {
+				futures.add(null);
+			}
+		}
+		try {
+			for (int i = 0; i < fragments.length; i++) {
+				if (futures.get(i) == null) {
+					continue;
+				}
+				try {
+					fragments[i] = futures.get(i).get();
+				} catch (ExecutionException ex) {
+					Logger.log.error("Error generating backpage section", ex.getCause());
+					fragments[i] = "";
+				} catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+					return null;
+				}
+				if (cancelled.getAsBoolean()) {
+					return null;
+				}
+				if (i < fragments.length - 1) {
+					progress.accept(assemble(fragments));
+				}
+			}
+		} finally {
+			// skips hooks that did not start yet, without interrupting running hooks
+			for (Future<String> f : futures) {
+				if (f != null) {
+					f.cancel(false);
+				}
+			}
+			// also keep what was found by hooks of a cancelled page
+			putCached(key, cacheable);
+		}
+		html = assemble(fragments);
+		progress.accept(html);
+		return html;
+	}
+
+	/**
+	 * Generates the fragment of a hook. The fragment of a
+	 * {@link CacheableBackpageHook} that succeeded is also stored in
+	 * cacheable[index].
+	 */
+	private String generate(BackpageHook h, PathwayObject e, String[] cacheable, int index) {
+		if (!(h instanceof CacheableBackpageHook)) {
+			return h.getHtml(e);
+		}
+		try {
+			String fragment = ((CacheableBackpageHook) h).getCacheableHtml(e);
+			cacheable[index] = fragment;
+			return fragment;
+		} catch (IDMapperException ex) {
+			Logger.log.error("Error generating backpage section", ex);
+			return ERROR_FRAGMENT;
+		}
+	}
+
+	/**
+	 * Combines the header with all available fragments. A null fragment means the
+	 * section is not yet available.
+	 */
+	private String assemble(String[] fragments) {
+		StringBuilder builder = new StringBuilder(backpagePanelHeader);
+		for (String fragment : fragments) {
+			if (fragment == null) {
+				builder.append("<p>Loading...</p>");
+				break;
+			}
+			builder.append(fragment);
+		}
+		builder.append("</body></html>");
+		return builder.toString();
+	}
+
+	/**
+	 * Returns the html for elements that do not need a query, e.g. because they
+	 * are not annotated, or null if the hooks must be consulted.
+	 */
+	private String getStaticHTML(PathwayObject e) {
 		if (e == null) {
 			return "<p>No pathway element is selected.</p>";
 		} else if (!(e instanceof Xrefable)) {
@@ -238,12 +422,95 @@ public String getBackpageHTML(PathwayObject e) {
 				|| XrefUtils.getIdentifier(((Xrefable) e).getXref()).equals("")) {
 			return "<p>There is no annotation for this pathway element defined.</p>";
 		}
-		StringBuilder builder = new StringBuilder(backpagePanelHeader);
-		for (BackpageHook h : hooks) {
-			builder.append(h.getHtml(e));
+		return null;
+	}
+
+	/**
+	 * Maximum number of backpages kept in the cache
+	 */
+	private static final int CACHE_SIZE = 100;
+
+	/**
+	 * Cached fragments by hook index, null for hooks that are not cached
+	 */
+	private final Map<CacheKey, String[]> cache = new LinkedHashMap<CacheKey, String[]>(16, 0.75f, true) {
+		protected boolean removeEldestEntry(Map.Entry<CacheKey, String[]> eldest) {
+			return size() > CACHE_SIZE;
+		}
+	};
+
+	/**
+	 * Returns a copy of the cached fragments of all hooks, with null for the
+	 * fragments that are not cached.
+	 */
+	private synchronized String[] getCached(CacheKey key) {
+		String[] fragments = cache.get(key);
+		return fragments == null || fragments.length != hooks.size() ? new String[hooks.size()] : fragments.clone();
+	}
+
+	/**
+	 * Adds the fragments that are not null to the cache.
+	 */
+	private synchronized void putCached(CacheKey key, String[] fragments) {
+		if (fragments.length != hooks.size()) {
+			// a hook was added while the page was generated
+			return;
+		}
+		String[] cached = cache.get(key);
+		if (cached == null || cached.length != fragments.length) {
+			cached = new String[fragments.length];
+			cache.put(key, cached);
+		}
+		for (int i = 0; i < fragments.length; i++) {
+			if (fragments[i] != null) {
+				cached[i] = fragments[i];
+			}
+		}
+	}
+
+	/**
+	 * Discards all cached backpages, e.g. because a hook has been added or the
+	 * IDMapper set has changed. Hooks that depend on other state can call this
+	 * when that state changes.
+	 */
+	public synchronized void clearCache() {
+		cache.clear();
+	}
+
+	/**
+	 * The IDMapper set has changed, so cached cross references and attributes are
+	 * no longer valid.
+	 */
+	public void gdbEvent(GdbEvent e) {
+		clearCache();
+	}
+
+	/**
+	 * Key of the backpage cache. Besides the Xref, the built-in hooks only depend
+	 * on the type of the element.
+	 */
+	private static class CacheKey {
+		private final Xref xref;
+		private final ObjectType objectType;
+		private final DataNodeType type;
+
+		CacheKey(PathwayObject e) {
+			xref = ((Xrefable) e).getXref();
+			objectType = e.getObjectType();
+			type = (e instanceof DataNode) ? ((DataNode) e).getType() : null;
+		}
+
+		public boolean equals(Object o) {
+			if (!(o instanceof CacheKey)) {
+				return false;
+			}
+			CacheKey other = (CacheKey) o;
+			return xref.equals(other.xref) && objectType == other.objectType && type == other.type;
+		}
+
+		public int hashCode() {
+			return xref.hashCode() * 31 + objectType.hashCode();
 		}
-		builder.append("</body></html>");
-		return builder.toString();
 	}
 
 	/**
@@ -22,17 +22,20 @@
 import java.awt.event.KeyEvent;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.concurrent.ExecutionException;
 
 import javax.swing.AbstractAction;
 import javax.swing.Action;
 import javax.swing.ImageIcon;
 import javax.swing.JOptionPane;
 import javax.swing.KeyStroke;
+import javax.swing.SwingWorker;
 
 import org.pathvisio.core.ApplicationEvent;
 import org.pathvisio.core.Engine;
 import org.pathvisio.core.Globals;
 import org.pathvisio.core.Engine.ApplicationEventListener;
+import org.pathvisio.libgpml.debug.Logger;
 import org.pathvisio.libgpml.model.type.ConnectorType;
 import org.pathvisio.libgpml.model.type.DataNodeType;
 import org.pathvisio.libgpml.model.type.LineStyleType;
@@ -43,8 +46,13 @@
 import org.pathvisio.libgpml.model.PathwayModel.StatusFlagListener;
 import org.pathvisio.libgpml.model.Label;
 import org.pathvisio.libgpml.model.PathwayElement;
+import org.pathvisio.core.util.ProgressKeeper;
 import org.pathvisio.core.util.Resources;
 import org.pathvisio.core.util.Theme;
+import org.pathvisio.core.layout.ForceDirectedLayout;
+import org.pathvisio.core.layout.GraphLayout;
+import org.pathvisio.core.layout.LayeredLayout;
+import org.pathvisio.core.layout.LayoutGraph;
 import org.pathvisio.core.view.LayoutType;
 import org.pathvisio.core.view.model.DefaultTemplates;
 import org.pathvisio.core.view.model.Handle;
@@ -91,6 +99,9 @@ public void applicationEvent(ApplicationEvent e) {
 			va.registerToGroup(zoomActions, ViewActions.GROUP_ENABLE_VPATHWAY_LOADED);
 			va.registerToGroup(layoutActions, ViewActions.GROUP_ENABLE_EDITMODE);
 			va.registerToGroup(layoutActions, ViewActions.GROUP_ENABLE_WHEN_SELECTION);
+			va.registerToGroup(graphLayoutActions, ViewActions.GROUP_ENABLE_EDITMODE);
+			va.registerToGroup(relaxLayoutAction, ViewActions.GROUP_ENABLE_EDITMODE);
+			va.registerToGroup(relaxLayoutAction, ViewActions.GROUP_ENABLE_WHEN_SELECTION);
 
 			va.resetGroupStates();
 		}
@@ -117,6 +128,9 @@ public void applicationEvent(ApplicationEvent e) {
 
 	public final Action[] layoutActions;
 
+	public final Action[] graphLayoutActions;
+	public final Action relaxLayoutAction;
+
 	// Objects Side Panel
 	public final Action[] newMoleculeDatanodeActions;
 	public final Action[] newConceptDatanodeActions;
@@ -180,6 +194,9 @@ public CommonActions(SwingEngine se) {
 //					new LayoutAction(e, LayoutType.STACK_TOP),
 //					new LayoutAction(e, LayoutType.STACK_BOTTOM)
 		};
+		graphLayoutActions = new Action[] { new GraphLayoutAction(se, new ForceDirectedLayout()),
+				new GraphLayoutAction(se, new LayeredLayout()) };
+		relaxLayoutAction = new RelaxLayoutAction(se);
 
 		// ================================================================================
 		// New Molecule DataNode Actions
@@ -631,6 +648,97 @@ public void actionPerformed(ActionEvent e) {
 		}
 	}
 
+	/**
+	 * Lays out the data nodes and interactions of the whole pathway with a graph
+	 * layout algorithm.
+	 */
+	public static class GraphLayoutAction extends AbstractAction {
+		GraphLayout layout;
+
+		SwingEngine swingEngine;
+
+		public GraphLayoutAction(SwingEngine swingEngine, GraphLayout layout) {
+			super();
+			this.swingEngine = swingEngine;
+			this.layout = layout;
+			putValue(NAME, layout.getName());
+			putValue(SHORT_DESCRIPTION, "Arrange the data nodes and interactions of the pathway");
+		}
+
+		public void actionPerformed(ActionEvent e) {
+			VPathwayModel vp = swingEngine.getEngine().getActiveVPathwayModel();
+			if (vp != null)
+				runLayout(swingEngine, vp, layout, vp.createLayoutGraph());
+		}
+	}
+
+	/**
+	 * Arranges the data nodes next to the selected elements again, for example
+	 * after moving the selected elements, while the rest of the pathway stays in
+	 * place.
+	 */
+	public static class RelaxLayoutAction extends AbstractAction {
+		SwingEngine swingEngine;
+
+		public RelaxLayoutAction(SwingEngine swingEngine) {
+			super();
+			this.swingEngine = swingEngine;
+			putValue(NAME, "Relax Around Selection");
+			putValue(SHORT_DESCRIPTION, "Arrange the data nodes connected to the selected elements");
+		}
+
+		public void actionPerformed(ActionEvent e) {
+			VPathwayModel vp = swingEngine.getEngine().getActiveVPathwayModel();
+			if (vp == null)
+				return;
+			LayoutGraph graph = vp.createNeighborhoodGraph(1);
+			if (graph != null)
+				runLayout(swingEngine, vp, new ForceDirectedLayout(), graph);
+		}
+	}
+
+	/**
+	 * Lays out the given graph in a background thread while a progress dialog is
+	 * shown, and then moves the elements of the pathway on the event dispatch
+	 * thread, unless the user cancelled the layout.
+	 */
+	private static void runLayout(SwingEngine swingEngine, VPathwayModel vp, final GraphLayout layout,
+			final LayoutGraph graph) {
+		final ProgressKeeper pk = new ProgressKeeper(100);
+		ProgressDialog d = new ProgressDialog(JOptionPane.getFrameForComponent(swingEngine.getApplicationPanel()),
+				layout.getName(), pk, true, true);
+
+		SwingWorker<Boolean, Boolean> sw = new SwingWorker<Boolean, Boolean>() {
+			protected Boolean doInBackground() {
+				pk.setTaskName("Arranging the pathway");
+				try {
+					layout.layout(graph, pk);
+					return !pk.isCancelled();
+				} finally {
+					pk.finished();
+				}
+			}
+		};
+
+		sw.execute();
+		d.setVisible(true);
+		if (pk.isCancelled()) {
+			return;
+		}
+		try {
+			if (sw.get()) {
+				vp.applyLayout(layout.getName(), graph);
+			}
+		} catch (ExecutionException ex) {
+			Logger.log.error("Could not arrange the pathway", ex.getCause());
+			JOptionPane.showMessageDialog(swingEngine.getApplicationPanel(),
+					"Could not arrange the pathway:\n" + ex.getCause().getMessage(), "Error",
+					JOptionPane.ERROR_MESSAGE);
+		} catch (InterruptedException ex) {
+			Logger.log.error("Arranging the pathway was interrupted", ex);
+		}
+	}
+
 	/**
 	 * This is an abstract base class for actions that are triggered from the
 	 * right-click menu on a PathwayElement. When the action is triggered, the
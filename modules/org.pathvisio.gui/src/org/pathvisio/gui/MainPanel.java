@@ -146,6 +146,12 @@ protected void addMenuActions(JMenuBar mb) {
 			addToMenu(a, selectionMenu);
 		editMenu.add(selectionMenu);
 
+		JMenu autoLayoutMenu = new JMenu("Auto Layout");
+		for (Action a : actions.graphLayoutActions)
+			addToMenu(a, autoLayoutMenu);
+		addToMenu(actions.relaxLayoutAction, autoLayoutMenu);
+		editMenu.add(autoLayoutMenu);
+
 		JMenu viewMenu = new JMenu("View");
 		JMenu zoomMenu = new JMenu("Zoom");
 		viewMenu.add(zoomMenu);
@@ -232,8 +238,9 @@ public TableCellEditor getCellEditor(int row, int column) {
 		propertiesScrollPane = new JScrollPane(propertyTable);
 
 		bpt = new BackpageTextProvider();
-		bpt.addBackpageHook(new BackpageAttributes(swingEngine.getGdbManager().getCurrentGdb()));
-		bpt.addBackpageHook(new BackpageXrefs(swingEngine.getGdbManager().getCurrentGdb()));
+		bpt.addBackpageHook(new BackpageAttributes(swingEngine.getGdbManager().getCachedGdb()));
+		bpt.addBackpageHook(new BackpageXrefs(swingEngine.getGdbManager().getCachedGdb()));
+		swingEngine.getGdbManager().addGdbEventListener(bpt);
 
 		backpagePane = new BackpagePane(bpt, swingEngine.getEngine());
 		backpagePane.addHyperlinkListener(swingEngine);
@@ -545,6 +552,7 @@ public JTabbedPane getSideBarTabbedPane() {
 	}
 
 	public void dispose() {
+		swingEngine.getGdbManager().removeGdbEventListener(bpt);
 		backpagePane.dispose();
 	}
 
@@ -21,6 +21,7 @@
 import java.awt.Desktop;
 import java.io.File;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Set;
@@ -37,11 +38,13 @@
 import javax.swing.event.HyperlinkListener;
 import javax.swing.filechooser.FileFilter;
 
+import org.bridgedb.Xref;
 import org.bridgedb.bio.Organism;
 import org.pathvisio.core.ApplicationEvent;
 import org.pathvisio.core.Engine;
 import org.pathvisio.core.Engine.ApplicationEventListener;
 import org.pathvisio.core.Globals;
+import org.pathvisio.core.data.CitationCache;
 import org.pathvisio.core.data.GdbManager;
 import org.pathvisio.core.preferences.GlobalPreference;
 import org.pathvisio.core.preferences.Preference;
@@ -55,6 +58,7 @@
 import org.pathvisio.libgpml.debug.Logger;
 import org.pathvisio.libgpml.io.ConverterException;
 import org.pathvisio.libgpml.io.PathwayModelIO;
+import org.pathvisio.libgpml.model.DataNode;
 import org.pathvisio.libgpml.model.GPMLFormat;
 import org.pathvisio.libgpml.model.PathwayModel;
 import org.pathvisio.libgpml.model.PathwayModel.StatusFlagEvent;
@@ -540,6 +544,8 @@ public boolean canDiscardPathwayModel() {
 	public void applicationEvent(ApplicationEvent e) {
 		switch (e.getType()) {
 		case PATHWAY_OPENED:
+			prefetchXrefs(engine.getActivePathwayModel());
+			CitationCache.getCurrent().prefetchInBackground(engine.getActivePathwayModel());
 		case PATHWAY_NEW:
 			updateTitle();
 			engine.getActivePathwayModel().addStatusFlagListener(SwingEngine.this);
@@ -547,6 +553,20 @@ public void applicationEvent(ApplicationEvent e) {
 		}
 	}
 
+	/**
+	 * Warm up the id mapping cache with the xrefs of all DataNodes of a pathway
+	 * that was just opened, so that the backpage and dialogs respond quickly.
+	 */
+	private void prefetchXrefs(PathwayModel pathwayModel) {
+		List<Xref> xrefs = new ArrayList<Xref>();
+		for (DataNode dataNode : pathwayModel.getDataNodes()) {
+			if (dataNode.getXref() != null) {
+				xrefs.add(dataNode.getXref());
+			}
+		}
+		gdbManager.prefetch(xrefs);
+	}
+
 	public void updateTitle() {
 		if (frame != null) {
 			if (engine.getActivePathwayModel() == null) {
@@ -46,19 +46,17 @@
 import javax.swing.text.SimpleAttributeSet;
 import javax.swing.text.StyleConstants;
 import javax.swing.text.StyledDocument;
-import javax.xml.parsers.ParserConfigurationException;
 
 import org.bridgedb.DataSource;
 import org.bridgedb.Xref;
-import org.pathvisio.core.data.DOIQuery;
-import org.pathvisio.core.data.DOIQuery2;
+import org.pathvisio.core.data.CitationCache;
 import org.pathvisio.core.data.DOIResult2;
-import org.pathvisio.core.data.PubMedQuery;
 import org.pathvisio.core.data.PubMedResult;
 import org.pathvisio.core.util.ProgressKeeper;
 import org.pathvisio.gui.DataSourceModel;
 import org.pathvisio.gui.ProgressDialog;
 import org.pathvisio.gui.util.PermissiveComboBox;
+import org.pathvisio.libgpml.debug.Logger;
 import org.pathvisio.libgpml.model.PathwayElement;
 import org.pathvisio.libgpml.model.PathwayElement.AnnotationRef;
 import org.pathvisio.libgpml.model.PathwayElement.CitationRef;
@@ -250,16 +248,22 @@ else if (id.matches("[0-9]+") && id.length() <= 8 && id.length() >= 1) {
 	 * 
 	 * @param identifier
 	 */
-	public void queryDOI(String id) {
-		final DOIQuery2 dq = new DOIQuery2(id);
+	public void queryDOI(final String id) {
+		final DOIResult2[] dqr = new DOIResult2[1];
+		final boolean[] failed = new boolean[1];
 		final ProgressKeeper pk2 = new ProgressKeeper();
 		ProgressDialog d2 = new ProgressDialog(JOptionPane.getFrameForComponent(this), "", pk2, true, true);
 
 		SwingWorker<Void, Void> sw2 = new SwingWorker<Void, Void>() {
 
-			protected Void doInBackground() throws SAXException, IOException, ParserConfigurationException {
+			protected Void doInBackground() {
 				pk2.setTaskName("Querying DOI");
-				dq.execute();
+				try {
+					dqr[0] = CitationCache.getCurrent().getDOI(id);
+				} catch (IOException e) {
+					Logger.log.error("Couldn't query doi " + id, e);
+					failed[0] = true;
+				}
 				pk2.finished();
 				return null;
 			}
@@ -267,10 +271,16 @@ protected Void doInBackground() throws SAXException, IOException, ParserConfigur
 
 		sw2.execute();
 		d2.setVisible(true);
-		DOIResult2 dqr = dq.getResult();
-		if (dqr != null) {
-			xrefIdentifier.setText(dqr.getId()); // write the trimmed pmid to the dialog
+		if (failed[0] || pk2.isCancelled()) {
+			return;
+		}
+		if (dqr[0] != null) {
+			JOptionPane.showConfirmDialog(this, "DOI found for identifier.", "Message", JOptionPane.PLAIN_MESSAGE);
+			xrefIdentifier.setText(dqr[0].getId()); // write the trimmed pmid to the dialog
 			dsm.setSelectedItem(DataSource.getExistingByFullName("DOI")); // TODO
+		} else {
+			JOptionPane.showConfirmDialog(this, "DOI not found for identifier.", "Warning",
+					JOptionPane.PLAIN_MESSAGE);
 		}
 	}
 
@@ -279,16 +289,16 @@ protected Void doInBackground() throws SAXException, IOException, ParserConfigur
 	 * 
 	 * @param identifier
 	 */
-	public void queryPubMed(String id) {
+	public void queryPubMed(final String id) {
 		// if PubMed
-		final PubMedQuery pmq = new PubMedQuery(id);
+		final PubMedResult[] pmr = new PubMedResult[1];
 		final ProgressKeeper pk = new ProgressKeeper();
 		ProgressDialog d = new ProgressDialog(JOptionPane.getFrameForComponent(this), "", pk, true, true);
 
 		SwingWorker<Void, Void> sw = new SwingWorker<Void, Void>() {
-			protected Void doInBackground() throws SAXException, IOException, ParserConfigurationException {
+			protected Void doInBackground() throws SAXException, IOException {
 				pk.setTaskName("Querying PubMed");
-				pmq.execute();
+				pmr[0] = CitationCache.getCurrent().getPubMed(id);
 				pk.finished();
 				return null;
 			}
@@ -296,11 +306,16 @@ protected Void doInBackground() throws SAXException, IOException, ParserConfigur
 
 		sw.execute();
 		d.setVisible(true);
-		PubMedResult pmr = pmq.getResult();
-		if (pmr != null) {
-			xrefIdentifier.setText(pmr.getId()); // write the trimmed pmid to the dialog
-			dsm.setSelectedItem(DataSource.getExistingByFullName("PubMed")); // TODO
+		if (pmr[0] == null || pk.isCancelled()) {
+			return;
+		}
+		if (!pmr[0].getError()) {
+			JOptionPane.showConfirmDialog(this, "PubMed identifier found.", "Message", JOptionPane.PLAIN_MESSAGE);
+		} else {
+			JOptionPane.showConfirmDialog(this, "PubMed identifier not found.", "Warning", JOptionPane.PLAIN_MESSAGE);
 		}
+		xrefIdentifier.setText(pmr[0].getId()); // write the trimmed pmid to the dialog
+		dsm.setSelectedItem(DataSource.getExistingByFullName("PubMed")); // TODO
 	}
 
 	/**
@@ -31,9 +31,7 @@
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ExecutionException;
 
 import javax.swing.BorderFactory;
 import javax.swing.JButton;
@@ -43,17 +41,15 @@
 import javax.swing.JScrollPane;
 import javax.swing.JTabbedPane;
 import javax.swing.JTextField;
-import javax.swing.SwingWorker;
 import javax.swing.event.DocumentEvent;
 import javax.swing.event.DocumentListener;
 import javax.swing.event.ListDataEvent;
 import javax.swing.event.ListDataListener;
 
-import org.bridgedb.AttributeMapper;
 import org.bridgedb.DataSource;
 import org.bridgedb.IDMapperException;
-import org.bridgedb.IDMapperStack;
 import org.bridgedb.Xref;
+import org.pathvisio.core.data.CachedIDMapper;
 import org.pathvisio.core.data.XrefWithSymbol;
 import org.pathvisio.libgpml.debug.Logger;
 import org.pathvisio.libgpml.model.type.DataNodeType;
@@ -61,11 +57,9 @@
 import org.pathvisio.libgpml.model.DataNode;
 import org.pathvisio.libgpml.model.Xrefable;
 import org.pathvisio.libgpml.model.PathwayElement.CitationRef;
-import org.pathvisio.core.util.ProgressKeeper;
 import org.pathvisio.core.view.model.UndoAction;
 import org.pathvisio.core.view.model.VPathwayModel;
 import org.pathvisio.gui.DataSourceModel;
-import org.pathvisio.gui.ProgressDialog;
 import org.pathvisio.gui.SwingEngine;
 import org.pathvisio.gui.completer.CompleterQueryTextArea;
 import org.pathvisio.gui.completer.CompleterQueryTextField;
@@ -171,78 +165,20 @@ private void search(String aText) {
 					"No search term specified, " + "please type something in the 'Search' field");
 			return;
 		}
-		final String text = aText.trim();
-
-		final ProgressKeeper progress = new ProgressKeeper();
-		ProgressDialog dialog = new ProgressDialog(this, "Searching", progress, true, true);
-		dialog.setLocationRelativeTo(this);
-
-		SwingWorker<List<XrefWithSymbol>, Void> sw = new SwingWorker<List<XrefWithSymbol>, Void>() {
-			private static final int QUERY_LIMIT = 200;
-
-			protected List<XrefWithSymbol> doInBackground() throws IDMapperException {
-				IDMapperStack gdb = swingEngine.getGdbManager().getCurrentGdb();
-
-				// The result set
-				List<XrefWithSymbol> result = new ArrayList<XrefWithSymbol>();
-
-				for (Map.Entry<Xref, String> i : gdb.freeAttributeSearch(text, AttributeMapper.MATCH_ID, QUERY_LIMIT)
-						.entrySet()) {
-					// GO terms are annotated as symbols in BridgeDb databases
-					// those are filtered from the results
-					if (!i.getKey().getDataSource().getType().equals("ontology")
-							|| !i.getKey().getDataSource().getType().equals("probe")) {
-						result.add(new XrefWithSymbol(i.getKey(), i.getValue()));
-					}
-				}
-				for (Map.Entry<Xref, String> i : gdb.freeAttributeSearch(text, "Symbol", QUERY_LIMIT).entrySet()) {
-					// GO terms are annotated as symbols in BridgeDb databases
-					// those are filtered from the results
-					if (!i.getKey().getDataSource().getType().equals("ontology")
-							&& !i.getKey().getDataSource().getType().equals("probe")) {
-						result.add(new XrefWithSymbol(i.getKey(), i.getValue()));
-					}
-
-				}
-				return result;
-			}
-
-			@Override
-			public void done() {
-				progress.finished();
-				if (!progress.isCancelled()) {
-					List<XrefWithSymbol> results = null;
-					try {
-						results = get();
-						// Show results to user
-						if (results != null && results.size() > 0) {
-							DatabaseSearchDialog resultDialog = new DatabaseSearchDialog("Results", results, curDlg);
-							resultDialog.setVisible(true);
-							XrefWithSymbol selected = resultDialog.getSelected();
-							if (selected != null) {
-								applyAutoFill(selected);
-							}
-						} else {
-							JOptionPane.showMessageDialog(DataNodeDialog.this, "No results for '" + text + "'");
-						}
-					} catch (InterruptedException e) {
-						// Ignore, thread interrupted. Same as cancel.
-					} catch (ExecutionException e) {
-						if (swingEngine.getGdbManager().getCurrentGdb().getMappers().size() == 0) {
-							JOptionPane.showMessageDialog(DataNodeDialog.this, "No identifier mapping database loaded.",
-									"Error", JOptionPane.ERROR_MESSAGE);
-						} else {
-							JOptionPane.showMessageDialog(DataNodeDialog.this,
-									"Exception occurred while searching,\n" + "see error log for details.", "Error",
-									JOptionPane.ERROR_MESSAGE);
-							Logger.log.error("Error while searching", e);
-						}
-					}
-				}
-			}
-		};
-		sw.execute();
-		dialog.setVisible(true);
+		if (swingEngine.getGdbManager().getCurrentGdb().getMappers().size() == 0) {
+			JOptionPane.showMessageDialog(this, "No identifier mapping database loaded.", "Error",
+					JOptionPane.ERROR_MESSAGE);
+			return;
+		}
+		// results are shown while the databases are searched
+		DatabaseSearchDialog resultDialog = new DatabaseSearchDialog("Results",
+				swingEngine.getGdbManager().getXrefSearch(), aText.trim(), curDlg);
+		resultDialog.setVisible(true);
+		resultDialog.cancelSearch();
+		XrefWithSymbol selected = resultDialog.getSelected();
+		if (selected != null) {
+			applyAutoFill(selected);
+		}
 	}
 
 	// ================================================================================
@@ -429,10 +365,10 @@ public List<String> provideOptions(String text) {
 				if (text == null)
 					return Collections.emptyList();
 
-				IDMapperStack gdb = swingEngine.getGdbManager().getCurrentGdb();
+				CachedIDMapper gdb = swingEngine.getGdbManager().getCachedGdb();
 				List<String> symbols = new ArrayList<String>();
 				try {
-					if (gdb.getMappers().size() > 0) {
+					if (gdb.getStack().getMappers().size() > 0) {
 						symbols.addAll(gdb.freeAttributeSearch(text, "Symbol", 10).values());
 					}
 				} catch (IDMapperException ignore) {
@@ -448,10 +384,10 @@ public List<String> provideOptions(String text) {
 				if (text == null)
 					return Collections.emptyList();
 
-				IDMapperStack gdb = swingEngine.getGdbManager().getCurrentGdb();
+				CachedIDMapper gdb = swingEngine.getGdbManager().getCachedGdb();
 				Set<Xref> refs = new HashSet<Xref>();
 				try {
-					if (gdb.getMappers().size() > 0)
+					if (gdb.getStack().getMappers().size() > 0)
 						refs = gdb.freeSearch(text, 100);
 				} catch (IDMapperException ignore) {
 				}
@@ -20,6 +20,8 @@
 import java.awt.GridBagConstraints;
 import java.awt.GridBagLayout;
 import java.awt.Insets;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
 import java.awt.event.KeyAdapter;
 import java.awt.event.KeyEvent;
 import java.awt.event.MouseAdapter;
@@ -33,19 +35,36 @@
 import javax.swing.JPanel;
 import javax.swing.JScrollPane;
 import javax.swing.JTable;
+import javax.swing.JTextField;
 import javax.swing.KeyStroke;
 import javax.swing.ListSelectionModel;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import javax.swing.table.AbstractTableModel;
 
+import org.pathvisio.core.data.XrefSearch;
+import org.pathvisio.core.data.XrefSearch.Search;
 import org.pathvisio.core.data.XrefWithSymbol;
+import org.pathvisio.libgpml.debug.Logger;
 
 /**
  * 
  * @author unknown
  */
 public class DatabaseSearchDialog extends OkCancelDialog {
+	/** Delay after the last keystroke before searching again */
+	private static final int SEARCH_DELAY = 300;
+
 	List<XrefWithSymbol> xrefs = new ArrayList<XrefWithSymbol>();
 
+	private XrefSearch xrefSearch;
+	private Search search;
+	private JTextField searchText;
+	private JLabel status;
+	private Timer searchTimer;
+
 	public DatabaseSearchDialog(String title, List<XrefWithSymbol> xrefs, JDialog parent) {
 		super(null, title, null, true);
 
@@ -61,6 +80,117 @@ public DatabaseSearchDialog(String title, List<XrefWithSymbol> xrefs, JDialog pa
 		validate();
 	}
 
+	/**
+	 * Creates a dialog that shows the results of the given search while they
+	 * come in. The search text can be changed in the dialog, which cancels the
+	 * running search and starts a new one.
+	 */
+	public DatabaseSearchDialog(String title, XrefSearch xrefSearch, String text, JDialog parent) {
+		super(null, title, null, true);
+		this.xrefSearch = xrefSearch;
+
+		setDialogComponent(createDialogPane());
+
+		searchText.setText(text);
+		searchTimer = new Timer(SEARCH_DELAY, new ActionListener() {
+			public void actionPerformed(ActionEvent e) {
+				startSearch();
+			}
+		});
+		searchTimer.setRepeats(false);
+		searchText.getDocument().addDocumentListener(new DocumentListener() {
+			public void insertUpdate(DocumentEvent e) {
+				searchTimer.restart();
+			}
+
+			public void removeUpdate(DocumentEvent e) {
+				searchTimer.restart();
+			}
+
+			public void changedUpdate(DocumentEvent e) {
+			}
+		});
+		startSearch();
+
+		pack();
+		setLocationRelativeTo(parent);
+		validate();
+	}
+
+	/**
+	 * Cancels the running search, if any, and searches for the current text.
+	 */
+	private void startSearch() {
+		cancelSearch();
+		final String text = searchText.getText().trim();
+		if ("".equals(text)) {
+			setResults(new ArrayList<XrefWithSymbol>());
+			status.setText("Type something to search for");
+			return;
+		}
+		status.setText("Searching for '" + text + "'...");
+		search = xrefSearch.search(text, new XrefSearch.SearchListener() {
+			public void resultsChanged(final Search s) {
+				final List<XrefWithSymbol> results = s.getResults();
+				SwingUtilities.invokeLater(new Runnable() {
+					public void run() {
+						// ignore results of searches that have been replaced
+						if (s == search) {
+							showResults(s, results);
+						}
+					}
+				});
+			}
+		});
+		// show results from the cache right away
+		showResults(search, search.getResults());
+	}
+
+	private void showResults(Search s, List<XrefWithSymbol> results) {
+		setResults(results);
+		if (!s.isDone()) {
+			status.setText("Searching for '" + s.getText() + "'... " + results.size() + " results so far");
+		} else if (s.getError() != null) {
+			status.setText("Exception occurred while searching, see error log for details.");
+			Logger.log.error("Error while searching", s.getError());
+		} else if (results.size() == 0) {
+			status.setText("No results for '" + s.getText() + "'");
+		} else {
+			status.setText(results.size() + " results for '" + s.getText() + "'");
+		}
+	}
+
+	/**
+	 * Replaces the shown results, keeping the selected row selected.
+	 */
+	private void setResults(List<XrefWithSymbol> results) {
+		XrefWithSymbol sel = null;
+		int row = table.getSelectedRow();
+		if (row > -1) {
+			sel = xrefs.get(table.convertRowIndexToModel(row));
+		}
+		xrefs = results;
+		((XRefTableModel) table.getModel()).refresh();
+		int index = sel == null ? -1 : xrefs.indexOf(sel);
+		if (index > -1) {
+			row = table.convertRowIndexToView(index);
+			table.getSelectionModel().setSelectionInterval(row, row);
+		}
+	}
+
+	/**
+	 * Stops the running search. Call this when the dialog has been closed.
+	 */
+	public void cancelSearch() {
+		if (searchTimer != null) {
+			searchTimer.stop();
+		}
+		if (search != null) {
+			search.cancel();
+			search = null;
+		}
+	}
+
 	JTable table;
 	XrefWithSymbol selected;
 
@@ -87,10 +217,20 @@ protected Component createDialogPane() {
 		grid.weightx = 1;
 		grid.gridy = GridBagConstraints.RELATIVE;
 		grid.fill = GridBagConstraints.HORIZONTAL;
+		if (xrefSearch != null) {
+			searchText = new JTextField();
+			panel.add(searchText, grid);
+		}
 		panel.add(label, grid);
 		grid.fill = GridBagConstraints.BOTH;
 		grid.weighty = 1;
 		panel.add(scroll, grid);
+		if (xrefSearch != null) {
+			status = new JLabel(" ");
+			grid.fill = GridBagConstraints.HORIZONTAL;
+			grid.weighty = 0;
+			panel.add(status, grid);
+		}
 
 		// Apply on double click
 		table.addMouseListener(new MouseAdapter() {
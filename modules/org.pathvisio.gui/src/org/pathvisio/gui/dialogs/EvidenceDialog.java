@@ -39,11 +39,10 @@
 import javax.swing.text.SimpleAttributeSet;
 import javax.swing.text.StyleConstants;
 import javax.swing.text.StyledDocument;
-import javax.xml.parsers.ParserConfigurationException;
 
 import org.bridgedb.DataSource;
 import org.bridgedb.Xref;
-import org.pathvisio.core.data.ECOQuery;
+import org.pathvisio.core.data.CitationCache;
 import org.pathvisio.core.data.PubMedQuery;
 import org.pathvisio.core.data.PubMedResult;
 import org.pathvisio.core.util.ProgressKeeper;
@@ -201,14 +200,15 @@ else if (!newId.equals("") && newDs == null) {
 	 * When "Query" button is pressed.
 	 */
 	protected void queryPressed() {
-		final ECOQuery pmq = new ECOQuery(xrefIdentifier.getText().trim());
+		final String id = xrefIdentifier.getText().trim();
+		final PubMedResult[] pmr = new PubMedResult[1];
 		final ProgressKeeper pk = new ProgressKeeper();
 		ProgressDialog d = new ProgressDialog(JOptionPane.getFrameForComponent(this), "", pk, true, true);
 
 		SwingWorker<Void, Void> sw = new SwingWorker<Void, Void>() {
-			protected Void doInBackground() throws SAXException, IOException, ParserConfigurationException {
+			protected Void doInBackground() throws SAXException, IOException {
 				pk.setTaskName("Querying PubMed");
-				pmq.execute();
+				pmr[0] = CitationCache.getCurrent().getECO(id);
 				pk.finished();
 				return null;
 			}
@@ -217,9 +217,8 @@ protected Void doInBackground() throws SAXException, IOException, ParserConfigur
 		sw.execute();
 		d.setVisible(true);
 
-		PubMedResult pmr = pmq.getResult();
-		if (pmr != null) {
-			xrefIdentifier.setText(pmr.getId()); // write the trimmed pmid to the dialog
+		if (pmr[0] != null) {
+			xrefIdentifier.setText(pmr[0].getId()); // write the trimmed pmid to the dialog
 			dsm.setSelectedItem(dsm); // TODO
 		}
 	}
@@ -59,6 +59,7 @@ public class PathwayImportHandler extends TransferHandler implements ClipboardOw
 
 	public PathwayImportHandler() {
 		supportedFlavors = new HashSet<DataFlavor>();
+		supportedFlavors.add(PathwayModelTransferable.PATHWAY_MODEL_FLAVOR);
 		supportedFlavors.add(PathwayModelTransferable.GPML_DATA_FLAVOR);
 		supportedFlavors.add(DataFlavor.stringFlavor);
 	}
@@ -72,24 +73,20 @@ public boolean canImport(JComponent comp, DataFlavor[] transferFlavors) {
 	}
 
 	public boolean importData(JComponent comp, Transferable t) {
-		try {
-			String xml = PathwayModelTransferable.getText(t);
-			if (xml != null) {
-				Logger.log.trace("Importing from xml: " + xml);
-				importGpml(comp, xml, null);
-			}
-
-		} catch (Exception e) {
-			Logger.log.error("Unable to paste pathway data", e);
-		}
-		return false;
+		return importDataAtCursorPosition(comp, t, null);
 	}
 
 	public boolean importDataAtCursorPosition(JComponent comp, Transferable t, Point p) {
 		try {
+			// Copied within PathVisio, no need to go through xml
+			PathwayModel fragment = PathwayModelTransferable.getPathwayModel(t);
+			if (fragment != null) {
+				importPathwayModel(comp, fragment, p);
+				return false;
+			}
 			String xml = PathwayModelTransferable.getText(t);
 			if (xml != null) {
-				Logger.log.trace("Importing from xml: " + xml);
+				Logger.log.trace("Importing from xml: {}", xml);
 				importGpml(comp, xml, p);
 			}
 
@@ -106,7 +103,14 @@ private boolean importGpml(JComponent comp, String xml, Point p)
 			throws UnsupportedFlavorException, IOException, ConverterException {
 		PathwayModel pnew = new PathwayModel();
 		GPMLFormat.readFromXml(pnew, new StringReader(xml), true);
+		return importPathwayModel(comp, pnew, p);
+	}
 
+	/**
+	 * Pastes copies of the elements of the given pathway model. The pathway model
+	 * itself is not modified, so it can be pasted again.
+	 */
+	private boolean importPathwayModel(JComponent comp, PathwayModel pnew, Point p) {
 		List<CopyElement> elements = new ArrayList<CopyElement>();
 		for (PathwayElement elm : pnew.getPathwayElements()) {
 			if (elm.getObjectType() != ObjectType.PATHWAY) {
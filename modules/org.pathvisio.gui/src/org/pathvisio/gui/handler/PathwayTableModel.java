@@ -16,6 +16,8 @@
  ******************************************************************************/
 package org.pathvisio.gui.handler;
 
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -25,6 +27,7 @@
 import java.util.Map;
 
 import javax.swing.JTable;
+import javax.swing.Timer;
 import javax.swing.table.AbstractTableModel;
 import javax.swing.table.TableCellEditor;
 import javax.swing.table.TableCellRenderer;
@@ -41,6 +44,7 @@
 import org.pathvisio.libgpml.model.PathwayObject;
 import org.pathvisio.libgpml.model.PathwayObjectEvent;
 import org.pathvisio.libgpml.model.PathwayObjectListener;
+import org.pathvisio.libgpml.prop.Property;
 import org.pathvisio.libgpml.prop.StaticProperty;
 
 /**
@@ -55,6 +59,12 @@
 public class PathwayTableModel extends AbstractTableModel
 		implements SelectionListener, PathwayObjectListener, ApplicationEventListener {
 
+	/**
+	 * Delay in ms to collect selection and modification events before the table
+	 * is updated, e.g. while dragging or selecting many elements.
+	 */
+	private static final int UPDATE_DELAY = 100;
+
 	private JTable table;
 	final private Collection<PathwayObject> input;
 	final private Map<Object, PropertyView> propertyValues;
@@ -62,11 +72,20 @@ public class PathwayTableModel extends AbstractTableModel
 
 	private SwingEngine swingEngine;
 
+	private final Timer updateTimer;
+	private boolean pendingPropertyCount = false;
+
 	public PathwayTableModel(SwingEngine swingEngine) {
 		input = new HashSet<PathwayObject>();
 		propertyValues = new HashMap<Object, PropertyView>();
 		shownProperties = new ArrayList<PropertyView>();
 		this.swingEngine = swingEngine;
+		updateTimer = new Timer(UPDATE_DELAY, new ActionListener() {
+			public void actionPerformed(ActionEvent e) {
+				flush();
+			}
+		});
+		updateTimer.setRepeats(false);
 		swingEngine.getEngine().addApplicationEventListener(this);
 		VPathwayModel vp = swingEngine.getEngine().getActiveVPathwayModel();
 		if (vp != null)
@@ -96,7 +115,7 @@ private void removeInput(PathwayElement pwElm) {
 		if (input.size() > 0) {
 			updatePropertyCounts(pwElm, true);
 			pwElm.removeListener(this);
-			refresh(true);
+			scheduleRefresh(true);
 		} else {
 			reset();
 		}
@@ -114,7 +133,7 @@ private void addInput(PathwayElement pwElm) {
 		input.add(pwElm);
 		updatePropertyCounts(pwElm, false);
 		pwElm.addListener(this);
-		refresh(true);
+		scheduleRefresh(true);
 	}
 
 	protected void refresh() {
@@ -122,13 +141,42 @@ protected void refresh() {
 	}
 
 	public void refresh(boolean propertyCount) {
-		if (propertyCount) {
+		updateTimer.stop();
+		if (propertyCount || pendingPropertyCount) {
+			pendingPropertyCount = false;
 			updateShownProperties();
 		}
 		refreshPropertyValues();
 		fireTableDataChanged();
 	}
 
+	/**
+	 * Collects changes and updates the table once, after {@link #UPDATE_DELAY}
+	 * ms. The property values are only calculated for the rows the table paints.
+	 */
+	private void scheduleRefresh(boolean propertyCount) {
+		pendingPropertyCount |= propertyCount;
+		if (!updateTimer.isRunning()) {
+			updateTimer.start();
+		}
+	}
+
+	/**
+	 * Updates the table for the changes collected by
+	 * {@link #scheduleRefresh(boolean)}. Unlike {@link #refresh(boolean)}, values
+	 * of properties that were not changed are kept.
+	 */
+	private void flush() {
+		updateTimer.stop();
+		if (pendingPropertyCount) {
+			pendingPropertyCount = false;
+			updateShownProperties();
+			fireTableDataChanged();
+		} else if (shownProperties.size() > 0) {
+			fireTableRowsUpdated(0, shownProperties.size() - 1);
+		}
+	}
+
 	/**
 	 * Add/remove properties to/from the table model.
 	 *
@@ -162,8 +210,8 @@ protected void updateShownProperties() {
 				// System.err.println("\tremoving " + tp + " from shown");
 				shownProperties.remove(tp);
 			}
-			Collections.sort(shownProperties);
 		}
+		Collections.sort(shownProperties);
 	}
 
 	protected void refreshPropertyValues() {
@@ -261,7 +309,17 @@ public TableCellEditor getCellEditor(int row, int column) {
 	}
 
 	public void gmmlObjectModified(PathwayObjectEvent e) {
-		refresh();
+		// only the properties changed by this event need to be recalculated, hidden
+		// ones too as they may be shown after the selection changes
+		for (PropertyView p : propertyValues.values()) {
+			Object type = p.getType();
+			boolean affected = type instanceof Property ? e.affectsProperty((Property) type)
+					: e.affectsProperty((String) type);
+			if (affected || e.isCoordinateChange()) {
+				p.refreshValue();
+			}
+		}
+		scheduleRefresh(false);
 	}
 
 	public void applicationEvent(ApplicationEvent e) {
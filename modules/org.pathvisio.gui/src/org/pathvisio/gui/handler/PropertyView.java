@@ -45,6 +45,7 @@ public class PropertyView implements Comparable<PropertyView> {
 	private Object type;
 	private int counter = 0;
 	boolean different;
+	private boolean valid = false;
 	private TableCellRenderer propertyLabelRenderer = new PropertyLabelRenderer();
 
 	/**
@@ -88,13 +89,23 @@ public void removeElement(PathwayElement e) {
 	}
 
 	/**
-	 * Refreshes the viewer / editor value by checking all PathwayElements This
-	 * notifies the PropertyView that one of the PathwayElements has changed or that
-	 * the PathwayElement list has been changed, and a new value should be cached.
+	 * Notifies the PropertyView that one of the PathwayElements has changed or that
+	 * the PathwayElement list has been changed. The cached value is recalculated
+	 * from all PathwayElements the next time it is asked for, so that only the
+	 * rows the table actually shows are calculated.
 	 */
 	public void refreshValue() {
+		valid = false;
+	}
+
+	private void calculateValue() {
+		if (valid) {
+			return;
+		}
+		valid = true;
 		if (elements.size() == 1) {
 			value = elements.iterator().next().getPropertyEx(type);
+			different = false;
 		} else {
 			List<Object> SelectionValues = new ArrayList<Object>();
 			for (PathwayObject e : elements) {
@@ -172,9 +183,10 @@ public void setValue(Object value) {
 
 	/**
 	 * The value of the property being viewed / edited. This value is cached, call
-	 * refreshValue() to update the cache.
+	 * refreshValue() to recalculate it on the next call.
 	 */
 	public Object getValue() {
+		calculateValue();
 		return value;
 	}
 
@@ -203,6 +215,7 @@ private TypeHandler getTypeHandler() {
 	 * Returns true if the PathwayElement's being edited differ for this Property.
 	 */
 	public boolean hasDifferentValues() {
+		calculateValue();
 		return different;
 	}
 
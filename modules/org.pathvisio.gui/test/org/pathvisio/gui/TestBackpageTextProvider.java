@@ -0,0 +1,193 @@
+/*******************************************************************************
+ * PathVisio, a tool for data visualization and analysis using biological pathways
+ * Copyright 2006-2022 BiGCaT Bioinformatics, WikiPathways
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.pathvisio.gui;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+import org.bridgedb.DataSource;
+import org.bridgedb.IDMapperException;
+import org.bridgedb.Xref;
+import org.pathvisio.gui.BackpageTextProvider.BackpageHook;
+import org.pathvisio.gui.BackpageTextProvider.CacheableBackpageHook;
+import org.pathvisio.libgpml.model.DataNode;
+import org.pathvisio.libgpml.model.PathwayModel;
+import org.pathvisio.libgpml.model.PathwayObject;
+import org.pathvisio.libgpml.model.type.DataNodeType;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests caching of backpage fragments in {@link BackpageTextProvider}.
+ */
+public class TestBackpageTextProvider extends TestCase {
+
+	private static final DataSource SRC = DataSource.register("TsB", "Test backpage").asDataSource();
+
+	/**
+	 * Counts its calls, and fails while failing is set.
+	 */
+	private static class CountingHook implements CacheableBackpageHook {
+		int calls = 0;
+		boolean failing = false;
+
+		public String getHtml(PathwayObject e) {
+			throw new UnsupportedOperationException();
+		}
+
+		public String getCacheableHtml(PathwayObject e) throws IDMapperException {
+			calls++;
+			if (failing) {
+				throw new IDMapperException("offline");
+			}
+			return "<p>cached " + calls + "</p>";
+		}
+	}
+
+	/**
+	 * A hook that depends on state that changes without a GdbEvent.
+	 */
+	private static class StateHook implements BackpageHook {
+		String state = "a";
+
+		public String getHtml(PathwayObject e) {
+			return "<p>state " + state + "</p>";
+		}
+	}
+
+	/**
+	 * Blocks until it is released, and records whether it was interrupted.
+	 */
+	private static class BlockingHook implements CacheableBackpageHook {
+		final CountDownLatch started = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		volatile boolean interrupted = false;
+		int calls = 0;
+
+		public String getHtml(PathwayObject e) {
+			throw new UnsupportedOperationException();
+		}
+
+		public String getCacheableHtml(PathwayObject e) {
+			calls++;
+			started.countDown();
+			try {
+				release.await();
+			} catch (InterruptedException ex) {
+				interrupted = true;
+			}
+			return "<p>blocking</p>";
+		}
+	}
+
+	private static final Consumer<String> IGNORE = new Consumer<String>() {
+		public void accept(String t) {
+		}
+	};
+
+	private static final BooleanSupplier NEVER = new BooleanSupplier() {
+		public boolean getAsBoolean() {
+			return false;
+		}
+	};
+
+	private BackpageTextProvider bpt;
+	private CountingHook cacheable;
+	private StateHook uncached;
+	private DataNode dataNode;
+
+	public void setUp() {
+		bpt = new BackpageTextProvider();
+		cacheable = new CountingHook();
+		uncached = new StateHook();
+		bpt.addBackpageHook(cacheable);
+		bpt.addBackpageHook(uncached);
+		PathwayModel p = new PathwayModel();
+		dataNode = new DataNode("a", DataNodeType.GENEPRODUCT);
+		dataNode.setXref(new Xref("1", SRC));
+		p.addDataNode(dataNode);
+	}
+
+	public void testCache() {
+		String html = bpt.getBackpageHTML(dataNode);
+		assertTrue(html.contains("cached 1"));
+		assertTrue(html.contains("state a"));
+
+		uncached.state = "b";
+		html = bpt.getBackpageHTML(dataNode);
+		assertTrue(html.contains("cached 1"));
+		assertTrue(html.contains("state b"));
+		assertEquals(1, cacheable.calls);
+
+		bpt.gdbEvent(null);
+		assertTrue(bpt.getBackpageHTML(dataNode).contains("cached 2"));
+	}
+
+	public void testErrorNotCached() throws Exception {
+		cacheable.failing = true;
+		assertFalse(bpt.getBackpageHTML(dataNode).contains("cached"));
+		cacheable.failing = false;
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			String html = bpt.getBackpageHTML(dataNode, executor, IGNORE, NEVER);
+			assertTrue(html.contains("cached 2"));
+		} finally {
+			executor.shutdown();
+		}
+		assertTrue(bpt.getBackpageHTML(dataNode).contains("cached 2"));
+	}
+
+	public void testCancel() throws Exception {
+		final BackpageTextProvider provider = new BackpageTextProvider();
+		BlockingHook blocking = new BlockingHook();
+		provider.addBackpageHook(blocking);
+		provider.addBackpageHook(cacheable);
+		final AtomicBoolean cancelled = new AtomicBoolean(false);
+		final ExecutorService hookExecutor = Executors.newSingleThreadExecutor();
+		ExecutorService queryExecutor = Executors.newSingleThreadExecutor();
+		try {
+			Future<String> query = queryExecutor.submit(new Callable<String>() {
+				public String call() {
+					return provider.getBackpageHTML(dataNode, hookExecutor, IGNORE, new BooleanSupplier() {
+						public boolean getAsBoolean() {
+							return cancelled.get();
+						}
+					});
+				}
+			});
+			blocking.started.await();
+			cancelled.set(true);
+			blocking.release.countDown();
+			assertNull(query.get());
+			// the running hook is not interrupted, the waiting one is skipped
+			assertFalse(blocking.interrupted);
+			assertEquals(0, cacheable.calls);
+		} finally {
+			hookExecutor.shutdown();
+			queryExecutor.shutdown();
+		}
+		// the fragment of the running hook is kept
+		assertTrue(provider.getBackpageHTML(dataNode).contains("blocking"));
+		assertEquals(1, blocking.calls);
+	}
+}
@@ -0,0 +1,89 @@
+/*******************************************************************************
+ * PathVisio, a tool for data visualization and analysis using biological pathways
+ * Copyright 2006-2022 BiGCaT Bioinformatics, WikiPathways
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.pathvisio.gui.handler;
+
+import org.pathvisio.libgpml.model.DataNode;
+import org.pathvisio.libgpml.model.PathwayModel;
+import org.pathvisio.libgpml.model.type.DataNodeType;
+import org.pathvisio.libgpml.prop.StaticProperty;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests aggregation of a property over several elements in
+ * {@link PropertyView}.
+ */
+public class TestPropertyView extends TestCase {
+
+	private DataNode d1, d2, d3;
+
+	public void setUp() {
+		PathwayModel p = new PathwayModel();
+		d1 = new DataNode("a", DataNodeType.GENEPRODUCT);
+		d2 = new DataNode("a", DataNodeType.GENEPRODUCT);
+		d3 = new DataNode("b", DataNodeType.GENEPRODUCT);
+		p.addDataNode(d1);
+		p.addDataNode(d2);
+		p.addDataNode(d3);
+	}
+
+	public void testSharedValue() {
+		PropertyView pv = new PropertyView(null, StaticProperty.TEXTLABEL);
+		pv.addElement(d1);
+		pv.addElement(d2);
+		assertEquals(2, pv.elementCount());
+		assertEquals("a", pv.getValue());
+		assertFalse(pv.hasDifferentValues());
+
+		pv.addElement(d3);
+		assertTrue(pv.hasDifferentValues());
+
+		pv.removeElement(d3);
+		assertFalse(pv.hasDifferentValues());
+	}
+
+	public void testRefreshValue() {
+		PropertyView pv = new PropertyView(null, StaticProperty.TEXTLABEL);
+		pv.addElement(d1);
+		assertEquals("a", pv.getValue());
+
+		// the cached value is kept until refreshValue is called
+		d1.setTextLabel("c");
+		assertEquals("a", pv.getValue());
+		pv.refreshValue();
+		assertEquals("c", pv.getValue());
+
+		pv.addElement(d2);
+		pv.addElement(d3);
+		d1.setTextLabel("b");
+		d2.setTextLabel("b");
+		pv.refreshValue();
+		assertEquals("b", pv.getValue());
+		assertFalse(pv.hasDifferentValues());
+	}
+
+	public void testSetValue() {
+		PropertyView pv = new PropertyView(null, StaticProperty.TEXTLABEL);
+		pv.addElement(d1);
+		pv.addElement(d3);
+		pv.setValue("x");
+		assertEquals("x", d1.getTextLabel());
+		assertEquals("x", d3.getTextLabel());
+		assertEquals("x", pv.getValue());
+		assertFalse(pv.hasDifferentValues());
+	}
+}
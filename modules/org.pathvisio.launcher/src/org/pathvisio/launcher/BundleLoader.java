@@ -16,8 +16,11 @@
  ******************************************************************************/
 package org.pathvisio.launcher;
 
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLDecoder;
@@ -28,6 +31,7 @@
 import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -46,7 +50,13 @@
  * @author unknown
  */
 public class BundleLoader {
-	
+
+	/**
+	 * Name of the index of embedded bundles, written into the root of
+	 * pathvisio.jar at build time (see the exe target in build.xml).
+	 */
+	public static final String BUNDLE_INDEX = "bundles.index";
+
 	private final BundleContext context;
 
 	private final List<Bundle> plugins = new ArrayList<Bundle>();
@@ -88,11 +98,17 @@ void loadFromParameter(String filePath) {
 	}
 
 	/**
-	 * installs a bundle from file
+	 * installs a bundle from file. If the bundle is still installed from an
+	 * earlier session, because the bundle cache is kept, and the file was
+	 * replaced since, the bundle is updated from the file.
 	 */
 	void installFromFile(File file) {
 		try {
 			Bundle bundle = context.installBundle(file.toURI().toString());
+			if (file.lastModified() > bundle.getLastModified()) {
+				System.out.println("Updating " + file.toURI());
+				bundle.update();
+			}
 			plugins.add(bundle);
 			System.out.println("Loading " + file.toURI());
 			bundles.put(bundle, file.toURI().toString());
@@ -145,6 +161,10 @@ void installEmbeddedBundle(String s) throws URISyntaxException, IOException {
 	 * @throws IOException
 	 */
 	public Set<String> getResourceListing(Class<?> clazz) throws URISyntaxException, IOException {
+		Set<String> indexed = readBundleIndex(clazz);
+		if (indexed != null) {
+			return indexed;
+		}
 		String me = clazz.getName().replace(".", "/") + ".class";
 		URL dirURL = clazz.getClassLoader().getResource(me);
 
@@ -203,6 +223,64 @@ public Set<String> getResourceListing(Class<?> clazz) throws URISyntaxException,
 		return result;
 	}
 
+	/**
+	 * Reads the precomputed list of embedded bundles. This avoids walking all
+	 * entries of the launcher jar (or, for webstart, downloading the manifest) on
+	 * every startup.
+	 *
+	 * @param clazz Any java class that lives in the same place as the index.
+	 * @return the names of the embedded bundles, or null if there is no index, in
+	 *         which case the jar has to be scanned.
+	 */
+	Set<String> readBundleIndex(Class<?> clazz) {
+		InputStream in = clazz.getClassLoader().getResourceAsStream(BUNDLE_INDEX);
+		if (in == null) {
+			return null;
+		}
+		Set<String> result = new LinkedHashSet<String>();
+		try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, "UTF-8"))) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				line = line.trim();
+				if (line.length() > 0 && !line.startsWith("#")) {
+					result.add(line);
+				}
+			}
+		} catch (IOException e) {
+			System.err.println("error reading bundle index " + e.getMessage());
+			return null;
+		}
+		if (result.size() == 0) {
+			return null;
+		}
+		System.out.println("Read " + result.size() + " embedded bundles from " + BUNDLE_INDEX);
+		return result;
+	}
+
+	/**
+	 * When the bundle cache is kept across runs, the framework still remembers
+	 * bundles from earlier sessions, e.g. plug-ins that were passed with -p last
+	 * time. Uninstall all bundles that were not installed during this session.
+	 */
+	void uninstallStaleBundles() {
+		Set<String> locations = new HashSet<String>();
+		for (Bundle b : bundles.keySet()) {
+			locations.add(b.getLocation());
+		}
+		for (Bundle b : context.getBundles()) {
+			if (b.getBundleId() == 0 || locations.contains(b.getLocation())) {
+				continue; // system bundle or still in use
+			}
+			try {
+				System.out.println("Uninstalling stale bundle " + b.getLocation());
+				b.uninstall();
+			} catch (BundleException e) {
+				System.err.println("Could not uninstall stale bundle " + b.getLocation());
+				e.printStackTrace();
+			}
+		}
+	}
+
 	/** accessor method */
 	public Map<Bundle, String> getBundles() {
 		return bundles;
@@ -18,9 +18,14 @@
 
 import java.io.BufferedReader;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -44,6 +49,11 @@ public class PathVisioMain {
 	/** The smoke-test option is for automated testing purposes.
 	 * When set, PathVisio just tries loading plugins, and quits with exit code 0 on success or non-zero on error. */
 	private static boolean isSmokeTest = false;
+
+	/** When set, the OSGi bundle cache is reused across runs as long as pathvisio.jar did not change,
+	 * instead of reinstalling all bundles on every startup. Plug-in jars that were replaced since
+	 * the last run are updated when they are installed. */
+	private static boolean keepBundleCache = false;
 	
 	/**
 	 * @param args
@@ -119,8 +129,61 @@ private Map<String, String> getLaunchProperties()
 		}
 		// hides the felix cache in .PathVisio/bundle-cache
 		launchProperties.put("felix.cache.rootdir", getBundleCacheFile().getAbsolutePath());
+		if (keepBundleCache && isBundleCacheValid()) {
+			System.out.println("Reusing bundle cache " + getBundleCacheFile());
+			launchProperties.put("org.osgi.framework.storage.clean", "none");
+		}
 		return launchProperties;
 	}
+
+	/**
+	 * The bundle cache is only valid if it was filled from the same pathvisio.jar.
+	 * The jar is identified by its modification time and size, which are recorded
+	 * in a stamp file next to the cache. If the stamp does not match, it is
+	 * rewritten and the cache is cleaned as usual.
+	 */
+	private boolean isBundleCacheValid() {
+		File jar = getLauncherJar();
+		if (jar == null) {
+			return false; // not running from a local jar, e.g. webstart
+		}
+		String stamp = jar.lastModified() + " " + jar.length();
+		File stampFile = new File(getBundleCacheFile().getParentFile(), "bundle-cache.stamp");
+		Properties props = new Properties();
+		if (stampFile.exists()) {
+			try (InputStream in = new FileInputStream(stampFile)) {
+				props.load(in);
+			} catch (IOException e) {
+				System.err.println("Could not read " + stampFile + ": " + e.getMessage());
+			}
+		}
+		if (stamp.equals(props.getProperty("jar.stamp")) && getBundleCacheFile().exists()) {
+			return true;
+		}
+		props.setProperty("jar.stamp", stamp);
+		try (OutputStream out = new FileOutputStream(stampFile)) {
+			props.store(out, "stamp of the pathvisio.jar that filled the bundle cache");
+		} catch (IOException e) {
+			System.err.println("Could not write " + stampFile + ": " + e.getMessage());
+		}
+		return false;
+	}
+
+	/**
+	 * @return the jar file the launcher is running from, or null if not running
+	 *         from a local jar.
+	 */
+	private static File getLauncherJar() {
+		try {
+			URL location = PathVisioMain.class.getProtectionDomain().getCodeSource().getLocation();
+			if ("file".equals(location.getProtocol()) && location.getPath().endsWith(".jar")) {
+				return new File(location.toURI());
+			}
+		} catch (SecurityException | URISyntaxException e) {
+			System.err.println("Could not determine launcher jar: " + e.getMessage());
+		}
+		return null;
+	}
 	
 	
 	private SplashFrame frame;
@@ -163,6 +226,9 @@ protected Void doInBackground() throws Exception {
 			    		publish(100 * (++cnt) / total);
 			    		loader.loadFromParameter(location);
 					}
+			    	if (keepBundleCache) {
+			    		loader.uninstallStaleBundles();
+			    	}
 			    
 					startBundles(context, loader.getBundles());
 					
@@ -330,6 +396,8 @@ public static void parseArguments(String [] args) {
 			} else if ("--smoketest".equals(args[i]))
 			{
 				isSmokeTest = true;
+			} else if ("--keep-bundle-cache".equals(args[i])) {
+				keepBundleCache = true;
 			} else if("-wpid".equals(args[i])) {
 				if(i+1 < args.length && !isArgument(args[i+1])) {
 					wpId = args[i+1];
@@ -357,7 +425,8 @@ private static File getBundleCacheFile() {
 	}
 		
 	private static boolean isArgument(String string) {
-		if(string.equals("-p") || string.equals("-v") || string.equals("-h") || string.equals("-d") || string.equals("--smoketest")) {
+		if(string.equals("-p") || string.equals("-v") || string.equals("-h") || string.equals("-d") || string.equals("--smoketest")
+				|| string.equals("--keep-bundle-cache")) {
 			return true;
 		}
 		return false;
@@ -371,6 +440,7 @@ private static void printHelp() {
 				"-d: A pgex data file to load\n" +
 				"-v: displays PathVisio version\n" +
 				"-h: displays this help message\n" +
+				"--keep-bundle-cache: reuse installed bundles from the previous run\n" +
 				"-wpid: opens pathway from WikiPathways through plugin"				
 				/* NOTE: the --smoketest option is not documented on purpose
 				 * It's not for use by end-users. */
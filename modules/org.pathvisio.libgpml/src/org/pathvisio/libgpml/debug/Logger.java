@@ -19,6 +19,8 @@
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.PrintStream;
+import java.util.function.Supplier;
+import java.util.logging.Level;
 
 /**
  * Logs output to a stream, with the option to filter for types of messages
@@ -32,11 +34,24 @@
  * <li>5: error
  * <li>6: fatal
  * </ol>
+ * <p>
+ * Messages can be passed with <code>{}</code> placeholders for parameters, or as
+ * a {@link Supplier}, so that they are only built when their level is enabled.
+ * <p>
+ * By default messages are written asynchronously: they are put in a buffer of
+ * {@link #BUFFER_SIZE} messages and written by a background thread, so that the
+ * calling thread never waits for the stream. When the buffer is full, messages
+ * are dropped and the number of dropped messages is logged later. Messages can
+ * also be passed on to a {@link java.util.logging.Logger}, see
+ * {@link #setBridge(java.util.logging.Logger)}.
  * 
  * @author unknown
  */
 public class Logger {
 
+	/** Number of messages that can wait to be written */
+	public static final int BUFFER_SIZE = 8192;
+
 	private boolean debugEnabled = true;
 	private boolean traceEnabled = false;
 	private boolean infoEnabled = true;
@@ -44,7 +59,8 @@ public class Logger {
 	private boolean errorEnabled = true;
 	private boolean fatalEnabled = true;
 
-	private PrintStream s = System.err;
+	private volatile PrintStream s = System.err;
+	private volatile java.util.logging.Logger bridge = null;
 
 	public PrintStream getStream() {
 		return s;
@@ -77,11 +93,30 @@ public void setDest(String dest) {
 		}
 	}
 
+	/**
+	 * Passes messages on to the given {@link java.util.logging.Logger} instead of
+	 * writing them to the stream, e.g. to combine them with the logging of an
+	 * application that embeds PathVisio. Messages are still filtered by the log
+	 * level of this logger first. Set to null to write to the stream again.
+	 * 
+	 * @param aBridge the logger to pass messages to, or null.
+	 */
+	public void setBridge(java.util.logging.Logger aBridge) {
+		bridge = aBridge;
+	}
+
+	public java.util.logging.Logger getBridge() {
+		return bridge;
+	}
+
 	StopWatch logTimer;
 
 	public Logger() {
 		logTimer = new StopWatch();
 		logTimer.start();
+		for (int i = 0; i < buffer.length; i++) {
+			buffer[i] = new Entry();
+		}
 	}
 
 	/**
@@ -104,60 +139,344 @@ public void setLogLevel(boolean debug, boolean trace, boolean info, boolean warn
 		fatalEnabled = fatal;
 	}
 
-	private static final String FORMAT_STRING = "[%10.3f] ";
+	public boolean isDebugEnabled() {
+		return debugEnabled;
+	}
+
+	public boolean isTraceEnabled() {
+		return traceEnabled;
+	}
+
+	public boolean isInfoEnabled() {
+		return infoEnabled;
+	}
 
+	public boolean isWarnEnabled() {
+		return warnEnabled;
+	}
+
+	public boolean isErrorEnabled() {
+		return errorEnabled;
+	}
+
+	public boolean isFatalEnabled() {
+		return fatalEnabled;
+	}
+
+	// ================================================================================
+	// Log Methods
+	// ================================================================================
 	public void trace(String msg) {
 		if (traceEnabled) {
-			s.printf(FORMAT_STRING, logTimer.look() / 1000.0f);
-			s.println("Trace: " + msg);
+			log(Type.TRACE, msg, null);
+		}
+	}
+
+	public void trace(String msg, Object arg) {
+		if (traceEnabled) {
+			log(Type.TRACE, format(msg, arg), null);
+		}
+	}
+
+	public void trace(String msg, Object arg1, Object arg2) {
+		if (traceEnabled) {
+			log(Type.TRACE, format(msg, arg1, arg2), null);
+		}
+	}
+
+	public void trace(Supplier<String> msg) {
+		if (traceEnabled) {
+			log(Type.TRACE, msg.get(), null);
 		}
 	}
 
 	public void debug(String msg) {
 		if (debugEnabled) {
-			s.printf(FORMAT_STRING, logTimer.look() / 1000.0f);
-			s.println("Debug: " + msg);
+			log(Type.DEBUG, msg, null);
+		}
+	}
+
+	public void debug(String msg, Object arg) {
+		if (debugEnabled) {
+			log(Type.DEBUG, format(msg, arg), null);
+		}
+	}
+
+	public void debug(String msg, Object arg1, Object arg2) {
+		if (debugEnabled) {
+			log(Type.DEBUG, format(msg, arg1, arg2), null);
+		}
+	}
+
+	public void debug(Supplier<String> msg) {
+		if (debugEnabled) {
+			log(Type.DEBUG, msg.get(), null);
 		}
 	}
 
 	public void info(String msg) {
 		if (infoEnabled) {
-			s.printf(FORMAT_STRING, logTimer.look() / 1000.0f);
-			s.println("Info:  " + msg);
+			log(Type.INFO, msg, null);
+		}
+	}
+
+	public void info(String msg, Object arg) {
+		if (infoEnabled) {
+			log(Type.INFO, format(msg, arg), null);
+		}
+	}
+
+	public void info(String msg, Object arg1, Object arg2) {
+		if (infoEnabled) {
+			log(Type.INFO, format(msg, arg1, arg2), null);
+		}
+	}
+
+	public void info(Supplier<String> msg) {
+		if (infoEnabled) {
+			log(Type.INFO, msg.get(), null);
 		}
 	}
 
 	public void warn(String msg) {
 		if (warnEnabled)
-			s.println("Warn:  " + msg);
+			log(Type.WARN, msg, null);
+	}
+
+	public void warn(String msg, Object arg) {
+		if (warnEnabled)
+			log(Type.WARN, format(msg, arg), null);
+	}
+
+	public void warn(String msg, Object arg1, Object arg2) {
+		if (warnEnabled)
+			log(Type.WARN, format(msg, arg1, arg2), null);
+	}
+
+	public void warn(Supplier<String> msg) {
+		if (warnEnabled)
+			log(Type.WARN, msg.get(), null);
 	}
 
 	public void warn(String msg, Throwable e) {
-		if (warnEnabled) {
-			s.println("Warn:  " + msg + "\n\t" + e.getMessage());
-		}
-		if (debugEnabled) {
-			e.printStackTrace(s);
+		if (warnEnabled || debugEnabled) {
+			log(Type.WARN, warnEnabled ? msg + "\n\t" + e.getMessage() : null, debugEnabled ? e : null);
 		}
 	}
 
 	public void error(String msg) {
 		if (errorEnabled)
-			s.println("Error: " + msg);
+			log(Type.ERROR, msg, null);
 	}
 
 	public void error(String msg, Throwable e) {
-		if (errorEnabled) {
-			error(msg + "\n\t" + e.toString() + (e != null ? ": " + e.getMessage() : ""));
-		}
-		if (debugEnabled) {
-			e.printStackTrace(s);
+		if (errorEnabled || debugEnabled) {
+			log(Type.ERROR,
+					errorEnabled ? msg + "\n\t" + e.toString() + (e != null ? ": " + e.getMessage() : "") : null,
+					debugEnabled ? e : null);
 		}
 	}
 
 	public void fatal(String msg) {
 		if (fatalEnabled)
-			s.println("Fatal: " + msg);
+			log(Type.FATAL, msg, null);
+	}
+
+	/**
+	 * Replaces the <code>{}</code> placeholders in the message by the given
+	 * arguments, in order.
+	 */
+	static String format(String msg, Object... args) {
+		StringBuilder result = new StringBuilder(msg.length() + 16 * args.length);
+		int start = 0;
+		for (Object arg : args) {
+			int i = msg.indexOf("{}", start);
+			if (i < 0) {
+				break;
+			}
+			result.append(msg, start, i).append(arg);
+			start = i + 2;
+		}
+		return result.append(msg, start, msg.length()).toString();
+	}
+
+	// ================================================================================
+	// Writing
+	// ================================================================================
+	private enum Type {
+		DEBUG("Debug: ", true, Level.FINE), TRACE("Trace: ", true, Level.FINER), INFO("Info:  ", true, Level.INFO),
+		WARN("Warn:  ", false, Level.WARNING), ERROR("Error: ", false, Level.SEVERE),
+		FATAL("Fatal: ", false, Level.SEVERE);
+
+		final String prefix;
+		final boolean timed;
+		final Level level;
+
+		Type(String prefix, boolean timed, Level level) {
+			this.prefix = prefix;
+			this.timed = timed;
+			this.level = level;
+		}
+	}
+
+	/** A message in the buffer, reused when it has been written */
+	private static class Entry {
+		Type type;
+		long time;
+		String msg;
+		Throwable e;
+
+		void set(Type aType, long aTime, String aMsg, Throwable anE) {
+			type = aType;
+			time = aTime;
+			msg = aMsg;
+			e = anE;
+		}
+	}
+
+	private static final String FORMAT_STRING = "[%10.3f] ";
+
+	private boolean async = true;
+	private final Entry[] buffer = new Entry[BUFFER_SIZE];
+	private int first = 0; // index of the oldest message in the buffer
+	private int count = 0; // number of messages in the buffer
+	private boolean writing = false; // true while the writer writes a message
+	private long dropped = 0;
+	private Thread writer = null;
+
+	/**
+	 * Sets whether messages are written by a background thread, or immediately by
+	 * the calling thread. Messages that are waiting are written first.
+	 */
+	public void setAsync(boolean value) {
+		flush();
+		synchronized (buffer) {
+			async = value;
+		}
+	}
+
+	public boolean isAsync() {
+		synchronized (buffer) {
+			return async;
+		}
+	}
+
+	private void log(Type type, String msg, Throwable e) {
+		long time = logTimer.look();
+		synchronized (buffer) {
+			if (async) {
+				if (count == buffer.length) {
+					dropped++;
+					return;
+				}
+				buffer[(first + count) % buffer.length].set(type, time, msg, e);
+				count++;
+				if (writer == null) {
+					startWriter();
+				} else if (count == 1) {
+					buffer.notifyAll();
+				}
+				return;
+			}
+		}
+		synchronized (this) {
+			write(type, time, msg, e);
+		}
+	}
+
+	private void startWriter() {
+		writer = new Thread("Logger") {
+			public void run() {
+				writeBuffer();
+			}
+		};
+		writer.setDaemon(true);
+		writer.start();
+		// write what is left when the application exits
+		Runtime.getRuntime().addShutdownHook(new Thread("Logger shutdown") {
+			public void run() {
+				flush();
+			}
+		});
+	}
+
+	/**
+	 * Run by the writer thread. The message is copied out of the buffer, so that
+	 * the stream is written without holding the lock.
+	 */
+	private void writeBuffer() {
+		Entry entry = new Entry();
+		while (true) {
+			long lost = 0;
+			synchronized (buffer) {
+				writing = false;
+				while (count == 0 && dropped == 0) {
+					buffer.notifyAll(); // wake up flush()
+					PrintStream stream = s;
+					stream.flush();
+					try {
+						buffer.wait();
+					} catch (InterruptedException ex) {
+						return;
+					}
+				}
+				if (count > 0) {
+					Entry next = buffer[first];
+					entry.set(next.type, next.time, next.msg, next.e);
+					next.set(null, 0, null, null);
+					first = (first + 1) % buffer.length;
+					count--;
+				} else {
+					lost = dropped;
+					dropped = 0;
+					entry.set(Type.WARN, logTimer.look(), lost + " log messages were dropped", null);
+				}
+				writing = true;
+			}
+			synchronized (this) {
+				write(entry.type, entry.time, entry.msg, entry.e);
+			}
+		}
+	}
+
+	/**
+	 * Waits until all messages have been written and flushes the stream.
+	 */
+	public void flush() {
+		synchronized (buffer) {
+			long timeout = System.currentTimeMillis() + 10000;
+			while ((count > 0 || dropped > 0 || writing) && Thread.currentThread() != writer) {
+				long wait = timeout - System.currentTimeMillis();
+				if (wait <= 0) {
+					break;
+				}
+				try {
+					buffer.wait(wait);
+				} catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+					break;
+				}
+			}
+		}
+		s.flush();
+	}
+
+	private void write(Type type, long time, String msg, Throwable e) {
+		java.util.logging.Logger target = bridge;
+		if (target != null) {
+			target.log(type.level, msg == null ? "" : msg, e);
+			return;
+		}
+		PrintStream stream = s;
+		if (msg != null) {
+			if (type.timed) {
+				stream.printf(FORMAT_STRING, time / 1000.0f);
+			}
+			stream.println(type.prefix + msg);
+		}
+		if (e != null) {
+			e.printStackTrace(stream);
+		}
 	}
 
 	/**
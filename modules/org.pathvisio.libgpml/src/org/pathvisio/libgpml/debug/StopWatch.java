@@ -44,6 +44,6 @@ public long look() {
 	}
 
 	public void stopToLog(String msg) {
-		Logger.log.trace(msg + "\t" + stop());
+		Logger.log.trace("{}\t{}", msg, stop());
 	}
 }
@@ -17,6 +17,7 @@
 package org.pathvisio.libgpml.model;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
 
@@ -95,6 +96,7 @@ protected void setValue(String v) {
 		}
 		if (!Utils.stringEquals(value, v)) {
 			value = v;
+			equivalenceChanged();
 			fireObjectModifiedEvent(PathwayObjectEvent.createSinglePropertyEvent(this, StaticProperty.ANNOTATIONREF));
 		}
 	}
@@ -116,6 +118,7 @@ public AnnotationType getType() {
 	protected void setType(AnnotationType v) {
 		if (type != v && v != null) {
 			type = v;
+			equivalenceChanged();
 			fireObjectModifiedEvent(PathwayObjectEvent.createSinglePropertyEvent(this, StaticProperty.ANNOTATIONTYPE));
 		}
 	}
@@ -137,6 +140,7 @@ public Xref getXref() {
 	protected void setXref(Xref v) {
 		if (v != null) {
 			xref = v;
+			equivalenceChanged();
 			fireObjectModifiedEvent(PathwayObjectEvent.createSinglePropertyEvent(this, StaticProperty.XREF));
 		}
 	}
@@ -158,6 +162,7 @@ public String getUrlLink() {
 	protected void setUrlLink(String v) {
 		if (v != null && !Utils.stringEquals(urlLink, v)) {
 			urlLink = v;
+			equivalenceChanged();
 			fireObjectModifiedEvent(PathwayObjectEvent.createSinglePropertyEvent(this, StaticProperty.ANNOTATIONREF));
 		}
 	}
@@ -271,6 +276,26 @@ public boolean equalsAnnotation(Annotation annotation) {
 		return true;
 	}
 
+	/**
+	 * Returns a key of the properties compared by {@link #equalsAnnotation}. Annotations
+	 * with equal properties have equal keys.
+	 *
+	 * @return the key of this annotation.
+	 */
+	Object getEquivalenceKey() {
+		return Arrays.asList(value, type, EquivalenceIndex.xrefKey(xref), EquivalenceIndex.urlKey(urlLink));
+	}
+
+	/**
+	 * Updates the index of the pathway model, if any, after a property compared by
+	 * {@link #equalsAnnotation} has changed.
+	 */
+	private void equivalenceChanged() {
+		if (pathwayModel != null) {
+			pathwayModel.annotationChanged(this);
+		}
+	}
+
 	// ================================================================================
 	// Copy Methods
 	// ================================================================================
@@ -291,6 +316,7 @@ public void copyValuesFrom(Annotation src) {
 		type = src.type;
 		xref = src.xref;
 		urlLink = src.urlLink;
+		equivalenceChanged();
 		fireObjectModifiedEvent(PathwayObjectEvent.createAllPropertiesEvent(this));
 	}
 
@@ -17,6 +17,7 @@
 package org.pathvisio.libgpml.model;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import org.bridgedb.Xref;
@@ -94,6 +95,7 @@ public Xref getXref() {
 	protected void setXref(Xref v) {
 		if (v != null) {
 			xref = v;
+			equivalenceChanged();
 			fireObjectModifiedEvent(PathwayObjectEvent.createSinglePropertyEvent(this, StaticProperty.XREF));
 		}
 	}
@@ -115,6 +117,7 @@ public String getUrlLink() {
 	protected void setUrlLink(String v) {
 		if (v != null && !Utils.stringEquals(urlLink, v)) {
 			urlLink = v;
+			equivalenceChanged();
 		}
 	}
 
@@ -295,6 +298,26 @@ public boolean equalsCitation(Citation citation) {
 		return true;
 	}
 
+	/**
+	 * Returns a key of the properties compared by {@link #equalsCitation}. Citations
+	 * with equal properties have equal keys.
+	 *
+	 * @return the key of this citation.
+	 */
+	Object getEquivalenceKey() {
+		return Arrays.asList(EquivalenceIndex.xrefKey(xref), EquivalenceIndex.urlKey(urlLink));
+	}
+
+	/**
+	 * Updates the index of the pathway model, if any, after a property compared by
+	 * {@link #equalsCitation} has changed.
+	 */
+	private void equivalenceChanged() {
+		if (pathwayModel != null) {
+			pathwayModel.citationChanged(this);
+		}
+	}
+
 	// ================================================================================
 	// Copy Methods
 	// ================================================================================
@@ -317,6 +340,7 @@ public void copyValuesFrom(Citation src) {
 		source = src.source;
 		year = src.year;
 		authors = src.authors;
+		equivalenceChanged();
 		fireObjectModifiedEvent(PathwayObjectEvent.createAllPropertiesEvent(this));
 	}
 
@@ -0,0 +1,117 @@
+/*******************************************************************************
+ * PathVisio, a tool for data visualization and analysis using biological pathways
+ * Copyright 2006-2022 BiGCaT Bioinformatics, WikiPathways
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.pathvisio.libgpml.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.bridgedb.Xref;
+
+/**
+ * Index of pathway objects by a key of the properties that make them
+ * equivalent. Used by {@link PathwayModel} to find an existing
+ * {@link Annotation}, {@link Citation} or {@link Evidence} equivalent to a new
+ * one without comparing it to all of them. Equivalent objects have equal keys,
+ * so only objects with the same key need to be compared.
+ * 
+ * @param <T> the type of pathway object.
+ */
+class EquivalenceIndex<T> {
+
+	private final Map<Object, List<T>> buckets = new HashMap<Object, List<T>>();
+	private final Map<T, Object> keys = new IdentityHashMap<T, Object>();
+
+	/**
+	 * Returns a key for the given xref, equal for xrefs that are equivalent by
+	 * {@link org.pathvisio.libgpml.util.XrefUtils#equivalentXrefs(Xref, Xref)}.
+	 */
+	static Object xrefKey(Xref xref) {
+		return xref == null ? null : Arrays.asList(xref.getId(), xref.getDataSource());
+	}
+
+	/**
+	 * Returns a key for the given url, where null equals empty as in
+	 * {@link org.pathvisio.libgpml.util.Utils#stringNullEqualsEmpty(String, String)}.
+	 */
+	static String urlKey(String urlLink) {
+		return urlLink == null ? "" : urlLink;
+	}
+
+	void add(T o, Object key) {
+		List<T> bucket = buckets.get(key);
+		if (bucket == null) {
+			bucket = new ArrayList<T>(1);
+			buckets.put(key, bucket);
+		}
+		bucket.add(o);
+		keys.put(o, key);
+	}
+
+	void remove(T o) {
+		if (keys.containsKey(o)) {
+			Object key = keys.remove(o);
+			List<T> bucket = buckets.get(key);
+			bucket.remove(o);
+			if (bucket.isEmpty()) {
+				buckets.remove(key);
+			}
+		}
+	}
+
+	/**
+	 * Files the given object under its new key, if it is in the index.
+	 */
+	void update(T o, Object key) {
+		if (keys.containsKey(o)) {
+			remove(o);
+			add(o, key);
+		}
+	}
+
+	/**
+	 * Returns the objects with the given key.
+	 */
+	List<T> get(Object key) {
+		List<T> bucket = buckets.get(key);
+		return bucket == null ? Collections.<T>emptyList() : bucket;
+	}
+
+	/**
+	 * Returns the first of the given objects in the given list, or null if there
+	 * are none.
+	 */
+	static <T> T first(List<T> objects, List<T> list) {
+		if (objects.size() <= 1) {
+			return objects.isEmpty() ? null : objects.get(0);
+		}
+		T result = null;
+		int index = Integer.MAX_VALUE;
+		for (T o : objects) {
+			int i = list.indexOf(o);
+			if (i < index) {
+				result = o;
+				index = i;
+			}
+		}
+		return result;
+	}
+}
@@ -17,6 +17,7 @@
 package org.pathvisio.libgpml.model;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
 
@@ -91,6 +92,7 @@ public String getValue() {
 	protected void setValue(String v) {
 		if (v != null && Utils.stringEquals(value, v)) {
 			value = v;
+			equivalenceChanged();
 		}
 	}
 
@@ -114,6 +116,7 @@ protected void setXref(Xref v) {
 		}
 		if (v != null || xref != v) {
 			xref = v;
+			equivalenceChanged();
 			fireObjectModifiedEvent(PathwayObjectEvent.createSinglePropertyEvent(this, StaticProperty.XREF));
 		}
 	}
@@ -135,6 +138,7 @@ public String getUrlLink() {
 	protected void setUrlLink(String v) {
 		if (v != null && !Utils.stringEquals(urlLink, v)) {
 			urlLink = v;
+			equivalenceChanged();
 		}
 	}
 
@@ -236,6 +240,26 @@ public boolean equalsEvidence(Evidence evidence) {
 		return true;
 	}
 
+	/**
+	 * Returns a key of the properties compared by {@link #equalsEvidence}. Evidences
+	 * with equal properties have equal keys.
+	 *
+	 * @return the key of this evidence.
+	 */
+	Object getEquivalenceKey() {
+		return Arrays.asList(value, EquivalenceIndex.xrefKey(xref), EquivalenceIndex.urlKey(urlLink));
+	}
+
+	/**
+	 * Updates the index of the pathway model, if any, after a property compared by
+	 * {@link #equalsEvidence} has changed.
+	 */
+	private void equivalenceChanged() {
+		if (pathwayModel != null) {
+			pathwayModel.evidenceChanged(this);
+		}
+	}
+
 	// ================================================================================
 	// Copy Methods
 	// ================================================================================
@@ -255,6 +279,7 @@ public void copyValuesFrom(Evidence src) {
 		value = src.value;
 		xref = src.xref;
 		urlLink = src.urlLink;
+		equivalenceChanged();
 		fireObjectModifiedEvent(PathwayObjectEvent.createAllPropertiesEvent(this));
 	}
 
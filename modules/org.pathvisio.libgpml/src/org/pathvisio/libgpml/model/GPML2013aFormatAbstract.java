@@ -519,6 +519,36 @@ private static Map<String, AttributeInfo> initAttributeInfo() {
 		return result;
 	}
 
+	/**
+	 * Attribute info indexed by tag and then by attribute name, so that lookups
+	 * need no string concatenation.
+	 */
+	private static final Map<String, Map<String, AttributeInfo>> ATTRIBUTE_INDEX = indexAttributeInfo(
+			ATTRIBUTE_INFO);
+
+	/**
+	 * Splits the "tag@name" keys of the attribute info map into a two level index.
+	 *
+	 * @param attributeInfo the attribute info map.
+	 * @return the index.
+	 */
+	private static Map<String, Map<String, AttributeInfo>> indexAttributeInfo(
+			Map<String, AttributeInfo> attributeInfo) {
+		Map<String, Map<String, AttributeInfo>> result = new HashMap<String, Map<String, AttributeInfo>>();
+		for (Map.Entry<String, AttributeInfo> entry : attributeInfo.entrySet()) {
+			String key = entry.getKey();
+			int at = key.indexOf('@');
+			String tag = key.substring(0, at);
+			Map<String, AttributeInfo> attributes = result.get(tag);
+			if (attributes == null) {
+				attributes = new HashMap<String, AttributeInfo>();
+				result.put(tag, attributes);
+			}
+			attributes.put(key.substring(at + 1), entry.getValue());
+		}
+		return result;
+	}
+
 	/**
 	 * Returns {@link Map} ATTRIBUTE_INFO collection that contains {@link String} as
 	 * key and {@link AttributeInfo} as value.
@@ -528,24 +558,89 @@ protected Map<String, AttributeInfo> getAttributeInfo() {
 	}
 
 	/**
-	 * Name of resource containing the gpml schema definition.
+	 * Returns the {@link AttributeInfo} for the given tag and attribute name.
+	 *
+	 * @param tag  the tag of the element.
+	 * @param name the name of the attribute.
+	 * @return the attribute info, or null if the attribute is not defined.
+	 */
+	protected AttributeInfo getAttributeInfo(String tag, String name) {
+		Map<String, AttributeInfo> attributes = ATTRIBUTE_INDEX.get(tag);
+		return attributes == null ? null : attributes.get(name);
+	}
+
+	/**
+	 * The way an attribute value is compared to its default value when writing.
+	 */
+	protected enum CompareType {
+		/** compared as string */
+		STRING,
+		/** compared numerically */
+		NUMBER,
+		/** compared as color */
+		COLOR,
+		/** never equal to default, always written */
+		NONE;
+
+		/**
+		 * Returns the compare type for the given xsd schema type.
+		 *
+		 * @param schemaType the xsd schema type.
+		 * @return the compare type.
+		 */
+		static CompareType fromSchemaType(String schemaType) {
+			if (schemaType.equals("xsd:string") || schemaType.equals("xsd:ID")
+					|| schemaType.equals("gpml:StyleType")) {
+				return STRING;
+			} else if (schemaType.equals("xsd:float") || schemaType.equals("Dimension")) {
+				return NUMBER;
+			} else if (schemaType.equals("gpml:ColorType")) {
+				return COLOR;
+			}
+			return NONE;
+		}
+	}
+
+	/**
+	 * Name of resource containing the gpml schema definition. The schema type and
+	 * default value are precompiled on construction.
 	 */
 	protected static class AttributeInfo {
 		/**
 		 * xsd validated type. Note that in the current implementation we don't do
 		 * anything with restrictions, only with the base type.
 		 */
-		public String schemaType;
+		public final String schemaType;
 
 		/**
 		 * default value for the attribute
 		 */
-		public String def; // default
+		public final String def; // default
 
 		/**
 		 * use of the attribute: can be "required" or "optional"
 		 */
-		public String use;
+		public final String use;
+
+		/**
+		 * true if use is "optional"
+		 */
+		final boolean optional;
+
+		/**
+		 * how values are compared to the default value
+		 */
+		final CompareType compareType;
+
+		/**
+		 * default value parsed as number, only for {@link CompareType#NUMBER}
+		 */
+		final double defNumber;
+
+		/**
+		 * default value parsed as color, only for {@link CompareType#COLOR}
+		 */
+		final Color defColor;
 
 		/**
 		 * Creates an object containing the gpml schema definition of a given attribute.
@@ -558,6 +653,10 @@ protected static class AttributeInfo {
 			schemaType = aSchemaType;
 			def = aDef;
 			use = aUse;
+			optional = aUse.equals("optional");
+			compareType = CompareType.fromSchemaType(aSchemaType);
+			defNumber = (compareType == CompareType.NUMBER && aDef != null) ? Double.parseDouble(aDef) : Double.NaN;
+			defColor = (compareType == CompareType.COLOR && aDef != null) ? ColorUtils.stringToColor(aDef) : null;
 		}
 	}
 
@@ -576,16 +675,15 @@ private boolean isEqualsString(String def, String value) {
 	/**
 	 * Returns true if given string value and default value are numerically equal.
 	 *
-	 * @param def   the string for default number value.
+	 * @param aInfo the attribute info with the parsed default number value.
 	 * @param value the string for given number value.
 	 * @return true if absolute value of difference between def and value is less
 	 *         than 1e-6, and false otherwise.
 	 */
-	private boolean isEqualsNumber(String def, String value) {
-		if (def != null && value != null) {
-			Double x = Double.parseDouble(def);
-			Double y = Double.parseDouble(value);
-			if (Math.abs(x - y) < 1e-6)
+	private boolean isEqualsNumber(AttributeInfo aInfo, String value) {
+		if (aInfo.def != null && value != null) {
+			double y = Double.parseDouble(value);
+			if (Math.abs(aInfo.defNumber - y) < 1e-6)
 				return true;
 		}
 		return false;
@@ -594,17 +692,17 @@ private boolean isEqualsNumber(String def, String value) {
 	/**
 	 * Returns true if given value and default value are the same color object.
 	 *
-	 * @param def   the string for default color object.
+	 * @param aInfo the attribute info with the parsed default color object.
 	 * @param value the string for given color object.
 	 * @return true if color is equal, false otherwise.
 	 */
-	private boolean isEqualsColor(String def, String value) {
+	private boolean isEqualsColor(AttributeInfo aInfo, String value) {
+		String def = aInfo.def;
 		if (def != null && value != null) {
 			boolean aTrans = "Transparent".equals(def);
 			boolean bTrans = "Transparent".equals(value);
-			Color a = ColorUtils.stringToColor(def);
 			Color b = ColorUtils.stringToColor(value);
-			return (a.equals(b) && aTrans == bTrans);
+			return (aInfo.defColor.equals(b) && aTrans == bTrans);
 		}
 		return def == null && value == null;
 	}
@@ -623,21 +721,25 @@ private boolean isEqualsColor(String def, String value) {
 	 * @throws ConverterException if value invalid.
 	 */
 	protected void setAttr(String tag, String name, Element el, String value) throws ConverterException {
-		String key = tag + "@" + name;
+		AttributeInfo aInfo = getAttributeInfo(tag, name);
 		// throw exception for value invalid
-		if (!getAttributeInfo().containsKey(key))
-			throw new ConverterException("Trying to set invalid attribute " + key);
-		AttributeInfo aInfo = getAttributeInfo().get(key);
+		if (aInfo == null)
+			throw new ConverterException("Trying to set invalid attribute " + tag + "@" + name);
 		boolean isDefault = false;
 		// if attribute equal to the default value, leave out from the jdom
-		if (aInfo.use.equals("optional")) {
-			if (aInfo.schemaType.equals("xsd:string") || aInfo.schemaType.equals("xsd:ID")
-					|| aInfo.schemaType.equals("gpml:StyleType")) {
+		if (aInfo.optional) {
+			switch (aInfo.compareType) {
+			case STRING:
 				isDefault = isEqualsString(aInfo.def, value);
-			} else if (aInfo.schemaType.equals("xsd:float") || aInfo.schemaType.equals("Dimension")) {
-				isDefault = isEqualsNumber(aInfo.def, value);
-			} else if (aInfo.schemaType.equals("gpml:ColorType")) {
-				isDefault = isEqualsColor(aInfo.def, value);
+				break;
+			case NUMBER:
+				isDefault = isEqualsNumber(aInfo, value);
+				break;
+			case COLOR:
+				isDefault = isEqualsColor(aInfo, value);
+				break;
+			default:
+				break;
 			}
 		}
 		if (!isDefault)
@@ -656,10 +758,9 @@ protected void setAttr(String tag, String name, Element el, String value) throws
 	 *                            mapping for the specified key.
 	 */
 	protected String getAttr(String tag, String name, Element el) throws ConverterException {
-		String key = tag + "@" + name;
-		if (!getAttributeInfo().containsKey(key))
-			throw new ConverterException("Trying to get invalid attribute " + key);
-		AttributeInfo aInfo = getAttributeInfo().get(key);
+		AttributeInfo aInfo = getAttributeInfo(tag, name);
+		if (aInfo == null)
+			throw new ConverterException("Trying to get invalid attribute " + tag + "@" + name);
 		String result = ((el == null) ? aInfo.def : el.getAttributeValue(name, aInfo.def));
 		return result;
 	}
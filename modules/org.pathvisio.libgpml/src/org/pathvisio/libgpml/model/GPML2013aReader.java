@@ -260,7 +260,7 @@ protected void readOpenControlledVocabulary(PathwayModel pathwayModel, Element r
 			for (Element ocv : bp.getChildren("openControlledVocabulary", BIOPAX_NAMESPACE)) {
 				// generates new unique elementId and adds to elementIdSet
 				String elementId = PathwayModel.getUniqueId(elementIdSet);
-				Logger.log.trace("Annotation missing elementId, new id is: " + elementId);
+				Logger.log.trace("Annotation missing elementId, new id is: {}", elementId);
 				elementIdSet.add(elementId);
 				// reads OpenControlledVocabulary
 				String value = ocv.getChild("TERM", BIOPAX_NAMESPACE).getText();
@@ -309,7 +309,7 @@ protected void readPublicationXrefMap(Element root, Set<String> elementIdSet,
 				String elementId = null;
 				if (elementIdSet.contains(id)) {
 					String newId = PathwayModel.getUniqueId(elementIdSet);
-					Logger.log.trace("Biopax id " + id + " is not unique, new id is: " + newId);
+					Logger.log.trace("Biopax id {} is not unique, new id is: {}", id, newId);
 					elementId = newId;
 				} else {
 					elementId = id; // if rdf:id unique, use as elementId
@@ -379,8 +379,8 @@ protected void readPublicationXrefs(PathwayElement pathwayElement, Element e,
 				if (!authors.isEmpty())
 					citation.setAuthors(authors);
 			} else {
-				Logger.log.trace("Warning: biopaxRef " + id
-						+ " refers to invalid Biopax PublicationXref, biopaxRef is not created.");
+				Logger.log.trace("Warning: biopaxRef {} refers to invalid Biopax PublicationXref, biopaxRef is not created.",
+						id);
 			}
 		}
 	}
@@ -575,7 +575,7 @@ protected void readGroups(PathwayModel pathwayModel, Element root, Set<String> e
 			String graphId = getAttr("Group", "GraphId", grp);
 			if (elementIdSet.contains(groupId)) {
 				String newId = PathwayModel.getUniqueId(elementIdSet);
-				Logger.log.trace("GroupId " + elementId + " is not unique, new id is: " + newId);
+				Logger.log.trace("GroupId {} is not unique, new id is: {}", elementId, newId);
 				elementId = newId;
 			} else {
 				elementId = groupId; // if groupId unique, use as elementId
@@ -891,7 +891,7 @@ protected void convertStateCommentToRefs(State state, Set<String> elementIdSet)
 				}
 				// add comment to list to be removed after creating annotation and annotationRef
 				commentsToRemove.add(comment);
-				Logger.log.trace("State " + state.getElementId() + " comment converted to Annotations/AnnotationRefs");
+				Logger.log.trace("State {} comment converted to Annotations/AnnotationRefs", state.getElementId());
 			}
 		}
 		// remove state comments which were converted into xref or annotationRefs
@@ -1150,7 +1150,7 @@ protected String readElementId(String tag, Element e, Set<String> elementIdSet)
 		if (elementId == null) {
 			elementId = PathwayModel.getUniqueId(elementIdSet);
 			elementIdSet.add(elementId);
-			Logger.log.trace(e.getName() + " missing elementId, new id is: " + elementId);
+			Logger.log.trace("{} missing elementId, new id is: {}", e.getName(), elementId);
 		}
 		return elementId;
 	}
@@ -130,7 +130,15 @@ public void writeToXml(PathwayModel pathwayModel, File file, boolean validate) t
 		} catch (IOException ex) {
 			throw new ConverterException(ex);
 		}
-		writeToXml(pathwayModel, out, true);
+		try {
+			writeToXml(pathwayModel, out, validate);
+		} finally {
+			try {
+				out.close();
+			} catch (IOException ex) {
+				throw new ConverterException(ex);
+			}
+		}
 	}
 
 	/**
@@ -336,8 +344,8 @@ protected void writeDataNodes(List<DataNode> dataNodes, Element root) throws Con
 			}
 			// warnings for conversion GPML2021 to GPML2013a
 			if (dataNode.getAliasRef() != null) {
-				Logger.log.trace("Warning: Conversion GPML2021 to GPML2013a: DataNode " + dataNode.getElementId()
-						+ " aliasRef info lost.");
+				Logger.log.trace("Warning: Conversion GPML2021 to GPML2013a: DataNode {} aliasRef info lost.",
+						dataNode.getElementId());
 			}
 		}
 	}
@@ -768,8 +776,8 @@ protected void writeOpenControlledVocabulary(PathwayModel pathwayModel, Element
 			}
 			// warnings for conversion GPML2021 to GPML2013a
 			if (annotation.getUrlLink() != null) {
-				Logger.log.trace("Warning: Conversion GPML2021 to GPML2013a: Annotation " + annotation.getElementId()
-						+ " url and elementId info lost.");
+				Logger.log.trace("Warning: Conversion GPML2021 to GPML2013a: Annotation {} url and elementId info lost.",
+						annotation.getElementId());
 			}
 		}
 	}
@@ -801,8 +809,8 @@ protected void writePublicationXref(List<Citation> citations, Element bp) throws
 			}
 			// warnings for conversion GPML2021 to GPML2013a
 			if (citation.getUrlLink() != null) {
-				Logger.log.trace("Warning: Conversion GPML2021 to GPML2013a: Citation " + citation.getElementId()
-						+ " url info lost.");
+				Logger.log.trace("Warning: Conversion GPML2021 to GPML2013a: Citation {} url info lost.",
+						citation.getElementId());
 			}
 		}
 	}
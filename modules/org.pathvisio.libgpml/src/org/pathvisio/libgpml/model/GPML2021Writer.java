@@ -127,7 +127,15 @@ public void writeToXml(PathwayModel pathwayModel, File file, boolean validate) t
 		} catch (IOException ex) {
 			throw new ConverterException(ex);
 		}
-		writeToXml(pathwayModel, out, true);
+		try {
+			writeToXml(pathwayModel, out, validate);
+		} finally {
+			try {
+				out.close();
+			} catch (IOException ex) {
+				throw new ConverterException(ex);
+			}
+		}
 	}
 
 	/**
@@ -323,8 +331,10 @@ protected void writeDynamicProperties(Map<String, String> dynamicProperties, Ele
 			String value = dynamicProperties.get(key);
 			// warnings for conversion GPML2021 to GPML2013a
 			if (GPML2013aFormatAbstract.GPML2013A_KEY_SET.contains(key)) {
-				Logger.log.trace("Warning: Conversion GPML2013a to GPML2021: " + e.getName() + " dynamic property \""
-						+ key + "\" (key) and \"" + value + "\" (value) info lost.");
+				if (Logger.log.isTraceEnabled()) {
+					Logger.log.trace("Warning: Conversion GPML2013a to GPML2021: " + e.getName() + " dynamic property \""
+							+ key + "\" (key) and \"" + value + "\" (value) info lost.");
+				}
 				continue;
 			}
 			Element dp = new Element("Property", e.getNamespace());
@@ -16,13 +16,17 @@
  ******************************************************************************/
 package org.pathvisio.libgpml.model;
 
+import java.awt.GraphicsEnvironment;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.Reader;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
 
 import javax.swing.JOptionPane;
 
@@ -32,9 +36,13 @@
 import org.jdom2.JDOMException;
 import org.jdom2.Namespace;
 import org.jdom2.input.SAXBuilder;
+import org.jdom2.output.Format;
+import org.jdom2.output.XMLOutputter;
 import org.pathvisio.libgpml.debug.Logger;
 import org.pathvisio.libgpml.io.AbstractPathwayModelFormat;
 import org.pathvisio.libgpml.io.ConverterException;
+import org.pathvisio.libgpml.util.ByteBufferInputStream;
+import org.pathvisio.libgpml.util.FileUtils;
 import org.pathvisio.libgpml.util.RootElementFinder;
 import org.xml.sax.InputSource;
 
@@ -162,6 +170,27 @@ public void writeToXml(PathwayModel pathwayModel, OutputStream out, boolean vali
 		writer.writeToXml(pathwayModel, out, validate);
 	}
 
+	/**
+	 * Writes a JDOM document, as created by {@link #createJdom}, to output stream
+	 * without validation. Creating the document and writing it can thus happen on
+	 * different threads.
+	 * 
+	 * @param doc the JDOM document.
+	 * @param out the output stream to write to.
+	 * @throws ConverterException
+	 */
+	public static void writeToXml(Document doc, OutputStream out) throws ConverterException {
+		XMLOutputter xmlOutput = new XMLOutputter(Format.getPrettyFormat());
+		Format xmlformat = xmlOutput.getFormat();
+		xmlformat.setEncoding("UTF-8");
+		xmlOutput.setFormat(xmlformat);
+		try {
+			xmlOutput.output(doc, out);
+		} catch (IOException e) {
+			throw new ConverterException(e);
+		}
+	}
+
 	// ================================================================================
 	// Read Methods
 	// ================================================================================
@@ -174,13 +203,83 @@ public void writeToXml(PathwayModel pathwayModel, OutputStream out, boolean vali
 	 * @throws ConverterException
 	 */
 	static public void readFromXml(PathwayModel pathwayModel, File file, boolean validate) throws ConverterException {
+		readFromFile(pathwayModel, file, false, validate);
+	}
+
+	/**
+	 * Reads the JDOM document from the file specified, which is memory mapped. The
+	 * parser reads directly from the mapped buffer. Meant for bulk processing: on
+	 * some platforms the file can not be overwritten until the mapping is garbage
+	 * collected.
+	 *
+	 * @param pathwayModel the pathway model.
+	 * @param file         the file from which the JDOM document should be read,
+	 *                     optionally gzip or zip compressed.
+	 * @param validate     if true, validate the dom structure during/after reading.
+	 * @throws ConverterException
+	 */
+	static public void readFromXmlMapped(PathwayModel pathwayModel, File file, boolean validate)
+			throws ConverterException {
+		readFromFile(pathwayModel, file, true, validate);
+	}
+
+	private static void readFromFile(PathwayModel pathwayModel, File file, boolean mapped, boolean validate)
+			throws ConverterException {
 		InputStream in;
 		try {
-			in = new FileInputStream(file);
-		} catch (FileNotFoundException e) {
+			in = FileUtils.openDecompressed(file, mapped);
+		} catch (IOException e) {
 			throw new ConverterException(e);
 		}
-		readFromXmlImpl(pathwayModel, new InputSource(in), validate);
+		try {
+			readFromXmlImpl(pathwayModel, new InputSource(in), validate);
+		} finally {
+			try {
+				in.close();
+			} catch (IOException e) {
+				Logger.log.warn("Unable to close " + file, e);
+			}
+		}
+	}
+
+	/**
+	 * Reads all pathway models from a zip file, such as the GPML dumps of
+	 * WikiPathways. Every entry ending with ".gpml" is read. The zip file is memory
+	 * mapped.
+	 *
+	 * @param zipFile  the zip file.
+	 * @param validate if true, validate the dom structure during/after reading.
+	 * @return the pathway models by entry name, in the order of the zip file.
+	 * @throws ConverterException
+	 */
+	static public Map<String, PathwayModel> readFromZip(File zipFile, boolean validate) throws ConverterException {
+		Map<String, PathwayModel> result = new LinkedHashMap<String, PathwayModel>();
+		try {
+			ZipInputStream zin = new ZipInputStream(new ByteBufferInputStream(FileUtils.map(zipFile)));
+			try {
+				// the parser closes its input, which must not close the zip
+				InputStream entryIn = new FilterInputStream(zin) {
+					@Override
+					public void close() {
+					}
+				};
+				ZipEntry entry;
+				while ((entry = zin.getNextEntry()) != null) {
+					if (entry.isDirectory() || !entry.getName().toLowerCase().endsWith(".gpml")) {
+						continue;
+					}
+					PathwayModel pathwayModel = new PathwayModel();
+					readFromXmlImpl(pathwayModel, new InputSource(entryIn), validate);
+					pathwayModel.clearChangedFlag();
+					result.put(entry.getName(), pathwayModel);
+				}
+			} finally {
+				zin.close();
+			}
+		} catch (IOException e) {
+			throw new ConverterException(e);
+		}
+		return result;
 	}
 
 	/**
@@ -257,15 +356,19 @@ private static void readFromXmlImpl(PathwayModel pathwayModel, InputSource is, b
 			// validation
 			if (validate) {
 				format.validateDocument(doc);
-				Logger.log.trace("Validated with schema: " + format.getSchemaFile());
+				Logger.log.trace("Validated with schema: {}", format.getSchemaFile());
 			}
 			Logger.log.trace("Copy map elements");
 			format.readFromRoot(pathwayModel, root);
 			// warning message if opening older GPML
 			if (!(format instanceof GPML2021Reader)) {
-				JOptionPane.showMessageDialog(null,
-						"This pathway was written in an older Gpml version.\nSave will automatically update it to GPML2021.",
-						"Warning", JOptionPane.WARNING_MESSAGE);
+				if (GraphicsEnvironment.isHeadless()) {
+					Logger.log.warn("Pathway was written in an older Gpml version: " + ns);
+				} else {
+					JOptionPane.showMessageDialog(null,
+							"This pathway was written in an older Gpml version.\nSave will automatically update it to GPML2021.",
+							"Warning", JOptionPane.WARNING_MESSAGE);
+				}
 			}
 		} catch (JDOMException e) {
 			throw new ConverterException(e);
@@ -277,7 +380,8 @@ private static void readFromXmlImpl(PathwayModel pathwayModel, InputSource is, b
 	}
 
 	/**
-	 * Returns true if file type is correct.
+	 * Returns true if file type is correct. Only the start of the file is read to
+	 * determine the namespace of the root element.
 	 * 
 	 * @param f the file.
 	 * @return true if file type correct.
@@ -287,7 +391,7 @@ public boolean isCorrectType(File f) {
 		String uri;
 		try {
 			uri = "" + RootElementFinder.getRootUri(f);
-			return uri.startsWith("http://genmapp.org/");
+			return uri.startsWith("http://genmapp.org/") || getReaderForNamespace(Namespace.getNamespace(uri)) != null;
 		} catch (Exception e) {
 			e.printStackTrace();
 			return false;
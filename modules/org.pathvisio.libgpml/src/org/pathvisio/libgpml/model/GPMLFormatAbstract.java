@@ -121,7 +121,7 @@ protected void updateGroups(PathwayModel pathwayModel) throws ConverterException
 			}
 		}
 		for (Group groupToRemove : groupsToRemove) {
-			Logger.log.trace("Warning: Removed empty group " + groupToRemove.getElementId());
+			Logger.log.trace("Warning: Removed empty group {}", groupToRemove.getElementId());
 			pathwayModel.removeGroup(groupToRemove);
 		}
 	}
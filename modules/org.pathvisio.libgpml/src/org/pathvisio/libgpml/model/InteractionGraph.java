@@ -0,0 +1,441 @@
+/*******************************************************************************
+ * PathVisio, a tool for data visualization and analysis using biological pathways
+ * Copyright 2006-2022 BiGCaT Bioinformatics, WikiPathways
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.pathvisio.libgpml.model;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.pathvisio.libgpml.model.DataNode.State;
+import org.pathvisio.libgpml.model.GraphLink.LinkableFrom;
+import org.pathvisio.libgpml.model.GraphLink.LinkableTo;
+import org.pathvisio.libgpml.model.LineElement.Anchor;
+import org.pathvisio.libgpml.model.LineElement.LinePoint;
+
+/**
+ * Connectivity queries over the interactions of a pathway model. Every
+ * interaction links the element its start point is linked to, upstream, with the
+ * element its end point is linked to, downstream.
+ * <p>
+ * Links through anchors and groups are followed:
+ * <ul>
+ * <li>An anchor lies on its interaction, between the start and the end. An
+ * interaction that ends at the anchor, such as a catalysis, is upstream of the
+ * anchor, and through it of the end of the anchored interaction.
+ * <li>An element has the links of its states, if it is a data node, of the
+ * groups it is in, and of its members, recursively, if it is a group. So a
+ * member of a complex is connected with everything the complex is connected
+ * with, and the complex with everything its members are connected with.
+ * <li>Conversely, an interaction that reaches a state also reaches its data
+ * node, and an interaction that reaches an element also reaches the groups it
+ * is in and, if it is a group, its members. So an element is downstream of
+ * another exactly when the other is upstream of it.
+ * </ul>
+ * The graph reads the links from the map of elements to the line points that
+ * refer to them, which {@link PathwayModel} keeps up to date when points are
+ * linked and unlinked. Neighbor queries take time proportional to the number
+ * of interactions of the element, so searches over the whole graph take time
+ * proportional to the number of interactions.
+ * 
+ * @see PathwayModel#getInteractionGraph()
+ */
+public class InteractionGraph {
+
+	/**
+	 * The direction in which to follow interactions.
+	 */
+	public enum Direction {
+		/** From the start to the end of interactions. */
+		DOWNSTREAM,
+		/** From the end to the start of interactions. */
+		UPSTREAM,
+		/** In both directions. */
+		BOTH
+	}
+
+	private final PathwayModel pathwayModel;
+	private final Map<LinkableTo, Set<LinkableFrom>> elementRefToLinePoints;
+
+	InteractionGraph(PathwayModel pathwayModel, Map<LinkableTo, Set<LinkableFrom>> elementRefToLinePoints) {
+		this.pathwayModel = pathwayModel;
+		this.elementRefToLinePoints = elementRefToLinePoints;
+	}
+
+	// ================================================================================
+	// Neighbor Methods
+	// ================================================================================
+	/**
+	 * Returns the interactions that start at the given element. Interactions that
+	 * start at its states or groups are not included.
+	 * 
+	 * @param e the element.
+	 * @return the interactions.
+	 */
+	public List<Interaction> getOutgoingInteractions(LinkableTo e) {
+		return getInteractions(e, true);
+	}
+
+	/**
+	 * Returns the interactions that end at the given element. Interactions that
+	 * end at its states or groups are not included.
+	 * 
+	 * @param e the element.
+	 * @return the interactions.
+	 */
+	public List<Interaction> getIncomingInteractions(LinkableTo e) {
+		return getInteractions(e, false);
+	}
+
+	private List<Interaction> getInteractions(LinkableTo e, boolean start) {
+		Set<LinkableFrom> points = elementRefToLinePoints.get(e);
+		if (points == null) {
+			return Collections.emptyList();
+		}
+		List<Interaction> result = new ArrayList<Interaction>();
+		for (LinkableFrom point : points) {
+			Interaction interaction = getInteraction(point, start);
+			if (interaction != null) {
+				result.add(interaction);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the interaction of the given point, if it is its start or end point.
+	 */
+	private static Interaction getInteraction(LinkableFrom point, boolean start) {
+		if (point instanceof LinePoint) {
+			LineElement line = ((LinePoint) point).getLineElement();
+			if (line instanceof Interaction
+					&& point == (start ? line.getStartLinePoint() : line.getEndLinePoint())) {
+				return (Interaction) line;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the elements one interaction downstream of the given element.
+	 * 
+	 * @param e the element.
+	 * @return the downstream elements, including anchors.
+	 */
+	public Set<LinkableTo> getDownstream(LinkableTo e) {
+		return getNeighbors(e, Direction.DOWNSTREAM);
+	}
+
+	/**
+	 * Returns the elements one interaction upstream of the given element.
+	 * 
+	 * @param e the element.
+	 * @return the upstream elements, including anchors.
+	 */
+	public Set<LinkableTo> getUpstream(LinkableTo e) {
+		return getNeighbors(e, Direction.UPSTREAM);
+	}
+
+	/**
+	 * Returns the elements one interaction away from the given element in the
+	 * given direction. The element itself, its states, its groups and its members
+	 * are not included.
+	 * 
+	 * @param e         the element.
+	 * @param direction the direction.
+	 * @return the neighbors.
+	 */
+	public Set<LinkableTo> getNeighbors(LinkableTo e, Direction direction) {
+		Set<LinkableTo> sources = getSources(e);
+		Set<LinkableTo> result = new LinkedHashSet<LinkableTo>();
+		for (LinkableTo source : sources) {
+			if (direction != Direction.UPSTREAM) {
+				addNeighbors(source, true, result);
+			}
+			if (direction != Direction.DOWNSTREAM) {
+				addNeighbors(source, false, result);
+			}
+		}
+		result.removeAll(sources);
+		return result;
+	}
+
+	/**
+	 * Returns the elements whose links the given element has: the element, its
+	 * states, the groups it is in, and its members, recursively, with their
+	 * states.
+	 */
+	private static Set<LinkableTo> getSources(LinkableTo e) {
+		Set<LinkableTo> result = new LinkedHashSet<LinkableTo>();
+		addMembers(e, result);
+		addGroups(e, result);
+		return result;
+	}
+
+	/**
+	 * Adds the elements that have the links of the given element: the element,
+	 * the data node if it is a state, the groups they are in, and its members,
+	 * recursively, if it is a group.
+	 */
+	private static void addReached(LinkableTo e, Set<LinkableTo> result) {
+		result.add(e);
+		if (e instanceof State) {
+			DataNode dataNode = ((State) e).getDataNode();
+			result.add(dataNode);
+			addGroups(dataNode, result);
+		}
+		addGroups(e, result);
+		addGroupMembers(e, result);
+	}
+
+	/**
+	 * Adds the members, recursively, if the given element is a group.
+	 */
+	private static void addGroupMembers(LinkableTo e, Set<LinkableTo> result) {
+		if (e instanceof Group) {
+			for (Groupable member : ((Group) e).getPathwayElements()) {
+				if (member instanceof LinkableTo) {
+					result.add((LinkableTo) member);
+					addGroupMembers((LinkableTo) member, result);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Adds the given element, its states, and its members, recursively, with
+	 * their states.
+	 */
+	private static void addMembers(LinkableTo e, Set<LinkableTo> result) {
+		result.add(e);
+		if (e instanceof DataNode) {
+			result.addAll(((DataNode) e).getStates());
+		}
+		if (e instanceof Group) {
+			for (Groupable member : ((Group) e).getPathwayElements()) {
+				if (member instanceof LinkableTo) {
+					addMembers((LinkableTo) member, result);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Adds the groups the given element is in.
+	 */
+	private static void addGroups(LinkableTo e, Set<LinkableTo> result) {
+		if (e instanceof Groupable) {
+			for (Group g = ((Groupable) e).getGroupRef(); g != null; g = g.getGroupRef()) {
+				result.add(g);
+			}
+		}
+	}
+
+	/**
+	 * Adds the elements downstream or upstream of the given element, not
+	 * following its states, groups and members.
+	 */
+	private void addNeighbors(LinkableTo e, boolean downstream, Set<LinkableTo> result) {
+		if (e instanceof Anchor) {
+			// the anchor lies on its interaction
+			LineElement line = ((Anchor) e).getLineElement();
+			if (line instanceof Interaction) {
+				addElementRef(downstream ? line.getEndLinePoint() : line.getStartLinePoint(), result);
+			}
+		}
+		Set<LinkableFrom> points = elementRefToLinePoints.get(e);
+		if (points != null) {
+			for (LinkableFrom point : points) {
+				Interaction interaction = getInteraction(point, downstream);
+				if (interaction != null) {
+					addElementRef(downstream ? interaction.getEndLinePoint() : interaction.getStartLinePoint(),
+							result);
+					result.addAll(interaction.getAnchors());
+				}
+			}
+		}
+	}
+
+	private static void addElementRef(LinePoint point, Set<LinkableTo> result) {
+		if (point.getElementRef() != null) {
+			addReached(point.getElementRef(), result);
+		}
+	}
+
+	// ================================================================================
+	// Search Methods
+	// ================================================================================
+	/**
+	 * Searches breadth first from the given element.
+	 * 
+	 * @param start     the element to start from.
+	 * @param direction the direction to follow interactions in.
+	 * @param maxDepth  the maximum number of interactions to follow, or -1 for no
+	 *                  maximum.
+	 * @return the elements found, in the order they were found, with their
+	 *         distance from the start.
+	 */
+	public Map<LinkableTo, Integer> breadthFirstSearch(LinkableTo start, Direction direction, int maxDepth) {
+		Map<LinkableTo, Integer> result = new LinkedHashMap<LinkableTo, Integer>();
+		search(start, null, direction, maxDepth, result, null);
+		return result;
+	}
+
+	/**
+	 * Returns a shortest path between two elements.
+	 * 
+	 * @param from      the first element of the path.
+	 * @param to        the last element of the path.
+	 * @param direction the direction to follow interactions in.
+	 * @return the elements on the path, including from and to, or an empty list if
+	 *         there is no path.
+	 */
+	public List<LinkableTo> getShortestPath(LinkableTo from, LinkableTo to, Direction direction) {
+		Map<LinkableTo, Integer> distances = new LinkedHashMap<LinkableTo, Integer>();
+		Map<LinkableTo, LinkableTo> parents = new IdentityHashMap<LinkableTo, LinkableTo>();
+		search(from, to, direction, -1, distances, parents);
+		if (!distances.containsKey(to)) {
+			return Collections.emptyList();
+		}
+		List<LinkableTo> result = new ArrayList<LinkableTo>();
+		for (LinkableTo e = to; e != null; e = parents.get(e)) {
+			result.add(e);
+		}
+		Collections.reverse(result);
+		return result;
+	}
+
+	private void search(LinkableTo start, LinkableTo target, Direction direction, int maxDepth,
+			Map<LinkableTo, Integer> distances, Map<LinkableTo, LinkableTo> parents) {
+		Deque<LinkableTo> queue = new ArrayDeque<LinkableTo>();
+		distances.put(start, 0);
+		queue.add(start);
+		while (!queue.isEmpty()) {
+			LinkableTo e = queue.poll();
+			int distance = distances.get(e);
+			if (e == target || distance == maxDepth) {
+				if (e == target) {
+					return;
+				}
+				continue;
+			}
+			for (LinkableTo neighbor : getNeighbors(e, direction)) {
+				if (!distances.containsKey(neighbor)) {
+					distances.put(neighbor, distance + 1);
+					if (parents != null) {
+						parents.put(neighbor, e);
+					}
+					queue.add(neighbor);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the sets of elements that are connected by interactions, in either
+	 * direction. Every data node, group and anchor of an interaction is in one
+	 * set, and the members of a group are in the same set as the group.
+	 * 
+	 * @return the connected components.
+	 */
+	public List<Set<LinkableTo>> getConnectedComponents() {
+		Map<LinkableTo, LinkableTo> parents = new IdentityHashMap<LinkableTo, LinkableTo>();
+		List<LinkableTo> elements = new ArrayList<LinkableTo>();
+		for (DataNode dataNode : pathwayModel.getDataNodes()) {
+			add(dataNode, parents, elements);
+		}
+		for (Group group : pathwayModel.getGroups()) {
+			add(group, parents, elements);
+			for (Groupable member : group.getPathwayElements()) {
+				if (member instanceof LinkableTo) {
+					union(group, (LinkableTo) member, parents, elements);
+				}
+			}
+		}
+		for (Interaction interaction : pathwayModel.getInteractions()) {
+			LinkableTo start = interaction.getStartLinePoint().getElementRef();
+			LinkableTo end = interaction.getEndLinePoint().getElementRef();
+			LinkableTo first = start != null ? start : end;
+			for (Anchor anchor : interaction.getAnchors()) {
+				if (first == null) {
+					first = anchor;
+				}
+				union(first, anchor, parents, elements);
+			}
+			if (start != null && end != null) {
+				union(start, end, parents, elements);
+			}
+		}
+		// states are in the set of their data node
+		for (DataNode dataNode : pathwayModel.getDataNodes()) {
+			for (State state : dataNode.getStates()) {
+				if (parents.containsKey(state)) {
+					union(dataNode, state, parents, elements);
+				}
+			}
+		}
+		Map<LinkableTo, Set<LinkableTo>> components = new LinkedHashMap<LinkableTo, Set<LinkableTo>>();
+		for (LinkableTo e : elements) {
+			LinkableTo root = find(e, parents);
+			Set<LinkableTo> component = components.get(root);
+			if (component == null) {
+				component = new LinkedHashSet<LinkableTo>();
+				components.put(root, component);
+			}
+			component.add(e);
+		}
+		return new ArrayList<Set<LinkableTo>>(components.values());
+	}
+
+	private static void add(LinkableTo e, Map<LinkableTo, LinkableTo> parents, List<LinkableTo> elements) {
+		if (!parents.containsKey(e)) {
+			parents.put(e, e);
+			elements.add(e);
+		}
+	}
+
+	private static LinkableTo find(LinkableTo e, Map<LinkableTo, LinkableTo> parents) {
+		LinkableTo root = e;
+		while (parents.get(root) != root) {
+			root = parents.get(root);
+		}
+		// path compression
+		while (e != root) {
+			LinkableTo next = parents.get(e);
+			parents.put(e, root);
+			e = next;
+		}
+		return root;
+	}
+
+	private static void union(LinkableTo a, LinkableTo b, Map<LinkableTo, LinkableTo> parents,
+			List<LinkableTo> elements) {
+		add(a, parents, elements);
+		add(b, parents, elements);
+		LinkableTo rootA = find(a, parents);
+		LinkableTo rootB = find(b, parents);
+		if (rootA != rootB) {
+			parents.put(rootB, rootA);
+		}
+	}
+}
@@ -1518,7 +1518,7 @@ public void setX(double v) {
 				moveBy(v - getX(), 0);
 			}
 			if (x < 0) {
-				Logger.log.trace("Warning: negative x coordinate " + String.valueOf(v));
+				Logger.log.trace("Warning: negative x coordinate {}", v);
 			}
 
 		}
@@ -1546,7 +1546,7 @@ public void setY(double v) {
 				moveBy(0, v - getY());
 			}
 			if (y < 0) {
-				Logger.log.trace("Warning: negative y coordinate " + String.valueOf(v));
+				Logger.log.trace("Warning: negative y coordinate {}", v);
 			}
 		}
 
@@ -1607,7 +1607,7 @@ public double getRelX() {
 		 */
 		private void setRelX(double v) {
 			if (Math.abs(v) > 1.0) {
-				Logger.log.trace("Warning: relX absolute value of " + String.valueOf(v) + " greater than 1");
+				Logger.log.trace("Warning: relX absolute value of {} greater than 1", v);
 			}
 			if (relX != v) {
 				relX = v;
@@ -1639,7 +1639,7 @@ public double getRelY() {
 		 */
 		private void setRelY(double v) {
 			if (Math.abs(v) > 1.0) {
-				Logger.log.trace("Warning: relY absolute value of " + String.valueOf(v) + " greater than 1");
+				Logger.log.trace("Warning: relY absolute value of {} greater than 1", v);
 			}
 			if (relY != v) {
 				relY = v;
@@ -71,6 +71,10 @@ public class PathwayModel {
 	private List<Annotation> annotations;
 	private List<Citation> citations;
 	private List<Evidence> evidences;
+	private EquivalenceIndex<Annotation> annotationIndex = new EquivalenceIndex<Annotation>();
+	private EquivalenceIndex<Citation> citationIndex = new EquivalenceIndex<Citation>();
+	private EquivalenceIndex<Evidence> evidenceIndex = new EquivalenceIndex<Evidence>();
+	private InteractionGraph interactionGraph;
 
 	// ================================================================================
 	// Constructors
@@ -84,6 +88,7 @@ public PathwayModel() {
 		pathway.setPathwayModelTo(this);
 		this.elementIdToPathwayObject = new HashMap<String, PathwayObject>();
 		this.elementRefToLinePoints = new HashMap<LinkableTo, Set<LinkableFrom>>();
+		this.interactionGraph = new InteractionGraph(this, elementRefToLinePoints);
 		this.aliasRefToAliases = new HashMap<Group, Set<DataNode>>();
 		this.dataNodes = new ArrayList<DataNode>();
 		this.interactions = new ArrayList<Interaction>();
@@ -233,7 +238,10 @@ public List<PathwayObject> getPathwayObjects() {
 	 * @return true if pathway model has given pathway object, false otherwise.
 	 */
 	public boolean hasPathwayObject(PathwayObject pathwayObject) {
-		return this.getPathwayObjects().contains(pathwayObject);
+		// look up by elementId instead of copying all values, this is called for
+		// every coordinate of a linked line point
+		return pathwayObject != null
+				&& elementIdToPathwayObject.get(pathwayObject.getElementId()) == pathwayObject;
 	}
 
 	/**
@@ -315,6 +323,16 @@ public Set<LinkableFrom> getReferringLinkableFroms(LinkableTo elementRef) {
 		}
 	}
 
+	/**
+	 * Returns the graph of the interactions of this pathway model, for queries of
+	 * what elements are connected. The graph reflects links as they change.
+	 *
+	 * @return the interaction graph.
+	 */
+	public InteractionGraph getInteractionGraph() {
+		return interactionGraph;
+	}
+
 	/**
 	 * Register a link from a elementRef to a linePoint(s).
 	 *
@@ -670,11 +688,12 @@ public List<Annotation> getAnnotations() {
 	protected Annotation addAnnotation(Annotation annotation) {
 		Annotation annotationExisting = hasEqualAnnotation(annotation);
 		if (annotationExisting != null) {
-			Logger.log.trace("Annotation not added, information equivalent to " + annotationExisting.getElementId());
+			Logger.log.trace("Annotation not added, information equivalent to {}", annotationExisting.getElementId());
 			return annotationExisting;
 		} else {
 			addPathwayObject(annotation);
 			annotations.add(annotation);
+			annotationIndex.add(annotation, annotation.getEquivalenceKey());
 			return annotation;
 		}
 	}
@@ -687,12 +706,21 @@ protected Annotation addAnnotation(Annotation annotation) {
 	 *         equivalent annotation exists for given citation.
 	 */
 	private Annotation hasEqualAnnotation(Annotation annotation) {
-		for (Annotation annotationExisting : annotations) {
+		List<Annotation> equal = new ArrayList<Annotation>(1);
+		for (Annotation annotationExisting : annotationIndex.get(annotation.getEquivalenceKey())) {
 			if (annotation.equalsAnnotation(annotationExisting)) {
-				return annotationExisting;
+				equal.add(annotationExisting);
 			}
 		}
-		return null;
+		return EquivalenceIndex.first(equal, annotations);
+	}
+
+	/**
+	 * Updates the index of annotations after a property of the given annotation
+	 * has changed.
+	 */
+	void annotationChanged(Annotation annotation) {
+		annotationIndex.update(annotation, annotation.getEquivalenceKey());
 	}
 
 	/**
@@ -703,6 +731,7 @@ private Annotation hasEqualAnnotation(Annotation annotation) {
 	 */
 	public void removeAnnotation(Annotation annotation) {
 		annotations.remove(annotation);
+		annotationIndex.remove(annotation);
 		removePathwayObject(annotation);
 	}
 
@@ -729,11 +758,12 @@ protected Citation addCitation(Citation citation) {
 		if (citation != null) {
 			Citation citationExisting = hasEqualCitation(citation);
 			if (citationExisting != null) {
-				Logger.log.trace("Citation not added, information equivalent to " + citationExisting.getElementId());
+				Logger.log.trace("Citation not added, information equivalent to {}", citationExisting.getElementId());
 				return citationExisting;
 			} else {
 				addPathwayObject(citation);
 				citations.add(citation);
+				citationIndex.add(citation, citation.getEquivalenceKey());
 				return citation;
 			}
 		} else {
@@ -749,12 +779,21 @@ protected Citation addCitation(Citation citation) {
 	 *         equivalent citation exists for given citation.
 	 */
 	private Citation hasEqualCitation(Citation citation) {
-		for (Citation citationExisting : citations) {
+		List<Citation> equal = new ArrayList<Citation>(1);
+		for (Citation citationExisting : citationIndex.get(citation.getEquivalenceKey())) {
 			if (citation.equalsCitation(citationExisting)) {
-				return citationExisting;
+				equal.add(citationExisting);
 			}
 		}
-		return null;
+		return EquivalenceIndex.first(equal, citations);
+	}
+
+	/**
+	 * Updates the index of citations after a property of the given citation has
+	 * changed.
+	 */
+	void citationChanged(Citation citation) {
+		citationIndex.update(citation, citation.getEquivalenceKey());
 	}
 
 	/**
@@ -764,6 +803,7 @@ private Citation hasEqualCitation(Citation citation) {
 	 */
 	public void removeCitation(Citation citation) {
 		citations.remove(citation);
+		citationIndex.remove(citation);
 		removePathwayObject(citation);
 	}
 
@@ -787,11 +827,12 @@ public List<Evidence> getEvidences() {
 	protected Evidence addEvidence(Evidence evidence) {
 		Evidence evidenceExisting = hasEqualEvidence(evidence);
 		if (evidenceExisting != null) {
-			Logger.log.trace("Evidence not added, information equivalent to " + evidenceExisting.getElementId());
+			Logger.log.trace("Evidence not added, information equivalent to {}", evidenceExisting.getElementId());
 			return evidenceExisting;
 		} else {
 			addPathwayObject(evidence);
 			evidences.add(evidence);
+			evidenceIndex.add(evidence, evidence.getEquivalenceKey());
 			return evidence;
 		}
 	}
@@ -804,12 +845,21 @@ protected Evidence addEvidence(Evidence evidence) {
 	 *         equivalent citation exists for given citation.
 	 */
 	private Evidence hasEqualEvidence(Evidence evidence) {
-		for (Evidence evidenceExisting : evidences) {
+		List<Evidence> equal = new ArrayList<Evidence>(1);
+		for (Evidence evidenceExisting : evidenceIndex.get(evidence.getEquivalenceKey())) {
 			if (evidence.equalsEvidence(evidenceExisting)) {
-				return evidenceExisting;
+				equal.add(evidenceExisting);
 			}
 		}
-		return null;
+		return EquivalenceIndex.first(equal, evidences);
+	}
+
+	/**
+	 * Updates the index of evidences after a property of the given evidence has
+	 * changed.
+	 */
+	void evidenceChanged(Evidence evidence) {
+		evidenceIndex.update(evidence, evidence.getEquivalenceKey());
 	}
 
 	/**
@@ -819,6 +869,7 @@ private Evidence hasEqualEvidence(Evidence evidence) {
 	 */
 	public void removeEvidence(Evidence evidence) {
 		evidences.remove(evidence);
+		evidenceIndex.remove(evidence);
 		removePathwayObject(evidence);
 	}
 
@@ -1042,7 +1093,8 @@ public List<Xref> getGroupXrefs() {
 	// Clone Methods
 	// ================================================================================
 	/**
-	 * Clones this pathway model.
+	 * Clones this pathway model. Pathway objects keep the elementIds they have in
+	 * this pathway model.
 	 * 
 	 * @return the clone of this pathway model.
 	 */
@@ -1050,10 +1102,28 @@ public List<Xref> getGroupXrefs() {
 	public PathwayModel clone() {
 		PathwayModel result = new PathwayModel();
 		BidiMap<PathwayObject, PathwayObject> newToSource = new DualHashBidiMap<>();
+		// copy annotations, citations and evidences first, so that the references
+		// copied below resolve to these equivalent copies
+		for (Annotation a : annotations) {
+			Annotation newAnnotation = a.copyRef();
+			newAnnotation.setElementId(a.getElementId());
+			result.addAnnotation(newAnnotation);
+		}
+		for (Citation c : citations) {
+			Citation newCitation = c.copyRef();
+			newCitation.setElementId(c.getElementId());
+			result.addCitation(newCitation);
+		}
+		for (Evidence ev : evidences) {
+			Evidence newEvidence = ev.copyRef();
+			newEvidence.setElementId(ev.getElementId());
+			result.addEvidence(newEvidence);
+		}
 		for (PathwayElement e : getPathwayElements()) {
 			CopyElement copyElement = e.copy();
 			PathwayElement newElement = copyElement.getNewElement();
 			PathwayElement srcElement = copyElement.getSourceElement();
+			copyElementIds(srcElement, newElement);
 			result.add(newElement);
 			// load references
 			newElement.copyReferencesFrom(srcElement);
@@ -1132,6 +1202,36 @@ public PathwayModel clone() {
 		return result;
 	}
 
+	/**
+	 * Sets the elementIds of the given new pathway element, and of its states,
+	 * line points and anchors, to those of the given source pathway element. The
+	 * new pathway element must not yet be added to a pathway model.
+	 * 
+	 * @param src        the source pathway element.
+	 * @param newElement the new pathway element.
+	 */
+	private static void copyElementIds(PathwayElement src, PathwayElement newElement) {
+		newElement.setElementId(src.getElementId());
+		if (src instanceof DataNode) {
+			Iterator<State> it1 = ((DataNode) newElement).getStates().iterator();
+			Iterator<State> it2 = ((DataNode) src).getStates().iterator();
+			while (it1.hasNext() && it2.hasNext()) {
+				it1.next().setElementId(it2.next().getElementId());
+			}
+		} else if (src instanceof LineElement) {
+			Iterator<LinePoint> it1 = ((LineElement) newElement).getLinePoints().iterator();
+			Iterator<LinePoint> it2 = ((LineElement) src).getLinePoints().iterator();
+			while (it1.hasNext() && it2.hasNext()) {
+				it1.next().setElementId(it2.next().getElementId());
+			}
+			Iterator<Anchor> it3 = ((LineElement) newElement).getAnchors().iterator();
+			Iterator<Anchor> it4 = ((LineElement) src).getAnchors().iterator();
+			while (it3.hasNext() && it4.hasNext()) {
+				it3.next().setElementId(it4.next().getElementId());
+			}
+		}
+	}
+
 	// ================================================================================
 	// Read Write Methods
 	// ================================================================================
@@ -1202,6 +1302,7 @@ public void readFromXml(File file, boolean validate) throws ConverterException {
 	// FireEvent and Listener Methods
 	// ================================================================================
 	private boolean changed = true;
+	private long modificationCount = 0;
 
 	/**
 	 * The "changed" flag tracks if the Pathway has been changed since the file was
@@ -1211,6 +1312,17 @@ public boolean hasChanged() {
 		return changed;
 	}
 
+	/**
+	 * Returns the number of edit operations on this pathway model. Unlike the
+	 * "changed" flag, this count is not reset when the pathway is saved, so it can
+	 * be used to detect edits since an arbitrary earlier point.
+	 * 
+	 * @return the modification count.
+	 */
+	public long getModificationCount() {
+		return modificationCount;
+	}
+
 	/**
 	 * ClearChangedFlag should be called after when the current pathway is known to
 	 * be the same as the one on disk. This happens when you just opened it, or when
@@ -1228,6 +1340,7 @@ public void clearChangedFlag() {
 	 * To be called after each edit operation
 	 */
 	private void markChanged() {
+		modificationCount++;
 		if (!changed) {
 			changed = true;
 			fireStatusFlagEvent(new StatusFlagEvent(changed));
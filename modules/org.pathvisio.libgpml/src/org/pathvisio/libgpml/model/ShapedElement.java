@@ -193,7 +193,7 @@ public double getCenterX() {
 	public void setCenterX(double v) {
 		if (centerX != v) {
 			if (v < 0) {
-				Logger.log.trace("Warning: negative x coordinate " + String.valueOf(v));
+				Logger.log.trace("Warning: negative x coordinate {}", v);
 			}
 			centerX = v;
 			fireObjectModifiedEvent(PathwayObjectEvent.createCoordinatePropertyEvent(this));
@@ -219,7 +219,7 @@ public double getCenterY() {
 	public void setCenterY(double v) {
 		if (centerY != v) {
 			if (v < 0) {
-				Logger.log.trace("Warning: negative y coordinate " + String.valueOf(v));
+				Logger.log.trace("Warning: negative y coordinate {}", v);
 			}
 			centerY = v;
 			fireObjectModifiedEvent(PathwayObjectEvent.createCoordinatePropertyEvent(this));
@@ -754,6 +754,9 @@ protected void terminate() {
 	@Override
 	public Rectangle2D getRotatedBounds() {
 		Rectangle2D bounds = getBounds();
+		if (getRotation() == 0) {
+			return bounds;
+		}
 		AffineTransform t = new AffineTransform();
 		t.rotate(getRotation(), getCenterX(), getCenterY());
 		bounds = t.createTransformedShape(bounds).getBounds2D();
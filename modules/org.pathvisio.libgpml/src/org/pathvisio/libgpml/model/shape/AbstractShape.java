@@ -16,9 +16,7 @@
  ******************************************************************************/
 package org.pathvisio.libgpml.model.shape;
 
-import java.awt.Rectangle;
 import java.awt.Shape;
-import java.awt.geom.AffineTransform;
 
 /**
  * Class for shapes.
@@ -74,16 +72,12 @@ public String getName() {
 	}
 
 	/**
-	 *
+	 * Returns the shape resized to the given width and height. The shape is shared
+	 * through {@link ShapeCache} and must not be modified.
 	 */
 	@Override
 	public Shape getShape(double mw, double mh) {
-		// now scale the path so it has proper w and h.
-		Rectangle r = sh.getBounds();
-		AffineTransform at = new AffineTransform();
-		at.translate(-r.x, -r.y);
-		at.scale(mw / r.width, mh / r.height);
-		return at.createTransformedShape(sh);
+		return ShapeCache.getScaledShape(sh, mw, mh);
 	}
 
 	/**
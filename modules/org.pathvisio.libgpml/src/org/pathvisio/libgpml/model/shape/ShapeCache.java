@@ -0,0 +1,174 @@
+/*******************************************************************************
+ * PathVisio, a tool for data visualization and analysis using biological pathways
+ * Copyright 2006-2022 BiGCaT Bioinformatics, WikiPathways
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.pathvisio.libgpml.model.shape;
+
+import java.awt.Rectangle;
+import java.awt.Shape;
+import java.awt.geom.AffineTransform;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cache of transformed shapes. Most pathway elements share a few shape types
+ * and sizes, and lines that do not move draw the same arrow heads and anchors
+ * on every repaint, so the transformed shapes are kept instead of being created
+ * again on every call.
+ * <p>
+ * Scaled shapes, of which there are few, and transformed shapes, such as arrow
+ * heads and anchors, of which there is one per line end, are kept in separate
+ * caches, so that the line ends of a large pathway do not push the scaled
+ * shapes out. The caches hold at most {@link #MAX_SIZE} and
+ * {@link #MAX_TRANSFORMED_SIZE} shapes and drop the least recently used one
+ * when they are full. Shapes returned from the cache are shared and must not be
+ * modified.
+ */
+public class ShapeCache {
+
+	/**
+	 * The maximum number of scaled shapes kept in the cache.
+	 */
+	public static final int MAX_SIZE = 2048;
+
+	/**
+	 * The maximum number of transformed shapes kept in the cache.
+	 */
+	public static final int MAX_TRANSFORMED_SIZE = 8192;
+
+	private static final Lru scaled = new Lru(MAX_SIZE);
+	private static final Lru transformed = new Lru(MAX_TRANSFORMED_SIZE);
+
+	private ShapeCache() {
+	}
+
+	/**
+	 * Returns the given shape scaled to the given width and height, with its top
+	 * left corner in 0,0.
+	 * 
+	 * @param sh the shape to scale.
+	 * @param w  the width.
+	 * @param h  the height.
+	 * @return the scaled shape.
+	 */
+	public static Shape getScaledShape(Shape sh, double w, double h) {
+		List<Object> key = Arrays.<Object>asList(sh, w, h);
+		synchronized (scaled) {
+			Shape result = scaled.lookup(key);
+			if (result == null) {
+				// now scale the path so it has proper w and h.
+				Rectangle r = sh.getBounds();
+				AffineTransform at = new AffineTransform();
+				at.translate(-r.x, -r.y);
+				at.scale(w / r.width, h / r.height);
+				result = at.createTransformedShape(sh);
+				scaled.put(key, result);
+			}
+			return result;
+		}
+	}
+
+	/**
+	 * Returns the given shape transformed by the given transform.
+	 * 
+	 * @param sh the shape to transform.
+	 * @param t  the transform, which is copied if the result is cached.
+	 * @return the transformed shape.
+	 */
+	public static Shape getTransformedShape(Shape sh, AffineTransform t) {
+		List<Object> key = Arrays.<Object>asList(sh, t);
+		synchronized (transformed) {
+			Shape result = transformed.lookup(key);
+			if (result == null) {
+				result = t.createTransformedShape(sh);
+				transformed.put(Arrays.<Object>asList(sh, new AffineTransform(t)), result);
+			}
+			return result;
+		}
+	}
+
+	/**
+	 * Removes all shapes from the cache and resets the statistics.
+	 */
+	public static void clear() {
+		scaled.reset();
+		transformed.reset();
+	}
+
+	/**
+	 * Returns statistics of the cache for debugging: the number of hits, misses,
+	 * evictions and cached shapes since the cache was last cleared, for scaled
+	 * and for transformed shapes.
+	 * 
+	 * @return a map of statistic name to value.
+	 */
+	public static Map<String, Long> getStatistics() {
+		Map<String, Long> result = new LinkedHashMap<String, Long>();
+		scaled.addStatistics("scaled.", result);
+		transformed.addStatistics("transformed.", result);
+		return result;
+	}
+
+	/**
+	 * A least recently used cache of shapes, which counts its hits, misses and
+	 * evictions. Access must be synchronized on the cache.
+	 */
+	private static class Lru extends LinkedHashMap<List<Object>, Shape> {
+		private final int maxSize;
+		private long hits = 0;
+		private long misses = 0;
+		private long evictions = 0;
+
+		Lru(int maxSize) {
+			super(256, 0.75f, true);
+			this.maxSize = maxSize;
+		}
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<List<Object>, Shape> eldest) {
+			if (size() > maxSize) {
+				evictions++;
+				return true;
+			}
+			return false;
+		}
+
+		Shape lookup(List<Object> key) {
+			Shape result = get(key);
+			if (result == null) {
+				misses++;
+			} else {
+				hits++;
+			}
+			return result;
+		}
+
+		synchronized void reset() {
+			clear();
+			hits = 0;
+			misses = 0;
+			evictions = 0;
+		}
+
+		synchronized void addStatistics(String prefix, Map<String, Long> result) {
+			result.put(prefix + "hits", hits);
+			result.put(prefix + "misses", misses);
+			result.put(prefix + "evictions", evictions);
+			result.put(prefix + "size", (long) size());
+		}
+	}
+}
@@ -76,7 +76,7 @@ public static AnchorShapeType register(String name) {
 		if (nameToAnchorShapeType.containsKey(name)) {
 			return nameToAnchorShapeType.get(name);
 		} else {
-			Logger.log.trace("Registered anchor type " + name);
+			Logger.log.trace("Registered anchor type {}", name);
 			return new AnchorShapeType(name);
 		}
 	}
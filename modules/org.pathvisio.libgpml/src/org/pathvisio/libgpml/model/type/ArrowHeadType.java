@@ -92,7 +92,7 @@ public static ArrowHeadType register(String name) {
 		if (nameToArrowHeadType.containsKey(name)) {
 			return nameToArrowHeadType.get(name);
 		} else {
-			Logger.log.trace("Registered arrowhead type " + name); 
+			Logger.log.trace("Registered arrowhead type {}", name); 
 			return new ArrowHeadType(name);
 		}
 	}
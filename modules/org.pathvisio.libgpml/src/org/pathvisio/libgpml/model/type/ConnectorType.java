@@ -66,7 +66,7 @@ public static ConnectorType register(String name) {
 		if (nameToConnectorType.containsKey(name)) {
 			return nameToConnectorType.get(name);
 		} else
-			Logger.log.trace("Registered connector type " + name);
+			Logger.log.trace("Registered connector type {}", name);
 		return new ConnectorType(name);
 	}
 
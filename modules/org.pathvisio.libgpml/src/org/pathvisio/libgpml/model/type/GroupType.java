@@ -71,7 +71,7 @@ public static GroupType register(String name) {
 		if (nameToGroupType.containsKey(name)) {
 			return nameToGroupType.get(name);
 		} else {
-			Logger.log.trace("Registered group type " + name);
+			Logger.log.trace("Registered group type {}", name);
 			return new GroupType(name);
 		}
 	}
@@ -70,7 +70,7 @@ public static LineStyleType register(String name) {
 		if (nameToLineStyleType.containsKey(name)) {
 			return nameToLineStyleType.get(name);
 		} else {
-			Logger.log.trace("Registered linestyle type " + name);
+			Logger.log.trace("Registered linestyle type {}", name);
 			return new LineStyleType(name);
 		}
 	}
@@ -18,7 +18,6 @@
 
 import java.awt.Rectangle;
 import java.awt.Shape;
-import java.awt.geom.AffineTransform;
 import java.awt.geom.Arc2D;
 import java.awt.geom.Ellipse2D;
 import java.awt.geom.Line2D;
@@ -30,6 +29,7 @@
 
 import org.pathvisio.libgpml.debug.Logger;
 import org.pathvisio.libgpml.model.shape.IShape;
+import org.pathvisio.libgpml.model.shape.ShapeCache;
 import org.pathvisio.libgpml.model.shape.ShapeCatalog;
 import org.pathvisio.libgpml.model.shape.ShapeCatalog.Internal;
 import org.pathvisio.libgpml.model.shape.ShapeRegistry;
@@ -194,7 +194,7 @@ public static ShapeType register(String name, Shape shape) {
 		if (SHAPETYPE_MAP.containsKey(name)) {
 			return SHAPETYPE_MAP.get(name);
 		} else {
-			Logger.log.trace("Registered shape type " + name);
+			Logger.log.trace("Registered shape type {}", name);
 			return new ShapeType(name, shape);
 		}
 	}
@@ -212,7 +212,8 @@ public String getName() {
 	}
 
 	/**
-	 * Returns the shape resized given width and height.
+	 * Returns the shape resized given width and height. The shape is shared
+	 * through {@link ShapeCache} and must not be modified.
 	 * 
 	 * @param w the width.
 	 * @param h the height.
@@ -222,12 +223,7 @@ public Shape getShape(double w, double h) {
 		if (shape == null) {
 			return ShapeRegistry.DEFAULT_SHAPE.getShape(w, h);
 		}
-		// now scale the path so it has proper w and h.
-		Rectangle r = shape.getBounds();
-		AffineTransform at = new AffineTransform();
-		at.translate(-r.x, -r.y);
-		at.scale(w / r.width, h / r.height);
-		return at.createTransformedShape(shape);
+		return ShapeCache.getScaledShape(shape, w, h);
 	}
 
 	/**
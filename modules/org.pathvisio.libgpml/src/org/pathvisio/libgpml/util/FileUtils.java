@@ -17,9 +17,11 @@
 
 package org.pathvisio.libgpml.util;
 
+import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileFilter;
+import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.FileReader;
 import java.io.IOException;
@@ -29,8 +31,13 @@
 import java.io.RandomAccessFile;
 import java.net.URL;
 import java.net.URLConnection;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
 
 import org.pathvisio.libgpml.debug.Logger;
 
@@ -200,6 +207,88 @@ public static void downloadFile(URL url, File toFile) throws IOException {
 		}
 	}
 
+	/**
+	 * Memory maps a file for reading. The mapping stays valid until the returned
+	 * buffer is garbage collected, also after the channel is closed. Note that on
+	 * some platforms a mapped file can not be overwritten while it is still mapped.
+	 * 
+	 * @param file the file to map.
+	 * @return the read-only mapped buffer.
+	 * @throws IOException
+	 */
+	public static MappedByteBuffer map(File file) throws IOException {
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			FileChannel channel = raf.getChannel();
+			return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		} finally {
+			raf.close();
+		}
+	}
+
+	/**
+	 * Opens a file for reading. Gzip and zip compressed files are recognized by
+	 * their first bytes and decompressed on the fly. For a zip file, the stream
+	 * is positioned at the first file entry.
+	 * 
+	 * @param file   the file to open.
+	 * @param mapped if true, the file is memory mapped (see {@link #map}).
+	 *               Otherwise it is read through a buffered stream.
+	 * @return the (decompressed) contents of the file.
+	 * @throws IOException
+	 */
+	public static InputStream openDecompressed(File file, boolean mapped) throws IOException {
+		InputStream in;
+		if (mapped && file.length() <= Integer.MAX_VALUE) {
+			in = new ByteBufferInputStream(map(file));
+		} else {
+			in = new BufferedInputStream(new FileInputStream(file));
+		}
+		try {
+			if (isZip(in)) {
+				ZipInputStream zin = new ZipInputStream(in);
+				ZipEntry entry;
+				while ((entry = zin.getNextEntry()) != null) {
+					if (!entry.isDirectory()) {
+						return zin;
+					}
+				}
+				throw new IOException("Zip file " + file + " contains no files");
+			} else if (isGzip(in)) {
+				return new GZIPInputStream(in, 8192);
+			}
+			return in;
+		} catch (IOException e) {
+			in.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Checks for the gzip magic number, without consuming the stream.
+	 */
+	static boolean isGzip(InputStream in) throws IOException {
+		in.mark(2);
+		int b1 = in.read();
+		int b2 = in.read();
+		in.reset();
+		return b1 == 0x1F && b2 == 0x8B;
+	}
+
+	/**
+	 * Checks for the zip local file header signature, without consuming the
+	 * stream.
+	 */
+	static boolean isZip(InputStream in) throws IOException {
+		in.mark(4);
+		int b1 = in.read();
+		int b2 = in.read();
+		int b3 = in.read();
+		int b4 = in.read();
+		in.reset();
+		return b1 == 'P' && b2 == 'K' && b3 == 3 && b4 == 4;
+	}
+
 	/**
 	 * Maps a file from one point in the directory tree to another point. For
 	 * example, with this function you can map from
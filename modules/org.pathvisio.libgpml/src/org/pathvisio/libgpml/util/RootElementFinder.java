@@ -16,125 +16,167 @@
  ******************************************************************************/
 package org.pathvisio.libgpml.util;
 
-import java.io.BufferedInputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.io.Reader;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 
-import org.xml.sax.Attributes;
-import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
-import org.xml.sax.XMLReader;
-import org.xml.sax.helpers.DefaultHandler;
-import org.xml.sax.helpers.XMLReaderFactory;
 
 /**
- * 
- * This is similar to com.sun.xml.internal.ws.message.RootElementSniffer,
- * perhaps can be re-used.
+ * Finds the root element of an xml file, for example to determine the file
+ * format. Only the prolog and the start tag of the root element are read, so
+ * the cost does not depend on the size of the file. Gzip and zip compressed
+ * files are decompressed on the fly. Results are cached per
+ * file, and invalidated when the file is modified.
  * 
  * @author unknown
  */
 public class RootElementFinder {
 
 	/**
-	 * Root element handler class. 
-	 * 
-	 * @author unknown
+	 * Maximum number of files for which the root element is cached.
 	 */
-	static class RootElementHandler extends DefaultHandler {
+	private static final int CACHE_SIZE = 32;
 
-		private String rootQName = null;
-		private String rootUri = null;
-
-		/**
-		 *
-		 */
-		@Override
-		public void startElement(String uri, String localName, String qName, Attributes attributes)
-				throws SAXException {
-			if (rootQName == null && rootUri == null) {
-				rootQName = qName;
-				rootUri = uri;
-			}
-			// TODO: stop parsing here...
-		}
+	/**
+	 * Root element of a file, together with the file state it was read from.
+	 */
+	private static class RootElement {
+		private final long lastModified;
+		private final long length;
+		private final String rootQName;
+		private final String rootUri;
 
-		public String getRootQName() {
-			return rootQName;
+		RootElement(long lastModified, long length, String rootQName, String rootUri) {
+			this.lastModified = lastModified;
+			this.length = length;
+			this.rootQName = rootQName;
+			this.rootUri = rootUri;
 		}
+	}
 
-		public String getRootUri() {
-			return rootUri;
+	private static final Map<File, RootElement> cache = new LinkedHashMap<File, RootElement>(16, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<File, RootElement> eldest) {
+			return size() > CACHE_SIZE;
 		}
 	};
 
+	private static final XMLInputFactory factory = createFactory();
+
+	private static XMLInputFactory createFactory() {
+		XMLInputFactory result = XMLInputFactory.newInstance();
+		result.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.TRUE);
+		result.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+		result.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+		return result;
+	}
+
 	/**
-	 * Special reader that works around problem with UTF-BOM
+	 * Reads the prolog and the start tag of the root element. Parsing stops at the
+	 * root element. Byte order marks and the encoding declaration are handled by
+	 * the parser.
 	 * 
-	 * @param xin
-	 * @return
+	 * @param file the file to read.
+	 * @return the root element.
+	 * @throws FileNotFoundException
 	 * @throws IOException
+	 * @throws SAXException          if the file is not well-formed xml up to and
+	 *                               including the root start tag.
 	 */
-	private static Reader inputStreamToReader(InputStream xin) throws IOException {
-		BufferedInputStream in = new BufferedInputStream(xin);
-		in.mark(3);
-		int byte1 = in.read();
-		int byte2 = in.read();
-		if (byte1 == 0xFF && byte2 == 0xFE) {
-			return new InputStreamReader(in, "UTF-16LE");
-		} else if (byte1 == 0xFF && byte2 == 0xFF) {
-			return new InputStreamReader(in, "UTF-16BE");
-		} else {
-			int byte3 = in.read();
-			if (byte1 == 0xEF && byte2 == 0xBB && byte3 == 0xBF) {
-				return new InputStreamReader(in, "UTF-8");
-			} else {
-				in.reset();
-				return new InputStreamReader(in);
+	private static RootElement parse(File file) throws FileNotFoundException, IOException, SAXException {
+		long lastModified = file.lastModified();
+		long length = file.length();
+		InputStream in = FileUtils.openDecompressed(file, false);
+		try {
+			XMLStreamReader xr = factory.createXMLStreamReader(in);
+			try {
+				while (xr.hasNext()) {
+					if (xr.next() == XMLStreamConstants.START_ELEMENT) {
+						String prefix = xr.getPrefix();
+						String qName = (prefix == null || prefix.isEmpty()) ? xr.getLocalName()
+								: prefix + ":" + xr.getLocalName();
+						String uri = xr.getNamespaceURI();
+						return new RootElement(lastModified, length, qName, uri == null ? "" : uri);
+					}
+				}
+				throw new SAXException("No root element found in " + file);
+			} finally {
+				xr.close();
 			}
+		} catch (XMLStreamException e) {
+			throw new SAXException(e);
+		} finally {
+			in.close();
 		}
 	}
 
 	/**
-	 * Handles root element.
+	 * Returns the root element of the given file, from the cache if the file did
+	 * not change since it was last read.
 	 * 
-	 * @param file
-	 * @return
+	 * @param file the file.
+	 * @return the root element.
+	 * @throws SAXException
 	 * @throws FileNotFoundException
 	 * @throws IOException
-	 * @throws SAXException
 	 */
-	private static RootElementHandler parse(File file) throws FileNotFoundException, IOException, SAXException {
-		XMLReader xr;
-		xr = XMLReaderFactory.createXMLReader();
-
-		RootElementHandler rootElementHandler = new RootElementHandler();
-
-		xr.setEntityResolver(null);
-		xr.setContentHandler(rootElementHandler);
-		xr.setErrorHandler(rootElementHandler);
-		xr.parse(new InputSource(inputStreamToReader(new FileInputStream(file))));
-
-		return rootElementHandler;
+	private static RootElement getRootElement(File file) throws SAXException, FileNotFoundException, IOException {
+		File key = file.getAbsoluteFile();
+		synchronized (cache) {
+			RootElement cached = cache.get(key);
+			if (cached != null && cached.lastModified == key.lastModified() && cached.length == key.length()) {
+				return cached;
+			}
+		}
+		RootElement result = parse(key);
+		synchronized (cache) {
+			cache.put(key, result);
+		}
+		return result;
 	}
 
 	/**
 	 * Returns root URI.
 	 * 
 	 * @param file
-	 * @return
+	 * @return the namespace uri of the root element, or the empty string if it has
+	 *         no namespace.
 	 * @throws SAXException
 	 * @throws FileNotFoundException
 	 * @throws IOException
 	 */
 	public static String getRootUri(File file) throws SAXException, FileNotFoundException, IOException {
-		RootElementHandler handler = parse(file);
-		return handler.getRootUri();
+		return getRootElement(file).rootUri;
+	}
+
+	/**
+	 * Returns the qualified name of the root element.
+	 * 
+	 * @param file
+	 * @return the qualified name of the root element.
+	 * @throws SAXException
+	 * @throws FileNotFoundException
+	 * @throws IOException
+	 */
+	public static String getRootQName(File file) throws SAXException, FileNotFoundException, IOException {
+		return getRootElement(file).rootQName;
 	}
 
+	/**
+	 * Clears the cache of root elements.
+	 */
+	public static void clearCache() {
+		synchronized (cache) {
+			cache.clear();
+		}
+	}
 }
@@ -99,7 +99,7 @@ public static DataSource getXrefDataSource(String dataSourceStr) {
 				// else register new data source
 			} else {
 				DataSource.register(dataSourceStr, dataSourceStr).compactIdentifierPrefix(dataSourceStr).asDataSource();
-				Logger.log.trace("Registered xref datasource " + dataSourceStr);
+				Logger.log.trace("Registered xref datasource {}", dataSourceStr);
 				dataSource = DataSource.getByCompactIdentifierPrefix(dataSourceStr);
 			}
 		}
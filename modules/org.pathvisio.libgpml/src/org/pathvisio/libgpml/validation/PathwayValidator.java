@@ -0,0 +1,286 @@
+/*******************************************************************************
+ * PathVisio, a tool for data visualization and analysis using biological pathways
+ * Copyright 2006-2022 BiGCaT Bioinformatics, WikiPathways
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.pathvisio.libgpml.validation;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import org.pathvisio.libgpml.debug.Logger;
+import org.pathvisio.libgpml.io.ConverterException;
+import org.pathvisio.libgpml.model.PathwayModel;
+import org.pathvisio.libgpml.model.PathwayObject;
+import org.pathvisio.libgpml.validation.ValidationIssue.Severity;
+
+/**
+ * Checks pathway models against a list of {@link ValidationRule}s. Every rule
+ * visits every pathway object of the model. The objects are split in blocks
+ * that are checked in parallel on a {@link ForkJoinPool}, and when a collection
+ * of GPML files is validated, the files are read and checked in parallel as
+ * well.
+ * <p>
+ * Issues are reported in a stable order: by file, in the order the files were
+ * given, then by elementId.
+ * <p>
+ * Usage from the command line: PathwayValidator [-schema] [-junit report.xml]
+ * [GPML files or directories]. The issues are printed, and the exit code is 1
+ * if errors were found.
+ */
+public class PathwayValidator {
+
+	/** The rule name of issues for files that can not be read */
+	public static final String READ_RULE = "Read";
+
+	/** Number of pathway objects below which they are checked on one thread */
+	static final int PARALLEL_THRESHOLD = 256;
+
+	private final List<ValidationRule> rules;
+	private final ForkJoinPool pool;
+	private boolean validateSchema = false;
+
+	/**
+	 * Creates a validator for the {@link StandardRules}, that runs on the common
+	 * fork-join pool.
+	 */
+	public PathwayValidator() {
+		this(StandardRules.getAll());
+	}
+
+	/**
+	 * Creates a validator for the given rules, that runs on the common fork-join
+	 * pool.
+	 * 
+	 * @param rules the rules to check.
+	 */
+	public PathwayValidator(List<ValidationRule> rules) {
+		this(rules, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Creates a validator for the given rules, that runs on the given pool.
+	 * 
+	 * @param rules the rules to check.
+	 * @param pool  the pool to check on.
+	 */
+	public PathwayValidator(List<ValidationRule> rules, ForkJoinPool pool) {
+		this.rules = new ArrayList<ValidationRule>(rules);
+		this.pool = pool;
+	}
+
+	public List<ValidationRule> getRules() {
+		return Collections.unmodifiableList(rules);
+	}
+
+	/**
+	 * Sets whether files are also validated against the GPML schema while they
+	 * are read. Schema errors are reported as issues of the {@link #READ_RULE}.
+	 * Default is false.
+	 */
+	public void setValidateSchema(boolean validateSchema) {
+		this.validateSchema = validateSchema;
+	}
+
+	public boolean isValidateSchema() {
+		return validateSchema;
+	}
+
+	/**
+	 * Checks a pathway model.
+	 * 
+	 * @param pathwayModel the pathway model.
+	 * @return the report, with issues without a file.
+	 */
+	public ValidationReport validate(PathwayModel pathwayModel) {
+		long start = System.currentTimeMillis();
+		List<ValidationIssue> issues = pool.invoke(createObjectTask(null, pathwayModel));
+		return new ValidationReport(getRuleNames(), Collections.<File>singletonList(null), issues,
+				System.currentTimeMillis() - start);
+	}
+
+	/**
+	 * Reads and checks GPML files.
+	 * 
+	 * @param files the GPML files.
+	 * @return the report.
+	 */
+	public ValidationReport validate(Collection<File> files) {
+		long start = System.currentTimeMillis();
+		List<File> list = new ArrayList<File>(files);
+		List<ValidationIssue> issues = list.isEmpty() ? new ArrayList<ValidationIssue>()
+				: pool.invoke(new FileTask(list, 0, list.size()));
+		return new ValidationReport(getRuleNames(), list, issues, System.currentTimeMillis() - start);
+	}
+
+	private List<String> getRuleNames() {
+		List<String> result = new ArrayList<String>();
+		result.add(READ_RULE);
+		for (ValidationRule rule : rules) {
+			result.add(rule.getName());
+		}
+		return result;
+	}
+
+	private ObjectTask createObjectTask(File file, PathwayModel pathwayModel) {
+		List<PathwayObject> objects = pathwayModel.getPathwayObjects();
+		Collections.sort(objects, new Comparator<PathwayObject>() {
+			public int compare(PathwayObject a, PathwayObject b) {
+				return a.getElementId().compareTo(b.getElementId());
+			}
+		});
+		return new ObjectTask(file, objects, 0, objects.size());
+	}
+
+	/**
+	 * Adds the given file, or the GPML files in the given directory and its
+	 * subdirectories.
+	 */
+	private static void addGpmlFiles(File file, List<File> files) {
+		File[] children = file.listFiles();
+		if (children == null) {
+			files.add(file);
+			return;
+		}
+		for (File child : children) {
+			if (child.isDirectory() || child.getName().toLowerCase(Locale.ROOT).endsWith(".gpml")) {
+				addGpmlFiles(child, files);
+			}
+		}
+	}
+
+	public static void main(String[] args) throws IOException {
+		PathwayValidator validator = new PathwayValidator();
+		File junitFile = null;
+		List<File> files = new ArrayList<File>();
+		for (int i = 0; i < args.length; i++) {
+			if ("-schema".equals(args[i])) {
+				validator.setValidateSchema(true);
+			} else if ("-junit".equals(args[i]) && i + 1 < args.length) {
+				junitFile = new File(args[++i]);
+			} else {
+				addGpmlFiles(new File(args[i]), files);
+			}
+		}
+		ValidationReport report = validator.validate(files);
+		report.writeText(new OutputStreamWriter(System.out));
+		if (junitFile != null) {
+			try (OutputStream out = new FileOutputStream(junitFile)) {
+				report.writeJUnitXml(out);
+			}
+		}
+		System.exit(report.hasErrors() ? 1 : 0);
+	}
+
+	/**
+	 * Reads and checks a range of files, splitting it until there is one file per
+	 * task.
+	 */
+	private class FileTask extends RecursiveTask<List<ValidationIssue>> {
+		private final List<File> files;
+		private final int from;
+		private final int to;
+
+		FileTask(List<File> files, int from, int to) {
+			this.files = files;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected List<ValidationIssue> compute() {
+			if (to - from > 1) {
+				int middle = (from + to) >>> 1;
+				FileTask first = new FileTask(files, from, middle);
+				FileTask second = new FileTask(files, middle, to);
+				invokeAll(first, second);
+				List<ValidationIssue> result = first.join();
+				result.addAll(second.join());
+				return result;
+			}
+			File file = files.get(from);
+			PathwayModel pathwayModel = new PathwayModel();
+			try {
+				pathwayModel.readFromXml(file, validateSchema);
+			} catch (ConverterException e) {
+				List<ValidationIssue> result = new ArrayList<ValidationIssue>();
+				result.add(new ValidationIssue(Severity.ERROR, READ_RULE, file, null, String.valueOf(e.getMessage())));
+				return result;
+			}
+			return createObjectTask(file, pathwayModel).invoke();
+		}
+	}
+
+	/**
+	 * Checks a range of the objects of one pathway model with all rules.
+	 */
+	private class ObjectTask extends RecursiveTask<List<ValidationIssue>> {
+		private final File file;
+		private final List<PathwayObject> objects;
+		private final int from;
+		private final int to;
+
+		ObjectTask(File file, List<PathwayObject> objects, int from, int to) {
+			this.file = file;
+			this.objects = objects;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected List<ValidationIssue> compute() {
+			if (to - from > PARALLEL_THRESHOLD) {
+				int middle = (from + to) >>> 1;
+				ObjectTask first = new ObjectTask(file, objects, from, middle);
+				ObjectTask second = new ObjectTask(file, objects, middle, to);
+				invokeAll(first, second);
+				List<ValidationIssue> result = first.join();
+				result.addAll(second.join());
+				return result;
+			}
+			List<ValidationIssue> issues = new ArrayList<ValidationIssue>();
+			for (int i = from; i < to; i++) {
+				PathwayObject o = objects.get(i);
+				for (ValidationRule rule : rules) {
+					try {
+						rule.visit(o, issues);
+					} catch (RuntimeException e) {
+						// a broken rule should not stop the other checks
+						Logger.log.error("Rule " + rule.getName() + " failed on " + o.getElementId(), e);
+						issues.add(new ValidationIssue(Severity.ERROR, rule.getName(), o, "rule failed: " + e));
+					}
+				}
+			}
+			if (file == null) {
+				return issues;
+			}
+			List<ValidationIssue> result = new ArrayList<ValidationIssue>(issues.size());
+			for (ValidationIssue issue : issues) {
+				result.add(issue.withFile(file));
+			}
+			return result;
+		}
+	}
+}
@@ -0,0 +1,222 @@
+/*******************************************************************************
+ * PathVisio, a tool for data visualization and analysis using biological pathways
+ * Copyright 2006-2022 BiGCaT Bioinformatics, WikiPathways
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.pathvisio.libgpml.validation;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import org.bridgedb.DataSourcePatterns;
+import org.bridgedb.Xref;
+
+import org.pathvisio.libgpml.model.Citation;
+import org.pathvisio.libgpml.model.DataNode;
+import org.pathvisio.libgpml.model.GraphLink.LinkableTo;
+import org.pathvisio.libgpml.model.Group;
+import org.pathvisio.libgpml.model.Groupable;
+import org.pathvisio.libgpml.model.Interaction;
+import org.pathvisio.libgpml.model.LineElement;
+import org.pathvisio.libgpml.model.PathwayElement;
+import org.pathvisio.libgpml.model.PathwayElement.AnnotationRef;
+import org.pathvisio.libgpml.model.PathwayElement.CitationRef;
+import org.pathvisio.libgpml.model.PathwayElement.EvidenceRef;
+import org.pathvisio.libgpml.model.PathwayModel;
+import org.pathvisio.libgpml.model.PathwayObject;
+import org.pathvisio.libgpml.model.type.DataNodeType;
+import org.pathvisio.libgpml.validation.ValidationIssue.Severity;
+
+/**
+ * The rules that {@link PathwayValidator} checks by default.
+ */
+public class StandardRules {
+
+	/**
+	 * Lines, group members, and annotation and evidence references must
+	 * refer to objects of the same pathway model. Group members must be listed by
+	 * their group.
+	 */
+	public static final ValidationRule DANGLING_REFERENCE = new ValidationRule() {
+		public String getName() {
+			return "DanglingReference";
+		}
+
+		public void visit(PathwayObject o, List<ValidationIssue> issues) {
+			PathwayModel pathwayModel = o.getPathwayModel();
+			if (o instanceof LineElement) {
+				LineElement line = (LineElement) o;
+				checkRef(o, "start", line.getStartElementRef(), issues);
+				checkRef(o, "end", line.getEndElementRef(), issues);
+			}
+			if (o instanceof Groupable) {
+				Group group = ((Groupable) o).getGroupRef();
+				if (group != null) {
+					if (!pathwayModel.hasPathwayObject(group)) {
+						issues.add(new ValidationIssue(Severity.ERROR, getName(), o,
+								"groupRef " + group.getElementId() + " is not in the pathway"));
+					} else if (!group.hasPathwayElement((Groupable) o)) {
+						issues.add(new ValidationIssue(Severity.ERROR, getName(), o,
+								"group " + group.getElementId() + " does not list this element"));
+					}
+				}
+			}
+			if (o instanceof PathwayElement) {
+				PathwayElement e = (PathwayElement) o;
+				for (AnnotationRef ref : e.getAnnotationRefs()) {
+					checkInfoRef(o, "annotation", ref.getAnnotation(), issues);
+				}
+				for (EvidenceRef ref : e.getEvidenceRefs()) {
+					checkInfoRef(o, "evidence", ref.getEvidence(), issues);
+				}
+			}
+		}
+
+		private void checkRef(PathwayObject o, String point, LinkableTo ref, List<ValidationIssue> issues) {
+			if (ref instanceof PathwayObject && !o.getPathwayModel().hasPathwayObject((PathwayObject) ref)) {
+				issues.add(new ValidationIssue(Severity.ERROR, getName(), o,
+						point + " elementRef " + ((PathwayObject) ref).getElementId() + " is not in the pathway"));
+			}
+		}
+
+		private void checkInfoRef(PathwayObject o, String kind, PathwayObject info, List<ValidationIssue> issues) {
+			if (info == null) {
+				issues.add(new ValidationIssue(Severity.ERROR, getName(), o, kind + " reference without " + kind));
+			} else if (!o.getPathwayModel().hasPathwayObject(info)) {
+				issues.add(new ValidationIssue(Severity.ERROR, getName(), o,
+						kind + " " + info.getElementId() + " is not in the pathway"));
+			}
+		}
+	};
+
+	/**
+	 * Groups should have members.
+	 */
+	public static final ValidationRule EMPTY_GROUP = new ValidationRule() {
+		public String getName() {
+			return "EmptyGroup";
+		}
+
+		public void visit(PathwayObject o, List<ValidationIssue> issues) {
+			if (o instanceof Group && ((Group) o).getPathwayElements().isEmpty()) {
+				issues.add(new ValidationIssue(Severity.WARNING, getName(), o, "group has no members"));
+			}
+		}
+	};
+
+	/**
+	 * Both ends of interactions should be linked to an element.
+	 */
+	public static final ValidationRule UNLINKED_INTERACTION = new ValidationRule() {
+		public String getName() {
+			return "UnlinkedInteraction";
+		}
+
+		public void visit(PathwayObject o, List<ValidationIssue> issues) {
+			if (o instanceof Interaction) {
+				Interaction interaction = (Interaction) o;
+				boolean start = interaction.getStartElementRef() == null;
+				boolean end = interaction.getEndElementRef() == null;
+				if (start || end) {
+					issues.add(new ValidationIssue(Severity.WARNING, getName(), o,
+							(start && end ? "start and end are" : start ? "start is" : "end is") + " not linked"));
+				}
+			}
+		}
+	};
+
+	/**
+	 * Data nodes of type alias should refer to a group of the pathway, which lists
+	 * them as its aliases, and only data nodes of type alias may refer to a group.
+	 */
+	public static final ValidationRule ALIAS_CONSISTENCY = new ValidationRule() {
+		public String getName() {
+			return "AliasConsistency";
+		}
+
+		public void visit(PathwayObject o, List<ValidationIssue> issues) {
+			if (!(o instanceof DataNode)) {
+				return;
+			}
+			DataNode dataNode = (DataNode) o;
+			Group aliasRef = dataNode.getAliasRef();
+			if (aliasRef == null) {
+				if (dataNode.getType() == DataNodeType.ALIAS) {
+					issues.add(new ValidationIssue(Severity.WARNING, getName(), o, "alias has no aliasRef"));
+				}
+				return;
+			}
+			if (dataNode.getType() != DataNodeType.ALIAS) {
+				issues.add(new ValidationIssue(Severity.ERROR, getName(), o,
+						"data node of type " + dataNode.getType() + " has an aliasRef"));
+			}
+			Set<DataNode> aliases = o.getPathwayModel().getLinkedAliases(aliasRef);
+			if (!o.getPathwayModel().hasPathwayObject(aliasRef)) {
+				issues.add(new ValidationIssue(Severity.ERROR, getName(), o,
+						"aliasRef " + aliasRef.getElementId() + " is not in the pathway"));
+			} else if (aliases == null || !aliases.contains(dataNode)) {
+				issues.add(new ValidationIssue(Severity.ERROR, getName(), o,
+						"aliasRef " + aliasRef.getElementId() + " does not list this alias"));
+			}
+		}
+	};
+
+	/**
+	 * Citation references must refer to citations of the pathway, and the xref of
+	 * a citation should match the identifier pattern of its data source, e.g.
+	 * PubMed ids are numbers, or it can not be looked up.
+	 */
+	public static final ValidationRule UNRESOLVED_CITATION = new ValidationRule() {
+		public String getName() {
+			return "UnresolvedCitation";
+		}
+
+		public void visit(PathwayObject o, List<ValidationIssue> issues) {
+			if (o instanceof PathwayElement) {
+				for (CitationRef ref : ((PathwayElement) o).getCitationRefs()) {
+					Citation citation = ref.getCitation();
+					if (citation == null) {
+						issues.add(new ValidationIssue(Severity.ERROR, getName(), o, "citation reference without citation"));
+					} else if (!o.getPathwayModel().hasPathwayObject(citation)) {
+						issues.add(new ValidationIssue(Severity.ERROR, getName(), o,
+								"citation " + citation.getElementId() + " is not in the pathway"));
+					}
+				}
+			}
+			if (o instanceof Citation) {
+				Xref xref = ((Citation) o).getXref();
+				if (xref != null && xref.getDataSource() != null) {
+					Pattern pattern = DataSourcePatterns.getPatterns().get(xref.getDataSource());
+					if (pattern != null && !pattern.matcher(xref.getId()).matches()) {
+						issues.add(new ValidationIssue(Severity.WARNING, getName(), o, "\"" + xref.getId()
+								+ "\" is not a valid " + xref.getDataSource().getFullName() + " identifier"));
+					}
+				}
+			}
+		}
+	};
+
+	private static final List<ValidationRule> ALL = Collections.unmodifiableList(Arrays.asList(
+			DANGLING_REFERENCE, EMPTY_GROUP, UNLINKED_INTERACTION, ALIAS_CONSISTENCY, UNRESOLVED_CITATION));
+
+	/**
+	 * Returns all standard rules.
+	 */
+	public static List<ValidationRule> getAll() {
+		return ALL;
+	}
+}
@@ -0,0 +1,106 @@
+/*******************************************************************************
+ * PathVisio, a tool for data visualization and analysis using biological pathways
+ * Copyright 2006-2022 BiGCaT Bioinformatics, WikiPathways
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.pathvisio.libgpml.validation;
+
+import java.io.File;
+
+import org.pathvisio.libgpml.model.PathwayObject;
+
+/**
+ * A problem found by a {@link ValidationRule}.
+ */
+public final class ValidationIssue {
+
+	/**
+	 * How serious an issue is.
+	 */
+	public enum Severity {
+		/** The pathway is inconsistent, e.g. it refers to a missing element. */
+		ERROR,
+		/** The pathway is consistent, but probably not as intended. */
+		WARNING
+	}
+
+	private final Severity severity;
+	private final String rule;
+	private final File file;
+	private final String elementId;
+	private final String message;
+
+	/**
+	 * @param severity the severity.
+	 * @param rule     the rule that found the issue, see
+	 *                 {@link ValidationRule#getName()}.
+	 * @param o        the pathway object with the issue, or null if the issue is
+	 *                 not about one object.
+	 * @param message  the description of the issue.
+	 */
+	public ValidationIssue(Severity severity, String rule, PathwayObject o, String message) {
+		this(severity, rule, null, o == null ? null : o.getElementId(), message);
+	}
+
+	ValidationIssue(Severity severity, String rule, File file, String elementId, String message) {
+		this.severity = severity;
+		this.rule = rule;
+		this.file = file;
+		this.elementId = elementId;
+		this.message = message;
+	}
+
+	/**
+	 * Returns this issue, found in the given file.
+	 */
+	ValidationIssue withFile(File file) {
+		return new ValidationIssue(severity, rule, file, elementId, message);
+	}
+
+	public Severity getSeverity() {
+		return severity;
+	}
+
+	public String getRule() {
+		return rule;
+	}
+
+	/**
+	 * Returns the GPML file with the issue, or null if a pathway model was
+	 * validated instead of a file.
+	 */
+	public File getFile() {
+		return file;
+	}
+
+	/**
+	 * Returns the elementId of the pathway object with the issue, or null.
+	 */
+	public String getElementId() {
+		return elementId;
+	}
+
+	public String getMessage() {
+		return message;
+	}
+
+	/**
+	 * Returns the issue as one line of tab separated severity, rule, file,
+	 * elementId and message.
+	 */
+	public String toString() {
+		return severity + "\t" + rule + "\t" + (file == null ? "" : file.getPath()) + "\t"
+				+ (elementId == null ? "" : elementId) + "\t" + message;
+	}
+}
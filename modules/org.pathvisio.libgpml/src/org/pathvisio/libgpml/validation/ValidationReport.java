@@ -0,0 +1,185 @@
+/*******************************************************************************
+ * PathVisio, a tool for data visualization and analysis using biological pathways
+ * Copyright 2006-2022 BiGCaT Bioinformatics, WikiPathways
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.pathvisio.libgpml.validation;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jdom2.Document;
+import org.jdom2.Element;
+import org.jdom2.output.Format;
+import org.jdom2.output.XMLOutputter;
+import org.pathvisio.libgpml.validation.ValidationIssue.Severity;
+
+/**
+ * The result of a {@link PathwayValidator} run: the issues found in a number of
+ * files. The report can be written as text, one issue per line, or as a JUnit
+ * XML report, which continuous integration servers can show. In the XML report
+ * every file is a test suite and every rule a test case, which fails when the
+ * rule found errors in the file. Warnings are listed, but do not fail.
+ */
+public class ValidationReport {
+
+	private final List<String> rules;
+	private final List<File> files;
+	private final List<ValidationIssue> issues;
+	private final long time;
+
+	ValidationReport(List<String> rules, List<File> files, List<ValidationIssue> issues, long time) {
+		this.rules = Collections.unmodifiableList(new ArrayList<String>(rules));
+		this.files = Collections.unmodifiableList(new ArrayList<File>(files));
+		this.issues = Collections.unmodifiableList(issues);
+		this.time = time;
+	}
+
+	/**
+	 * Returns the names of the rules that were checked.
+	 */
+	public List<String> getRules() {
+		return rules;
+	}
+
+	/**
+	 * Returns the files that were checked. The list contains null if a pathway
+	 * model was checked instead of a file.
+	 */
+	public List<File> getFiles() {
+		return files;
+	}
+
+	/**
+	 * Returns all issues, by file and elementId.
+	 */
+	public List<ValidationIssue> getIssues() {
+		return issues;
+	}
+
+	/**
+	 * Returns the issues of the given severity.
+	 */
+	public List<ValidationIssue> getIssues(Severity severity) {
+		List<ValidationIssue> result = new ArrayList<ValidationIssue>();
+		for (ValidationIssue issue : issues) {
+			if (issue.getSeverity() == severity) {
+				result.add(issue);
+			}
+		}
+		return result;
+	}
+
+	public int getErrorCount() {
+		return getIssues(Severity.ERROR).size();
+	}
+
+	public int getWarningCount() {
+		return getIssues(Severity.WARNING).size();
+	}
+
+	/**
+	 * Returns true if errors were found, e.g. to fail a build.
+	 */
+	public boolean hasErrors() {
+		return getErrorCount() > 0;
+	}
+
+	/**
+	 * Returns the time the validation took, in milliseconds.
+	 */
+	public long getTime() {
+		return time;
+	}
+
+	/**
+	 * Writes the issues, one per line as in {@link ValidationIssue#toString()},
+	 * followed by a summary line.
+	 * 
+	 * @param writer the writer to write to, which is flushed but not closed.
+	 */
+	public void writeText(Writer writer) {
+		PrintWriter out = new PrintWriter(writer);
+		for (ValidationIssue issue : issues) {
+			out.println(issue);
+		}
+		out.println(files.size() + " files, " + getErrorCount() + " errors, " + getWarningCount() + " warnings");
+		out.flush();
+	}
+
+	/**
+	 * Writes the report in the JUnit XML format.
+	 * 
+	 * @param out the stream to write to, which is not closed.
+	 */
+	public void writeJUnitXml(OutputStream out) throws IOException {
+		Map<File, List<ValidationIssue>> byFile = new LinkedHashMap<File, List<ValidationIssue>>();
+		for (File file : files) {
+			byFile.put(file, new ArrayList<ValidationIssue>());
+		}
+		for (ValidationIssue issue : issues) {
+			byFile.get(issue.getFile()).add(issue);
+		}
+		Element root = new Element("testsuites");
+		int failures = 0;
+		for (Map.Entry<File, List<ValidationIssue>> e : byFile.entrySet()) {
+			String suiteName = e.getKey() == null ? "pathway" : e.getKey().getPath();
+			Element suite = new Element("testsuite");
+			suite.setAttribute("name", suiteName);
+			suite.setAttribute("tests", String.valueOf(rules.size()));
+			int suiteFailures = 0;
+			for (String rule : rules) {
+				Element testCase = new Element("testcase");
+				testCase.setAttribute("classname", suiteName);
+				testCase.setAttribute("name", rule);
+				StringBuilder errors = new StringBuilder();
+				StringBuilder warnings = new StringBuilder();
+				for (ValidationIssue issue : e.getValue()) {
+					if (rule.equals(issue.getRule())) {
+						StringBuilder text = issue.getSeverity() == Severity.ERROR ? errors : warnings;
+						text.append(issue.getElementId() == null ? "" : issue.getElementId() + ": ")
+								.append(issue.getMessage()).append('\n');
+					}
+				}
+				if (errors.length() > 0) {
+					Element failure = new Element("failure");
+					failure.setAttribute("message", rule + " found errors");
+					failure.setText(errors.toString());
+					testCase.addContent(failure);
+					suiteFailures++;
+				}
+				if (warnings.length() > 0) {
+					testCase.addContent(new Element("system-out").setText(warnings.toString()));
+				}
+				suite.addContent(testCase);
+			}
+			suite.setAttribute("failures", String.valueOf(suiteFailures));
+			suite.setAttribute("errors", "0");
+			root.addContent(suite);
+			failures += suiteFailures;
+		}
+		root.setAttribute("tests", String.valueOf(files.size() * rules.size()));
+		root.setAttribute("failures", String.valueOf(failures));
+		root.setAttribute("time", String.valueOf(time / 1000.0));
+		new XMLOutputter(Format.getPrettyFormat()).output(new Document(root), out);
+	}
+}
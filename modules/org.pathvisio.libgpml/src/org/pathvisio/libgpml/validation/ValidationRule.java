@@ -0,0 +1,45 @@
+/*******************************************************************************
+ * PathVisio, a tool for data visualization and analysis using biological pathways
+ * Copyright 2006-2022 BiGCaT Bioinformatics, WikiPathways
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.pathvisio.libgpml.validation;
+
+import java.util.List;
+
+import org.pathvisio.libgpml.model.PathwayObject;
+
+/**
+ * A check of the pathway objects of a pathway model. A rule looks at one object
+ * at a time, and may be called for different objects from several threads at
+ * once, so it must not keep state between calls.
+ * 
+ * @see PathwayValidator
+ * @see StandardRules
+ */
+public interface ValidationRule {
+
+	/**
+	 * Returns the name of the rule, which identifies it in reports.
+	 */
+	public String getName();
+
+	/**
+	 * Checks a pathway object, which is part of a pathway model.
+	 * 
+	 * @param o      the pathway object.
+	 * @param issues the list to add the issues found to.
+	 */
+	public void visit(PathwayObject o, List<ValidationIssue> issues);
+}
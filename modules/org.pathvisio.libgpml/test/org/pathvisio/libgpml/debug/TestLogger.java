@@ -0,0 +1,119 @@
+/*******************************************************************************
+ * PathVisio, a tool for data visualization and analysis using biological pathways
+ * Copyright 2006-2022 BiGCaT Bioinformatics, WikiPathways
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.pathvisio.libgpml.debug;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for {@link Logger}.
+ */
+public class TestLogger extends TestCase {
+
+	private Logger logger;
+	private ByteArrayOutputStream out;
+
+	public void setUp() {
+		logger = new Logger();
+		out = new ByteArrayOutputStream();
+		logger.setStream(new PrintStream(out, true));
+		logger.setLogLevel(false, false, true, true, true, true);
+	}
+
+	private String[] lines() {
+		logger.flush();
+		return out.toString().split(System.lineSeparator());
+	}
+
+	public void testFormat() {
+		assertEquals("a 1 b 2", Logger.format("a {} b {}", 1, 2));
+		assertEquals("a 1 b {}", Logger.format("a {} b {}", 1));
+		assertEquals("a null", Logger.format("a {}", (Object) null));
+		assertEquals("a", Logger.format("a", 1));
+	}
+
+	public void testAsync() {
+		assertTrue(logger.isAsync());
+		for (int i = 0; i < 1000; i++) {
+			logger.info("message {}", i);
+		}
+		logger.warn("done");
+		String[] lines = lines();
+		assertEquals(1001, lines.length);
+		assertTrue(lines[0].endsWith("Info:  message 0"));
+		assertTrue(lines[999].endsWith("Info:  message 999"));
+		assertEquals("Warn:  done", lines[1000]);
+	}
+
+	public void testSync() {
+		logger.setAsync(false);
+		logger.info("message {} of {}", 1, 2);
+		// written before flush
+		assertTrue(out.toString().trim().endsWith("Info:  message 1 of 2"));
+		logger.error("failed", new IllegalStateException("oops"));
+		String[] lines = lines();
+		assertEquals("Error: failed", lines[1]);
+		assertEquals("\tjava.lang.IllegalStateException: oops: oops", lines[2]);
+	}
+
+	public void testDisabled() {
+		logger.trace(new Supplier<String>() {
+			public String get() {
+				fail("message of disabled level built");
+				return null;
+			}
+		});
+		logger.trace("not {}", "shown");
+		logger.debug("not shown");
+		assertEquals("", out.toString());
+		assertEquals(0, lines().length - 1);
+	}
+
+	public void testBridge() {
+		final List<LogRecord> records = new ArrayList<LogRecord>();
+		java.util.logging.Logger jul = java.util.logging.Logger.getAnonymousLogger();
+		jul.setUseParentHandlers(false);
+		jul.addHandler(new Handler() {
+			public void publish(LogRecord record) {
+				records.add(record);
+			}
+
+			public void flush() {
+			}
+
+			public void close() {
+			}
+		});
+		logger.setBridge(jul);
+		logger.info("info");
+		logger.error("error");
+		logger.flush();
+		assertEquals(2, records.size());
+		assertEquals(Level.INFO, records.get(0).getLevel());
+		assertEquals("info", records.get(0).getMessage());
+		assertEquals(Level.SEVERE, records.get(1).getLevel());
+		assertEquals("", out.toString());
+	}
+}
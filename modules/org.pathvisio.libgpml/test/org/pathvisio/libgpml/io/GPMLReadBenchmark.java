@@ -0,0 +1,144 @@
+/*******************************************************************************
+ * PathVisio, a tool for data visualization and analysis using biological pathways
+ * Copyright 2006-2022 BiGCaT Bioinformatics, WikiPathways
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.pathvisio.libgpml.io;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import org.pathvisio.libgpml.debug.StopWatch;
+import org.pathvisio.libgpml.model.DataNode;
+import org.pathvisio.libgpml.model.GPMLFormat;
+import org.pathvisio.libgpml.model.PathwayModel;
+import org.pathvisio.libgpml.model.type.DataNodeType;
+import org.pathvisio.libgpml.util.FileUtils;
+
+/**
+ * Benchmark for opening GPML files through a Reader, a buffered stream, a
+ * memory mapped buffer and gzip compressed. Validation is off, so that mostly
+ * the input path and parsing are measured.
+ * <p>
+ * Usage: GPMLReadBenchmark [directory with GPML files] [rounds]. Without
+ * arguments, a corpus of generated pathways is used.
+ */
+public class GPMLReadBenchmark {
+
+	private interface Opener {
+		void read(File f) throws Exception;
+	}
+
+	private static List<File> createCorpus() throws Exception {
+		File dir = File.createTempFile("gpmlbench", "");
+		dir.delete();
+		dir.mkdir();
+		dir.deleteOnExit();
+		List<File> result = new ArrayList<File>();
+		for (int i = 0; i < 20; i++) {
+			PathwayModel p = new PathwayModel();
+			for (int j = 0; j < 500; j++) {
+				DataNode dn = new DataNode("node" + j, DataNodeType.GENEPRODUCT);
+				dn.setCenterX(j * 10);
+				dn.setCenterY(j * 5);
+				p.addDataNode(dn);
+			}
+			File f = new File(dir, "p" + i + ".gpml");
+			f.deleteOnExit();
+			GPMLFormat.GPML2021.writeToXml(p, f, false);
+			result.add(f);
+		}
+		return result;
+	}
+
+	private static List<File> gzip(List<File> files) throws Exception {
+		List<File> result = new ArrayList<File>();
+		for (File f : files) {
+			File gz = new File(f.getPath() + ".gz");
+			gz.deleteOnExit();
+			OutputStream out = new GZIPOutputStream(new FileOutputStream(gz));
+			FileInputStream in = new FileInputStream(f);
+			byte[] buf = new byte[8192];
+			int n;
+			while ((n = in.read(buf)) > 0) {
+				out.write(buf, 0, n);
+			}
+			in.close();
+			out.close();
+			result.add(gz);
+		}
+		return result;
+	}
+
+	private static void measure(String name, List<File> files, int rounds, Opener opener) throws Exception {
+		for (File f : files) {
+			opener.read(f); // warm-up
+		}
+		long bytes = 0;
+		StopWatch sw = new StopWatch();
+		sw.start();
+		for (int i = 0; i < rounds; i++) {
+			for (File f : files) {
+				opener.read(f);
+				bytes += f.length();
+			}
+		}
+		long msec = Math.max(1, sw.stop());
+		int count = rounds * files.size();
+		System.out.println(name + ": " + (float) msec / count + " msec/file, " + (bytes / 1024 / msec) + " kB/msec");
+	}
+
+	public static void main(String[] args) throws Exception {
+		List<File> files;
+		if (args.length > 0) {
+			files = FileUtils.getFiles(new File(args[0]), "gpml", true);
+		} else {
+			files = createCorpus();
+		}
+		int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+		measure("Reader", files, rounds, new Opener() {
+			public void read(File f) throws Exception {
+				Reader in = new InputStreamReader(new FileInputStream(f), "UTF-8");
+				try {
+					GPMLFormat.readFromXml(new PathwayModel(), in, false);
+				} finally {
+					in.close();
+				}
+			}
+		});
+		measure("Stream", files, rounds, new Opener() {
+			public void read(File f) throws Exception {
+				GPMLFormat.readFromXml(new PathwayModel(), f, false);
+			}
+		});
+		measure("Mapped", files, rounds, new Opener() {
+			public void read(File f) throws Exception {
+				GPMLFormat.readFromXmlMapped(new PathwayModel(), f, false);
+			}
+		});
+		measure("Mapped gzip", gzip(files), rounds, new Opener() {
+			public void read(File f) throws Exception {
+				GPMLFormat.readFromXmlMapped(new PathwayModel(), f, false);
+			}
+		});
+	}
+}
@@ -0,0 +1,98 @@
+/*******************************************************************************
+ * PathVisio, a tool for data visualization and analysis using biological pathways
+ * Copyright 2006-2022 BiGCaT Bioinformatics, WikiPathways
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.pathvisio.libgpml.io;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.pathvisio.libgpml.model.DataNode;
+import org.pathvisio.libgpml.model.GPMLFormat;
+import org.pathvisio.libgpml.model.PathwayModel;
+import org.pathvisio.libgpml.model.type.DataNodeType;
+import org.pathvisio.libgpml.util.RootElementFinder;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests reading plain, memory mapped and compressed GPML files.
+ */
+public class TestCompressedInput extends TestCase {
+
+	private PathwayModel createPathway(String label) {
+		PathwayModel p = new PathwayModel();
+		p.getPathway().setTitle(label);
+		p.addDataNode(new DataNode(label, DataNodeType.GENEPRODUCT));
+		return p;
+	}
+
+	private File createTempFile(String suffix) throws IOException {
+		File f = File.createTempFile("compressed", suffix);
+		f.deleteOnExit();
+		return f;
+	}
+
+	private String getLabel(PathwayModel p) {
+		return p.getDataNodes().get(0).getTextLabel();
+	}
+
+	public void testGzip() throws Exception {
+		File f = createTempFile(".gpml.gz");
+		OutputStream out = new GZIPOutputStream(new FileOutputStream(f));
+		GPMLFormat.GPML2021.writeToXml(createPathway("a"), out, false);
+		out.close();
+
+		assertEquals("http://pathvisio.org/GPML/2021", RootElementFinder.getRootUri(f));
+		PathwayModel p = new PathwayModel();
+		GPMLFormat.readFromXml(p, f, false);
+		assertEquals("a", getLabel(p));
+		p = new PathwayModel();
+		GPMLFormat.readFromXmlMapped(p, f, false);
+		assertEquals("a", getLabel(p));
+	}
+
+	public void testPlainMapped() throws Exception {
+		File f = createTempFile(".gpml");
+		GPMLFormat.GPML2021.writeToXml(createPathway("b"), f, false);
+		PathwayModel p = new PathwayModel();
+		GPMLFormat.readFromXmlMapped(p, f, false);
+		assertEquals("b", getLabel(p));
+	}
+
+	public void testZip() throws Exception {
+		File f = createTempFile(".zip");
+		ZipOutputStream out = new ZipOutputStream(new FileOutputStream(f));
+		out.putNextEntry(new ZipEntry("readme.txt"));
+		out.write("not a pathway".getBytes("UTF-8"));
+		for (String label : new String[] { "c", "d" }) {
+			out.putNextEntry(new ZipEntry(label + ".gpml"));
+			GPMLFormat.GPML2021.writeToXml(createPathway(label), out, false);
+			out.closeEntry();
+		}
+		out.close();
+
+		Map<String, PathwayModel> result = GPMLFormat.readFromZip(f, false);
+		assertEquals(2, result.size());
+		assertEquals("c", getLabel(result.get("c.gpml")));
+		assertEquals("d", getLabel(result.get("d.gpml")));
+	}
+}
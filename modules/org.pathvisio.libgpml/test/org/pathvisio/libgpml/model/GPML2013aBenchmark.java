@@ -0,0 +1,118 @@
+/*******************************************************************************
+ * PathVisio, a tool for data visualization and analysis using biological pathways
+ * Copyright 2006-2022 BiGCaT Bioinformatics, WikiPathways
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.pathvisio.libgpml.model;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jdom2.Document;
+import org.jdom2.JDOMException;
+import org.jdom2.input.SAXBuilder;
+import org.pathvisio.libgpml.debug.StopWatch;
+import org.pathvisio.libgpml.io.ConverterException;
+
+/**
+ * Benchmark for converting GPML2013a files. Reads and writes every GPML2013a
+ * file of a corpus a number of times, and reports the time spent in the
+ * GPML2013a reader and writer. Parsing the xml is not included.
+ * <p>
+ * Usage: GPML2013aBenchmark [directory with GPML2013a files] [rounds]. Without
+ * arguments, the example GPML2013a file on the classpath is used.
+ */
+public class GPML2013aBenchmark {
+
+	private static final OutputStream NULL_OUTPUT = new OutputStream() {
+		@Override
+		public void write(int b) {
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) {
+		}
+	};
+
+	private static List<Document> loadCorpus(File dir) throws JDOMException, IOException {
+		List<Document> result = new ArrayList<Document>();
+		SAXBuilder builder = new SAXBuilder();
+		if (dir == null) {
+			URL url = GPML2013aBenchmark.class.getClassLoader().getResource("example-v2013a.xml");
+			result.add(builder.build(url));
+			return result;
+		}
+		File[] files = dir.listFiles();
+		if (files == null) {
+			throw new IOException("Not a directory: " + dir);
+		}
+		for (File f : files) {
+			if (!f.isFile()) {
+				continue;
+			}
+			Document doc = builder.build(f);
+			if (GPMLFormat.GPML2013a.getGpmlNamespace().equals(doc.getRootElement().getNamespace())) {
+				result.add(doc);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Converts all documents once.
+	 *
+	 * @return the number of converted documents.
+	 */
+	private static int convert(List<Document> corpus, long[] times) throws ConverterException {
+		StopWatch sw = new StopWatch();
+		for (Document doc : corpus) {
+			PathwayModel p = new PathwayModel();
+			sw.start();
+			GPML2013aReader.GPML2013aREADER.readFromRoot(p, doc.getRootElement().clone());
+			times[0] += sw.stop();
+			sw.start();
+			GPML2013aWriter.GPML2013aWRITER.writeToXml(p, NULL_OUTPUT, false);
+			times[1] += sw.stop();
+		}
+		return corpus.size();
+	}
+
+	public static void main(String[] args) throws Exception {
+		File dir = args.length > 0 ? new File(args[0]) : null;
+		int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+		List<Document> corpus = loadCorpus(dir);
+		if (corpus.isEmpty()) {
+			System.out.println("No GPML2013a files found");
+			return;
+		}
+		// warm-up
+		long[] times = new long[2];
+		for (int i = 0; i < Math.max(1, rounds / 5); i++) {
+			convert(corpus, times);
+		}
+		times = new long[2];
+		int count = 0;
+		for (int i = 0; i < rounds; i++) {
+			count += convert(corpus, times);
+		}
+		System.out.println("Converted " + count + " GPML2013a documents (" + corpus.size() + " files, " + rounds
+				+ " rounds)");
+		System.out.println("Read:  " + times[0] + " msec total, " + (float) times[0] / count + " msec/document");
+		System.out.println("Write: " + times[1] + " msec total, " + (float) times[1] / count + " msec/document");
+	}
+}
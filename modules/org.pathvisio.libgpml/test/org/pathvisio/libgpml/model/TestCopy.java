@@ -83,6 +83,26 @@ public void testClonePathway() {
 //		assertEquals(o2.getAnchors().get(0).getPathwayModel(), p2);
 	}
 	
+	/**
+	 * Clone keeps the elementIds of pathway objects and their references.
+	 */
+	@Test
+	public void testCloneKeepsElementIds() {
+		i1.setStartElementRef(o1);
+		PathwayModel p2 = p.clone();
+
+		assertEquals(p.getElementIds(), p2.getElementIds());
+		DataNode o2 = (DataNode) p2.getPathwayObject(o1.getElementId());
+		assertNotNull(o2);
+		assertFalse(o1 == o2);
+		assertEquals(s1.getElementId(), o2.getStates().get(0).getElementId());
+		assertEquals(c.getElementId(), o2.getCitationRefs().get(0).getCitation().getElementId());
+		Interaction i2 = (Interaction) p2.getPathwayObject(i1.getElementId());
+		assertEquals(i1.getAnchors().get(0).getElementId(), i2.getAnchors().get(0).getElementId());
+		assertEquals(i1.getStartLinePoint().getElementId(), i2.getStartLinePoint().getElementId());
+		assertSame(o2, i2.getStartElementRef());
+	}
+
 	/**
 	 * 
 	 */
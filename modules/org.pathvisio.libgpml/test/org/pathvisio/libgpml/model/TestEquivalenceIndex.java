@@ -0,0 +1,113 @@
+/*******************************************************************************
+ * PathVisio, a tool for data visualization and analysis using biological pathways
+ * Copyright 2006-2022 BiGCaT Bioinformatics, WikiPathways
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.pathvisio.libgpml.model;
+
+import org.bridgedb.Xref;
+import org.bridgedb.bio.DataSourceTxt;
+import org.junit.Before;
+import org.junit.Test;
+import org.pathvisio.libgpml.model.type.AnnotationType;
+import org.pathvisio.libgpml.model.type.DataNodeType;
+import org.pathvisio.libgpml.util.XrefUtils;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for finding equivalent annotations, citations and evidences through
+ * {@link EquivalenceIndex}.
+ */
+public class TestEquivalenceIndex extends TestCase {
+
+	private PathwayModel p;
+	private DataNode d1;
+	private DataNode d2;
+
+	@Before
+	public void setUp() {
+		DataSourceTxt.init();
+		p = new PathwayModel();
+		d1 = new DataNode("d1", DataNodeType.UNDEFINED);
+		d2 = new DataNode("d2", DataNodeType.UNDEFINED);
+		p.addDataNode(d1);
+		p.addDataNode(d2);
+	}
+
+	private Xref xref(String id) {
+		return XrefUtils.createXref(id, "ensembl");
+	}
+
+	@Test
+	public void testEquivalentAnnotation() {
+		Annotation a = d1.addAnnotation("a", AnnotationType.ONTOLOGY, xref("1"), null).getAnnotation();
+		// equal xref, and empty url equals null
+		assertSame(a, d2.addAnnotation("a", AnnotationType.ONTOLOGY, xref("1"), "").getAnnotation());
+		assertNotSame(a, d2.addAnnotation("a", AnnotationType.TAXONOMY, xref("1"), null).getAnnotation());
+		assertNotSame(a, d2.addAnnotation("a", AnnotationType.ONTOLOGY, xref("2"), null).getAnnotation());
+		assertNotSame(a, d2.addAnnotation("b", AnnotationType.ONTOLOGY, xref("1"), null).getAnnotation());
+		assertEquals(4, p.getAnnotations().size());
+	}
+
+	@Test
+	public void testEquivalentCitation() {
+		Citation c = d1.addCitation(xref("1"), "url").getCitation();
+		Citation c2 = d1.addCitation(null, "url").getCitation();
+		assertSame(c, d2.addCitation(xref("1"), "url").getCitation());
+		assertSame(c2, d2.addCitation(null, "url").getCitation());
+		assertNotSame(c, d2.addCitation(xref("1"), "url2").getCitation());
+		assertEquals(3, p.getCitations().size());
+	}
+
+	@Test
+	public void testEquivalentEvidence() {
+		Evidence e = d1.addEvidence("e", xref("1"), null).getEvidence();
+		assertSame(e, d2.addEvidence("e", xref("1"), "").getEvidence());
+		assertNotSame(e, d2.addEvidence("f", xref("1"), null).getEvidence());
+		assertEquals(2, p.getEvidences().size());
+	}
+
+	/**
+	 * An annotation is found by its current properties after it changes.
+	 */
+	@Test
+	public void testModified() {
+		Annotation a = d1.addAnnotation("a", AnnotationType.ONTOLOGY, null, null).getAnnotation();
+		a.setValue("b");
+		assertSame(a, d2.addAnnotation("b", AnnotationType.ONTOLOGY, null, null).getAnnotation());
+		assertNotSame(a, d2.addAnnotation("a", AnnotationType.ONTOLOGY, null, null).getAnnotation());
+
+		Citation c = d1.addCitation(xref("1"), null).getCitation();
+		c.setUrlLink("url");
+		assertSame(c, d2.addCitation(xref("1"), "url").getCitation());
+
+		Evidence e = d1.addEvidence("e", xref("1"), null).getEvidence();
+		e.setXref(xref("2"));
+		assertSame(e, d2.addEvidence("e", xref("2"), null).getEvidence());
+	}
+
+	@Test
+	public void testRemoved() {
+		Annotation a = d1.addAnnotation("a", AnnotationType.ONTOLOGY, null, null).getAnnotation();
+		p.removeAnnotation(a);
+		Annotation a2 = d2.addAnnotation("a", AnnotationType.ONTOLOGY, null, null).getAnnotation();
+		assertNotSame(a, a2);
+		assertTrue(p.hasPathwayObject(a2));
+
+		// changing a removed annotation does not affect the model
+		a.setValue("b");
+		assertNotSame(a, d2.addAnnotation("b", AnnotationType.ONTOLOGY, null, null).getAnnotation());
+	}
+}
@@ -0,0 +1,80 @@
+/*******************************************************************************
+ * PathVisio, a tool for data visualization and analysis using biological pathways
+ * Copyright 2006-2022 BiGCaT Bioinformatics, WikiPathways
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.pathvisio.libgpml.model;
+
+import org.jdom2.Element;
+import org.pathvisio.libgpml.io.ConverterException;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests reading and writing GPML2013a attributes with their default values.
+ */
+public class TestGPML2013aAttributes extends TestCase {
+
+	private final GPML2013aWriter writer = GPML2013aWriter.GPML2013aWRITER;
+
+	public void testDefaultsOmitted() throws ConverterException {
+		Element el = new Element("Graphics");
+		writer.setAttr("DataNode.Graphics", "FontName", el, "Arial");
+		writer.setAttr("DataNode.Graphics", "LineThickness", el, "1");
+		writer.setAttr("DataNode.Graphics", "Color", el, "000000");
+		writer.setAttr("Label.Graphics", "FillColor", el, "Transparent");
+		writer.setAttr("DataNode.Graphics", "FontSize", el, "12");
+		// only FontSize, which is not a string, number or color type, is kept
+		assertEquals(1, el.getAttributes().size());
+		assertEquals("12", el.getAttributeValue("FontSize"));
+	}
+
+	public void testNonDefaultsWritten() throws ConverterException {
+		Element el = new Element("Graphics");
+		writer.setAttr("DataNode.Graphics", "FontName", el, "Times");
+		writer.setAttr("DataNode.Graphics", "LineThickness", el, "2.0");
+		writer.setAttr("DataNode.Graphics", "Color", el, "ff0000");
+		writer.setAttr("Label.Graphics", "FillColor", el, "000000");
+		writer.setAttr("DataNode.Graphics", "CenterX", el, "1.0");
+		assertEquals("Times", el.getAttributeValue("FontName"));
+		assertEquals("2.0", el.getAttributeValue("LineThickness"));
+		assertEquals("ff0000", el.getAttributeValue("Color"));
+		assertEquals("000000", el.getAttributeValue("FillColor"));
+		// required attributes are always written
+		assertEquals("1.0", el.getAttributeValue("CenterX"));
+	}
+
+	public void testGetAttr() throws ConverterException {
+		Element el = new Element("Graphics");
+		el.setAttribute("FontName", "Times");
+		assertEquals("Times", writer.getAttr("DataNode.Graphics", "FontName", el));
+		assertEquals("Normal", writer.getAttr("DataNode.Graphics", "FontWeight", el));
+		assertEquals("Transparent", writer.getAttr("Label.Graphics", "FillColor", null));
+	}
+
+	public void testInvalidAttribute() {
+		try {
+			writer.getAttr("DataNode.Graphics", "Foo", new Element("Graphics"));
+			fail("Expected ConverterException");
+		} catch (ConverterException e) {
+			assertTrue(e.getMessage().contains("DataNode.Graphics@Foo"));
+		}
+		try {
+			writer.setAttr("Foo", "Bar", new Element("Graphics"), "1");
+			fail("Expected ConverterException");
+		} catch (ConverterException e) {
+			assertTrue(e.getMessage().contains("Foo@Bar"));
+		}
+	}
+}
@@ -0,0 +1,193 @@
+/*******************************************************************************
+ * PathVisio, a tool for data visualization and analysis using biological pathways
+ * Copyright 2006-2022 BiGCaT Bioinformatics, WikiPathways
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.pathvisio.libgpml.model;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.pathvisio.libgpml.model.DataNode.State;
+import org.pathvisio.libgpml.model.GraphLink.LinkableTo;
+import org.pathvisio.libgpml.model.InteractionGraph.Direction;
+import org.pathvisio.libgpml.model.LineElement.Anchor;
+import org.pathvisio.libgpml.model.type.AnchorShapeType;
+import org.pathvisio.libgpml.model.type.DataNodeType;
+import org.pathvisio.libgpml.model.type.GroupType;
+import org.pathvisio.libgpml.model.type.StateType;
+
+import junit.framework.TestCase;
+
+/**
+ * Test for {@link InteractionGraph}.
+ */
+public class TestInteractionGraph extends TestCase {
+
+	private PathwayModel p;
+	private InteractionGraph graph;
+	private DataNode a, b, c, d, e, f;
+	private Group g;
+	private Interaction ab, bc;
+	private Anchor anchor;
+
+	/**
+	 * Creates a pathway with a -> b -> c, e catalyzing b -> c, c -> g where g is a
+	 * complex of d, and f unconnected.
+	 */
+	@Before
+	public void setUp() {
+		p = new PathwayModel();
+		graph = p.getInteractionGraph();
+		a = addDataNode("a");
+		b = addDataNode("b");
+		c = addDataNode("c");
+		d = addDataNode("d");
+		e = addDataNode("e");
+		f = addDataNode("f");
+		g = new Group(GroupType.COMPLEX);
+		p.addGroup(g);
+		g.addPathwayElement(d);
+		ab = connect(a, b);
+		bc = connect(b, c);
+		anchor = bc.addAnchor(0.5, AnchorShapeType.NONE);
+		connect(e, anchor);
+		connect(c, g);
+	}
+
+	private DataNode addDataNode(String label) {
+		DataNode dataNode = new DataNode(label, DataNodeType.GENEPRODUCT);
+		p.addDataNode(dataNode);
+		return dataNode;
+	}
+
+	private Interaction connect(LinkableTo start, LinkableTo end) {
+		Interaction interaction = new Interaction();
+		p.addInteraction(interaction);
+		interaction.getStartLinePoint().linkTo(start);
+		interaction.getEndLinePoint().linkTo(end);
+		return interaction;
+	}
+
+	@Test
+	public void testInteractions() {
+		assertEquals(Arrays.asList(ab), graph.getIncomingInteractions(b));
+		assertEquals(Arrays.asList(bc), graph.getOutgoingInteractions(b));
+		assertTrue(graph.getOutgoingInteractions(f).isEmpty());
+	}
+
+	@Test
+	public void testNeighbors() {
+		assertEquals(set(c, anchor), graph.getDownstream(b));
+		assertEquals(set(a), graph.getUpstream(b));
+		assertEquals(set(c), graph.getDownstream(anchor));
+		assertEquals(set(b, e), graph.getUpstream(anchor));
+		assertEquals(set(a, c, anchor), graph.getNeighbors(b, Direction.BOTH));
+		// links of a group are links of its members, and the other way around
+		assertEquals(set(c), graph.getUpstream(d));
+		assertEquals(set(c), graph.getUpstream(g));
+		assertEquals(set(g, d), graph.getDownstream(c));
+		assertTrue(graph.getNeighbors(f, Direction.BOTH).isEmpty());
+	}
+
+	@Test
+	public void testGroupMembers() {
+		Group outer = new Group(GroupType.GROUP);
+		p.addGroup(outer);
+		outer.addPathwayElement(g);
+		connect(d, f);
+		assertEquals(set(f), graph.getDownstream(d));
+		assertEquals(set(f), graph.getDownstream(g));
+		assertEquals(set(f), graph.getDownstream(outer));
+		assertEquals(set(d, g, outer), graph.getUpstream(f));
+		assertEquals(set(outer, g, d), graph.getDownstream(c));
+		assertEquals(Arrays.asList(a, b, c, g, f), graph.getShortestPath(a, f, Direction.DOWNSTREAM));
+	}
+
+	@Test
+	public void testState() {
+		State state = a.addState("P", StateType.PROTEIN_MODIFICATION, 1, 1);
+		Interaction interaction = connect(state, f);
+		assertEquals(set(b, f), graph.getDownstream(a));
+		assertEquals(set(f), graph.getDownstream(state));
+		assertEquals(set(state, a), graph.getUpstream(f));
+		// unlinking updates the graph
+		interaction.getEndLinePoint().unlink();
+		assertEquals(set(b), graph.getDownstream(a));
+	}
+
+	@Test
+	public void testBreadthFirstSearch() {
+		Map<LinkableTo, Integer> found = graph.breadthFirstSearch(a, Direction.DOWNSTREAM, -1);
+		assertEquals(Integer.valueOf(0), found.get(a));
+		assertEquals(Integer.valueOf(1), found.get(b));
+		assertEquals(Integer.valueOf(2), found.get(c));
+		assertEquals(Integer.valueOf(2), found.get(anchor));
+		assertEquals(Integer.valueOf(3), found.get(g));
+		assertEquals(Integer.valueOf(3), found.get(d));
+		assertFalse(found.containsKey(e));
+		assertEquals(set(a, b), graph.breadthFirstSearch(a, Direction.DOWNSTREAM, 1).keySet());
+		assertEquals(set(e, anchor, b, a, c, g, d), graph.breadthFirstSearch(e, Direction.BOTH, -1).keySet());
+	}
+
+	@Test
+	public void testShortestPath() {
+		assertEquals(Arrays.asList(e, anchor, c, g), graph.getShortestPath(e, g, Direction.DOWNSTREAM));
+		assertEquals(Arrays.asList(e, anchor, c, d), graph.getShortestPath(e, d, Direction.DOWNSTREAM));
+		assertTrue(graph.getShortestPath(g, e, Direction.DOWNSTREAM).isEmpty());
+		assertEquals(Arrays.asList(g, c, anchor, e), graph.getShortestPath(g, e, Direction.BOTH));
+		assertEquals(Arrays.asList(a), graph.getShortestPath(a, a, Direction.DOWNSTREAM));
+		assertTrue(graph.getShortestPath(a, f, Direction.BOTH).isEmpty());
+	}
+
+	@Test
+	public void testConnectedComponents() {
+		List<Set<LinkableTo>> components = graph.getConnectedComponents();
+		assertEquals(2, components.size());
+		assertEquals(set(a, b, c, d, e, g, anchor), components.get(0));
+		assertEquals(set(f), components.get(1));
+
+		p.removeInteraction(ab);
+		assertEquals(3, graph.getConnectedComponents().size());
+	}
+
+	/**
+	 * Searches a chain of 10000 interactions.
+	 */
+	@Test
+	public void testLargeGraph() {
+		PathwayModel large = new PathwayModel();
+		p = large;
+		DataNode previous = addDataNode("n0");
+		DataNode first = previous;
+		for (int i = 1; i <= 10000; i++) {
+			DataNode next = addDataNode("n" + i);
+			connect(previous, next);
+			previous = next;
+		}
+		InteractionGraph largeGraph = large.getInteractionGraph();
+		assertEquals(10001, largeGraph.breadthFirstSearch(first, Direction.DOWNSTREAM, -1).size());
+		assertEquals(10001, largeGraph.getShortestPath(previous, first, Direction.BOTH).size());
+		assertEquals(1, largeGraph.getConnectedComponents().size());
+	}
+
+	private static Set<LinkableTo> set(LinkableTo... elements) {
+		return new LinkedHashSet<LinkableTo>(Arrays.asList(elements));
+	}
+}
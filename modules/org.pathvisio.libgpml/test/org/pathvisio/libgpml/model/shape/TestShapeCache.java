@@ -0,0 +1,95 @@
+/*******************************************************************************
+ * PathVisio, a tool for data visualization and analysis using biological pathways
+ * Copyright 2006-2022 BiGCaT Bioinformatics, WikiPathways
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.pathvisio.libgpml.model.shape;
+
+import java.awt.Shape;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Rectangle2D;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.pathvisio.libgpml.model.type.ShapeType;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for {@link ShapeCache}.
+ */
+public class TestShapeCache extends TestCase {
+
+	@Before
+	public void setUp() {
+		ShapeCache.clear();
+	}
+
+	@Test
+	public void testScaledShape() {
+		Shape s = ShapeType.OVAL.getShape(80, 20);
+		assertEquals(new Rectangle2D.Double(0, 0, 80, 20), s.getBounds2D());
+		assertSame(s, ShapeType.OVAL.getShape(80, 20));
+		assertNotSame(s, ShapeType.OVAL.getShape(80, 30));
+		assertEquals(new Rectangle2D.Double(0, 0, 80, 30), ShapeType.OVAL.getShape(80, 30).getBounds2D());
+
+		Map<String, Long> stats = ShapeCache.getStatistics();
+		assertEquals(2, (long) stats.get("scaled.hits"));
+		assertEquals(2, (long) stats.get("scaled.misses"));
+		assertEquals(2, (long) stats.get("scaled.size"));
+	}
+
+	@Test
+	public void testTransformedShape() {
+		Shape sh = new Ellipse2D.Double(-5, -5, 10, 10);
+		AffineTransform t = AffineTransform.getTranslateInstance(100, 50);
+		Shape s = ShapeCache.getTransformedShape(sh, t);
+		assertEquals(new Rectangle2D.Double(95, 45, 10, 10), s.getBounds2D());
+
+		// the cached shape is not affected by changes to the transform
+		t.scale(2, 2);
+		Shape s2 = ShapeCache.getTransformedShape(sh, t);
+		assertNotSame(s, s2);
+		assertEquals(new Rectangle2D.Double(90, 40, 20, 20), s2.getBounds2D());
+		assertSame(s, ShapeCache.getTransformedShape(sh, AffineTransform.getTranslateInstance(100, 50)));
+	}
+
+	@Test
+	public void testEviction() {
+		Shape first = ShapeType.RECTANGLE.getShape(1, 1);
+		for (int i = 0; i < ShapeCache.MAX_SIZE; i++) {
+			ShapeType.RECTANGLE.getShape(2 + i, 1);
+		}
+		Map<String, Long> stats = ShapeCache.getStatistics();
+		assertEquals(1, (long) stats.get("scaled.evictions"));
+		assertEquals(ShapeCache.MAX_SIZE, (long) stats.get("scaled.size"));
+		assertNotSame(first, ShapeType.RECTANGLE.getShape(1, 1));
+	}
+
+	@Test
+	public void testTransformedShapesKeepScaledShapes() {
+		Shape scaled = ShapeType.RECTANGLE.getShape(80, 20);
+		Shape sh = new Ellipse2D.Double(-5, -5, 10, 10);
+		for (int i = 0; i <= ShapeCache.MAX_TRANSFORMED_SIZE; i++) {
+			ShapeCache.getTransformedShape(sh, AffineTransform.getTranslateInstance(i, 0));
+		}
+		Map<String, Long> stats = ShapeCache.getStatistics();
+		assertEquals(1, (long) stats.get("transformed.evictions"));
+		assertEquals(ShapeCache.MAX_TRANSFORMED_SIZE, (long) stats.get("transformed.size"));
+		assertEquals(0, (long) stats.get("scaled.evictions"));
+		assertSame(scaled, ShapeType.RECTANGLE.getShape(80, 20));
+	}
+}
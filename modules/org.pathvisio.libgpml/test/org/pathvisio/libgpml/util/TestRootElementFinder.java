@@ -0,0 +1,66 @@
+/*******************************************************************************
+ * PathVisio, a tool for data visualization and analysis using biological pathways
+ * Copyright 2006-2022 BiGCaT Bioinformatics, WikiPathways
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.pathvisio.libgpml.util;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import org.pathvisio.libgpml.model.GPMLFormat;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for {@link RootElementFinder}.
+ */
+public class TestRootElementFinder extends TestCase {
+
+	private File write(File f, byte[] bom, String content) throws IOException {
+		FileOutputStream out = new FileOutputStream(f);
+		try {
+			out.write(bom);
+			out.write(content.getBytes("UTF-8"));
+		} finally {
+			out.close();
+		}
+		return f;
+	}
+
+	public void testRootOnly() throws Exception {
+		File f = File.createTempFile("root", ".gpml");
+		f.deleteOnExit();
+		// everything after the root start tag is not well-formed, and must not be
+		// read
+		write(f, new byte[] { (byte) 0xEF, (byte) 0xBB, (byte) 0xBF },
+				"<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<!-- comment -->\n"
+						+ "<Pathway xmlns=\"http://pathvisio.org/GPML/2021\" Name=\"a\">\n<<<not xml");
+		assertEquals("http://pathvisio.org/GPML/2021", RootElementFinder.getRootUri(f));
+		assertEquals("Pathway", RootElementFinder.getRootQName(f));
+		assertTrue(new GPMLFormat(GPMLFormat.GPML2021).isCorrectType(f));
+
+		// modifying the file invalidates the cached result
+		write(f, new byte[0], "<gpml:Pathway xmlns:gpml=\"http://genmapp.org/GenMAPP/gpml/2008a\"/>");
+		f.setLastModified(f.lastModified() + 2000);
+		assertEquals("http://genmapp.org/GenMAPP/gpml/2008a", RootElementFinder.getRootUri(f));
+		assertEquals("gpml:Pathway", RootElementFinder.getRootQName(f));
+
+		write(f, new byte[0], "<svg/>");
+		f.setLastModified(f.lastModified() + 4000);
+		assertEquals("", RootElementFinder.getRootUri(f));
+		assertFalse(new GPMLFormat(GPMLFormat.GPML2021).isCorrectType(f));
+	}
+}
@@ -0,0 +1,112 @@
+/*******************************************************************************
+ * PathVisio, a tool for data visualization and analysis using biological pathways
+ * Copyright 2006-2022 BiGCaT Bioinformatics, WikiPathways
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.pathvisio.libgpml.validation;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.pathvisio.libgpml.model.DataNode;
+import org.pathvisio.libgpml.model.Group;
+import org.pathvisio.libgpml.model.Interaction;
+import org.pathvisio.libgpml.model.PathwayModel;
+import org.pathvisio.libgpml.model.type.DataNodeType;
+import org.pathvisio.libgpml.model.type.GroupType;
+
+/**
+ * Benchmark for validating a collection of GPML files with the
+ * {@link StandardRules}, on one thread and on all processors.
+ * <p>
+ * Usage: PathwayValidatorBenchmark [directory with GPML files] [rounds].
+ * Without a directory, a collection of 1000 generated pathways with 100 data
+ * nodes each is validated.
+ */
+public class PathwayValidatorBenchmark {
+
+	private static List<File> generateCorpus(File dir, int size) throws Exception {
+		List<File> result = new ArrayList<File>();
+		for (int i = 0; i < size; i++) {
+			PathwayModel p = new PathwayModel();
+			DataNode previous = null;
+			for (int j = 0; j < 100; j++) {
+				DataNode dataNode = new DataNode("n" + j, DataNodeType.GENEPRODUCT);
+				dataNode.setCenterX(j * 10);
+				dataNode.setCenterY(j * 10);
+				p.addDataNode(dataNode);
+				if (previous != null) {
+					Interaction interaction = new Interaction();
+					p.addInteraction(interaction);
+					interaction.getStartLinePoint().linkTo(previous);
+					// leave every tenth interaction unlinked
+					if (j % 10 != 0) {
+						interaction.getEndLinePoint().linkTo(dataNode);
+					}
+				}
+				previous = dataNode;
+			}
+			p.addGroup(new Group(GroupType.GROUP));
+			File file = new File(dir, "p" + i + ".gpml");
+			p.writeToXml(file, false);
+			result.add(file);
+		}
+		return result;
+	}
+
+	private static void run(String name, PathwayValidator validator, List<File> files, int rounds) {
+		// warm-up
+		validator.validate(files);
+		long time = 0;
+		ValidationReport report = null;
+		for (int i = 0; i < rounds; i++) {
+			report = validator.validate(files);
+			time += report.getTime();
+		}
+		System.out.println(name + ": " + time / rounds + " msec per round, " + report.getErrorCount() + " errors, "
+				+ report.getWarningCount() + " warnings");
+	}
+
+	public static void main(String[] args) throws Exception {
+		int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+		File dir = args.length > 0 ? new File(args[0]) : null;
+		File tmp = null;
+		List<File> files = new ArrayList<File>();
+		if (dir == null) {
+			tmp = Files.createTempDirectory("validatorbenchmark").toFile();
+			files = generateCorpus(tmp, 1000);
+		} else {
+			for (File f : dir.listFiles()) {
+				if (f.getName().endsWith(".gpml")) {
+					files.add(f);
+				}
+			}
+		}
+		System.out.println("Validating " + files.size() + " files, " + rounds + " rounds, "
+				+ Runtime.getRuntime().availableProcessors() + " processors");
+		ForkJoinPool single = new ForkJoinPool(1);
+		run("1 thread", new PathwayValidator(StandardRules.getAll(), single), files, rounds);
+		single.shutdown();
+		run("Parallel", new PathwayValidator(StandardRules.getAll(), ForkJoinPool.commonPool()), files, rounds);
+		if (tmp != null) {
+			for (File f : files) {
+				f.delete();
+			}
+			tmp.delete();
+		}
+	}
+}
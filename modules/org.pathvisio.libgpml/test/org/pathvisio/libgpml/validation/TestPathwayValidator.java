@@ -0,0 +1,208 @@
+/*******************************************************************************
+ * PathVisio, a tool for data visualization and analysis using biological pathways
+ * Copyright 2006-2022 BiGCaT Bioinformatics, WikiPathways
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.pathvisio.libgpml.validation;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.bridgedb.bio.DataSourceTxt;
+import org.junit.Test;
+import org.pathvisio.libgpml.model.Citation;
+import org.pathvisio.libgpml.model.DataNode;
+import org.pathvisio.libgpml.model.Group;
+import org.pathvisio.libgpml.model.Interaction;
+import org.pathvisio.libgpml.model.PathwayModel;
+import org.pathvisio.libgpml.model.PathwayObject;
+import org.pathvisio.libgpml.model.type.DataNodeType;
+import org.pathvisio.libgpml.model.type.GroupType;
+import org.pathvisio.libgpml.util.XrefUtils;
+import org.pathvisio.libgpml.validation.ValidationIssue.Severity;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for {@link PathwayValidator} and the {@link StandardRules}.
+ */
+public class TestPathwayValidator extends TestCase {
+
+	private PathwayModel p;
+	private DataNode a, b;
+
+	public void setUp() {
+		p = new PathwayModel();
+		a = addDataNode(p, "a");
+		b = addDataNode(p, "b");
+	}
+
+	private static DataNode addDataNode(PathwayModel p, String label) {
+		DataNode dataNode = new DataNode(label, DataNodeType.GENEPRODUCT);
+		p.addDataNode(dataNode);
+		return dataNode;
+	}
+
+	private Interaction connect(PathwayModel p, DataNode start, DataNode end) {
+		Interaction interaction = new Interaction();
+		p.addInteraction(interaction);
+		interaction.getStartLinePoint().linkTo(start);
+		interaction.getEndLinePoint().linkTo(end);
+		return interaction;
+	}
+
+	private List<String> validate(ValidationRule rule) {
+		ValidationReport report = new PathwayValidator(Arrays.asList(rule)).validate(p);
+		List<String> result = new ArrayList<String>();
+		for (ValidationIssue issue : report.getIssues()) {
+			assertEquals(rule.getName(), issue.getRule());
+			result.add(issue.getSeverity() + " " + issue.getElementId() + " " + issue.getMessage());
+		}
+		return result;
+	}
+
+	@Test
+	public void testValidPathway() {
+		connect(p, a, b);
+		Group group = new Group(GroupType.COMPLEX);
+		p.addGroup(group);
+		group.addPathwayElement(a);
+		ValidationReport report = new PathwayValidator().validate(p);
+		assertTrue(report.getIssues().isEmpty());
+		assertFalse(report.hasErrors());
+	}
+
+	@Test
+	public void testDanglingReference() {
+		PathwayModel other = new PathwayModel();
+		DataNode c = addDataNode(other, "c");
+		Interaction interaction = connect(p, a, c);
+		assertEquals(
+				Arrays.asList(
+						"ERROR " + interaction.getElementId() + " end elementRef " + c.getElementId() + " is not in the pathway"),
+				validate(StandardRules.DANGLING_REFERENCE));
+	}
+
+	@Test
+	public void testEmptyGroup() {
+		Group group = new Group(GroupType.GROUP);
+		p.addGroup(group);
+		assertEquals(Arrays.asList("WARNING " + group.getElementId() + " group has no members"),
+				validate(StandardRules.EMPTY_GROUP));
+	}
+
+	@Test
+	public void testUnlinkedInteraction() {
+		Interaction interaction = connect(p, a, b);
+		assertTrue(validate(StandardRules.UNLINKED_INTERACTION).isEmpty());
+		interaction.getEndLinePoint().unlink();
+		assertEquals(Arrays.asList("WARNING " + interaction.getElementId() + " end is not linked"),
+				validate(StandardRules.UNLINKED_INTERACTION));
+	}
+
+	@Test
+	public void testAliasConsistency() {
+		Group group = new Group(GroupType.GROUP);
+		p.addGroup(group);
+		group.addPathwayElement(b);
+		DataNode alias = addDataNode(p, "alias");
+		alias.setType(DataNodeType.ALIAS);
+		assertEquals(Arrays.asList("WARNING " + alias.getElementId() + " alias has no aliasRef"),
+				validate(StandardRules.ALIAS_CONSISTENCY));
+		alias.setAliasRef(group);
+		assertTrue(validate(StandardRules.ALIAS_CONSISTENCY).isEmpty());
+	}
+
+	@Test
+	public void testUnresolvedCitation() {
+		DataSourceTxt.init();
+		a.addCitation(XrefUtils.createXref("123", "pubmed"), null);
+		assertTrue(validate(StandardRules.UNRESOLVED_CITATION).isEmpty());
+		Citation citation = b.addCitation(XrefUtils.createXref("PMC123", "pubmed"), null).getCitation();
+		assertEquals(Arrays.asList("WARNING " + citation.getElementId() + " \"PMC123\" is not a valid PubMed identifier"),
+				validate(StandardRules.UNRESOLVED_CITATION));
+	}
+
+	/**
+	 * Issues of many objects come out in elementId order, and a failing rule is
+	 * reported instead of stopping the validation.
+	 */
+	@Test
+	public void testLargePathway() {
+		for (int i = 0; i < 2000; i++) {
+			p.addGroup(new Group(GroupType.GROUP));
+		}
+		ValidationRule failing = new ValidationRule() {
+			public String getName() {
+				return "Failing";
+			}
+
+			public void visit(PathwayObject o, List<ValidationIssue> issues) {
+				if (o == a) {
+					throw new IllegalStateException();
+				}
+			}
+		};
+		ValidationReport report = new PathwayValidator(Arrays.asList(StandardRules.EMPTY_GROUP, failing)).validate(p);
+		assertEquals(2000, report.getWarningCount());
+		assertEquals(1, report.getErrorCount());
+		List<ValidationIssue> issues = report.getIssues();
+		for (int i = 1; i < issues.size(); i++) {
+			assertTrue(issues.get(i - 1).getElementId().compareTo(issues.get(i).getElementId()) < 0);
+		}
+	}
+
+	@Test
+	public void testFiles() throws Exception {
+		File dir = Files.createTempDirectory("validator").toFile();
+		try {
+			connect(p, a, b).getEndLinePoint().unlink();
+			File valid = new File(dir, "valid.gpml");
+			p.writeToXml(valid, false);
+			File broken = new File(dir, "broken.gpml");
+			Files.write(broken.toPath(), "<Pathway".getBytes("UTF-8"));
+
+			ValidationReport report = new PathwayValidator().validate(Arrays.asList(valid, broken));
+			assertEquals(2, report.getIssues().size());
+			ValidationIssue warning = report.getIssues().get(0);
+			assertEquals(valid, warning.getFile());
+			assertEquals(StandardRules.UNLINKED_INTERACTION.getName(), warning.getRule());
+			ValidationIssue error = report.getIssues().get(1);
+			assertEquals(broken, error.getFile());
+			assertEquals(PathwayValidator.READ_RULE, error.getRule());
+			assertTrue(report.hasErrors());
+
+			StringWriter text = new StringWriter();
+			report.writeText(text);
+			assertTrue(text.toString().endsWith("2 files, 1 errors, 1 warnings" + System.lineSeparator()));
+
+			ByteArrayOutputStream xml = new ByteArrayOutputStream();
+			report.writeJUnitXml(xml);
+			String s = xml.toString("UTF-8");
+			assertTrue(s.contains("<testsuites tests=\"12\" failures=\"1\""));
+			assertTrue(s.contains("<failure message=\"Read found errors\">"));
+			assertTrue(s.contains("<system-out>"));
+		} finally {
+			for (File f : dir.listFiles()) {
+				f.delete();
+			}
+			dir.delete();
+		}
+	}
+}
@@ -97,7 +97,7 @@ private void setUpLocalRepo() {
 			try {
 				File file = new File(version.getJarFile());
 				if (file.exists()) {
-					Bundle b = context.installBundle(file.toURI().toString());
+					Bundle b = Utils.installBundle(context, file);
 					bundleList.add(b);
 					version.getBundle().getStatus().setBundle(b);
 				} else {
@@ -20,7 +20,6 @@
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -37,7 +36,6 @@
 import javax.swing.SwingWorker;
 
 import org.apache.felix.bundlerepository.Reason;
-import org.apache.felix.bundlerepository.Repository;
 import org.apache.felix.bundlerepository.RepositoryAdmin;
 import org.apache.felix.bundlerepository.Resolver;
 import org.apache.felix.bundlerepository.Resource;
@@ -61,6 +59,7 @@
 import org.pathvisio.pluginmanager.impl.data.PVRepository;
 import org.pathvisio.pluginmanager.impl.dialogs.PluginManagerDialog;
 import org.pathvisio.pluginmanager.impl.io.RepoXmlReader;
+import org.pathvisio.pluginmanager.impl.io.RepositoryIndexCache;
 
 /**
  * Implementation of the IPluginManager interface functionality to install
@@ -83,6 +82,7 @@ public class PluginManager implements IPluginManager {
 
 	private LocalRepositoryHandler localHandler;
 	private PluginManagerDialog dlg;
+	private RepositoryIndexCache indexCache;
 
 	public static final String ARG_PROPERTY_WPID = "wp.id";
 
@@ -93,6 +93,7 @@ public PluginManager(BundleContext context) {
 		problems = new ArrayList<BundleVersion>();
 		localHandler = new LocalRepositoryHandler(context, this);
 		tmpBundles = new HashMap<String, BundleVersion>();
+		indexCache = new RepositoryIndexCache(new File(GlobalPreference.getApplicationDir(), "repository-cache"));
 	}
 
 	public void init(PvDesktop desktop) {
@@ -112,20 +113,36 @@ public void init(PvDesktop desktop) {
 		repoAdmin = (RepositoryAdmin) context.getService(ref);
 
 		if (ref != null) {
-			SwingWorker<Void, Map<Repository, URL>> worker = new SwingWorker<Void, Map<Repository, URL>>() {
-				boolean atLeastOneSuccess = false;
+			SwingWorker<Void, List<PVRepository>> worker = new SwingWorker<Void, List<PVRepository>>() {
+				boolean registered = false;
 				Throwable connectionException;
 
 				@Override
 				protected Void doInBackground() throws Exception {
 
 					URL url = new URL(PreferenceManager.getCurrent().get(PluginRepoPreference.ONLINE_REPO_URL));
+					URL xmlUrl = Utils.getXMLURL(url);
+
+					// show the cached index right away, the repository may be slow or unreachable
+					File cached = indexCache.getCachedFile(xmlUrl);
+					if (cached != null) {
+						List<PVRepository> repositories = readPluginInfo(cached);
+						if (repositories != null) {
+							publish(repositories);
+						}
+					}
+
 					try {
-						Repository repo = repoAdmin.addRepository(url);
-						Map<Repository, URL> map = new HashMap<Repository, URL>();
-						map.put(repo, url);
-						publish(map);
-						atLeastOneSuccess = true;
+						if (indexCache.revalidate(xmlUrl) || cached == null) {
+							List<PVRepository> repositories = readPluginInfo(indexCache.getCachedFile(xmlUrl));
+							if (repositories != null) {
+								publish(repositories);
+							}
+						}
+						// needed to resolve dependencies when installing
+						repoAdmin.addRepository(url);
+						registered = true;
+						Logger.log.info("Initialize repository " + url);
 					} catch (Exception e) {
 						Logger.log.error("Could not initialize repository " + url + "\t" + e.getMessage());
 						connectionException = e;
@@ -134,33 +151,40 @@ protected Void doInBackground() throws Exception {
 				}
 
 				@Override
-				protected void process(List<Map<Repository, URL>> result) {
-					for (Map<Repository, URL> repo : result) {
-						for (Repository r : repo.keySet()) {
-							setUpOnlineRepo(r, repo.get(r));
-						}
+				protected void process(List<List<PVRepository>> result) {
+					// only the most recent index counts
+					setUpOnlineRepos(result.get(result.size() - 1));
+					// the plugins can be browsed while the repository is still being checked,
+					// but they can only be installed once it is registered
+					if (status != PluginManagerStatus.CONNECTION_COMPLETED_SUCCESSFULLY) {
+						browsingCache = true;
+					}
+					if (dlg != null) {
+						dlg.updateData();
 					}
 				}
 
 				@Override
 				protected void done() {
-					if (atLeastOneSuccess) {
+					if (registered) {
 						status = PluginManagerStatus.CONNECTION_COMPLETED_SUCCESSFULLY;
-
-						// check if WP plugin needs to be installed
-						String str = System.getProperty(ARG_PROPERTY_WPID);
-						if (str != null && !runningPlugins.containsKey("org.pathvisio.wpclient")) {
-							for (BundleVersion plugin : getAvailablePlugins()) {
-								if (plugin.getSymbolicName().equals("org.pathvisio.wpclient")) {
-									installPluginFromRepo(plugin);
-								}
-							}
-						}
+						browsingCache = false;
 					} else {
 						status = PluginManagerStatus.CONNECTION_COMPLETED_FAILURE;
 						savedConnectionException = connectionException;
 					}
 
+					// check if WP plugin needs to be installed, this reports the connection
+					// error if the repository could not be registered
+					String str = System.getProperty(ARG_PROPERTY_WPID);
+					if (str != null && !runningPlugins.containsKey("org.pathvisio.wpclient")) {
+						for (BundleVersion plugin : getAvailablePlugins()) {
+							if (plugin.getSymbolicName().equals("org.pathvisio.wpclient")) {
+								installPluginFromRepo(plugin);
+							}
+						}
+					}
+
 					if (dlg != null) {
 						dlg.updateData();
 					}
@@ -225,39 +249,33 @@ private void checkTmpBundles(ServiceReference serviceReference) {
 
 	/**
 	 * initializes the online repository information comes from the pathvisio.xml
-	 * file in the repository such an XML file can contain more than one repository
+	 * file in the repository such an XML file can contain more than one
+	 * repository. Replaces the repositories of an earlier (cached) index.
 	 */
-	private void setUpOnlineRepo(Repository repo, URL url) {
-		if (repo != null) {
-			Logger.log.info("Initialize repository " + url);
-
-			List<PVRepository> repositories = readPluginInfo(url);
-			if (repositories != null) {
-				for (PVRepository r : repositories) {
-					// set to installed if bundle is present in local repository
-					for (BundleVersion version : r.getBundleVersions()) {
-						if (localHandler.containsBundle(version.getSymbolicName()) != null) {
-							version.getBundle().setInstalled(true);
-						}
-					}
+	private void setUpOnlineRepos(List<PVRepository> repositories) {
+		for (PVRepository r : repositories) {
+			// set to installed if bundle is present in local repository
+			for (BundleVersion version : r.getBundleVersions()) {
+				if (localHandler.containsBundle(version.getSymbolicName()) != null) {
+					version.getBundle().setInstalled(true);
 				}
-				// a database can contain more than one repository
-				// all of them will be added separately
-				onlineRepos.addAll(repositories);
 			}
 		}
+		// a database can contain more than one repository
+		// all of them will be added separately
+		onlineRepos.clear();
+		onlineRepos.addAll(repositories);
 	}
 
 	/**
 	 * currently the pathvisio.xml file is created through a mysql dump
 	 */
-	private List<PVRepository> readPluginInfo(URL url) {
+	private List<PVRepository> readPluginInfo(File file) {
 		try {
 			RepoXmlReader reader = new RepoXmlReader();
-			List<PVRepository> repositories = reader.parseFile(Utils.getXMLURL(url));
-			return repositories;
-		} catch (MalformedURLException e) {
-			Logger.log.error("Could not initialize repository " + url + "\t" + e.getMessage());
+			return reader.parseFile(file);
+		} catch (IOException e) {
+			Logger.log.error("Could not read repository index " + file + "\t" + e.getMessage());
 		}
 		return null;
 	}
@@ -269,6 +287,8 @@ public void installPluginFromRepo(final BundleVersion version) {
 
 		final ProgressKeeper pk = new ProgressKeeper();
 		final ProgressDialog d = new ProgressDialog(dlg, "", pk, false, true);
+		// dependencies can only be resolved once the repository is registered
+		final String connectionError = getConnectionError();
 
 		SwingWorker<Boolean, Boolean> sw = new SwingWorker<Boolean, Boolean>() {
 			@Override
@@ -276,6 +296,17 @@ protected Boolean doInBackground() throws InterruptedException {
 				pk.setTaskName("Installing plugin");
 				Thread.sleep(200);
 
+				if (connectionError != null) {
+					version.getBundle().getStatus().setSuccess(false);
+					version.getBundle().getStatus().setMessage(
+							"Could not install plugin " + version.getSymbolicName() + ": " + connectionError);
+
+					Logger.log.error("Could not install plugin " + version.getSymbolicName() + ": " + connectionError);
+					problems.add(version);
+					pk.finished();
+					return false;
+				}
+
 				List<Resource> resources = resolveDependencies(version);
 				if (resources.size() == 0) {
 					version.getBundle().getStatus().setSuccess(false);
@@ -295,7 +326,7 @@ protected Boolean doInBackground() throws InterruptedException {
 							try {
 								file = Utils.downloadFile(res.getURI(), res, localHandler.getLocalRepoLocation());
 								try {
-									Bundle b = context.installBundle(file.toURI().toString());
+									Bundle b = Utils.installBundle(context, file);
 									bundleList.add(b);
 									bundleVersion.getBundle().getStatus().setBundle(b);
 									bundleVersion.setJarFile(file.getAbsolutePath());
@@ -342,6 +373,9 @@ public void done() {
 				if (version.getBundle().isInstalled()) {
 					JOptionPane.showMessageDialog(dlg,
 							"Plugin " + version.getSymbolicName() + "  was installed successfully.");
+				} else if (connectionError != null) {
+					JOptionPane.showMessageDialog(dlg,
+							"Plugin " + version.getSymbolicName() + " can't be installed, " + connectionError);
 				} else {
 					JOptionPane.showMessageDialog(dlg, "There was a problem installing plugin "
 							+ version.getSymbolicName() + ". Please check the error tab.");
@@ -634,7 +668,7 @@ public void installLocalPlugins(List<File> plugins, List<File> dependencies) {
 		for (BundleVersion v : bundleVersion) {
 			try {
 				File file = new File(v.getJarFile());
-				Bundle b = context.installBundle(file.toURI().toString());
+				Bundle b = Utils.installBundle(context, file);
 				v.getBundle().getStatus().setBundle(b);
 
 				map.put(v, b);
@@ -736,11 +770,59 @@ public enum PluginManagerStatus {
 
 	private PluginManagerStatus status = PluginManagerStatus.BUSY;
 	private Throwable savedConnectionException = null;
+	private boolean browsingCache = false;
 
+	/**
+	 * Returns whether the online repository was registered, which is needed to
+	 * install plugins from it.
+	 */
 	public PluginManagerStatus getStatus() {
 		return status;
 	}
 
+	/**
+	 * Returns true if the available plugins are read from the cached repository
+	 * index while the online repository is not registered (yet), so they can be
+	 * browsed but not installed.
+	 */
+	public boolean isBrowsingCache() {
+		return browsingCache;
+	}
+
+	/**
+	 * Returns the exception that prevented connecting to the online repository, or
+	 * null.
+	 */
+	public Throwable getConnectionException() {
+		return savedConnectionException;
+	}
+
+	/**
+	 * Returns why plugins can't be installed from the online repository, or null
+	 * if they can.
+	 */
+	private String getConnectionError() {
+		switch (status) {
+		case BUSY:
+			return "still connecting to the online repository, please try again later.";
+		case CONNECTION_COMPLETED_FAILURE:
+			String msg = "could not connect to the online repository";
+			if (savedConnectionException != null) {
+				msg = msg + " (" + getRootCause(savedConnectionException).getMessage() + ")";
+			}
+			return msg + ".";
+		default:
+			return null;
+		}
+	}
+
+	private static Throwable getRootCause(Throwable t) {
+		while (t.getCause() != null) {
+			t = t.getCause();
+		}
+		return t;
+	}
+
 	/**
 	 * Return the status of connecting to online repositories. The resulting message
 	 * may contain html formatting suitable for a JLabel.
@@ -750,17 +832,23 @@ public String getStatusMessage() {
 		switch (status) {
 		case BUSY:
 			msg = "Attempting to connect to online repository, please wait...";
+			if (browsingCache) {
+				msg = msg + " Showing the plugins of the cached repository index.";
+			}
 			break;
 		case CONNECTION_COMPLETED_FAILURE:
-			msg = "PathVisio was not able to connect to the online plugin repository.";
+			msg = "<html>PathVisio was not able to connect to the online plugin repository.";
 			if (savedConnectionException != null) {
 				// create a user-friendly exception message
-				Throwable t = savedConnectionException;
-				if (t.getCause() != null)
-					t = t.getCause();
-				Logger.log.warn("<html>Exception occurred while connecting to the online repository." + "<br>"
-						+ t.getClass().getSimpleName() + ": " + savedConnectionException.getCause().getMessage());
+				Throwable t = getRootCause(savedConnectionException);
+				msg = msg + "<br>" + t.getClass().getSimpleName() + ": " + t.getMessage();
+				Logger.log.warn("Exception occurred while connecting to the online repository. "
+						+ t.getClass().getSimpleName() + ": " + t.getMessage());
+			}
+			if (browsingCache) {
+				msg = msg + "<br>Showing the plugins of the cached repository index, they can't be installed.";
 			}
+			msg = msg + "</html>";
 			break;
 		default:
 		case CONNECTION_COMPLETED_SUCCESSFULLY:
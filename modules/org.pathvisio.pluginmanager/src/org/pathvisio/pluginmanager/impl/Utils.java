@@ -28,6 +28,9 @@
 import java.util.regex.Pattern;
 
 import org.apache.felix.bundlerepository.Resource;
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.BundleException;
 import org.pathvisio.pluginmanager.impl.data.BundleAuthor;
 import org.pathvisio.pluginmanager.impl.data.BundleVersion;
 
@@ -66,6 +69,21 @@ public static void copyFile(File sourceFile, File destFile) throws IOException {
 	    }
 	}
 	
+	/**
+	 * installs the bundle in a jar file. If the framework still has the bundle
+	 * from an earlier session, e.g. when the bundle cache is kept, and the jar
+	 * file was replaced since, the bundle is updated from the jar file.
+	 * @param context = bundle context to install the bundle in
+	 * @param file = jar file of the bundle
+	 */
+	public static Bundle installBundle(BundleContext context, File file) throws BundleException {
+		Bundle b = context.installBundle(file.toURI().toString());
+		if (file.lastModified() > b.getLastModified()) {
+			b.update();
+		}
+		return b;
+	}
+
 	/**
 	 * downloads a file and saves it in the bundle directory
 	 * @param uri = URI of the repository file
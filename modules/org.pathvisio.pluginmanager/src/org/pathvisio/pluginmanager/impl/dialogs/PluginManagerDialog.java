@@ -100,8 +100,10 @@ private Component getContentPanel() {
 		pane.add("Errors", errorPanel);
 		StatusPanel statusPanel = new StatusPanel(manager);
 		pane.add("Status", statusPanel);
-		if (manager.getStatus().equals(PluginManagerStatus.CONNECTION_COMPLETED_FAILURE) 
-				|| manager.getStatus().equals(PluginManagerStatus.BUSY)) {
+		// the plugins of the cached index can be browsed without a connection
+		if (!manager.isBrowsingCache()
+				&& (manager.getStatus().equals(PluginManagerStatus.CONNECTION_COMPLETED_FAILURE)
+						|| manager.getStatus().equals(PluginManagerStatus.BUSY))) {
 			pane.setSelectedComponent(statusPanel);
 		}
 		
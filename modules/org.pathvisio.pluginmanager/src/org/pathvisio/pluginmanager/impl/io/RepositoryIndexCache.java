@@ -0,0 +1,193 @@
+/*******************************************************************************
+ * PathVisio, a tool for data visualization and analysis using biological pathways
+ * Copyright 2006-2022 BiGCaT Bioinformatics, WikiPathways
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.pathvisio.pluginmanager.impl.io;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+
+import org.pathvisio.libgpml.debug.Logger;
+
+/**
+ * Keeps a copy of a repository index file on disk, so the plugin manager can
+ * show the available plugins without a network connection. The copy is
+ * revalidated with ETag / If-Modified-Since, and only downloaded again if the
+ * repository reports a change. Works with any URL that java can open, so a
+ * local file:// repository can be used as well.
+ */
+public class RepositoryIndexCache {
+
+	private static final String ETAG = "etag";
+	private static final String LAST_MODIFIED = "last-modified";
+	private static final String LENGTH = "length";
+	private static final String URL = "url";
+
+	private static final int CONNECT_TIMEOUT = 10000;
+	private static final int READ_TIMEOUT = 30000;
+
+	private final File cacheDir;
+
+	/**
+	 * @param cacheDir directory to store the index files in, is created when
+	 *                 needed.
+	 */
+	public RepositoryIndexCache(File cacheDir) {
+		this.cacheDir = cacheDir;
+	}
+
+	/**
+	 * Returns the cached copy of the index at the given url, or null if there is
+	 * none yet.
+	 */
+	public File getCachedFile(URL url) {
+		File f = getIndexFile(url);
+		if (f.exists() && getMetadataFile(url).exists()) {
+			return f;
+		}
+		return null;
+	}
+
+	/**
+	 * Checks the index at the given url against the cached copy, and downloads it
+	 * if it changed.
+	 * 
+	 * @return true if the cached copy was created or replaced, false if the cached
+	 *         copy is still up to date.
+	 * @throws IOException if the repository could not be reached.
+	 */
+	public boolean revalidate(URL url) throws IOException {
+		File indexFile = getIndexFile(url);
+		File metadataFile = getMetadataFile(url);
+		Properties metadata = new Properties();
+		if (indexFile.exists() && metadataFile.exists()) {
+			InputStream in = new FileInputStream(metadataFile);
+			try {
+				metadata.load(in);
+			} finally {
+				in.close();
+			}
+		}
+
+		URLConnection conn = url.openConnection();
+		conn.setConnectTimeout(CONNECT_TIMEOUT);
+		conn.setReadTimeout(READ_TIMEOUT);
+		conn.setUseCaches(false);
+		String etag = metadata.getProperty(ETAG);
+		long lastModified = Long.parseLong(metadata.getProperty(LAST_MODIFIED, "0"));
+		if (etag != null) {
+			conn.setRequestProperty("If-None-Match", etag);
+		}
+		if (lastModified > 0) {
+			conn.setIfModifiedSince(lastModified);
+		}
+
+		try {
+			if (conn instanceof HttpURLConnection) {
+				int code = ((HttpURLConnection) conn).getResponseCode();
+				if (code == HttpURLConnection.HTTP_NOT_MODIFIED) {
+					return false;
+				}
+				if (code != HttpURLConnection.HTTP_OK) {
+					throw new IOException("Server returned " + code + " for " + url);
+				}
+			} else {
+				// no conditional requests for file: and jar: urls, compare ourselves
+				if (lastModified > 0 && conn.getLastModified() == lastModified
+						&& conn.getContentLengthLong() == Long.parseLong(metadata.getProperty(LENGTH, "-1"))) {
+					return false;
+				}
+			}
+			download(conn, indexFile);
+		} finally {
+			if (conn instanceof HttpURLConnection) {
+				((HttpURLConnection) conn).disconnect();
+			}
+		}
+
+		Properties newMetadata = new Properties();
+		newMetadata.setProperty(URL, url.toString());
+		if (conn.getHeaderField("ETag") != null) {
+			newMetadata.setProperty(ETAG, conn.getHeaderField("ETag"));
+		}
+		newMetadata.setProperty(LAST_MODIFIED, "" + conn.getLastModified());
+		newMetadata.setProperty(LENGTH, "" + indexFile.length());
+		OutputStream out = new FileOutputStream(metadataFile);
+		try {
+			newMetadata.store(out, "Repository index cache");
+		} finally {
+			out.close();
+		}
+		Logger.log.info("Updated cached repository index " + url);
+		return true;
+	}
+
+	/**
+	 * Writes the response to a temporary file first, so that an interrupted
+	 * download doesn't leave a broken index behind.
+	 */
+	private void download(URLConnection conn, File indexFile) throws IOException {
+		if (!cacheDir.exists()) {
+			cacheDir.mkdirs();
+		}
+		File tmp = File.createTempFile("index", ".tmp", cacheDir);
+		try {
+			InputStream in = conn.getInputStream();
+			try {
+				Files.copy(in, tmp.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			} finally {
+				in.close();
+			}
+			Files.move(tmp.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		} finally {
+			tmp.delete();
+		}
+	}
+
+	/**
+	 * Removes the cached copy of the index at the given url.
+	 */
+	public void clear(URL url) {
+		getIndexFile(url).delete();
+		getMetadataFile(url).delete();
+	}
+
+	private File getIndexFile(URL url) {
+		return new File(cacheDir, getBaseName(url) + ".xml");
+	}
+
+	private File getMetadataFile(URL url) {
+		return new File(cacheDir, getBaseName(url) + ".properties");
+	}
+
+	/**
+	 * Different repositories may use the same file name, so include a hash of the
+	 * full url.
+	 */
+	private static String getBaseName(URL url) {
+		String name = new File(url.getPath()).getName().replaceAll("\\.xml$", "");
+		return name + "-" + Integer.toHexString(url.toString().hashCode());
+	}
+}
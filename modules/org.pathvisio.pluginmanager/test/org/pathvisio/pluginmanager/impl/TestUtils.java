@@ -0,0 +1,90 @@
+/*******************************************************************************
+ * PathVisio, a tool for data visualization and analysis using biological pathways
+ * Copyright 2006-2022 BiGCaT Bioinformatics, WikiPathways
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.pathvisio.pluginmanager.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleContext;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for {@link Utils}.
+ */
+public class TestUtils extends TestCase {
+
+	private File jar;
+	private long installed;
+	private final List<String> calls = new ArrayList<String>();
+
+	public void setUp() throws IOException {
+		jar = File.createTempFile("plugin", ".jar");
+		jar.deleteOnExit();
+	}
+
+	public void tearDown() {
+		jar.delete();
+	}
+
+	/**
+	 * Returns a bundle context of which installBundle returns a bundle that was
+	 * last installed or updated at {@link #installed}.
+	 */
+	private BundleContext createContext() {
+		final Bundle bundle = (Bundle) Proxy.newProxyInstance(getClass().getClassLoader(),
+				new Class<?>[] { Bundle.class }, new InvocationHandler() {
+					public Object invoke(Object proxy, Method method, Object[] args) {
+						calls.add(method.getName());
+						if ("getLastModified".equals(method.getName())) {
+							return installed;
+						}
+						return null;
+					}
+				});
+		return (BundleContext) Proxy.newProxyInstance(getClass().getClassLoader(),
+				new Class<?>[] { BundleContext.class }, new InvocationHandler() {
+					public Object invoke(Object proxy, Method method, Object[] args) {
+						calls.add(method.getName() + " " + args[0]);
+						return bundle;
+					}
+				});
+	}
+
+	public void testInstallBundle() throws Exception {
+		jar.setLastModified(1000000000000L);
+		installed = 1000000001000L;
+		Bundle b = Utils.installBundle(createContext(), jar);
+		assertNotNull(b);
+		assertEquals("installBundle " + jar.toURI(), calls.get(0));
+		assertFalse(calls.contains("update"));
+	}
+
+	public void testUpdateReplacedBundle() throws Exception {
+		// the jar file was replaced after the cached bundle was installed
+		jar.setLastModified(1000000002000L);
+		installed = 1000000001000L;
+		Utils.installBundle(createContext(), jar);
+		assertTrue(calls.contains("update"));
+	}
+}
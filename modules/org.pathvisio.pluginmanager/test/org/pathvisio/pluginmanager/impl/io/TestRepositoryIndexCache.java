@@ -0,0 +1,176 @@
+/*******************************************************************************
+ * PathVisio, a tool for data visualization and analysis using biological pathways
+ * Copyright 2006-2022 BiGCaT Bioinformatics, WikiPathways
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ ******************************************************************************/
+package org.pathvisio.pluginmanager.impl.io;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests for {@link RepositoryIndexCache}, against a local stub server and a
+ * file:// repository.
+ */
+public class TestRepositoryIndexCache extends TestCase {
+
+	private HttpServer server;
+	private URL url;
+	private File cacheDir;
+
+	private String index = "<repository>one</repository>";
+	private String etag = "\"v1\"";
+	private int status = 200;
+	private final List<String> ifNoneMatch = new ArrayList<String>();
+
+	public void setUp() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		server.createContext("/", new HttpHandler() {
+			public void handle(HttpExchange exchange) throws IOException {
+				String tag = exchange.getRequestHeaders().getFirst("If-None-Match");
+				ifNoneMatch.add(tag);
+				if (status != 200) {
+					exchange.sendResponseHeaders(status, -1);
+				} else if (etag.equals(tag)) {
+					exchange.sendResponseHeaders(304, -1);
+				} else {
+					byte[] bytes = index.getBytes("UTF-8");
+					exchange.getResponseHeaders().set("ETag", etag);
+					exchange.sendResponseHeaders(200, bytes.length);
+					OutputStream out = exchange.getResponseBody();
+					out.write(bytes);
+					out.close();
+				}
+				exchange.close();
+			}
+		});
+		server.start();
+		url = new URL("http", "localhost", server.getAddress().getPort(), "/repo/pathvisio.xml");
+		cacheDir = Files.createTempDirectory("repository-cache").toFile();
+	}
+
+	public void tearDown() {
+		server.stop(0);
+		for (File f : cacheDir.listFiles()) {
+			f.delete();
+		}
+		cacheDir.delete();
+	}
+
+	private static String read(File f) throws IOException {
+		return new String(Files.readAllBytes(f.toPath()), "UTF-8");
+	}
+
+	public void testDownload() throws IOException {
+		RepositoryIndexCache cache = new RepositoryIndexCache(cacheDir);
+		assertNull(cache.getCachedFile(url));
+		assertTrue(cache.revalidate(url));
+		assertEquals(index, read(cache.getCachedFile(url)));
+		assertNull(ifNoneMatch.get(0));
+	}
+
+	public void testNotModified() throws IOException {
+		RepositoryIndexCache cache = new RepositoryIndexCache(cacheDir);
+		cache.revalidate(url);
+		File cached = cache.getCachedFile(url);
+		long modified = cached.lastModified();
+
+		// the etag of the cached copy is sent, and the server answers 304
+		assertFalse(cache.revalidate(url));
+		assertEquals(etag, ifNoneMatch.get(1));
+		assertEquals(modified, cache.getCachedFile(url).lastModified());
+
+		// a new etag means a new index
+		index = "<repository>two</repository>";
+		etag = "\"v2\"";
+		assertTrue(cache.revalidate(url));
+		assertEquals(index, read(cache.getCachedFile(url)));
+		assertFalse(cache.revalidate(url));
+		assertEquals("\"v2\"", ifNoneMatch.get(3));
+
+		// the metadata is kept on disk
+		assertFalse(new RepositoryIndexCache(cacheDir).revalidate(url));
+	}
+
+	public void testOffline() throws IOException {
+		RepositoryIndexCache cache = new RepositoryIndexCache(cacheDir);
+		cache.revalidate(url);
+
+		status = 500;
+		try {
+			cache.revalidate(url);
+			fail("Expected IOException");
+		} catch (IOException e) {
+			// expected
+		}
+		assertEquals(index, read(cache.getCachedFile(url)));
+
+		server.stop(0);
+		try {
+			cache.revalidate(url);
+			fail("Expected IOException");
+		} catch (IOException e) {
+			// expected
+		}
+		// the cached copy can still be browsed
+		assertEquals(index, read(cache.getCachedFile(url)));
+	}
+
+	public void testFileUrl() throws IOException {
+		File repo = Files.createTempDirectory("repository").toFile();
+		File xml = new File(repo, "pathvisio.xml");
+		try {
+			write(xml, "<repository>one</repository>");
+			URL fileUrl = xml.toURI().toURL();
+			RepositoryIndexCache cache = new RepositoryIndexCache(cacheDir);
+			assertTrue(cache.revalidate(fileUrl));
+			assertFalse(cache.revalidate(fileUrl));
+
+			write(xml, "<repository>three</repository>");
+			xml.setLastModified(xml.lastModified() + 2000);
+			assertTrue(cache.revalidate(fileUrl));
+			assertEquals("<repository>three</repository>", read(cache.getCachedFile(fileUrl)));
+
+			// different repositories don't share a copy
+			assertNull(cache.getCachedFile(url));
+			cache.clear(fileUrl);
+			assertNull(cache.getCachedFile(fileUrl));
+		} finally {
+			xml.delete();
+			repo.delete();
+		}
+	}
+
+	private static void write(File f, String s) throws IOException {
+		OutputStream out = new FileOutputStream(f);
+		try {
+			out.write(s.getBytes("UTF-8"));
+		} finally {
+			out.close();
+		}
+	}
+}